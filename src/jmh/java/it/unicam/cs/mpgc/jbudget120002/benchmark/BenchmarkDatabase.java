@@ -0,0 +1,129 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.service.BalanceIndex;
+import it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory;
+import it.unicam.cs.mpgc.jbudget120002.util.LedgerGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared JMH state: an embedded in-memory H2 database holding a deterministic
+ * synthetic ledger of {@code transactionCount} transactions.
+ *
+ * <p>The database is created from the application persistence unit, overriding only the
+ * JDBC URL and the schema strategy, so benchmarks run against the real mappings. The
+ * ledger is written by {@link LedgerGenerator} with a fixed seed. The persistence
+ * context is cleared after every invocation so each call pays the cost of loading its
+ * entities instead of hitting the first-level cache.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * @Benchmark
+ * public Object monthlyBalances(BenchmarkDatabase db) {
+ *     return db.services().getStatisticsService(false).getMonthlyBalances(db.periodStart(), db.periodEnd());
+ * }
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+    public static final long SEED = 42L;
+
+    /** Last day of the generated ledger; fixed so data does not depend on the clock */
+    public static final LocalDate END_DATE = LocalDate.of(2024, 12, 31);
+
+    @Param({"1000", "100000", "1000000"})
+    public int transactionCount;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+    private ServiceFactory serviceFactory;
+    private LedgerGenerator.Result ledger;
+
+    // ==================== LIFECYCLE ====================
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url",
+            "jdbc:h2:mem:jbudget_bench_" + transactionCount + ";DB_CLOSE_DELAY=-1;MODE=MySQL");
+        overrides.put("hibernate.hbm2ddl.auto", "create-drop");
+        overrides.put("hibernate.show_sql", "false");
+
+        emf = Persistence.createEntityManagerFactory("jbudgetPU", overrides);
+        em = emf.createEntityManager();
+        serviceFactory = new ServiceFactory(em);
+
+        LedgerGenerator generator = new LedgerGenerator(new LedgerGenerator.Options()
+            .withSeed(SEED)
+            .withTransactions(transactionCount)
+            .withEndDate(END_DATE), templates());
+        em.getTransaction().begin();
+        ledger = em.unwrap(Session.class).doReturningWork(generator::generate);
+        em.getTransaction().commit();
+        // As at application startup; the generator writes the primary tags, so it finds none missing
+        serviceFactory.getTransactionService(false).backfillPrimaryTags();
+        BalanceIndex.getInstance().invalidate();
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearPersistenceContext() {
+        em.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BalanceIndex.getInstance().invalidate();
+        if (em != null && em.isOpen()) {
+            em.close();
+        }
+        if (emf != null && emf.isOpen()) {
+            emf.close();
+        }
+    }
+
+    private static List<LedgerGenerator.Template> templates() throws IOException {
+        Path sample = Path.of("sample-data.csv");
+        return Files.exists(sample) ? LedgerGenerator.loadTemplates(sample) : LedgerGenerator.defaultTemplates();
+    }
+
+    // ==================== ACCESSORS ====================
+
+    public EntityManager entityManager() { return em; }
+    public ServiceFactory services() { return serviceFactory; }
+    public LedgerGenerator.Result ledger() { return ledger; }
+
+    /** The user whose view of the ledger is benchmarked */
+    public User user() {
+        return em.find(User.class, ledger.userIds().get(0));
+    }
+
+    public List<Long> groupIds() {
+        return List.of(ledger.householdGroupIds().get(0));
+    }
+
+    /** A one-year reporting period ending at the end of the ledger */
+    public LocalDate periodStart() { return END_DATE.minusYears(1).plusDays(1); }
+    public LocalDate periodEnd() { return END_DATE; }
+}
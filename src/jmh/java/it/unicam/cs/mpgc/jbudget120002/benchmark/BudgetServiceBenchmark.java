@@ -0,0 +1,29 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of BudgetServiceImpl.calculateBudgetStatus for a single month and for
+ * the whole year of generated budgets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BudgetServiceBenchmark {
+
+    @Benchmark
+    public Object budgetStatusCurrentMonth(BenchmarkDatabase db) {
+        return db.services().getBudgetService(false)
+            .calculateBudgetStatus(db.periodEnd().withDayOfMonth(1), db.periodEnd());
+    }
+
+    @Benchmark
+    public Object budgetStatusYear(BenchmarkDatabase db) {
+        return db.services().getBudgetService(false)
+            .calculateBudgetStatus(db.periodStart(), db.periodEnd());
+    }
+}
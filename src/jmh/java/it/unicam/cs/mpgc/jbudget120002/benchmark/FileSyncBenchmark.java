@@ -0,0 +1,49 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import it.unicam.cs.mpgc.jbudget120002.service.SyncService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the FileSyncService phases for a sync covering the last month of the
+ * ledger. The file phases are left out so results do not depend on disk speed; the
+ * in-memory phases (collect, resolve, apply) are measured separately and together.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FileSyncBenchmark {
+
+    @Benchmark
+    public Object collectChanges(BenchmarkDatabase db) {
+        return sync(db).getChangesSince(lastSyncTime());
+    }
+
+    @Benchmark
+    public Object collectAndResolve(BenchmarkDatabase db) {
+        SyncService sync = sync(db);
+        return sync.resolveConflicts(sync.getChangesSince(lastSyncTime()), Map.of());
+    }
+
+    @Benchmark
+    public Object collectResolveAndApply(BenchmarkDatabase db) {
+        SyncService sync = sync(db);
+        Map<String, List<?>> resolved = sync.resolveConflicts(sync.getChangesSince(lastSyncTime()), Map.of());
+        sync.applyChanges(resolved);
+        return resolved;
+    }
+
+    private static SyncService sync(BenchmarkDatabase db) {
+        return db.services().getSyncService(false);
+    }
+
+    private static LocalDateTime lastSyncTime() {
+        return BenchmarkDatabase.END_DATE.minusMonths(1).atStartOfDay();
+    }
+}
@@ -0,0 +1,133 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.service.BulkWriter;
+import it.unicam.cs.mpgc.jbudget120002.service.CommitHooks;
+import it.unicam.cs.mpgc.jbudget120002.service.ReadOnlyWork;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the persistence modes used by statistics, exports, scheduled generation
+ * and sync apply, each against the stateful mode it replaced.
+ *
+ * <p>Reads load a year of transactions and then flush, as the next unit of work on the
+ * same EntityManager would: in read-only mode the entities carry no snapshot to copy on
+ * load or to compare on flush. Writes insert a batch of transactions with one tag each,
+ * through the persistence context or through a {@link BulkWriter}. Run with
+ * {@code -PjmhProfilers=gc} to see the memory allocated per operation next to the time.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistenceModeBenchmark {
+
+    /** Description of the benchmark's own transactions, deleted after every invocation */
+    static final String MARKER = "persistence-mode-benchmark";
+
+    /**
+     * A batch of new transactions, rebuilt for every invocation.
+     */
+    @State(Scope.Thread)
+    public static class Batch {
+
+        @Param({"1000", "10000"})
+        public int batchSize;
+
+        List<Transaction> transactions;
+
+        @Setup(Level.Invocation)
+        public void build(BenchmarkDatabase db) {
+            EntityManager em = db.entityManager();
+            User user = db.user();
+            Tag tag = em.find(Tag.class, db.ledger().leafTagIdsByCategory().get("Food").get(0));
+            transactions = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                Transaction transaction = new Transaction(BenchmarkDatabase.END_DATE.minusDays(i % 365), MARKER,
+                    BigDecimal.valueOf(10 + i % 90), false);
+                transaction.setCurrency("EUR");
+                transaction.setUser(user);
+                transaction.addTag(tag);
+                transactions.add(transaction);
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void delete(BenchmarkDatabase db) {
+            EntityManager em = db.entityManager();
+            em.clear();
+            em.getTransaction().begin();
+            em.createNativeQuery("DELETE FROM transaction_tags WHERE transaction_id IN "
+                + "(SELECT id FROM transactions WHERE description = ?1)").setParameter(1, MARKER).executeUpdate();
+            em.createNativeQuery("DELETE FROM transactions WHERE description = ?1")
+                .setParameter(1, MARKER).executeUpdate();
+            em.getTransaction().commit();
+            CommitHooks.afterBulkCommit();
+        }
+    }
+
+    // ==================== READS ====================
+
+    @Benchmark
+    public Object loadYearStateful(BenchmarkDatabase db) {
+        return loadYearAndFlush(db);
+    }
+
+    @Benchmark
+    public Object loadYearReadOnly(BenchmarkDatabase db) {
+        return ReadOnlyWork.run(db.entityManager(), () -> loadYearAndFlush(db));
+    }
+
+    private static List<Transaction> loadYearAndFlush(BenchmarkDatabase db) {
+        EntityManager em = db.entityManager();
+        List<Transaction> transactions = em.createQuery(
+                "SELECT t FROM Transaction t WHERE t.date BETWEEN :start AND :end", Transaction.class)
+            .setParameter("start", db.periodStart())
+            .setParameter("end", db.periodEnd())
+            .getResultList();
+        em.getTransaction().begin();
+        em.flush();
+        em.getTransaction().commit();
+        return transactions;
+    }
+
+    // ==================== WRITES ====================
+
+    @Benchmark
+    public int insertStateful(BenchmarkDatabase db, Batch batch) {
+        EntityManager em = db.entityManager();
+        em.getTransaction().begin();
+        for (Transaction transaction : batch.transactions) {
+            em.persist(transaction);
+        }
+        em.getTransaction().commit();
+        CommitHooks.afterCommit();
+        return batch.transactions.size();
+    }
+
+    @Benchmark
+    public int insertStateless(BenchmarkDatabase db, Batch batch) {
+        try (BulkWriter writer = BulkWriter.open(db.entityManager())) {
+            for (Transaction transaction : batch.transactions) {
+                writer.insert(transaction);
+            }
+            writer.commit();
+        }
+        return batch.transactions.size();
+    }
+}
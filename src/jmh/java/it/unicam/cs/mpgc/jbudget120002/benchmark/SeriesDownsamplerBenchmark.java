@@ -0,0 +1,50 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import it.unicam.cs.mpgc.jbudget120002.util.SeriesDownsampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the LTTB downsampling in front of the statistics trend chart, from a
+ * month of daily points to thirty years of them, down to the 400 points an 800-pixel
+ * chart draws. The time grows linearly with the series; the points handed to the chart
+ * do not grow at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SeriesDownsamplerBenchmark {
+
+    @Param({"30", "1000", "10000", "100000"})
+    public int points;
+
+    @Param({"400"})
+    public int threshold;
+
+    private double[] amounts;
+
+    @Setup
+    public void generateSeries() {
+        Random random = new Random(42);
+        amounts = new double[points];
+        double balance = 0;
+        for (int i = 0; i < points; i++) {
+            balance += random.nextGaussian() * 50 + (i % 30 == 0 ? 2000 : -60);
+            amounts[i] = balance;
+        }
+    }
+
+    @Benchmark
+    public int[] largestTriangleThreeBuckets() {
+        return SeriesDownsampler.largestTriangleThreeBuckets(amounts, threshold);
+    }
+}
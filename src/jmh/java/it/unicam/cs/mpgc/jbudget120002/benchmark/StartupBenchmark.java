@@ -0,0 +1,116 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import it.unicam.cs.mpgc.jbudget120002.repository.DatabaseBootstrap;
+import it.unicam.cs.mpgc.jbudget120002.repository.MigrationEngine;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks of the desktop startup until the first login can be answered, with the
+ * database opened on the calling thread as before and with the {@link DatabaseBootstrap}
+ * opening it in the background.
+ *
+ * <p>Both run the same two steps: the work of the FX thread before the login view is
+ * up, stood in for by initializing the application classes it loads (JavaFX controls
+ * need a running toolkit, which a benchmark JVM does not have), and the first login
+ * query. The blocking variant opens the database first; the staged one starts the
+ * bootstrap, does the FX work meanwhile and waits for the factory only for the query.
+ * Each invocation opens a new, empty in-memory database.</p>
+ *
+ * <p>Single-shot times are only meaningful in a cold JVM; run with
+ * {@code -PjmhIncludes=StartupBenchmark -PjmhColdStart} for one measurement in each of
+ * ten fresh JVMs. The time to interactive of a real session is logged by
+ * {@link it.unicam.cs.mpgc.jbudget120002.diagnostics.StartupTimeline}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+
+    /** Classes the FX thread initializes before the login view is shown */
+    static final List<String> LOGIN_VIEW_CLASSES = List.of(
+        "it.unicam.cs.mpgc.jbudget120002.view.MainApp",
+        "it.unicam.cs.mpgc.jbudget120002.view.UserSession",
+        "it.unicam.cs.mpgc.jbudget120002.controller.BaseController",
+        "it.unicam.cs.mpgc.jbudget120002.controller.LoginController",
+        "it.unicam.cs.mpgc.jbudget120002.controller.MainController",
+        "it.unicam.cs.mpgc.jbudget120002.diagnostics.FxStallWatchdog",
+        "it.unicam.cs.mpgc.jbudget120002.diagnostics.FlightRecording",
+        "it.unicam.cs.mpgc.jbudget120002.diagnostics.StartupTimeline");
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private Map<String, Object> overrides;
+    private EntityManagerFactory emf;
+    private DatabaseBootstrap bootstrap;
+
+    @Setup(Level.Invocation)
+    public void newDatabase() {
+        overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url",
+            "jdbc:h2:mem:jbudget_startup_" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1;MODE=MySQL");
+        overrides.put("hibernate.show_sql", "false");
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeDatabase() {
+        if (bootstrap != null) {
+            bootstrap.close();
+            bootstrap = null;
+        }
+        if (emf != null && emf.isOpen()) {
+            emf.close();
+        }
+        emf = null;
+    }
+
+    // ==================== STARTUP ====================
+
+    @Benchmark
+    public long blockingStartup() throws ClassNotFoundException {
+        emf = MigrationEngine.createEntityManagerFactory(overrides);
+        initializeLoginViewClasses();
+        return firstLoginQuery(emf);
+    }
+
+    @Benchmark
+    public long stagedStartup() throws ClassNotFoundException {
+        bootstrap = new DatabaseBootstrap(overrides);
+        bootstrap.start();
+        initializeLoginViewClasses();
+        return firstLoginQuery(bootstrap.get());
+    }
+
+    private static void initializeLoginViewClasses() throws ClassNotFoundException {
+        ClassLoader loader = StartupBenchmark.class.getClassLoader();
+        for (String name : LOGIN_VIEW_CLASSES) {
+            Class.forName(name, true, loader);
+        }
+    }
+
+    private static long firstLoginQuery(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery("SELECT COUNT(u) FROM User u WHERE u.username = :username", Long.class)
+                .setParameter("username", "alice")
+                .getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import it.unicam.cs.mpgc.jbudget120002.service.StatisticsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the StatisticsServiceImpl computations behind the dashboard and
+ * statistics views, over a one-year period.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StatisticsServiceBenchmark {
+
+    @Benchmark
+    public Object monthlyStatistics(BenchmarkDatabase db) {
+        return statistics(db).getMonthlyStatistics(db.periodStart(), db.periodEnd());
+    }
+
+    @Benchmark
+    public Object monthlyBalances(BenchmarkDatabase db) {
+        return statistics(db).getMonthlyBalances(db.periodStart(), db.periodEnd());
+    }
+
+    @Benchmark
+    public Object categoryPercentages(BenchmarkDatabase db) {
+        return statistics(db).getCategoryPercentages(db.periodStart(), db.periodEnd());
+    }
+
+    @Benchmark
+    public Object topExpenseCategoriesForUser(BenchmarkDatabase db) {
+        return statistics(db).getTopExpenseCategories(db.user(), db.periodStart(), db.periodEnd(), 5);
+    }
+
+    @Benchmark
+    public Object netWorth(BenchmarkDatabase db) {
+        return statistics(db).getNetWorth(db.periodEnd());
+    }
+
+    private static StatisticsService statistics(BenchmarkDatabase db) {
+        return db.services().getStatisticsService(false);
+    }
+}
@@ -0,0 +1,24 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of TagServiceImpl.getAllDescendants over every root tag of the generated tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TagServiceBenchmark {
+
+    @Benchmark
+    public void allDescendantsOfRoots(BenchmarkDatabase db, Blackhole blackhole) {
+        for (Long rootId : db.ledger().rootTagIds()) {
+            blackhole.consume(db.services().getTagService(false).getAllDescendants(rootId));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package it.unicam.cs.mpgc.jbudget120002.benchmark;
+
+import it.unicam.cs.mpgc.jbudget120002.repository.TransactionRepositoryJpa;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of TransactionRepositoryJpa.findWithFilters with the filter combinations
+ * used by the transactions view.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TransactionRepositoryBenchmark {
+
+    @Benchmark
+    public Object findWithFiltersLastQuarter(BenchmarkDatabase db) {
+        return repository(db).findWithFilters(db.user(), db.groupIds(), null,
+            db.periodEnd().minusMonths(3), db.periodEnd(), null);
+    }
+
+    @Benchmark
+    public Object findWithFiltersSearchAndTag(BenchmarkDatabase db) {
+        return repository(db).findWithFilters(db.user(), db.groupIds(), "groc",
+            db.periodStart(), db.periodEnd(), List.of(db.ledger().leafTagIdsByCategory().get("Food").get(0)));
+    }
+
+    @Benchmark
+    public Object findWithFiltersWholeLedger(BenchmarkDatabase db) {
+        return repository(db).findWithFilters(db.user(), db.groupIds(), null, null, null, null);
+    }
+
+    private static TransactionRepositoryJpa repository(BenchmarkDatabase db) {
+        return new TransactionRepositoryJpa(db.entityManager());
+    }
+}
@@ -0,0 +1,33 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Error raised by API controllers, carrying the HTTP status to answer with.
+ *
+ * Responsibilities:
+ * - Map request level failures (missing credentials, unknown ids) to a status code
+ *
+ * Usage:
+ * throw ApiException.notFound("Budget", id);
+ */
+public class ApiException extends RuntimeException {
+    private final HttpStatus status;
+
+    public ApiException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public static ApiException unauthorized() {
+        return new ApiException(HttpStatus.UNAUTHORIZED, "Invalid or missing credentials");
+    }
+
+    public static ApiException notFound(String entity, Object id) {
+        return new ApiException(HttpStatus.NOT_FOUND, entity + " " + id + " not found");
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
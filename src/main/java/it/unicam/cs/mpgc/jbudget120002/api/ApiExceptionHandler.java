@@ -0,0 +1,48 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Turns exceptions thrown by API controllers and services into JSON error responses.
+ *
+ * Responsibilities:
+ * - Answer ApiException with its own status
+ * - Answer validation errors of the service layer (IllegalArgumentException) with 400
+ * - Log anything else and answer 500 without leaking details
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(ApiExceptionHandler.class.getName());
+
+    @ExceptionHandler(ApiException.class)
+    public ResponseEntity<Map<String, String>> handleApiException(ApiException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatus());
+        if (e.getStatus() == HttpStatus.UNAUTHORIZED) {
+            response.header(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"jbudget\"");
+        }
+        return response.body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, MissingServletRequestParameterException.class,
+        MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<Map<String, String>> handleBadRequest(Exception e) {
+        return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleUnexpected(Exception e) {
+        LOGGER.log(Level.SEVERE, "Unhandled API error", e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Internal server error"));
+    }
+}
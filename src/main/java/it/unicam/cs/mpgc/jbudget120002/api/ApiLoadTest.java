@@ -0,0 +1,187 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator for the headless API.
+ *
+ * Responsibilities:
+ * - Run a number of concurrent clients, each on its own virtual thread, sending GET
+ *   requests round-robin over a list of endpoints for a fixed duration
+ * - Discard a warm-up period, then report requests per second and latency percentiles
+ *   (p50, p99, max), overall and per endpoint, plus the number of failed requests
+ *
+ * Usage:
+ * ./gradlew loadTest --args="--user alice --password secret --clients 64 --seconds 30"
+ * ./gradlew loadTest --args="--user alice --password secret --paths /api/tags,/api/budgets"
+ *
+ * The default endpoints cover every resource over the year ending at --end-date; the
+ * server must be running (./gradlew runServer) on --url.
+ */
+public class ApiLoadTest {
+
+    private static final String DEFAULT_URL = "http://localhost:8080";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = parseArguments(args);
+        if (arguments.containsKey("help") || !arguments.containsKey("user")) {
+            printUsage();
+            return;
+        }
+
+        String baseUrl = arguments.getOrDefault("url", DEFAULT_URL);
+        int clients = Integer.parseInt(arguments.getOrDefault("clients", "32"));
+        int seconds = Integer.parseInt(arguments.getOrDefault("seconds", "30"));
+        int warmupSeconds = Integer.parseInt(arguments.getOrDefault("warmup", "5"));
+        LocalDate end = LocalDate.parse(arguments.getOrDefault("end-date", LocalDate.now().toString()));
+        String authorization = "Basic " + Base64.getEncoder().encodeToString(
+            (arguments.get("user") + ":" + arguments.getOrDefault("password", "")).getBytes(StandardCharsets.UTF_8));
+        List<String> paths = arguments.containsKey("paths")
+            ? List.of(arguments.get("paths").split(","))
+            : defaultPaths(end.minusYears(1).plusDays(1), end);
+
+        HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+        List<HttpRequest> requests = new ArrayList<>();
+        for (String path : paths) {
+            requests.add(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", authorization)
+                .header("Accept", "application/json")
+                .GET()
+                .build());
+        }
+
+        System.out.printf("Load test: %d clients, %d s (+%d s warm-up), %d endpoints on %s%n",
+            clients, seconds, warmupSeconds, paths.size(), baseUrl);
+        Run warmup = run(client, requests, clients, warmupSeconds);
+        if (warmup.failures.sum() == warmup.total.getCount() && warmup.total.getCount() > 0) {
+            System.out.println("Every warm-up request failed; check --url, --user and --password");
+        }
+        Run run = run(client, requests, clients, seconds);
+        report(paths, run, seconds);
+    }
+
+    // ==================== RUNNING ====================
+
+    private static final class Run {
+        final LatencyHistogram total = new LatencyHistogram();
+        final Map<HttpRequest, LatencyHistogram> byRequest = new HashMap<>();
+        final LongAdder failures = new LongAdder();
+    }
+
+    private static Run run(HttpClient client, List<HttpRequest> requests, int clients, int seconds)
+            throws InterruptedException {
+        Run run = new Run();
+        for (HttpRequest request : requests) {
+            run.byRequest.put(request, new LatencyHistogram());
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int offset = c;
+                executor.submit(() -> {
+                    int next = offset;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = requests.get(next++ % requests.size());
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                run.failures.increment();
+                            }
+                        } catch (Exception e) {
+                            run.failures.increment();
+                        }
+                        long elapsed = System.nanoTime() - start;
+                        run.total.record(elapsed);
+                        run.byRequest.get(request).record(elapsed);
+                    }
+                });
+            }
+        }
+        return run;
+    }
+
+    // ==================== REPORTING ====================
+
+    private static void report(List<String> paths, Run run, int seconds) {
+        long count = run.total.getCount();
+        System.out.printf("%nRequests: %d, failed: %d%n", count, run.failures.sum());
+        System.out.printf("Throughput: %.1f req/s%n", (double) count / seconds);
+        System.out.printf("Latency: mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms%n%n",
+            run.total.getMean() / 1e6, run.total.valueAtPercentile(50) / 1e6,
+            run.total.valueAtPercentile(99) / 1e6, run.total.getMax() / 1e6);
+        System.out.printf("%-70s %10s %10s %10s%n", "Endpoint", "req/s", "p50 ms", "p99 ms");
+        Map<String, LatencyHistogram> byPath = new LinkedHashMap<>();
+        run.byRequest.forEach((request, histogram) -> byPath.put(request.uri().getPath()
+            + (request.uri().getQuery() != null ? "?" + request.uri().getQuery() : ""), histogram));
+        for (String path : paths) {
+            LatencyHistogram histogram = byPath.get(path);
+            if (histogram == null) {
+                continue;
+            }
+            System.out.printf("%-70s %10.1f %10.2f %10.2f%n", path, (double) histogram.getCount() / seconds,
+                histogram.valueAtPercentile(50) / 1e6, histogram.valueAtPercentile(99) / 1e6);
+        }
+    }
+
+    private static List<String> defaultPaths(LocalDate from, LocalDate to) {
+        String period = "from=" + from + "&to=" + to;
+        return List.of(
+            "/api/tags",
+            "/api/budgets",
+            "/api/budgets/status?" + period,
+            "/api/schedules",
+            "/api/transactions?" + period,
+            "/api/statistics/summary?" + period,
+            "/api/statistics/top-expenses?" + period,
+            "/api/statistics/monthly-balances?" + period,
+            "/api/statistics/category-percentages?" + period,
+            "/api/statistics/trends?" + period
+        );
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if ("help".equals(name)) {
+                arguments.put(name, "true");
+            } else if (i + 1 < args.length) {
+                arguments.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for --" + name);
+            }
+        }
+        return arguments;
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: loadTest --user <username> [--password <password>] [--url <base url>]\n" +
+            "       [--clients <n>] [--seconds <n>] [--warmup <n>] [--end-date <yyyy-mm-dd>]\n" +
+            "       [--paths <path,path,...>]");
+    }
+}
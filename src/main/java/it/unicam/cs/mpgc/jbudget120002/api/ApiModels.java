@@ -0,0 +1,178 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import it.unicam.cs.mpgc.jbudget120002.model.Budget;
+import it.unicam.cs.mpgc.jbudget120002.model.BudgetStatus;
+import it.unicam.cs.mpgc.jbudget120002.model.CategoryExpense;
+import it.unicam.cs.mpgc.jbudget120002.model.MonthlyBalance;
+import it.unicam.cs.mpgc.jbudget120002.model.MonthlyStatistic;
+import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
+import it.unicam.cs.mpgc.jbudget120002.model.StatisticsModels.CategoryTrend;
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JSON representations exchanged by the API.
+ *
+ * Entities are never serialized directly: their lazy associations would be loaded one by
+ * one (or fail once the EntityManager is closed) and their bidirectional links would loop.
+ * Tags are referenced by id; their names are available from /api/tags.
+ */
+public class ApiModels {
+
+    // ==================== RESPONSES ====================
+
+    public record TransactionView(
+        Long id,
+        LocalDate date,
+        String description,
+        BigDecimal amount,
+        boolean income,
+        String currency,
+        List<Long> tagIds
+    ) {
+        public static TransactionView of(Transaction transaction) {
+            return new TransactionView(transaction.getId(), transaction.getDate(), transaction.getDescription(),
+                transaction.getAmount(), transaction.isIncome(), transaction.getCurrency(), ids(transaction.getTags()));
+        }
+    }
+
+    public record TagView(Long id, String name, Long parentId, String fullPath) {
+        public static TagView of(Tag tag) {
+            return new TagView(tag.getId(), tag.getName(),
+                tag.getParent() != null ? tag.getParent().getId() : null, tag.getFullPath());
+        }
+    }
+
+    public record BudgetView(
+        Long id,
+        String name,
+        BigDecimal amount,
+        LocalDate startDate,
+        LocalDate endDate,
+        List<Long> tagIds
+    ) {
+        public static BudgetView of(Budget budget) {
+            return new BudgetView(budget.getId(), budget.getName(), budget.getAmount(),
+                budget.getStartDate(), budget.getEndDate(), ids(budget.getTags()));
+        }
+    }
+
+    public record BudgetStatusView(
+        Long budgetId,
+        String name,
+        BigDecimal budgeted,
+        BigDecimal actual,
+        BigDecimal remaining,
+        double percentageUsed,
+        boolean overBudget
+    ) {
+        public static BudgetStatusView of(BudgetStatus status) {
+            return new BudgetStatusView(status.getBudgetId(), status.getBudgetName(), status.getBudgetedAmount(),
+                status.getActualAmount(), status.getRemainingAmount(), status.getPercentageUsed(), status.isOverBudget());
+        }
+    }
+
+    public record ScheduledTransactionView(
+        Long id,
+        String description,
+        BigDecimal amount,
+        boolean income,
+        LocalDate startDate,
+        LocalDate endDate,
+        ScheduledTransaction.RecurrencePattern pattern,
+        Integer recurrenceValue,
+        ScheduledTransaction.ProcessingState state,
+        List<Long> tagIds
+    ) {
+        public static ScheduledTransactionView of(ScheduledTransaction scheduled) {
+            return new ScheduledTransactionView(scheduled.getId(), scheduled.getDescription(), scheduled.getAmount(),
+                scheduled.isIncome(), scheduled.getStartDate(), scheduled.getEndDate(), scheduled.getPattern(),
+                scheduled.getRecurrenceValue(), scheduled.getProcessingState(), ids(scheduled.getTags()));
+        }
+    }
+
+    public record MonthlyBalanceView(YearMonth month, BigDecimal income, BigDecimal expenses, BigDecimal balance) {
+        public static MonthlyBalanceView of(MonthlyBalance balance) {
+            return new MonthlyBalanceView(balance.getMonth(), balance.getIncome(), balance.getExpenses(),
+                balance.getBalance());
+        }
+    }
+
+    public record MonthlyStatisticView(YearMonth month, BigDecimal income, BigDecimal expenses) {
+        public static MonthlyStatisticView of(MonthlyStatistic statistic) {
+            return new MonthlyStatisticView(statistic.getMonth(), statistic.getIncome(), statistic.getExpenses());
+        }
+    }
+
+    public record CategoryAmountView(Long tagId, String tagName, BigDecimal amount) {
+        public static CategoryAmountView of(CategoryExpense expense) {
+            Tag tag = expense.getCategory();
+            return new CategoryAmountView(tag != null ? tag.getId() : null, tag != null ? tag.getName() : null,
+                expense.getAmount());
+        }
+    }
+
+    public record CategoryShareView(Long tagId, String tagName, double percentage) {
+        public static CategoryShareView of(Tag tag, double percentage) {
+            return new CategoryShareView(tag != null ? tag.getId() : null, tag != null ? tag.getName() : null,
+                percentage);
+        }
+    }
+
+    public record TrendPointView(LocalDate date, BigDecimal amount, BigDecimal average) {
+        public static TrendPointView of(CategoryTrend trend) {
+            return new TrendPointView(trend.date(), trend.amount(), trend.average());
+        }
+    }
+
+    public record SummaryView(
+        LocalDate from,
+        LocalDate to,
+        BigDecimal income,
+        BigDecimal expenses,
+        BigDecimal balance,
+        double savingsRate
+    ) {}
+
+    // ==================== REQUESTS ====================
+
+    public record TransactionRequest(
+        LocalDate date,
+        String description,
+        BigDecimal amount,
+        boolean income,
+        Set<Long> tagIds
+    ) {}
+
+    public record TagRequest(String name, Long parentId) {}
+
+    public record BudgetRequest(
+        String name,
+        BigDecimal amount,
+        LocalDate startDate,
+        LocalDate endDate,
+        Set<Long> tagIds
+    ) {}
+
+    public record ScheduledTransactionRequest(
+        String description,
+        BigDecimal amount,
+        boolean income,
+        LocalDate startDate,
+        LocalDate endDate,
+        ScheduledTransaction.RecurrencePattern pattern,
+        int recurrenceValue,
+        Set<Long> tagIds
+    ) {}
+
+    private static List<Long> ids(Collection<Tag> tags) {
+        return tags == null ? List.of() : tags.stream().map(Tag::getId).sorted().toList();
+    }
+}
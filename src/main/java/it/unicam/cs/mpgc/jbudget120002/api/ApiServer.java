@@ -0,0 +1,56 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+
+import java.util.Map;
+
+/**
+ * Headless entry point running the budget engine as a local HTTP/JSON server.
+ *
+ * <p>The server exposes transactions, tags, budgets, scheduled transactions and
+ * statistics under {@code /api}, and pushes ledger changes as server-sent events on
+ * {@code /api/events}, reusing the service layer of the desktop application
+ * through {@link ServiceScope}. Spring's own JPA and DataSource auto-configuration is
+ * disabled: the persistence unit {@code jbudgetPU} from {@code persistence.xml} is used
+ * exactly as in the desktop application, and each request gets its own
+ * {@link jakarta.persistence.EntityManager} and {@link it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory}.</p>
+ *
+ * <p>Requests are handled on virtual threads ({@code spring.threads.virtual.enabled}),
+ * so blocking JDBC calls do not tie up platform threads. Clients authenticate with HTTP
+ * Basic using their application username and password.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * ./gradlew runServer
+ * curl -u alice:secret "http://localhost:8080/api/transactions?from=2024-01-01&to=2024-12-31"
+ * ./gradlew loadTest --args="--user alice --password secret --clients 64 --seconds 30"
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+@SpringBootApplication(exclude = {
+    DataSourceAutoConfiguration.class,
+    HibernateJpaAutoConfiguration.class,
+    JpaRepositoriesAutoConfiguration.class
+})
+public class ApiServer {
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(ApiServer.class);
+        application.setDefaultProperties(Map.of(
+            "spring.threads.virtual.enabled", "true",
+            "server.port", "8080",
+            // Event streams are long-lived and mostly idle; they end before this timeout
+            "spring.mvc.async.request-timeout", "35m",
+            "server.tomcat.max-connections", "10000",
+            "spring.main.banner-mode", "off"
+        ));
+        application.run(args);
+    }
+}
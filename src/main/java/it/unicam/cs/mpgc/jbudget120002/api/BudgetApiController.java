@@ -0,0 +1,137 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.BudgetRequest;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.BudgetStatusView;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.BudgetView;
+import it.unicam.cs.mpgc.jbudget120002.model.Budget;
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.service.BudgetService;
+import it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Budgets of the caller's groups.
+ *
+ * Responsibilities:
+ * - List budgets and their status (spent, remaining, percentage) for a period
+ * - Create, update and delete budgets through the BudgetService; a new budget belongs
+ *   to the caller's first group, as in the desktop budgets view
+ */
+@RestController
+@RequestMapping("/api/budgets")
+public class BudgetApiController {
+
+    private final ServiceScope scope;
+
+    public BudgetApiController(ServiceScope scope) {
+        this.scope = scope;
+    }
+
+    @GetMapping
+    public List<BudgetView> list(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return scope.callAsUser(authorization, (services, user) ->
+            services.getBudgetService(false).findAllByUser(user).stream().map(BudgetView::of).toList());
+    }
+
+    @GetMapping("/status")
+    public List<BudgetStatusView> status(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return scope.callAsUser(authorization, (services, user) -> {
+            BudgetService budgets = services.getBudgetService(false);
+            Set<Long> visible = new HashSet<>();
+            budgets.findAllByUser(user).forEach(budget -> visible.add(budget.getId()));
+            return budgets.calculateBudgetStatus(from, to).values().stream()
+                .filter(status -> visible.contains(status.getBudgetId()))
+                .map(BudgetStatusView::of)
+                .toList();
+        });
+    }
+
+    @GetMapping("/{id}")
+    public BudgetView get(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                          @PathVariable Long id) {
+        return scope.callAsUser(authorization, (services, user) -> BudgetView.of(findVisible(services, user, id)));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public BudgetView create(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                             @RequestBody BudgetRequest request) {
+        return scope.callAsUser(authorization, (services, user) -> {
+            Budget budget = new Budget(request.name(), request.amount(), request.startDate(), request.endDate());
+            budget.setTags(resolveTags(services, request.tagIds()));
+            if (!user.getGroups().isEmpty()) {
+                budget.setGroup(user.getGroups().iterator().next());
+            }
+            services.getBudgetService(false).save(budget);
+            return BudgetView.of(budget);
+        });
+    }
+
+    @PutMapping("/{id}")
+    public BudgetView update(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                             @PathVariable Long id, @RequestBody BudgetRequest request) {
+        return scope.callAsUser(authorization, (services, user) -> {
+            Budget budget = findVisible(services, user, id);
+            budget.setName(request.name());
+            budget.setAmount(request.amount());
+            budget.setStartDate(request.startDate());
+            budget.setEndDate(request.endDate());
+            budget.setTags(resolveTags(services, request.tagIds()));
+            services.getBudgetService(false).save(budget);
+            return BudgetView.of(budget);
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                       @PathVariable Long id) {
+        scope.callAsUser(authorization, (services, user) -> {
+            findVisible(services, user, id);
+            services.getBudgetService(false).delete(id);
+            return null;
+        });
+    }
+
+    private static Budget findVisible(ServiceFactory services, User user, Long id) {
+        Budget budget = services.getBudgetService(false).findById(id)
+            .orElseThrow(() -> ApiException.notFound("Budget", id));
+        if (budget.getGroup() != null && !user.getGroups().contains(budget.getGroup())) {
+            throw ApiException.notFound("Budget", id);
+        }
+        return budget;
+    }
+
+    private static Set<Tag> resolveTags(ServiceFactory services, Set<Long> tagIds) {
+        Set<Tag> tags = new HashSet<>();
+        if (tagIds != null) {
+            for (Long tagId : tagIds) {
+                tags.add(services.getTagService(false).findById(tagId)
+                    .orElseThrow(() -> new IllegalArgumentException("Tag " + tagId + " not found")));
+            }
+        }
+        return tags;
+    }
+}
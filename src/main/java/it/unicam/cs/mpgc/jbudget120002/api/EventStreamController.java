@@ -0,0 +1,100 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+import it.unicam.cs.mpgc.jbudget120002.service.LedgerEventBus;
+import it.unicam.cs.mpgc.jbudget120002.service.VisibilityIndex;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Server-sent events stream of the ledger changes visible to the caller.
+ *
+ * Responsibilities:
+ * - Subscribe the caller to the LedgerEventBus, filtered to its own data, that of the
+ *   members of its groups and changes visible to everyone (tags, budgets)
+ * - Write each event as an SSE message whose id is the event id, so a reconnecting
+ *   EventSource sends Last-Event-ID and receives the events it missed
+ * - Send a comment every HEARTBEAT so proxies keep the connection open and a departed
+ *   client is noticed, and end the stream after STREAM_LIFETIME or when users or groups
+ *   change, so the client reconnects with fresh visibility
+ *
+ * Each open stream parks one virtual thread on its subscription's bounded buffer; a
+ * client that reads too slowly loses its buffered events and receives a "resync" event.
+ *
+ * Usage:
+ * curl -N -u alice:secret http://localhost:8080/api/events
+ * new EventSource("/api/events").addEventListener("transaction_created", e => ...)
+ */
+@RestController
+@RequestMapping("/api/events")
+public class EventStreamController {
+
+    static final Duration HEARTBEAT = Duration.ofSeconds(20);
+    static final Duration STREAM_LIFETIME = Duration.ofMinutes(30);
+
+    /** Reconnection delay suggested to EventSource clients, in milliseconds */
+    private static final int RETRY_MILLIS = 5000;
+
+    private final ServiceScope scope;
+    private final ObjectMapper objectMapper;
+
+    public EventStreamController(ServiceScope scope, ObjectMapper objectMapper) {
+        this.scope = scope;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> events(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Long userId = scope.authenticateId(authorization);
+        Set<Long> visibleOwners = scope.callWithEntityManager((em, services) ->
+            VisibilityIndex.getInstance().visibleOwners(em, userId));
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            long deadline = System.nanoTime() + STREAM_LIFETIME.toNanos();
+            // Subscribed only once the stream runs, so no subscription outlives its request
+            try (LedgerEventBus.Subscription subscription =
+                     LedgerEventBus.getInstance().subscribe(visibleOwners, lastEventId)) {
+                writer.write("retry: " + RETRY_MILLIS + "\n\n");
+                writer.flush();
+                while (System.nanoTime() < deadline) {
+                    LedgerEvent event = subscription.poll(HEARTBEAT);
+                    if (event == null) {
+                        writer.write(": keep-alive\n\n");
+                    } else {
+                        writer.write("id: " + event.id() + "\n"
+                            + "event: " + event.type().name().toLowerCase(Locale.ROOT) + "\n"
+                            + "data: " + objectMapper.writeValueAsString(event) + "\n\n");
+                    }
+                    writer.flush();
+                    if (event != null && event.type() == LedgerEvent.Type.USERS_CHANGED) {
+                        break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.TEXT_EVENT_STREAM)
+            .cacheControl(CacheControl.noStore())
+            .header("X-Accel-Buffering", "no")
+            .body(body);
+    }
+}
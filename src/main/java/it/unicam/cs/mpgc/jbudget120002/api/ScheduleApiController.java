@@ -0,0 +1,100 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.ScheduledTransactionRequest;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.ScheduledTransactionView;
+import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.service.ScheduledTransactionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Scheduled (recurring) transactions of the caller.
+ *
+ * Responsibilities:
+ * - List, create and delete scheduled transactions through the ScheduledTransactionService
+ * - Generate the transactions due up to a date, as the desktop application does on login
+ */
+@RestController
+@RequestMapping("/api/schedules")
+public class ScheduleApiController {
+
+    private final ServiceScope scope;
+
+    public ScheduleApiController(ServiceScope scope) {
+        this.scope = scope;
+    }
+
+    @GetMapping
+    public List<ScheduledTransactionView> list(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return scope.callAsUser(authorization, (services, user) ->
+            services.getScheduledTransactionService(false).findByUser(user).stream()
+                .map(ScheduledTransactionView::of)
+                .toList());
+    }
+
+    @GetMapping("/{id}")
+    public ScheduledTransactionView get(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable Long id) {
+        return scope.callAsUser(authorization, (services, user) ->
+            ScheduledTransactionView.of(findVisible(services.getScheduledTransactionService(false), user, id)));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public ScheduledTransactionView create(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody ScheduledTransactionRequest request) {
+        return scope.callAsUser(authorization, (services, user) -> ScheduledTransactionView.of(
+            services.getScheduledTransactionService(false).createScheduledTransaction(request.description(),
+                request.amount(), request.income(), request.startDate(), request.endDate(), request.pattern(),
+                request.recurrenceValue(), request.tagIds(), user)));
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                       @PathVariable Long id) {
+        scope.callAsUser(authorization, (services, user) -> {
+            ScheduledTransactionService schedules = services.getScheduledTransactionService(false);
+            findVisible(schedules, user, id);
+            schedules.deleteScheduledTransaction(id);
+            return null;
+        });
+    }
+
+    @PostMapping("/generate")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void generate(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate until) {
+        scope.callAsUser(authorization, (services, user) -> {
+            services.getScheduledTransactionService(false).generateTransactionsForUser(user, until);
+            return null;
+        });
+    }
+
+    private static ScheduledTransaction findVisible(ScheduledTransactionService schedules, User user, Long id) {
+        ScheduledTransaction scheduled = schedules.findById(id)
+            .orElseThrow(() -> ApiException.notFound("Scheduled transaction", id));
+        if (!ServiceScope.isVisibleTo(scheduled.getUser(), user)) {
+            throw ApiException.notFound("Scheduled transaction", id);
+        }
+        return scheduled;
+    }
+}
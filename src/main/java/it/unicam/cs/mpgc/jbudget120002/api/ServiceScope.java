@@ -0,0 +1,167 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.repository.MigrationEngine;
+import it.unicam.cs.mpgc.jbudget120002.service.CommitHooks;
+import it.unicam.cs.mpgc.jbudget120002.service.LedgerVersion;
+import it.unicam.cs.mpgc.jbudget120002.service.PrimaryTagBackfill;
+import it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory;
+import it.unicam.cs.mpgc.jbudget120002.util.LruCache;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Gives each API request its own persistence context and service layer.
+ *
+ * Responsibilities:
+ * - Own the EntityManagerFactory of the jbudgetPU persistence unit for the server
+ * - Open an EntityManager and a ServiceFactory per call and close them afterwards, since
+ *   neither is thread-safe and requests run concurrently
+ * - Authenticate the caller from an HTTP Basic Authorization header, remembering accepted
+ *   headers until users or groups change so that repeated requests skip the user lookup
+ * - Tell the ledger version a caller sees, for conditional requests
+ *
+ * Usage:
+ * List<TagView> tags = scope.call(services -> ...);
+ * TransactionView view = scope.callAsUser(authorization, (services, user) -> ...);
+ *
+ * The JDBC URL and the size of Hibernate's connection pool can be overridden with the
+ * jbudget.server.jdbc-url and jbudget.server.pool-size properties.
+ */
+@Component
+public class ServiceScope {
+
+    private static final int AUTHENTICATION_CACHE_SIZE = 1024;
+
+    private final EntityManagerFactory emf;
+
+    /** Accepted Authorization headers, with the user epoch they were checked in */
+    private final LruCache<String, Authentication> authentications = new LruCache<>(AUTHENTICATION_CACHE_SIZE);
+
+    private record Authentication(Long userId, long userEpoch) {}
+
+    public ServiceScope(@Value("${jbudget.server.jdbc-url:}") String jdbcUrl,
+                        @Value("${jbudget.server.pool-size:20}") int poolSize) {
+        Map<String, Object> overrides = new HashMap<>();
+        if (!jdbcUrl.isBlank()) {
+            overrides.put("jakarta.persistence.jdbc.url", jdbcUrl);
+        }
+        overrides.put("hibernate.connection.pool_size", String.valueOf(poolSize));
+        this.emf = MigrationEngine.createEntityManagerFactory(overrides);
+        // Requests are served while the primary tags of old transactions are computed
+        PrimaryTagBackfill.start(emf);
+    }
+
+    /**
+     * Runs an action against a fresh service layer, closing its EntityManager afterwards.
+     */
+    public <T> T call(Function<ServiceFactory, T> action) {
+        return callWithEntityManager((em, services) -> action.apply(services));
+    }
+
+    /**
+     * Runs an action that also needs the EntityManager, for example to clear the
+     * persistence context between the pages of a streamed response.
+     */
+    public <T> T callWithEntityManager(BiFunction<EntityManager, ServiceFactory, T> action) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return action.apply(em, new ServiceFactory(em));
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+                CommitHooks.afterRollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * Authenticates the caller and returns its id, for responses that are produced later
+     * (streamed) and must fail with 401 before anything is written.
+     */
+    public Long authenticateId(String authorization) {
+        long userEpoch = LedgerVersion.getInstance().userEpoch();
+        Authentication cached = authorization != null ? authentications.get(authorization) : null;
+        if (cached != null && cached.userEpoch() == userEpoch) {
+            return cached.userId();
+        }
+        Long userId = call(services -> authenticate(authorization, services).getId());
+        authentications.put(authorization, new Authentication(userId, userEpoch));
+        return userId;
+    }
+
+    /**
+     * Returns the version of the ledger as seen by a user. Only the first call for a user
+     * after users or groups change reads the database.
+     */
+    public long userVersion(Long userId) {
+        return callWithEntityManager((em, services) -> LedgerVersion.getInstance().userVersion(em, userId));
+    }
+
+    /**
+     * Authenticates the caller and runs an action on its behalf.
+     *
+     * @param authorization the value of the Authorization header
+     * @throws ApiException with status 401 if the credentials are missing or wrong
+     */
+    public <T> T callAsUser(String authorization, BiFunction<ServiceFactory, User, T> action) {
+        return call(services -> action.apply(services, authenticate(authorization, services)));
+    }
+
+    /**
+     * Resolves the user named in an HTTP Basic Authorization header.
+     */
+    User authenticate(String authorization, ServiceFactory services) {
+        if (authorization == null || !authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+            throw ApiException.unauthorized();
+        }
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+                StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw ApiException.unauthorized();
+        }
+        int separator = credentials.indexOf(':');
+        if (separator < 0) {
+            throw ApiException.unauthorized();
+        }
+        User user = services.getUserService(false).findUserByName(credentials.substring(0, separator));
+        if (user == null || user.getPassword() == null || !MessageDigest.isEqual(
+                credentials.substring(separator + 1).getBytes(StandardCharsets.UTF_8),
+                user.getPassword().getBytes(StandardCharsets.UTF_8))) {
+            throw ApiException.unauthorized();
+        }
+        return user;
+    }
+
+    /**
+     * Tells whether data owned by one user may be read or changed by another: the same
+     * rule the desktop views apply, namely own data plus data of members of a shared group.
+     */
+    static boolean isVisibleTo(User owner, User user) {
+        if (owner == null || owner.getId().equals(user.getId())) {
+            return true;
+        }
+        return owner.getGroups().stream().anyMatch(user.getGroups()::contains);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (emf.isOpen()) {
+            emf.close();
+        }
+    }
+}
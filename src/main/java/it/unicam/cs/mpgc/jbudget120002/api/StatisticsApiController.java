@@ -0,0 +1,182 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.CategoryAmountView;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.CategoryShareView;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.MonthlyBalanceView;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.MonthlyStatisticView;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.SummaryView;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.TrendPointView;
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.service.LedgerVersion;
+import it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory;
+import it.unicam.cs.mpgc.jbudget120002.service.StatisticsService;
+import it.unicam.cs.mpgc.jbudget120002.service.TransactionService;
+import it.unicam.cs.mpgc.jbudget120002.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Read-only statistics over a period, computed by the StatisticsService.
+ *
+ * Responsibilities:
+ * - Summary, top expense categories: scoped to the caller and its groups
+ * - Monthly balances, monthly statistics, category percentages and trends: computed over
+ *   the whole ledger, exactly as the desktop statistics view shows them
+ * - Tag every response with the ledger version it was computed from, answer conditional
+ *   requests whose version is still current with 304 Not Modified, and keep recent
+ *   responses in an LRU cache keyed by caller, endpoint, parameters and version
+ *
+ * A caller's version only changes when a transaction it can see, a tag, a budget, a user
+ * or a group is written (see LedgerVersion), so a repeated request for unchanged data
+ * costs neither a statistics query nor, once the caller is authenticated, any query at
+ * all. The cache holds the immutable response views, never entities, which belong to
+ * the EntityManager of the request that loaded them. Its size can be set with the
+ * jbudget.server.statistics-cache-size property.
+ */
+@RestController
+@RequestMapping("/api/statistics")
+public class StatisticsApiController {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private final ServiceScope scope;
+    private final LruCache<ResponseKey, Object> responses;
+
+    /** Identifies a response: the caller (null for ledger-wide results), the request and the version */
+    private record ResponseKey(Long userId, List<Object> request, long version) {}
+
+    public StatisticsApiController(ServiceScope scope,
+                                   @Value("${jbudget.server.statistics-cache-size:512}") int cacheSize) {
+        this.scope = scope;
+        this.responses = new LruCache<>(cacheSize);
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<SummaryView> summary(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        return conditional(authorization, request, true, List.of("summary", from, to), (services, user) -> {
+            TransactionService transactions = services.getTransactionService(false);
+            BigDecimal income = transactions.calculateIncomeForPeriodForUser(user, from, to);
+            BigDecimal expenses = transactions.calculateExpensesForPeriodForUser(user, from, to);
+            double savingsRate = income.signum() == 0 ? 0.0 : income.subtract(expenses)
+                .divide(income, 4, RoundingMode.HALF_UP)
+                .multiply(BigDecimal.valueOf(100))
+                .doubleValue();
+            return new SummaryView(from, to, income, expenses, income.subtract(expenses), savingsRate);
+        });
+    }
+
+    @GetMapping("/top-expenses")
+    public ResponseEntity<List<CategoryAmountView>> topExpenses(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "5") int limit,
+            WebRequest request) {
+        return conditional(authorization, request, true, List.of("top-expenses", from, to, limit), (services, user) ->
+            services.getStatisticsService(false).getTopExpenseCategories(user, from, to, limit).stream()
+                .map(CategoryAmountView::of)
+                .toList());
+    }
+
+    @GetMapping("/monthly-balances")
+    public ResponseEntity<List<MonthlyBalanceView>> monthlyBalances(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        return conditional(authorization, request, false, List.of("monthly-balances", from, to), (services, user) ->
+            services.getStatisticsService(false).getMonthlyBalances(from, to).stream()
+                .map(MonthlyBalanceView::of)
+                .toList());
+    }
+
+    @GetMapping("/monthly")
+    public ResponseEntity<List<MonthlyStatisticView>> monthly(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        return conditional(authorization, request, false, List.of("monthly", from, to), (services, user) ->
+            services.getStatisticsService(false).getMonthlyStatistics(from, to).stream()
+                .map(MonthlyStatisticView::of)
+                .toList());
+    }
+
+    @GetMapping("/category-percentages")
+    public ResponseEntity<List<CategoryShareView>> categoryPercentages(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            WebRequest request) {
+        return conditional(authorization, request, false, List.of("category-percentages", from, to), (services, user) ->
+            services.getStatisticsService(false).getCategoryPercentages(from, to).entrySet().stream()
+                .map(entry -> CategoryShareView.of(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingDouble(CategoryShareView::percentage).reversed())
+                .toList());
+    }
+
+    @GetMapping("/trends")
+    public ResponseEntity<List<TrendPointView>> trends(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long tagId,
+            @RequestParam(defaultValue = "monthly") String interval,
+            WebRequest request) {
+        return conditional(authorization, request, false, Arrays.asList("trends", from, to, tagId, interval), (services, user) -> {
+            StatisticsService statistics = services.getStatisticsService(false);
+            Tag category = tagId == null ? null : services.getTagService(false).findById(tagId)
+                .orElseThrow(() -> ApiException.notFound("Tag", tagId));
+            return statistics.getCategoryTrends(from, to, category, interval).stream()
+                .map(TrendPointView::of)
+                .toList();
+        });
+    }
+
+    // ==================== CONDITIONAL REQUESTS ====================
+
+    /**
+     * Answers a statistics request: 304 if the caller already holds the current version,
+     * otherwise the cached response for that version, computed on a miss.
+     *
+     * @param userScoped whether the result depends on the caller, rather than on the whole ledger
+     * @param request the endpoint and its parameters, identifying the response
+     */
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> conditional(String authorization, WebRequest webRequest, boolean userScoped,
+                                              List<Object> request, BiFunction<ServiceFactory, User, T> compute) {
+        Long userId = scope.authenticateId(authorization);
+        long version = userScoped ? scope.userVersion(userId) : LedgerVersion.getInstance().ledgerVersion();
+        String eTag = userScoped ? "\"u" + userId + "-v" + version + "\"" : "\"l" + version + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CACHE_CONTROL).build();
+        }
+        // Read before computing: a write committed meanwhile moves to a newer version
+        T body = (T) responses.computeIfAbsent(new ResponseKey(userScoped ? userId : null, request, version),
+            key -> scope.callAsUser(authorization, compute));
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CACHE_CONTROL).body(body);
+    }
+}
@@ -0,0 +1,82 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.TagRequest;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.TagView;
+import it.unicam.cs.mpgc.jbudget120002.service.TagService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * The tag (category) hierarchy, shared by all users.
+ *
+ * Responsibilities:
+ * - List all tags as a flat list with parent ids and full paths
+ * - Create, rename, move and delete tags through the TagService
+ */
+@RestController
+@RequestMapping("/api/tags")
+public class TagApiController {
+
+    private final ServiceScope scope;
+
+    public TagApiController(ServiceScope scope) {
+        this.scope = scope;
+    }
+
+    @GetMapping
+    public List<TagView> list(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        return scope.callAsUser(authorization, (services, user) ->
+            services.getTagService(false).findAll().stream().map(TagView::of).toList());
+    }
+
+    @GetMapping("/{id}")
+    public TagView get(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                       @PathVariable Long id) {
+        return scope.callAsUser(authorization, (services, user) -> services.getTagService(false).findById(id)
+            .map(TagView::of)
+            .orElseThrow(() -> ApiException.notFound("Tag", id)));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public TagView create(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                          @RequestBody TagRequest request) {
+        return scope.callAsUser(authorization, (services, user) ->
+            TagView.of(services.getTagService(false).createTag(request.name(), request.parentId())));
+    }
+
+    @PutMapping("/{id}")
+    public TagView update(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                          @PathVariable Long id, @RequestBody TagRequest request) {
+        return scope.callAsUser(authorization, (services, user) -> {
+            TagService tags = services.getTagService(false);
+            tags.findById(id).orElseThrow(() -> ApiException.notFound("Tag", id));
+            tags.updateTag(id, request.name(), request.parentId());
+            return tags.findById(id).map(TagView::of).orElseThrow(() -> ApiException.notFound("Tag", id));
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                       @PathVariable Long id) {
+        scope.callAsUser(authorization, (services, user) -> {
+            TagService tags = services.getTagService(false);
+            tags.findById(id).orElseThrow(() -> ApiException.notFound("Tag", id));
+            tags.deleteTag(id);
+            return null;
+        });
+    }
+}
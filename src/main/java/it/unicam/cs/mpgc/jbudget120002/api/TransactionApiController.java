@@ -0,0 +1,141 @@
+package it.unicam.cs.mpgc.jbudget120002.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.TransactionRequest;
+import it.unicam.cs.mpgc.jbudget120002.api.ApiModels.TransactionView;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.service.ReadOnlyWork;
+import it.unicam.cs.mpgc.jbudget120002.service.TransactionService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Transactions visible to the caller: its own and those of members of its groups.
+ *
+ * Responsibilities:
+ * - Stream the transactions of a period as a JSON array, page by page
+ * - Create, read, update and delete single transactions through the TransactionService
+ *
+ * The list is written while it is read: pages of PAGE_SIZE transactions are loaded by
+ * keyset pagination, serialized, flushed and evicted from the persistence context, so
+ * memory use does not grow with the size of the ledger and the first bytes reach the
+ * client before the last page is read.
+ */
+@RestController
+@RequestMapping("/api/transactions")
+public class TransactionApiController {
+
+    static final int PAGE_SIZE = 500;
+
+    private final ServiceScope scope;
+    private final ObjectMapper objectMapper;
+
+    public TransactionApiController(ServiceScope scope, ObjectMapper objectMapper) {
+        this.scope = scope;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> list(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Long userId = scope.authenticateId(authorization);
+        // Read-only: the pages are neither dirty-checked nor flushed while they are serialized
+        StreamingResponseBody body = out -> scope.callWithEntityManager((em, services) -> ReadOnlyWork.run(em, () -> {
+            User user = services.getUserService(false).findById(userId);
+            TransactionService transactions = services.getTransactionService(false);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                Long afterId = null;
+                List<Transaction> page;
+                do {
+                    page = transactions.findPageForUser(user, from, to, afterId, PAGE_SIZE);
+                    for (Transaction transaction : page) {
+                        objectMapper.writeValue(generator, TransactionView.of(transaction));
+                        afterId = transaction.getId();
+                    }
+                    generator.flush();
+                    // Drop the transactions and tags of the page, then reload the user
+                    em.clear();
+                    user = em.find(User.class, userId);
+                } while (page.size() == PAGE_SIZE);
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return null;
+        }));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/{id}")
+    public TransactionView get(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                               @PathVariable Long id) {
+        return scope.callAsUser(authorization, (services, user) ->
+            TransactionView.of(findVisible(services.getTransactionService(false), user, id)));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public TransactionView create(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                  @RequestBody TransactionRequest request) {
+        return scope.callAsUser(authorization, (services, user) -> TransactionView.of(
+            services.getTransactionService(false).createTransaction(user, request.date(), request.description(),
+                request.amount(), request.income(), request.tagIds())));
+    }
+
+    @PutMapping("/{id}")
+    public TransactionView update(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                  @PathVariable Long id, @RequestBody TransactionRequest request) {
+        return scope.callAsUser(authorization, (services, user) -> {
+            TransactionService transactions = services.getTransactionService(false);
+            findVisible(transactions, user, id);
+            transactions.updateTransaction(id, request.date(), request.description(), request.amount(),
+                request.income(), request.tagIds());
+            return TransactionView.of(transactions.findById(id));
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                       @PathVariable Long id) {
+        scope.callAsUser(authorization, (services, user) -> {
+            TransactionService transactions = services.getTransactionService(false);
+            findVisible(transactions, user, id);
+            transactions.deleteTransaction(id);
+            return null;
+        });
+    }
+
+    private static Transaction findVisible(TransactionService transactions, User user, Long id) {
+        Transaction transaction = transactions.findById(id);
+        if (transaction == null || !ServiceScope.isVisibleTo(transaction.getUser(), user)) {
+            throw ApiException.notFound("Transaction", id);
+        }
+        return transaction;
+    }
+}
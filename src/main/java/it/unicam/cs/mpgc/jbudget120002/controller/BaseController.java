@@ -2,10 +2,13 @@ package it.unicam.cs.mpgc.jbudget120002.controller;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+import it.unicam.cs.mpgc.jbudget120002.repository.DatabaseBootstrap;
+import it.unicam.cs.mpgc.jbudget120002.service.CommitHooks;
+import it.unicam.cs.mpgc.jbudget120002.service.PersistenceContextPolicy;
 import it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory;
 import it.unicam.cs.mpgc.jbudget120002.view.UserSession;
 import javafx.fxml.FXML;
@@ -30,8 +33,9 @@ import java.util.logging.Level;
  *   <li>Provide shared utility methods</li>
  *   <li>Manage controller lifecycle</li>
  *   <li>Implement error handling and logging</li>
- *   <li>Manage EntityManager lifecycle</li>
+ *   <li>Manage EntityManager lifecycle, on the factory of the {@link DatabaseBootstrap}</li>
  *   <li>Provide user feedback mechanisms</li>
+ *   <li>Tell the {@link ViewRefreshCoordinator} which ledger changes concern the view</li>
  * </ul>
  * 
  * <p>Usage examples:</p>
@@ -63,9 +67,6 @@ public abstract class BaseController implements Initializable {
     /** Logger for this class */
     private static final Logger LOGGER = Logger.getLogger(BaseController.class.getName());
     
-    /** EntityManagerFactory instance shared across all controllers */
-    private static EntityManagerFactory emf;
-    
     /** EntityManager instance for this controller */
     protected EntityManager entityManager;
     
@@ -84,25 +85,8 @@ public abstract class BaseController implements Initializable {
     /** Main controller reference */
     protected MainController mainController;
 
-    // ==================== STATIC INITIALIZATION ====================
-
-    /**
-     * Static initialization block to create the EntityManagerFactory.
-     * Also registers a shutdown hook to properly close the factory.
-     */
-    static {
-        try {
-            emf = Persistence.createEntityManagerFactory("jbudgetPU");
-            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                if (emf != null && emf.isOpen()) {
-                    emf.close();
-                }
-            }));
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to create EntityManagerFactory", e);
-            throw new RuntimeException("Failed to create EntityManagerFactory", e);
-        }
-    }
+    /** Set when a ledger change concerning this view came in while it was hidden */
+    private boolean dirty;
 
     // ==================== INITIALIZATION METHODS ====================
 
@@ -120,12 +104,7 @@ public abstract class BaseController implements Initializable {
             if (!isInitialized) {
                 LOGGER.info("Initializing controller: " + getClass().getSimpleName());
                 
-                // Create a new EntityManager if needed
-                if (entityManager == null || !entityManager.isOpen()) {
-                    LOGGER.info("Creating new EntityManager instance");
-                    entityManager = emf.createEntityManager();
-                    serviceFactory = new ServiceFactory(entityManager);
-                }
+                openEntityManager();
                 
                 try {
                     initializeServices();
@@ -146,6 +125,20 @@ public abstract class BaseController implements Initializable {
         }
     }
 
+    /**
+     * Creates this controller's EntityManager and ServiceFactory, unless it has an open
+     * one. The factory comes from the {@link DatabaseBootstrap}: if the database is still
+     * being opened in the background, this waits for it.
+     */
+    protected void openEntityManager() {
+        if (entityManager == null || !entityManager.isOpen()) {
+            LOGGER.info("Creating new EntityManager instance");
+            EntityManagerFactory emf = DatabaseBootstrap.getInstance().get();
+            entityManager = emf.createEntityManager();
+            serviceFactory = new ServiceFactory(entityManager);
+        }
+    }
+
     /**
      * Sets the parent controller for navigation purposes.
      * 
@@ -208,13 +201,9 @@ public abstract class BaseController implements Initializable {
      */
     public void refreshData() {
         try {
-            // Only create a new EntityManager if the current one is closed
-            if (entityManager == null || !entityManager.isOpen()) {
-                LOGGER.info("Creating new EntityManager instance for refresh");
-                entityManager = emf.createEntityManager();
-                serviceFactory = new ServiceFactory(entityManager);
-            }
-            
+            openEntityManager();
+            checkpointPersistenceContext();
+
             // Only begin transaction if not already active
             if (!entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().begin();
@@ -224,10 +213,12 @@ public abstract class BaseController implements Initializable {
                 loadData();
                 if (entityManager.getTransaction().isActive()) {
                     entityManager.getTransaction().commit();
+                    CommitHooks.afterCommit();
                 }
             } catch (Exception e) {
                 if (entityManager.getTransaction().isActive()) {
                     entityManager.getTransaction().rollback();
+                    CommitHooks.afterRollback();
                 }
                 throw e;
             }
@@ -246,6 +237,45 @@ public abstract class BaseController implements Initializable {
         return isInitialized;
     }
 
+    // ==================== CHANGE TRACKING ====================
+
+    /**
+     * Tells whether a committed ledger change concerns what this view shows. Views
+     * override it to compare the change's type, dates and tags with their own; by default
+     * every change concerns the view.
+     * 
+     * @param event the change, already known to be visible to the current user
+     * @return true if the view must be refreshed to show it
+     */
+    protected boolean isAffectedBy(LedgerEvent event) {
+        return true;
+    }
+
+    /**
+     * Reloads the view after changes that concern it, when it is shown.
+     * Defaults to {@link #refreshData()}.
+     */
+    protected void refreshForChanges() {
+        refreshData();
+    }
+
+    /**
+     * Checks if changes concerning this view came in since it was last refreshed for them.
+     * 
+     * @return true if the view is out of date
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    void clearDirty() {
+        dirty = false;
+    }
+
     // ==================== ABSTRACT METHODS ====================
 
     /**
@@ -338,6 +368,7 @@ public abstract class BaseController implements Initializable {
                 if (entityManager.getTransaction().isActive()) {
                     LOGGER.info("Rolling back active transaction in " + getClass().getSimpleName());
                     entityManager.getTransaction().rollback();
+                    CommitHooks.afterRollback();
                 }
                 LOGGER.info("Closing EntityManager for " + getClass().getSimpleName());
                 entityManager.close();
@@ -355,14 +386,7 @@ public abstract class BaseController implements Initializable {
      * This method should be called when the application is shutting down.
      */
     public static void closeEntityManagerFactory() {
-        if (emf != null && emf.isOpen()) {
-            try {
-                emf.close();
-                emf = null;
-            } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "Error closing EntityManagerFactory", e);
-            }
-        }
+        DatabaseBootstrap.getInstance().close();
     }
 
     // ==================== UTILITY METHODS ====================
@@ -385,6 +409,15 @@ public abstract class BaseController implements Initializable {
         return serviceFactory;
     }
 
+    /**
+     * Clears this controller's persistence context if it has grown past the
+     * {@link PersistenceContextPolicy} limit. Call it when the controller is about to
+     * reload everything it shows, so no entity it still holds is detached under it.
+     */
+    protected void checkpointPersistenceContext() {
+        PersistenceContextPolicy.getInstance().checkpoint(entityManager);
+    }
+
     /**
      * Checks if the EntityManager is open and available.
      * 
@@ -1,10 +1,10 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.*;
 import it.unicam.cs.mpgc.jbudget120002.service.BudgetService;
 import it.unicam.cs.mpgc.jbudget120002.service.TagService;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -17,7 +17,6 @@ import java.time.LocalDate;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Controller class managing the budgets view in the Family Budget App.
@@ -78,12 +77,7 @@ public class BudgetsController extends BaseController {
         colRemaining.setCellValueFactory(new PropertyValueFactory<>("remainingAmount"));
         colStartDate.setCellValueFactory(new PropertyValueFactory<>("startDate"));
         colEndDate.setCellValueFactory(new PropertyValueFactory<>("endDate"));
-        colTags.setCellValueFactory(cellData -> {
-            String tags = cellData.getValue().getTags().stream()
-                .map(Tag::getName)
-                .collect(Collectors.joining(", "));
-            return new SimpleStringProperty(tags);
-        });
+        colTags.setCellValueFactory(new PropertyValueFactory<>("tagNames"));
 
         // Setup tags combobox
         cbTags.setItems(FXCollections.observableArrayList(tagService.findRootTags()));
@@ -127,23 +121,8 @@ public class BudgetsController extends BaseController {
         if (currentUser == null) {
             return;
         }
-        budgets.setAll(budgetService.findAllByUser(currentUser).stream()
-            .map(budget -> {
-                BigDecimal spent = budgetService.calculateSpentAmount(budget.getId());
-                BigDecimal remaining = budget.getAmount().subtract(spent);
-                BudgetTableItem item = new BudgetTableItem(
-                    budget.getId(),
-                    budget.getName(),
-                    budget.getAmount(),
-                    spent,
-                    remaining,
-                    budget.getStartDate(),
-                    budget.getEndDate()
-                );
-                budget.getTags().forEach(item::addTag);
-                return item;
-            })
-            .collect(Collectors.toList()));
+        checkpointPersistenceContext();
+        budgets.setAll(budgetService.findTableItems(currentUser));
     }
     
     public void refreshTags() {
@@ -153,6 +132,22 @@ public class BudgetsController extends BaseController {
         }
     }
 
+    // ==================== CHANGE TRACKING ====================
+
+    /** Affected by budgets, by tags, and by transactions, which make up their spending */
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        return event.isTransactionChange()
+            || event.type() == LedgerEvent.Type.BUDGET_CHANGED
+            || event.type() == LedgerEvent.Type.TAG_CHANGED;
+    }
+
+    @Override
+    protected void refreshForChanges() {
+        refreshTags();
+        refreshData();
+    }
+
     @FXML
     private void handleAddBudget() {
         try {
@@ -231,12 +226,17 @@ public class BudgetsController extends BaseController {
     private void handleTableSelection() {
         BudgetTableItem selected = table.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            tfName.setText(selected.getName());
-            tfAmount.setText(selected.getBudgetedAmount().toString());
-            dpStartDate.setValue(selected.getStartDate());
-            dpEndDate.setValue(selected.getEndDate());
+            // Rows carry only tag names: the budget is loaded for its tags when selected for editing
+            Budget budget = budgetService.findById(selected.getId()).orElse(null);
+            if (budget == null) {
+                return;
+            }
+            tfName.setText(budget.getName());
+            tfAmount.setText(budget.getAmount().toString());
+            dpStartDate.setValue(budget.getStartDate());
+            dpEndDate.setValue(budget.getEndDate());
             selectedTags.clear();
-            selectedTags.addAll(selected.getTags());
+            selectedTags.addAll(budget.getTags());
             updateSelectedTagsList();
         }
     }
@@ -1,5 +1,6 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
@@ -9,19 +10,19 @@ import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.CategoryAxis;
 import it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory;
-import it.unicam.cs.mpgc.jbudget120002.service.TransactionService;
 import it.unicam.cs.mpgc.jbudget120002.service.StatisticsService;
 import it.unicam.cs.mpgc.jbudget120002.model.CategoryExpense;
+import it.unicam.cs.mpgc.jbudget120002.model.StatisticsModels.DashboardSnapshot;
 import javafx.scene.chart.PieChart.Data;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import it.unicam.cs.mpgc.jbudget120002.model.MonthlyBalance;
 import javafx.scene.chart.XYChart;
-import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.TransactionRow;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.util.StringConverter;
 import java.time.format.DateTimeFormatter;
@@ -37,16 +38,15 @@ public class DashboardController extends BaseController {
     private static final Logger LOGGER = Logger.getLogger(DashboardController.class.getName());
     @FXML private Label lblCurrentBalance;
     @FXML private PieChart pieSpendingByCategory;
-    @FXML private TableView<Transaction> tableRecentTransactions;
-    @FXML private TableColumn<Transaction, java.time.LocalDate> colDate;
-    @FXML private TableColumn<Transaction, String> colDesc;
-    @FXML private TableColumn<Transaction, java.math.BigDecimal> colAmount;
+    @FXML private TableView<TransactionRow> tableRecentTransactions;
+    @FXML private TableColumn<TransactionRow, java.time.LocalDate> colDate;
+    @FXML private TableColumn<TransactionRow, String> colDesc;
+    @FXML private TableColumn<TransactionRow, java.math.BigDecimal> colAmount;
     @FXML private ComboBox<String> cbPeriod;
     @FXML private DatePicker dpStart;
     @FXML private DatePicker dpEnd;
     @FXML private Button btnUpdate;
 
-    private TransactionService transactionService;
     private StatisticsService statisticsService;
     private LocalDate periodStart = LocalDate.now().withDayOfMonth(1);
     private LocalDate periodEnd = LocalDate.now();
@@ -55,14 +55,12 @@ public class DashboardController extends BaseController {
     public void setCurrentUser(User user) {
         this.currentUser = user;
         if (currentUser != null) {
-            updateBalanceLabel();
             loadData();
         }
     }
 
     @Override
     protected void initializeServices() {
-        transactionService = serviceFactory.getTransactionService(false);
         statisticsService = serviceFactory.getStatisticsService(false);
     }
 
@@ -87,8 +85,6 @@ public class DashboardController extends BaseController {
         });
         dpStart.setDisable(true);
         dpEnd.setDisable(true);
-        // Display current balance
-        updateBalanceLabel();
     }
 
     private void updatePeriodDates() {
@@ -118,20 +114,16 @@ public class DashboardController extends BaseController {
             dpStart.setValue(periodStart);
             dpEnd.setValue(periodEnd);
         }
-        updateBalanceLabel();
         loadData();
     }
 
     @FXML
     private void handleUpdatePeriod() {
         updatePeriodDates();
-        updateBalanceLabel();
         loadData();
     }
 
-    private void updateBalanceLabel() {
-        if (currentUser == null) return;
-        BigDecimal balance = transactionService.calculateBalanceForUser(currentUser, periodStart, periodEnd);
+    private void updateBalanceLabel(BigDecimal balance) {
         lblCurrentBalance.setText("Current Balance: " + String.format("€%.2f", balance));
     }
 
@@ -142,7 +134,11 @@ public class DashboardController extends BaseController {
             System.out.println("Dashboard: Loading data for user " + currentUser.getUsername() +
                 " from " + periodStart + " to " + periodEnd);
 
-            List<CategoryExpense> topCategories = statisticsService.getTopExpenseCategories(currentUser, periodStart, periodEnd, 6);
+            // Balance, top categories and recent rows in one call
+            DashboardSnapshot snapshot = statisticsService.getDashboardSnapshot(currentUser, periodStart, periodEnd, 6, 10);
+            updateBalanceLabel(snapshot.balance());
+
+            List<CategoryExpense> topCategories = snapshot.topCategories();
             System.out.println("Dashboard: Top categories size = " + topCategories.size());
             for (CategoryExpense ce : topCategories) {
                 System.out.println("Category: " + (ce.getCategory() != null ? ce.getCategory().getName() : "Other") +
@@ -166,15 +162,14 @@ public class DashboardController extends BaseController {
             pieSpendingByCategory.setData(pieChartData);
 
             // Populate recent transactions table (for selected period)
-            List<Transaction> recent = transactionService.findTransactionsInPeriodForUser(currentUser, periodStart, periodEnd, 10);
-            ObservableList<Transaction> recentObs = FXCollections.observableArrayList(recent);
+            ObservableList<TransactionRow> recentObs = FXCollections.observableArrayList(snapshot.recentTransactions());
             tableRecentTransactions.setItems(recentObs);
 
             // Set up columns if not already set
             if (colDate.getCellValueFactory() == null) {
-                colDate.setCellValueFactory(new PropertyValueFactory<>("date"));
-                colDesc.setCellValueFactory(new PropertyValueFactory<>("description"));
-                colAmount.setCellValueFactory(new PropertyValueFactory<>("amount"));
+                colDate.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().date()));
+                colDesc.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().description()));
+                colAmount.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().amount()));
 
                 // Format date and amount columns
                 colDate.setCellFactory(column -> new TextFieldTableCell<>(new StringConverter<java.time.LocalDate>() {
@@ -183,7 +178,7 @@ public class DashboardController extends BaseController {
                     }
                     @Override public java.time.LocalDate fromString(String s) { return null; }
                 }));
-                colAmount.setCellFactory(column -> new TableCell<Transaction, BigDecimal>() {
+                colAmount.setCellFactory(column -> new TableCell<TransactionRow, BigDecimal>() {
                     @Override
                     protected void updateItem(BigDecimal amount, boolean empty) {
                         super.updateItem(amount, empty);
@@ -191,10 +186,10 @@ public class DashboardController extends BaseController {
                             setText(null);
                             setStyle("");
                         } else {
-                            Transaction transaction = getTableRow().getItem();
+                            TransactionRow transaction = getTableRow().getItem();
                             if (transaction != null) {
                                 String formattedAmount = String.format("€%.2f", amount);
-                                if (transaction.isIncome()) {
+                                if (transaction.income()) {
                                     setText(formattedAmount);
                                     getStyleClass().removeAll("negative");
                                     if (!getStyleClass().contains("positive")) getStyleClass().add("positive");
@@ -225,8 +220,14 @@ public class DashboardController extends BaseController {
     
     public void refreshData() {
         if (currentUser != null) {
-            updateBalanceLabel();
+            checkpointPersistenceContext();
             loadData();
         }
     }
+
+    /** Affected by transactions of any date, since it shows the recent ones and the trend, and by tags */
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        return event.isTransactionChange() || event.type() == LedgerEvent.Type.TAG_CHANGED;
+    }
 } 
\ No newline at end of file
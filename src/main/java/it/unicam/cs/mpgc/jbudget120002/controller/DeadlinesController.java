@@ -1,7 +1,10 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.Deadline;
+import it.unicam.cs.mpgc.jbudget120002.service.DeadlineReminders;
 import it.unicam.cs.mpgc.jbudget120002.service.DeadlineService;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
@@ -14,6 +17,7 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javafx.scene.paint.Color;
 import javafx.scene.layout.GridPane;
@@ -42,11 +46,20 @@ public class DeadlinesController extends BaseController {
     private TagService tagService;
     private it.unicam.cs.mpgc.jbudget120002.model.User currentUser;
 
+    /** Refreshes the banner when a reminder of a visible deadline comes due */
+    private final Consumer<DeadlineReminders.Reminder> reminderListener = reminder -> {
+        if (reminder.userId() == null || currentUser == null || reminder.userId().equals(currentUser.getId())) {
+            Platform.runLater(this::updateNotifications);
+        }
+    };
+
     @Override
     protected void initializeServices() {
         deadlineService = serviceFactory.getDeadlineService(false);
         tagService = serviceFactory.getTagService(false);
         deadlines = FXCollections.observableArrayList();
+        deadlineService.startReminders();
+        DeadlineReminders.getInstance().addListener(reminderListener);
     }
 
     @Override
@@ -79,12 +92,8 @@ public class DeadlinesController extends BaseController {
 
     public void refreshData() {
         if (dpMonth.getValue() != null) {
-            LocalDate start = dpMonth.getValue().withDayOfMonth(1);
-            LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
-            List<Deadline> monthlyDeadlines = deadlineService.findAll().stream()
-                .filter(d -> !d.getDueDate().isBefore(start) && !d.getDueDate().isAfter(end))
-                .toList();
-            deadlines.setAll(monthlyDeadlines);
+            checkpointPersistenceContext();
+            deadlines.setAll(deadlineService.findForMonth(currentUser, YearMonth.from(dpMonth.getValue())));
             
             // Get all available categories from Tag service
             List<Tag> allTags = tagService.findAll();
@@ -110,6 +119,16 @@ public class DeadlinesController extends BaseController {
         }
     }
 
+    /** Affected by deadlines due in the month shown, or updated, and by tags */
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        if (event.type() == LedgerEvent.Type.DEADLINE_CHANGED) {
+            LocalDate month = dpMonth.getValue();
+            return month == null || event.mayConcern(month.withDayOfMonth(1), month.withDayOfMonth(month.lengthOfMonth()));
+        }
+        return event.type() == LedgerEvent.Type.TAG_CHANGED;
+    }
+
     private void updateTotalDue() {
         double total = deadlines.stream()
             .filter(d -> !d.isPaid())
@@ -119,12 +138,9 @@ public class DeadlinesController extends BaseController {
     }
 
     private void updateNotifications() {
-        LocalDate today = LocalDate.now();
-        LocalDate soon = today.plusDays(3);
-        List<Deadline> soonOrOverdue = deadlines.stream()
-            .filter(d -> d.getDueDate() != null && (d.getDueDate().isBefore(today) || (d.getDueDate().isAfter(today.minusDays(1)) && d.getDueDate().isBefore(soon))))
-            .filter(d -> !d.isPaid())
-            .toList();
+        // Overdue or due within the reminder window, in any month
+        LocalDate soon = LocalDate.now().plusDays(DeadlineReminders.DUE_SOON_DAYS);
+        List<Deadline> soonOrOverdue = deadlineService.findUnpaidDueBefore(currentUser, soon);
         if (!soonOrOverdue.isEmpty()) {
             notificationBanner.setText("⚠️ You have " + soonOrOverdue.size() + " deadlines due soon or overdue!");
             notificationBanner.setStyle("-fx-background-color: #e74c3c; -fx-text-fill: white; -fx-font-weight: bold; -fx-padding: 5 10;");
@@ -178,6 +194,7 @@ public class DeadlinesController extends BaseController {
         DeadlineDialog dialog = new DeadlineDialog(null, tagService);
         dialog.setTitle("Add Deadline");
         dialog.showAndWait().ifPresent(deadline -> {
+            deadline.setUser(currentUser);
             deadlineService.create(deadline);
             refreshData();
         });
@@ -193,6 +210,7 @@ public class DeadlinesController extends BaseController {
         dialog.setTitle("Edit Deadline");
         dialog.showAndWait().ifPresent(updated -> {
             updated.setId(selected.getId());
+            updated.setUser(selected.getUser());
             deadlineService.update(updated);
             refreshData();
         });
@@ -221,6 +239,12 @@ public class DeadlinesController extends BaseController {
         this.currentUser = user;
     }
 
+    @Override
+    public void cleanup() {
+        DeadlineReminders.getInstance().removeListener(reminderListener);
+        super.cleanup();
+    }
+
     // Simple dialog for adding/editing deadlines
     private static class DeadlineDialog extends Dialog<Deadline> {
         private final TextField tfDescription = new TextField();
@@ -1,6 +1,9 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+import it.unicam.cs.mpgc.jbudget120002.model.AmortizationSchedule;
 import it.unicam.cs.mpgc.jbudget120002.model.Installment;
+import it.unicam.cs.mpgc.jbudget120002.model.LoanScenario;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 import it.unicam.cs.mpgc.jbudget120002.service.LoanService;
 import it.unicam.cs.mpgc.jbudget120002.service.ScheduledTransactionService;
@@ -10,6 +13,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 public class LoanAmortizationController extends BaseController {
@@ -26,11 +30,28 @@ public class LoanAmortizationController extends BaseController {
     @FXML private TableColumn<Installment, BigDecimal> colTotal;
     @FXML private Button btnSaveAsScheduled;
     @FXML private TextField tfLoanName;
+    @FXML private TextField tfExtraPayment;
+    @FXML private TextField tfRateChangeMonth;
+    @FXML private TextField tfRateChangeRate;
+    @FXML private TextField tfRefinanceMonth;
+    @FXML private TextField tfRefinanceRate;
+    @FXML private TextField tfRefinanceTerm;
+    @FXML private TextField tfRefinanceFee;
+    @FXML private Button btnCompare;
+    @FXML private TableView<AmortizationSchedule> tableScenarios;
+    @FXML private TableColumn<AmortizationSchedule, String> colScenarioName;
+    @FXML private TableColumn<AmortizationSchedule, BigDecimal> colScenarioPayment;
+    @FXML private TableColumn<AmortizationSchedule, Integer> colScenarioPayments;
+    @FXML private TableColumn<AmortizationSchedule, BigDecimal> colScenarioInterest;
+    @FXML private TableColumn<AmortizationSchedule, BigDecimal> colScenarioTotal;
+    @FXML private TableColumn<AmortizationSchedule, LocalDate> colScenarioPayoff;
     @FXML
     private TextField principalField;
 
     private LoanService loanService;
     private final ObservableList<Installment> schedule = FXCollections.observableArrayList();
+    private final ObservableList<AmortizationSchedule> scenarios = FXCollections.observableArrayList();
+    private AmortizationSchedule currentSchedule;
     private ScheduledTransactionService scheduledTransactionService;
     private User currentUser;
 
@@ -40,7 +61,7 @@ public class LoanAmortizationController extends BaseController {
 
     @Override
     protected void initializeServices() {
-        this.loanService = new LoanService();
+        this.loanService = serviceFactory.getLoanService(false);
         this.scheduledTransactionService = serviceFactory.getScheduledTransactionService(false);
     }
 
@@ -85,8 +106,28 @@ public class LoanAmortizationController extends BaseController {
 
         tableSchedule.setItems(schedule);
 
+        // Scenario comparison table
+        colScenarioName.setCellValueFactory(cellData -> new javafx.beans.property.SimpleObjectProperty<>(cellData.getValue().getName()));
+        colScenarioPayment.setCellValueFactory(cellData -> new javafx.beans.property.SimpleObjectProperty<>(cellData.getValue().getFirstPayment()));
+        colScenarioPayments.setCellValueFactory(cellData -> new javafx.beans.property.SimpleObjectProperty<>(cellData.getValue().getNumberOfPayments()));
+        colScenarioInterest.setCellValueFactory(cellData -> new javafx.beans.property.SimpleObjectProperty<>(cellData.getValue().getTotalInterest()));
+        colScenarioTotal.setCellValueFactory(cellData -> new javafx.beans.property.SimpleObjectProperty<>(cellData.getValue().getTotalPaid()));
+        colScenarioPayoff.setCellValueFactory(cellData -> new javafx.beans.property.SimpleObjectProperty<>(cellData.getValue().getPayoffDate()));
+        colScenarioPayoff.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(LocalDate date, boolean empty) {
+                super.updateItem(date, empty);
+                setText(empty || date == null ? null : it.unicam.cs.mpgc.jbudget120002.util.DateTimeUtils.formatDate(date));
+            }
+        });
+        tableScenarios.setItems(scenarios);
+        tableScenarios.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal != null) showSchedule(newVal);
+        });
+
         btnGenerate.setOnAction(e -> generateSchedule());
-        btnSaveAsScheduled.setOnAction(e -> showFutureFeatureAlert());
+        btnCompare.setOnAction(e -> compareScenarios());
+        btnSaveAsScheduled.setOnAction(e -> acceptPlan());
     }
 
     @Override
@@ -94,56 +135,152 @@ public class LoanAmortizationController extends BaseController {
         // Nothing to load initially
     }
 
+    /** Shows simulations only, which no ledger change affects */
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        return false;
+    }
+
     private void generateSchedule() {
         try {
-            // Validate inputs
-            if (tfAmount.getText() == null || tfAmount.getText().trim().isEmpty()) {
-                showError("Invalid Input", "Please enter a loan amount.");
-                return;
-            }
-            if (tfInterestRate.getText() == null || tfInterestRate.getText().trim().isEmpty()) {
-                showError("Invalid Input", "Please enter an interest rate.");
-                return;
-            }
-            if (tfTerm.getText() == null || tfTerm.getText().trim().isEmpty()) {
-                showError("Invalid Input", "Please enter a loan term.");
-                return;
-            }
-            if (dpStartDate.getValue() == null) {
-                showError("Invalid Input", "Please select a start date.");
-                return;
+            LoanScenario base = buildBaseScenario();
+            if (base == null) return;
+            LoanScenario scenario = applyWhatIfOptions(base.copy("Selected options"));
+            scenarios.clear();
+            showSchedule(loanService.simulate(scenario));
+        } catch (NumberFormatException ex) {
+            showError("Invalid Input", "Please enter valid numbers for amount, interest rate, and term.");
+        } catch (Exception ex) {
+            showError("Error", "An error occurred: " + ex.getMessage());
+        }
+    }
+
+    private void compareScenarios() {
+        try {
+            LoanScenario base = buildBaseScenario();
+            if (base == null) return;
+
+            // One scenario per what-if option, plus all options combined
+            List<LoanScenario> variants = new ArrayList<>();
+            variants.add(base);
+            if (hasText(tfExtraPayment)) {
+                variants.add(base.copy("Extra " + tfExtraPayment.getText().trim() + "/month")
+                    .withMonthlyExtraPayment(new BigDecimal(tfExtraPayment.getText().trim())));
             }
-            
-            String loanName = tfLoanName.getText();
-            if (loanName == null || loanName.trim().isEmpty()) loanName = "Loan";
-            BigDecimal amount = new BigDecimal(tfAmount.getText());
-            double rate = Double.parseDouble(tfInterestRate.getText());
-            int term = Integer.parseInt(tfTerm.getText());
-            LocalDate start = dpStartDate.getValue();
-            
-            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-                showError("Invalid Input", "Loan amount must be greater than zero.");
-                return;
+            if (hasText(tfRateChangeMonth) && hasText(tfRateChangeRate)) {
+                variants.add(applyRateChange(base.copy("Rate change")));
             }
-            if (rate <= 0) {
-                showError("Invalid Input", "Interest rate must be greater than zero.");
-                return;
+            if (hasText(tfRefinanceMonth) && hasText(tfRefinanceRate)) {
+                variants.add(applyRefinance(base.copy("Refinance")));
             }
-            if (term <= 0) {
-                showError("Invalid Input", "Loan term must be greater than zero.");
-                return;
+            if (variants.size() > 2) {
+                variants.add(applyWhatIfOptions(base.copy("All options")));
             }
-            
-            List<Installment> result = loanService.generateAmortizationSchedule(amount, rate, term, start);
-            schedule.setAll(result);
+
+            scenarios.setAll(loanService.compareScenarios(variants));
+            tableScenarios.getSelectionModel().selectFirst();
         } catch (NumberFormatException ex) {
-            showError("Invalid Input", "Please enter valid numbers for amount, interest rate, and term.");
+            showError("Invalid Input", "Please enter valid numbers for the scenario options.");
         } catch (Exception ex) {
             showError("Error", "An error occurred: " + ex.getMessage());
         }
     }
 
-    private void showFutureFeatureAlert() {
-        showInfo("Feature Coming Soon", "This feature will be implemented in a future update.");
+    private void acceptPlan() {
+        if (currentSchedule == null) {
+            showWarning("No Schedule", "Please generate or select a schedule first.");
+            return;
+        }
+        String loanName = tfLoanName.getText();
+        if (loanName == null || loanName.trim().isEmpty()) loanName = "Loan";
+        if (!showConfirmation("Accept Plan", String.format("Save %d installments of '%s' as expense transactions?",
+                currentSchedule.getNumberOfPayments(), currentSchedule.getName()))) {
+            return;
+        }
+        try {
+            // The ledger events of the installments mark the views showing them out of date
+            loanService.acceptPlan(loanName.trim(), currentSchedule, currentUser);
+            showInfo("Plan Saved", "The loan installments have been saved.");
+        } catch (Exception ex) {
+            showError("Error", "Failed to save the loan plan: " + ex.getMessage());
+        }
+    }
+
+    private void showSchedule(AmortizationSchedule result) {
+        currentSchedule = result;
+        schedule.setAll(result.getInstallments());
+    }
+
+    /**
+     * Builds the base scenario from the loan fields, or returns null after
+     * showing an error when the input is incomplete.
+     */
+    private LoanScenario buildBaseScenario() {
+        if (tfAmount.getText() == null || tfAmount.getText().trim().isEmpty()) {
+            showError("Invalid Input", "Please enter a loan amount.");
+            return null;
+        }
+        if (tfInterestRate.getText() == null || tfInterestRate.getText().trim().isEmpty()) {
+            showError("Invalid Input", "Please enter an interest rate.");
+            return null;
+        }
+        if (tfTerm.getText() == null || tfTerm.getText().trim().isEmpty()) {
+            showError("Invalid Input", "Please enter a loan term.");
+            return null;
+        }
+        if (dpStartDate.getValue() == null) {
+            showError("Invalid Input", "Please select a start date.");
+            return null;
+        }
+
+        BigDecimal amount = new BigDecimal(tfAmount.getText().trim());
+        double rate = Double.parseDouble(tfInterestRate.getText().trim());
+        int term = Integer.parseInt(tfTerm.getText().trim());
+
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            showError("Invalid Input", "Loan amount must be greater than zero.");
+            return null;
+        }
+        if (rate <= 0) {
+            showError("Invalid Input", "Interest rate must be greater than zero.");
+            return null;
+        }
+        if (term <= 0) {
+            showError("Invalid Input", "Loan term must be greater than zero.");
+            return null;
+        }
+        return new LoanScenario("Base", amount, rate, term, dpStartDate.getValue());
+    }
+
+    private LoanScenario applyWhatIfOptions(LoanScenario scenario) {
+        if (hasText(tfExtraPayment)) {
+            scenario.withMonthlyExtraPayment(new BigDecimal(tfExtraPayment.getText().trim()));
+        }
+        if (hasText(tfRateChangeMonth) && hasText(tfRateChangeRate)) {
+            applyRateChange(scenario);
+        }
+        if (hasText(tfRefinanceMonth) && hasText(tfRefinanceRate)) {
+            applyRefinance(scenario);
+        }
+        return scenario;
+    }
+
+    private LoanScenario applyRateChange(LoanScenario scenario) {
+        return scenario.withRateChange(
+            Integer.parseInt(tfRateChangeMonth.getText().trim()),
+            Double.parseDouble(tfRateChangeRate.getText().trim()));
+    }
+
+    private LoanScenario applyRefinance(LoanScenario scenario) {
+        int month = Integer.parseInt(tfRefinanceMonth.getText().trim());
+        int newTerm = hasText(tfRefinanceTerm)
+            ? Integer.parseInt(tfRefinanceTerm.getText().trim())
+            : Math.max(1, scenario.getTermMonths() - month + 1);
+        BigDecimal fee = hasText(tfRefinanceFee) ? new BigDecimal(tfRefinanceFee.getText().trim()) : BigDecimal.ZERO;
+        return scenario.withRefinance(month, Double.parseDouble(tfRefinanceRate.getText().trim()), newTerm, fee);
+    }
+
+    private static boolean hasText(TextField field) {
+        return field.getText() != null && !field.getText().trim().isEmpty();
     }
-} 
\ No newline at end of file
+}
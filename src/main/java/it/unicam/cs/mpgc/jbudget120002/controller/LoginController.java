@@ -1,9 +1,13 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.StartupTimeline;
 import it.unicam.cs.mpgc.jbudget120002.model.Role;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.repository.DatabaseBootstrap;
 import it.unicam.cs.mpgc.jbudget120002.service.UserService;
 import it.unicam.cs.mpgc.jbudget120002.view.MainApp;
+import jakarta.persistence.EntityManagerFactory;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -12,8 +16,11 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 
+import java.net.URL;
 import java.util.HashSet;
+import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class LoginController extends BaseController {
 
@@ -48,6 +55,15 @@ public class LoginController extends BaseController {
     private MainApp mainApp;
     private boolean isLoginMode = true;
 
+    /**
+     * Sets up the view only: it is shown while the database is still being opened in the
+     * background, so the EntityManager is created by the first login or registration.
+     */
+    @Override
+    public void initialize(URL location, ResourceBundle resources) {
+        setupUI();
+    }
+
     @Override
     protected void initializeServices() {
         userService = serviceFactory.getUserService(false);
@@ -76,6 +92,27 @@ public class LoginController extends BaseController {
 
     @FXML
     private void handleAction() {
+        CompletableFuture<EntityManagerFactory> database = DatabaseBootstrap.getInstance().start();
+        if (!database.isDone()) {
+            // Submitted before the database is open: retry once it is, without blocking the FX thread
+            actionButton.setDisable(true);
+            showSuccess("Opening the database...");
+            database.whenComplete((emf, error) -> Platform.runLater(() -> {
+                actionButton.setDisable(false);
+                hideError();
+                handleAction();
+            }));
+            return;
+        }
+        if (userService == null) {
+            try {
+                openEntityManager();
+                initializeServices();
+            } catch (RuntimeException e) {
+                showError("Could not open the database: " + e.getMessage());
+                return;
+            }
+        }
         if (isLoginMode) {
             handleLogin();
         } else {
@@ -159,6 +196,7 @@ public class LoginController extends BaseController {
 
             if (userToLogin != null && userToLogin.getPassword().equals(password)) {
                 hideError();
+                StartupTimeline.getInstance().mark("login.submitted");
                 mainApp.showMainView(userToLogin);
             } else {
                 showError("Invalid username or password.");
@@ -1,13 +1,20 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.FxStallWatchdog;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.StartupTimeline;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.service.VisibilityIndex;
 import it.unicam.cs.mpgc.jbudget120002.view.UserSession;
 import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
 import javafx.scene.layout.BorderPane;
 import java.util.logging.Logger;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 
 /**
@@ -21,6 +28,9 @@ import java.util.logging.Level;
  * - UI state management
  * - Event handling for main menu actions
  * - Coordination of child controllers
+ * - Loading each tab's view and controller on the tab's first selection
+ * - Refreshing the views after ledger changes, through a ViewRefreshCoordinator: only
+ *   the views a change concerns, and only once they are shown
  *
  * Usage:
  * Serves as the primary entry point for the application's UI, managing the main
@@ -47,24 +57,31 @@ public class MainController extends BaseController {
     @FXML private Tab deadlinesTab;
     @FXML private Tab userManagementTab;
 
-    // Controller references
-    @FXML private TransactionsController transactionsViewController;
-    @FXML private StatisticsController statisticsViewController;
-    @FXML private ScheduledController scheduledViewController;
-    @FXML private BudgetsController budgetsViewController;
-    @FXML private TagsController tagsViewController;
-    @FXML private SettingsController settingsViewController;
-    @FXML private DeadlinesController deadlinesViewController;
-    @FXML private LoanAmortizationController loanAmortizationViewController;
-    @FXML private DashboardController dashboardViewController;
-    @FXML private UserManagementController userManagementViewController;
+    // Views of the tabs not loaded yet, and controllers of those loaded
+    private final Map<Tab, String> tabViews = new HashMap<>();
+    private final Map<Tab, BaseController> tabControllers = new HashMap<>();
 
-    public TransactionsController getTransactionsViewController() {
-        return transactionsViewController;
+    private ViewRefreshCoordinator viewRefreshes;
+
+    // Controller references, null until their tab is first selected
+    private TransactionsController transactionsViewController;
+    private StatisticsController statisticsViewController;
+    private ScheduledController scheduledViewController;
+    private BudgetsController budgetsViewController;
+    private TagsController tagsViewController;
+    private SettingsController settingsViewController;
+    private DeadlinesController deadlinesViewController;
+    private LoanAmortizationController loanAmortizationViewController;
+    private DashboardController dashboardViewController;
+    private UserManagementController userManagementViewController;
+
+    public ViewRefreshCoordinator getViewRefreshes() {
+        return viewRefreshes;
     }
 
     public void setCurrentUser(User user) {
         this.currentUser = user;
+        if (viewRefreshes != null) viewRefreshes.invalidateVisibleOwners();
         if (transactionsViewController != null) transactionsViewController.setCurrentUser(user);
         if (statisticsViewController != null) statisticsViewController.setCurrentUser(user);
         if (scheduledViewController != null) scheduledViewController.setCurrentUser(user);
@@ -89,171 +106,138 @@ public class MainController extends BaseController {
     @Override
     protected void initializeServices() {
         LOGGER.info("Initializing MainController services");
-        
-        // Set main controller reference for all child controllers
-        if (transactionsViewController != null) {
-            transactionsViewController.setMainController(this);
-            if (currentUser != null) transactionsViewController.setCurrentUser(currentUser);
-            LOGGER.info("Setting parent for TransactionsController");
-        } else {
-            LOGGER.warning("TransactionsController is null!");
-        }
-        if (statisticsViewController != null) {
-            statisticsViewController.setMainController(this);
-            if (currentUser != null) statisticsViewController.setCurrentUser(currentUser);
-            LOGGER.info("Setting parent for StatisticsController");
-        }
-        if (scheduledViewController != null) {
-            scheduledViewController.setMainController(this);
-            if (currentUser != null) scheduledViewController.setCurrentUser(currentUser);
-            LOGGER.info("Setting parent for ScheduledController");
-        }
-        if (budgetsViewController != null) {
-            budgetsViewController.setMainController(this);
-            if (currentUser != null) budgetsViewController.setCurrentUser(currentUser);
-            LOGGER.info("Setting parent for BudgetsController");
-        }
-        if (tagsViewController != null) {
-            tagsViewController.setMainController(this);
-            if (currentUser != null) tagsViewController.setCurrentUser(currentUser);
-            LOGGER.info("Setting parent for TagsController");
-        }
-        if (settingsViewController != null) {
-            settingsViewController.setMainController(this);
-            if (currentUser != null) settingsViewController.setCurrentUser(currentUser);
-            LOGGER.info("Setting parent for SettingsController");
-        }
-        if (deadlinesViewController != null) {
-            deadlinesViewController.setMainController(this);
-            if (currentUser != null) deadlinesViewController.setCurrentUser(currentUser);
-        }
-        if (loanAmortizationViewController != null) {
-            loanAmortizationViewController.setMainController(this);
-            if (currentUser != null) loanAmortizationViewController.setCurrentUser(currentUser);
-        }
-        if (dashboardViewController != null) {
-            dashboardViewController.setMainController(this);
-            if (currentUser != null) dashboardViewController.setCurrentUser(currentUser);
-        }
-        if (userManagementViewController != null) {
-            userManagementViewController.setMainController(this);
-            if (currentUser != null) userManagementViewController.setCurrentUser(currentUser);
+        // Reminders run whether or not the deadlines tab has been opened
+        serviceFactory.getDeadlineService(false).startReminders();
+        viewRefreshes = new ViewRefreshCoordinator(this::visibleOwners);
+        viewRefreshes.start();
+    }
+
+    /** The users whose changes the views may show: the current user and its group members */
+    private Set<Long> visibleOwners() {
+        if (currentUser == null || !isEntityManagerOpen()) {
+            return null;
         }
+        return VisibilityIndex.getInstance().visibleOwners(entityManager, currentUser.getId());
     }
 
     @Override
     protected void setupUI() {
         LOGGER.info("Setting up MainController UI");
+        tabViews.put(dashboardTab, "DashboardView.fxml");
+        tabViews.put(transactionsTab, "TransactionsView.fxml");
+        tabViews.put(statisticsTab, "StatisticsView.fxml");
+        tabViews.put(scheduledTab, "ScheduledView.fxml");
+        tabViews.put(budgetsTab, "BudgetsView.fxml");
+        tabViews.put(loanAmortizationTab, "LoanAmortizationView.fxml");
+        tabViews.put(deadlinesTab, "DeadlinesView.fxml");
+        tabViews.put(tagsTab, "TagsView.fxml");
+        tabViews.put(settingsTab, "SettingsView.fxml");
+        tabViews.put(userManagementTab, "UserManagementView.fxml");
+
         tabPane.getSelectionModel().selectedItemProperty().addListener((obs, oldTab, newTab) -> {
-            if (newTab == transactionsTab) onTransactionsTabSelected();
-            else if (newTab == statisticsTab) onStatisticsTabSelected();
-            else if (newTab == scheduledTab) onScheduledTabSelected();
-            else if (newTab == budgetsTab) onBudgetsTabSelected();
-            else if (newTab == tagsTab) onTagsTabSelected();
-            else if (newTab == settingsTab) onSettingsTabSelected();
-            else if (newTab == deadlinesTab) onDeadlinesTabSelected();
-            else if (newTab == loanAmortizationTab) onLoanAmortizationTabSelected();
-            else if (newTab == userManagementTab) onUserManagementTabSelected();
+            if (newTab != null) {
+                FxStallWatchdog.getInstance().setCurrentView(newTab.getText());
+                loadTab(newTab);
+            }
+            // Reloads the view only if changes concerning it came in while it was hidden
+            viewRefreshes.show(newTab != null ? tabControllers.get(newTab) : null);
         });
     }
 
     @Override
     protected void loadData() {
         LOGGER.info("Loading MainController data");
+        // Already selected, so the listener does not load it
         tabPane.getSelectionModel().select(dashboardTab);
-        if (transactionsViewController != null) transactionsViewController.loadData();
+        loadTab(dashboardTab);
+        viewRefreshes.show(tabControllers.get(dashboardTab));
     }
 
-    @FXML
-    private void onTransactionsTabSelected() {
-        LOGGER.info("Transactions tab selected");
-        if (transactionsViewController != null) {
-            LOGGER.info("TransactionsController found, refreshing data");
-            transactionsViewController.setCurrentUser(currentUser);
-            transactionsViewController.refreshData();
-            transactionsViewController.refreshTags();
-        } else {
-            LOGGER.warning("TransactionsController is null! Trying to get it from the tab content...");
-            // Try to get the controller from the tab content
-            if (transactionsTab != null && transactionsTab.getContent() != null) {
-                try {
-                    // This is a workaround - try to get the controller from the scene
-                    javafx.scene.Node content = transactionsTab.getContent();
-                    if (content instanceof javafx.scene.Parent) {
-                        javafx.scene.Parent parent = (javafx.scene.Parent) content;
-                        // Try to find the controller in the scene
-                        for (javafx.scene.Node node : parent.lookupAll("*")) {
-                            if (node.getUserData() instanceof TransactionsController) {
-                                transactionsViewController = (TransactionsController) node.getUserData();
-                                LOGGER.info("Found TransactionsController from scene lookup");
-                                break;
-                            }
-                        }
-                    }
-                    
-                    if (transactionsViewController != null) {
-                        transactionsViewController.setCurrentUser(currentUser);
-                        transactionsViewController.refreshData();
-                        transactionsViewController.refreshTags();
-                    } else {
-                        LOGGER.severe("Could not find TransactionsController in the scene");
-                    }
-                } catch (Exception e) {
-                    LOGGER.severe("Error trying to get TransactionsController: " + e.getMessage());
-                }
-            }
-        }
-    }
-    private void onStatisticsTabSelected() { if (statisticsViewController != null) statisticsViewController.refreshData(); }
-    private void onScheduledTabSelected() { 
-        if (scheduledViewController != null) {
-            scheduledViewController.refreshData();
-            scheduledViewController.refreshTags();
-        }
-    }
-    private void onBudgetsTabSelected() { 
-        if (budgetsViewController != null) {
-            budgetsViewController.refreshData();
-            budgetsViewController.refreshTags();
-        }
+    /**
+     * Loads the view of a tab and wires its controller, the first time the tab is
+     * selected. Only the dashboard is loaded with the main view; the other tabs, their
+     * controllers and their EntityManagers are created when the user first opens them.
+     *
+     * @param tab the selected tab
+     */
+    private void loadTab(Tab tab) {
+        String view = tabViews.remove(tab);
+        if (view == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/" + view));
+        try {
+            tab.setContent(loader.load());
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to load the view of tab " + tab.getText(), e);
+            showError("Loading Error", "Failed to load " + tab.getText() + ": " + e.getMessage());
+            return;
+        }
+        BaseController controller = loader.getController();
+        controller.setMainController(this);
+        boolean loadedWithUser = register(controller);
+        tabControllers.put(tab, controller);
+        // Loaded in initialize() before it was given the user, its first load showed nothing
+        viewRefreshes.register(controller, currentUser != null && !loadedWithUser);
+        LOGGER.info("Loaded tab " + tab.getText() + " in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        StartupTimeline.getInstance().mark("tab." + view.replace(".fxml", "") + ".loaded");
     }
-    private void onTagsTabSelected() { if (tagsViewController != null) tagsViewController.refreshData(); }
-    private void onSettingsTabSelected() { if (settingsViewController != null) settingsViewController.refreshData(); }
-    private void onDeadlinesTabSelected() { if (deadlinesViewController != null) deadlinesViewController.refreshData(); }
-    private void onLoanAmortizationTabSelected() { if (loanAmortizationViewController != null) loanAmortizationViewController.refreshData(); }
-    private void onUserManagementTabSelected() {
-        if (userManagementViewController != null) {
-            userManagementViewController.loadData();
-        }
+
+    /**
+     * Keeps the reference to a tab controller just loaded and gives it the current user.
+     *
+     * @param controller the controller of the tab
+     * @return whether the controller loaded its data on being given the user
+     */
+    private boolean register(BaseController controller) {
+        if (controller instanceof TransactionsController c) {
+            transactionsViewController = c;
+            c.setCurrentUser(currentUser);
+        } else if (controller instanceof StatisticsController c) {
+            statisticsViewController = c;
+            c.setCurrentUser(currentUser);
+        } else if (controller instanceof ScheduledController c) {
+            scheduledViewController = c;
+            c.setCurrentUser(currentUser);
+        } else if (controller instanceof BudgetsController c) {
+            budgetsViewController = c;
+            c.setCurrentUser(currentUser);
+        } else if (controller instanceof TagsController c) {
+            tagsViewController = c;
+            c.setCurrentUser(currentUser);
+        } else if (controller instanceof SettingsController c) {
+            settingsViewController = c;
+            c.setCurrentUser(currentUser);
+        } else if (controller instanceof DeadlinesController c) {
+            deadlinesViewController = c;
+            c.setCurrentUser(currentUser);
+        } else if (controller instanceof LoanAmortizationController c) {
+            loanAmortizationViewController = c;
+            c.setCurrentUser(currentUser);
+        } else if (controller instanceof DashboardController c) {
+            dashboardViewController = c;
+            c.setCurrentUser(currentUser);
+            return currentUser != null;
+        } else if (controller instanceof UserManagementController c) {
+            userManagementViewController = c;
+            c.setCurrentUser(currentUser);
+        }
+        return false;
     }
 
+    /**
+     * Marks every view out of date and refreshes the visible one, for changes that did
+     * not go through the ledger events. Changes that did are picked up by the
+     * {@link ViewRefreshCoordinator} on their own.
+     */
     public void refreshAllViews() {
-        if (transactionsViewController != null) {
-            transactionsViewController.refreshData();
-            transactionsViewController.refreshTags();
-        }
-        if (statisticsViewController != null) statisticsViewController.refreshData();
-        if (scheduledViewController != null) {
-            scheduledViewController.refreshData();
-            scheduledViewController.refreshTags();
-        }
-        if (budgetsViewController != null) {
-            budgetsViewController.refreshData();
-            budgetsViewController.refreshTags();
-        }
-        if (tagsViewController != null) tagsViewController.refreshData();
-        if (settingsViewController != null) settingsViewController.refreshData();
-        if (deadlinesViewController != null) {
-            deadlinesViewController.refreshData();
-            deadlinesViewController.refreshTags();
-        }
-        if (loanAmortizationViewController != null) loanAmortizationViewController.refreshData();
-        if (dashboardViewController != null) dashboardViewController.refreshData();
-        if (userManagementViewController != null) userManagementViewController.refreshData();
+        viewRefreshes.invalidateAll();
     }
 
     @Override
     public void cleanup() {
+        if (viewRefreshes != null) viewRefreshes.close();
         super.cleanup();
         if (transactionsViewController != null) transactionsViewController.cleanup();
         if (statisticsViewController != null) statisticsViewController.cleanup();
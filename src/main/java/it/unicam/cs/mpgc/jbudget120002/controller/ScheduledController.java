@@ -1,5 +1,7 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+import it.unicam.cs.mpgc.jbudget120002.model.ScheduledRow;
 import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
 import it.unicam.cs.mpgc.jbudget120002.model.Deadline;
@@ -8,12 +10,11 @@ import it.unicam.cs.mpgc.jbudget120002.service.TagService;
 import it.unicam.cs.mpgc.jbudget120002.service.UserSettingsService;
 import it.unicam.cs.mpgc.jbudget120002.service.DeadlineService;
 import it.unicam.cs.mpgc.jbudget120002.util.DateTimeUtils;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -56,13 +57,13 @@ public class ScheduledController extends BaseController {
     @FXML private FlowPane flowSelectedTags;
     @FXML private ComboBox<ScheduledTransaction.RecurrencePattern> cbPattern;
     @FXML private TextField tfRecurrenceValue;
-    @FXML private TableView<ScheduledTransaction> table;
-    @FXML private TableColumn<ScheduledTransaction, LocalDate> colStartDate;
-    @FXML private TableColumn<ScheduledTransaction, LocalDate> colEndDate;
-    @FXML private TableColumn<ScheduledTransaction, String> colDesc;
-    @FXML private TableColumn<ScheduledTransaction, BigDecimal> colAmount;
-    @FXML private TableColumn<ScheduledTransaction, String> colTags;
-    @FXML private TableColumn<ScheduledTransaction, String> colPattern;
+    @FXML private TableView<ScheduledRow> table;
+    @FXML private TableColumn<ScheduledRow, LocalDate> colStartDate;
+    @FXML private TableColumn<ScheduledRow, LocalDate> colEndDate;
+    @FXML private TableColumn<ScheduledRow, String> colDesc;
+    @FXML private TableColumn<ScheduledRow, BigDecimal> colAmount;
+    @FXML private TableColumn<ScheduledRow, String> colTags;
+    @FXML private TableColumn<ScheduledRow, String> colPattern;
     @FXML private Button btnGenerateScheduled;
     @FXML private Button btnAdd;
     @FXML private Button btnSave;
@@ -82,7 +83,7 @@ public class ScheduledController extends BaseController {
     private TagService tagService;
     private UserSettingsService settingsService;
     private DeadlineService deadlineService;
-    private ObservableList<ScheduledTransaction> transactions;
+    private ObservableList<ScheduledRow> transactions;
     private Set<Tag> selectedTags;
     private boolean isEditMode = false;
     private it.unicam.cs.mpgc.jbudget120002.model.User currentUser;
@@ -127,7 +128,7 @@ public class ScheduledController extends BaseController {
         updateButtonStates();
     }
 
-    private void loadScheduledTransactionToForm(ScheduledTransaction transaction) {
+    private void loadScheduledTransactionToForm(ScheduledRow transaction) {
         dpStartDate.setValue(transaction.getStartDate());
         dpEndDate.setValue(transaction.getEndDate());
         tfDesc.setText(transaction.getDescription());
@@ -148,8 +149,9 @@ public class ScheduledController extends BaseController {
     }
 
     private void setupTable() {
-        colStartDate.setCellValueFactory(new PropertyValueFactory<>("startDate"));
-        colStartDate.setCellFactory(column -> new TableCell<ScheduledTransaction, LocalDate>() {
+        // Rows are records, so the columns read their accessors directly
+        colStartDate.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().startDate()));
+        colStartDate.setCellFactory(column -> new TableCell<ScheduledRow, LocalDate>() {
             @Override
             protected void updateItem(LocalDate date, boolean empty) {
                 super.updateItem(date, empty);
@@ -157,8 +159,8 @@ public class ScheduledController extends BaseController {
             }
         });
         
-        colEndDate.setCellValueFactory(new PropertyValueFactory<>("endDate"));
-        colEndDate.setCellFactory(column -> new TableCell<ScheduledTransaction, LocalDate>() {
+        colEndDate.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().endDate()));
+        colEndDate.setCellFactory(column -> new TableCell<ScheduledRow, LocalDate>() {
             @Override
             protected void updateItem(LocalDate date, boolean empty) {
                 super.updateItem(date, empty);
@@ -166,10 +168,10 @@ public class ScheduledController extends BaseController {
             }
         });
         
-        colDesc.setCellValueFactory(new PropertyValueFactory<>("description"));
+        colDesc.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().description()));
         
-        colAmount.setCellValueFactory(new PropertyValueFactory<>("amount"));
-        colAmount.setCellFactory(column -> new TableCell<ScheduledTransaction, BigDecimal>() {
+        colAmount.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().amount()));
+        colAmount.setCellFactory(column -> new TableCell<ScheduledRow, BigDecimal>() {
             @Override
             protected void updateItem(BigDecimal amount, boolean empty) {
                 super.updateItem(amount, empty);
@@ -177,10 +179,10 @@ public class ScheduledController extends BaseController {
                     setText(null);
                     setStyle("");
                 } else {
-                    ScheduledTransaction transaction = getTableRow().getItem();
+                    ScheduledRow transaction = getTableRow().getItem();
                     if (transaction != null) {
                         String formattedAmount = String.format("€%.2f", amount);
-                        if (transaction.isIncome()) {
+                        if (transaction.income()) {
                             setText(formattedAmount);
                             getStyleClass().removeAll("negative");
                             if (!getStyleClass().contains("positive")) getStyleClass().add("positive");
@@ -194,19 +196,9 @@ public class ScheduledController extends BaseController {
             }
         });
         
-        colPattern.setCellValueFactory(cellData -> {
-            ScheduledTransaction st = cellData.getValue();
-            ScheduledTransaction.RecurrencePattern pattern = st.getPattern();
-            String value = (pattern != null ? st.getRecurrenceValue() + " " + pattern.toString() : "");
-            return new SimpleStringProperty(value);
-        });
+        colPattern.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().recurrence()));
         
-        colTags.setCellValueFactory(cellData -> {
-            String tags = cellData.getValue().getTags().stream()
-                .map(Tag::getName)
-                .collect(Collectors.joining(", "));
-            return new SimpleStringProperty(tags);
-        });
+        colTags.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().tagNames()));
 
         table.setItems(transactions);
     }
@@ -323,31 +315,22 @@ public class ScheduledController extends BaseController {
     @Override
     public void refreshData() {
         if (currentUser == null) return;
+        checkpointPersistenceContext();
         // TODO: update all queries to use currentUser if needed
         LocalDate startDate = dpFilterStartDate.getValue();
         LocalDate endDate = dpFilterEndDate.getValue();
         String searchText = tfSearch.getText().trim();
         Tag selectedCategory = cbCategory.getValue();
         boolean includeSubcategories = cbIncludeSubcategories.isSelected();
-        List<ScheduledTransaction> filteredTransactions;
-        
+
         // Handle "All Categories" option
         if (selectedCategory != null && "All Categories".equals(selectedCategory.getName())) {
             selectedCategory = null;
         }
         
-        if (selectedCategory != null) {
-            filteredTransactions = scheduledService.findByTag(selectedCategory, includeSubcategories);
-        } else {
-            filteredTransactions = scheduledService.findAll();
-        }
-        // Apply date and search filters
-        filteredTransactions = filteredTransactions.stream()
-            .filter(t -> (startDate == null || !t.getStartDate().isBefore(startDate)) &&
-                        (endDate == null || !t.getEndDate().isAfter(endDate)) &&
-                        (searchText.isEmpty() || t.getDescription().toLowerCase().contains(searchText.toLowerCase())))
-            .collect(Collectors.toList());
-        transactions.setAll(filteredTransactions);
+        // Category, date and search filters are all applied by the query
+        transactions.setAll(scheduledService.findRows(
+            selectedCategory, includeSubcategories, startDate, endDate, searchText));
         updateStatistics();
     }
     
@@ -362,6 +345,23 @@ public class ScheduledController extends BaseController {
         }
     }
 
+    // ==================== CHANGE TRACKING ====================
+
+    /** Affected by scheduled transactions, the occurrences generated from them, and tags */
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        return switch (event.type()) {
+            case SCHEDULED_TRANSACTION_CHANGED, SCHEDULED_OCCURRENCES_GENERATED, TAG_CHANGED -> true;
+            default -> false;
+        };
+    }
+
+    @Override
+    protected void refreshForChanges() {
+        refreshTags();
+        refreshData();
+    }
+
     private void updateStatistics() {
         BigDecimal totalIncome = scheduledService.calculateIncomeForPeriod(
             dpFilterStartDate.getValue(), 
@@ -393,7 +393,7 @@ public class ScheduledController extends BaseController {
             BigDecimal amount = new BigDecimal(tfAmount.getText());
             int recurrenceValue = Integer.parseInt(tfRecurrenceValue.getText());
 
-            ScheduledTransaction scheduled = scheduledService.createScheduledTransaction(
+            scheduledService.createScheduledTransaction(
                 tfDesc.getText(),
                 amount,
                 cbIncome.isSelected(),
@@ -405,7 +405,7 @@ public class ScheduledController extends BaseController {
                 currentUser
             );
             
-            transactions.add(scheduled);
+            refreshData();
             clearForm();
         } catch (NumberFormatException e) {
             showError("Invalid Input", "Please enter valid numbers for amount and recurrence value.");
@@ -416,7 +416,7 @@ public class ScheduledController extends BaseController {
 
     @FXML
     private void handleEditScheduled() {
-        ScheduledTransaction selected = table.getSelectionModel().getSelectedItem();
+        ScheduledTransaction selected = loadSelectedScheduled();
         if (selected != null) {
             isEditMode = true;
             dpStartDate.setValue(selected.getStartDate());
@@ -447,10 +447,10 @@ public class ScheduledController extends BaseController {
         Set<Long> tagIds = selectedTags.stream().map(Tag::getId).collect(Collectors.toSet());
 
         if (isEditMode) {
-            ScheduledTransaction selected = table.getSelectionModel().getSelectedItem();
+            ScheduledRow selected = table.getSelectionModel().getSelectedItem();
             if (selected != null) {
                 scheduledService.updateScheduledTransaction(
-                    selected.getId(),
+                    selected.id(),
                     desc,
                     amount,
                     cbIncome.isSelected(),
@@ -480,9 +480,9 @@ public class ScheduledController extends BaseController {
 
     @FXML
     private void handleDeleteScheduled() {
-        ScheduledTransaction selected = table.getSelectionModel().getSelectedItem();
+        ScheduledRow selected = table.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            scheduledService.deleteScheduledTransaction(selected.getId());
+            scheduledService.deleteScheduledTransaction(selected.id());
             refreshData();
         }
     }
@@ -508,7 +508,7 @@ public class ScheduledController extends BaseController {
 
     @FXML
     private void handleCancelEdit() {
-        ScheduledTransaction selected = table.getSelectionModel().getSelectedItem();
+        ScheduledTransaction selected = loadSelectedScheduled();
         if (selected != null) {
             dpStartDate.setValue(selected.getStartDate());
             dpEndDate.setValue(selected.getEndDate());
@@ -564,7 +564,7 @@ public class ScheduledController extends BaseController {
 
     @FXML
     private void handleConvertToDeadline() {
-        ScheduledTransaction selected = table.getSelectionModel().getSelectedItem();
+        ScheduledTransaction selected = loadSelectedScheduled();
         if (selected == null) {
             showError("No Selection", "Please select a scheduled transaction to convert to a deadline.");
             return;
@@ -623,4 +623,15 @@ public class ScheduledController extends BaseController {
             }
         });
     }
-} 
\ No newline at end of file
+
+    /**
+     * Loads the scheduled transaction of the selected row. Table rows are read-only
+     * projections, so the entity is only fetched when it is edited or converted.
+     *
+     * @return the selected scheduled transaction, or null if no row is selected or it was deleted
+     */
+    private ScheduledTransaction loadSelectedScheduled() {
+        ScheduledRow selected = table.getSelectionModel().getSelectedItem();
+        return selected != null ? scheduledService.findById(selected.id()).orElse(null) : null;
+    }
+}
@@ -1,16 +1,27 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.FlightRecording;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.FxStallWatchdog;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.Instrumentation;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.MethodStatsSnapshot;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.QueryPatternFinding;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.ViewStallSnapshot;
 import it.unicam.cs.mpgc.jbudget120002.model.UserSettings;
 import it.unicam.cs.mpgc.jbudget120002.model.ConflictResolutionStrategy;
 import it.unicam.cs.mpgc.jbudget120002.model.SyncStatus;
 import it.unicam.cs.mpgc.jbudget120002.service.SyncService;
+import it.unicam.cs.mpgc.jbudget120002.service.PersistenceContextPolicy;
 import it.unicam.cs.mpgc.jbudget120002.service.FileSyncService;
 import it.unicam.cs.mpgc.jbudget120002.service.UserSettingsService;
 import it.unicam.cs.mpgc.jbudget120002.util.DateTimeUtils;
 
+import javafx.beans.property.SimpleStringProperty;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.DirectoryChooser;
+import javafx.stage.FileChooser;
 import java.io.File;
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -31,6 +42,8 @@ import java.util.stream.Collectors;
  * - Configure date and number formats
  * - Manage application appearance settings
  * - Coordinate with UserSettingsService for persistence
+ * - Show per-method service timings, query counts, suspected N+1 patterns and
+ *   UI thread stalls per view (diagnostics panel)
  *
  * Usage:
  * Used by MainController to manage the settings tab and provide
@@ -50,6 +63,27 @@ public class SettingsController extends BaseController {
     @FXML private Label lblLastSync;
     @FXML private Label lblSyncStatus;
 
+    // Diagnostics controls
+    @FXML private CheckBox cbInstrumentation;
+    @FXML private CheckBox cbQueryDetector;
+    @FXML private ListView<QueryPatternFinding> listQueryFindings;
+    @FXML private TableView<ViewStallSnapshot> tableStalls;
+    @FXML private TableColumn<ViewStallSnapshot, String> colStallView;
+    @FXML private TableColumn<ViewStallSnapshot, Long> colStallCount;
+    @FXML private TableColumn<ViewStallSnapshot, String> colStallP50;
+    @FXML private TableColumn<ViewStallSnapshot, String> colStallP99;
+    @FXML private TableColumn<ViewStallSnapshot, String> colStallMax;
+    @FXML private Label lblStatementCount;
+    @FXML private TableView<MethodStatsSnapshot> tableDiagnostics;
+    @FXML private TableColumn<MethodStatsSnapshot, String> colDiagMethod;
+    @FXML private TableColumn<MethodStatsSnapshot, Long> colDiagCalls;
+    @FXML private TableColumn<MethodStatsSnapshot, String> colDiagMean;
+    @FXML private TableColumn<MethodStatsSnapshot, String> colDiagP50;
+    @FXML private TableColumn<MethodStatsSnapshot, String> colDiagP99;
+    @FXML private TableColumn<MethodStatsSnapshot, String> colDiagMax;
+    @FXML private TableColumn<MethodStatsSnapshot, String> colDiagStatements;
+    @FXML private TableColumn<MethodStatsSnapshot, Long> colDiagErrors;
+
     private UserSettingsService settingsService;
     private SyncService syncService;
 
@@ -73,10 +107,53 @@ public class SettingsController extends BaseController {
         // Initialize conflict resolution strategy options
         cbConflictStrategy.getItems().addAll(ConflictResolutionStrategy.values());
         
+        setupDiagnostics();
+
         // Load current settings
         loadCurrentSettings();
     }
 
+    private void setupDiagnostics() {
+        colDiagMethod.setCellValueFactory(new PropertyValueFactory<>("name"));
+        colDiagCalls.setCellValueFactory(new PropertyValueFactory<>("calls"));
+        colDiagErrors.setCellValueFactory(new PropertyValueFactory<>("errors"));
+        colDiagMean.setCellValueFactory(cellData ->
+            new SimpleStringProperty(formatMillis(cellData.getValue().getMeanMillis())));
+        colDiagP50.setCellValueFactory(cellData ->
+            new SimpleStringProperty(formatMillis(cellData.getValue().getP50Millis())));
+        colDiagP99.setCellValueFactory(cellData ->
+            new SimpleStringProperty(formatMillis(cellData.getValue().getP99Millis())));
+        colDiagMax.setCellValueFactory(cellData ->
+            new SimpleStringProperty(formatMillis(cellData.getValue().getMaxMillis())));
+        colDiagStatements.setCellValueFactory(cellData ->
+            new SimpleStringProperty(String.format("%.1f", cellData.getValue().getStatementsPerCall())));
+        cbInstrumentation.setSelected(Instrumentation.getInstance().isEnabled());
+        cbQueryDetector.setSelected(Instrumentation.getInstance().getDetector().isEnabled());
+        colStallView.setCellValueFactory(new PropertyValueFactory<>("view"));
+        colStallCount.setCellValueFactory(new PropertyValueFactory<>("stalls"));
+        colStallP50.setCellValueFactory(cellData ->
+            new SimpleStringProperty(formatMillis(cellData.getValue().getP50Millis())));
+        colStallP99.setCellValueFactory(cellData ->
+            new SimpleStringProperty(formatMillis(cellData.getValue().getP99Millis())));
+        colStallMax.setCellValueFactory(cellData ->
+            new SimpleStringProperty(formatMillis(cellData.getValue().getMaxMillis())));
+        tableStalls.setOnMouseClicked(event -> {
+            ViewStallSnapshot stalls = tableStalls.getSelectionModel().getSelectedItem();
+            if (event.getClickCount() == 2 && stalls != null) {
+                String stack = stalls.getLastStallStack().stream()
+                    .map(element -> "at " + element)
+                    .collect(Collectors.joining("\n"));
+                showInfo("Last stall in " + stalls.getView(), stack.isEmpty() ? "No stack captured" : stack);
+            }
+        });
+        listQueryFindings.setOnMouseClicked(event -> {
+            QueryPatternFinding finding = listQueryFindings.getSelectionModel().getSelectedItem();
+            if (event.getClickCount() == 2 && finding != null) {
+                showInfo("Query pattern", finding.describe());
+            }
+        });
+    }
+
     private void loadCurrentSettings() {
         Optional<UserSettings> settings = settingsService.findFirst();
         settings.ifPresent(s -> {
@@ -89,6 +166,7 @@ public class SettingsController extends BaseController {
         });
         
         updateSyncStatus();
+        refreshDiagnostics();
     }
 
     @Override
@@ -96,6 +174,12 @@ public class SettingsController extends BaseController {
         loadCurrentSettings();
     }
 
+    /** Shows settings and diagnostics, which no ledger change affects */
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        return false;
+    }
+
     @FXML
     private void handleSave() {
         try {
@@ -165,4 +249,87 @@ public class SettingsController extends BaseController {
             showError("Error", "Failed to sync: " + e.getMessage());
         }
     }
+
+    // ==================== DIAGNOSTICS ====================
+
+    @FXML
+    private void handleToggleInstrumentation() {
+        Instrumentation.getInstance().setEnabled(cbInstrumentation.isSelected());
+        refreshDiagnostics();
+    }
+
+    @FXML
+    private void handleToggleQueryDetector() {
+        Instrumentation.getInstance().getDetector().setEnabled(cbQueryDetector.isSelected());
+        refreshDiagnostics();
+    }
+
+    @FXML
+    private void handleRefreshDiagnostics() {
+        refreshDiagnostics();
+    }
+
+    @FXML
+    private void handleResetDiagnostics() {
+        Instrumentation.getInstance().reset();
+        Instrumentation.getInstance().getDetector().clearFindings();
+        PersistenceContextPolicy.getInstance().reset();
+        FxStallWatchdog.getInstance().reset();
+        if (mainController != null && mainController.getViewRefreshes() != null) {
+            mainController.getViewRefreshes().resetCounts();
+        }
+        refreshDiagnostics();
+    }
+
+    @FXML
+    private void handleDumpFlightRecording() {
+        FlightRecording recording = FlightRecording.getInstance();
+        if (!recording.isRecording()) {
+            showWarning("Flight Recording", "Flight recording is not running. Start the application without -D"
+                + FlightRecording.ENABLED_PROPERTY + "=false to enable it.");
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save Flight Recording");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Flight Recordings", "*.jfr"));
+        chooser.setInitialFileName("jbudget-" + LocalDate.now() + ".jfr");
+        File file = chooser.showSaveDialog(tableDiagnostics.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        try {
+            recording.dump(file.toPath());
+            showInfo("Flight Recording", "Recording saved to " + file.getAbsolutePath()
+                + ". Open it in JDK Mission Control to analyse it.");
+        } catch (Exception e) {
+            showError("Error", "Failed to dump flight recording: " + e.getMessage());
+        }
+    }
+
+    private void refreshDiagnostics() {
+        Instrumentation instrumentation = Instrumentation.getInstance();
+        tableDiagnostics.getItems().setAll(instrumentation.snapshot());
+        listQueryFindings.getItems().setAll(instrumentation.getDetector().getFindings());
+        tableStalls.getItems().setAll(FxStallWatchdog.getInstance().snapshot());
+        PersistenceContextPolicy context = PersistenceContextPolicy.getInstance();
+        lblStatementCount.setText((instrumentation.isEnabled()
+            ? "Queries: " + instrumentation.getTotalStatements()
+            : "Recording disabled")
+            + String.format(" | Context: %d entities (peak %d), %d clears, flush mean %s ms",
+                context.getLastContextSize(), context.getPeakContextSize(), context.getClearCount(),
+                formatMillis(context.getMeanFlushMillis()))
+            + viewRefreshSummary());
+    }
+
+    private String viewRefreshSummary() {
+        ViewRefreshCoordinator views = mainController != null ? mainController.getViewRefreshes() : null;
+        if (views == null) {
+            return "";
+        }
+        return String.format(" | Views: %d refreshed, %d avoided", views.getPerformedCount(), views.getAvoidedCount());
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format("%.2f", millis);
+    }
 }
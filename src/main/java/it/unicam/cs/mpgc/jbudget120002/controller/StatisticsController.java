@@ -3,6 +3,7 @@ package it.unicam.cs.mpgc.jbudget120002.controller;
 import it.unicam.cs.mpgc.jbudget120002.model.*;
 import it.unicam.cs.mpgc.jbudget120002.service.*;
 import it.unicam.cs.mpgc.jbudget120002.model.StatisticsModels.*;
+import it.unicam.cs.mpgc.jbudget120002.util.SeriesDownsampler;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -11,6 +12,7 @@ import javafx.fxml.FXML;
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.VBox;
 import javafx.util.StringConverter;
 import java.math.BigDecimal;
@@ -32,12 +34,22 @@ import java.util.stream.Collectors;
  * - Handle date range selection for analysis
  * - Present budget utilization insights
  * - Show spending patterns and anomalies
+ * - Downsample long trend series to the width of the chart, with full detail on zoom
  *
  * Usage:
  * Used by MainController to manage the statistics tab and provide
  * comprehensive financial analysis and reporting to users.
  */
 public class StatisticsController extends BaseController {
+
+    /** Horizontal pixels per trend point drawn; closer points would overlap */
+    private static final int PIXELS_PER_TREND_POINT = 2;
+    /** Width assumed for the trend chart before its first layout */
+    private static final int DEFAULT_TREND_WIDTH = 800;
+    /** Fewest trend points a zoom can narrow down to */
+    private static final int MIN_ZOOM_POINTS = 10;
+    /** Share of the shown points kept by one scroll step in */
+    private static final double ZOOM_STEP = 0.8;
     // Period Selection Controls
     @FXML private ComboBox<String> cbPeriodType;
     @FXML private DatePicker dpStartDate;
@@ -92,6 +104,15 @@ public class StatisticsController extends BaseController {
     
     @FXML private ComboBox<String> cbAnalysisInterval;
     @FXML private BarChart<String, Number> patternChart;
+    @FXML private Label lblTrendDetail;
+
+    // Trend points behind the trend chart, and the zoomed window [zoomFrom, zoomTo) of them shown
+    private List<CategoryTrend> trendPoints = List.of();
+    private String trendInterval;
+    private boolean trendDetailed;
+    private int zoomFrom;
+    private int zoomTo;
+    private int renderedPointBudget;
 
     private User currentUser;
 
@@ -232,6 +253,14 @@ public class StatisticsController extends BaseController {
         trendChart.setTitle("Category Spending Trends");
         trendChart.getXAxis().setLabel("Time");
         trendChart.getYAxis().setLabel("Amount");
+        trendChart.setOnScroll(this::zoomTrends);
+        trendChart.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) resetTrendZoom();
+        });
+        // Resizing changes how many points fit
+        trendChart.widthProperty().addListener((obs, oldWidth, newWidth) -> {
+            if (!trendPoints.isEmpty() && trendPointBudget() != renderedPointBudget) renderTrends();
+        });
 
         // Pattern Chart
         patternChart.setTitle("Spending Patterns");
@@ -303,11 +332,34 @@ public class StatisticsController extends BaseController {
     @Override
     public void refreshData() {
         if (currentUser == null) return;
+        checkpointPersistenceContext();
         updateSummary();
         updateTables();
         updateCharts();
     }
 
+    // ==================== CHANGE TRACKING ====================
+
+    /**
+     * Affected by transactions within the period or the comparison period before it,
+     * and by tags, budgets and users.
+     */
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        if (event.isTransactionChange()) {
+            LocalDate start = dpStartDate.getValue();
+            LocalDate end = dpEndDate.getValue();
+            if (start == null || end == null) {
+                return true;
+            }
+            return event.mayConcern(start.minusDays(ChronoUnit.DAYS.between(start, end) + 1), end);
+        }
+        return switch (event.type()) {
+            case TAG_CHANGED, BUDGET_CHANGED, USERS_CHANGED -> true;
+            default -> false;
+        };
+    }
+
     private void updateSummary() {
         LocalDate start = dpStartDate.getValue();
         LocalDate end = dpEndDate.getValue();
@@ -438,18 +490,15 @@ public class StatisticsController extends BaseController {
             dpStartDate.getValue(), dpEndDate.getValue(), selectedCategory, interval
         );
         
-        XYChart.Series<String, Number> balanceSeries = new XYChart.Series<>();
-        balanceSeries.setName("Balance");
-        
         if (trends.isEmpty()) {
+            clearTrends();
+            XYChart.Series<String, Number> balanceSeries = new XYChart.Series<>();
+            balanceSeries.setName("Balance");
             balanceSeries.getData().add(new XYChart.Data<>("No Data", 0));
+            trendChart.getData().add(balanceSeries);
         } else {
-            for (CategoryTrend trend : trends) {
-                String dateStr = formatDate(trend.date(), interval);
-                balanceSeries.getData().add(new XYChart.Data<>(dateStr, trend.amount().doubleValue()));
-            }
+            showTrends(trends, interval, false);
         }
-        trendChart.getData().add(balanceSeries);
         
         // Pattern Chart
         patternChart.getData().clear();
@@ -580,6 +629,7 @@ public class StatisticsController extends BaseController {
         trendChart.getData().clear();
         
         if (trends.isEmpty()) {
+            clearTrends();
             // Add a dummy data point to indicate no data
             XYChart.Series<String, Number> dummySeries = new XYChart.Series<>();
             dummySeries.setName("No data available");
@@ -588,31 +638,116 @@ public class StatisticsController extends BaseController {
             return;
         }
         
-        // Create series for actual spending
-        XYChart.Series<String, Number> actualSeries = new XYChart.Series<>();
-        actualSeries.setName("Actual Spending");
-        
-        // Create series for average
-        XYChart.Series<String, Number> averageSeries = new XYChart.Series<>();
-        averageSeries.setName("Average");
-        
-        // Create series for trend
-        XYChart.Series<String, Number> trendSeries = new XYChart.Series<>();
-        trendSeries.setName("Trend");
-        
-        // Add data points
-        for (CategoryTrend trend : trends) {
-            String dateStr = formatDate(trend.date(), interval);
-            actualSeries.getData().add(new XYChart.Data<>(dateStr, trend.amount().doubleValue()));
-            averageSeries.getData().add(new XYChart.Data<>(dateStr, trend.average().doubleValue()));
-            trendSeries.getData().add(new XYChart.Data<>(dateStr, trend.trend().doubleValue()));
+        // Actual spending, average and trend series
+        showTrends(trends, interval, true);
+    }
+
+    // ==================== TREND DOWNSAMPLING ====================
+
+    /**
+     * Shows trend points in the trend chart, unzoomed.
+     *
+     * @param detailed whether to draw the average and trend series beside the amounts
+     */
+    private void showTrends(List<CategoryTrend> trends, String interval, boolean detailed) {
+        trendPoints = trends;
+        trendInterval = interval;
+        trendDetailed = detailed;
+        zoomFrom = 0;
+        zoomTo = trends.size();
+        renderTrends();
+    }
+
+    private void clearTrends() {
+        trendPoints = List.of();
+        lblTrendDetail.setText("");
+    }
+
+    /**
+     * Draws the zoomed window of the trend points, downsampled with LTTB to one point per
+     * {@value #PIXELS_PER_TREND_POINT} pixels of the chart's width. The nodes created are
+     * bounded by the width, however long the series; a window narrow enough to fit is
+     * drawn in full. The average and trend series are sampled at the points kept for
+     * the amounts, so all of them share the same categories.
+     */
+    private void renderTrends() {
+        renderedPointBudget = trendPointBudget();
+        List<CategoryTrend> window = trendPoints.subList(zoomFrom, zoomTo);
+        double[] amounts = window.stream().mapToDouble(t -> t.amount().doubleValue()).toArray();
+        int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(amounts, renderedPointBudget);
+
+        List<XYChart.Data<String, Number>> actual = new ArrayList<>(kept.length);
+        List<XYChart.Data<String, Number>> average = new ArrayList<>(kept.length);
+        List<XYChart.Data<String, Number>> trend = new ArrayList<>(kept.length);
+        for (int i : kept) {
+            CategoryTrend point = window.get(i);
+            String dateStr = formatDate(point.date(), trendInterval);
+            actual.add(new XYChart.Data<>(dateStr, amounts[i]));
+            if (trendDetailed) {
+                average.add(new XYChart.Data<>(dateStr, point.average().doubleValue()));
+                trend.add(new XYChart.Data<>(dateStr, point.trend().doubleValue()));
+            }
+        }
+
+        // Series are built whole, rather than point by point into a live chart
+        if (trendDetailed) {
+            trendChart.getData().setAll(List.of(
+                new XYChart.Series<>("Actual Spending", FXCollections.observableArrayList(actual)),
+                new XYChart.Series<>("Average", FXCollections.observableArrayList(average)),
+                new XYChart.Series<>("Trend", FXCollections.observableArrayList(trend))));
+        } else {
+            trendChart.getData().setAll(List.of(
+                new XYChart.Series<>("Balance", FXCollections.observableArrayList(actual))));
+        }
+
+        String detail = kept.length < window.size()
+            ? String.format("%d of %d points, scroll to zoom in", kept.length, window.size())
+            : String.format("%d points", window.size());
+        if (window.size() < trendPoints.size()) {
+            detail += String.format(" (%s to %s, double-click to show all)",
+                formatDate(window.get(0).date(), trendInterval),
+                formatDate(window.get(window.size() - 1).date(), trendInterval));
+        }
+        lblTrendDetail.setText(detail);
+    }
+
+    private int trendPointBudget() {
+        double width = trendChart.getWidth() > 0 ? trendChart.getWidth() : DEFAULT_TREND_WIDTH;
+        return Math.max(SeriesDownsampler.MIN_THRESHOLD, (int) width / PIXELS_PER_TREND_POINT);
+    }
+
+    /**
+     * Narrows or widens the window of trend points shown around the point under the
+     * mouse. Once the window holds fewer points than the chart fits, each is drawn.
+     */
+    private void zoomTrends(ScrollEvent event) {
+        int shown = zoomTo - zoomFrom;
+        if (trendPoints.size() <= MIN_ZOOM_POINTS || event.getDeltaY() == 0) {
+            return;
+        }
+        int size = (int) Math.round(event.getDeltaY() > 0 ? shown * ZOOM_STEP : shown / ZOOM_STEP);
+        size = Math.max(MIN_ZOOM_POINTS, Math.min(size, trendPoints.size()));
+        if (size == shown) {
+            return;
+        }
+        // Keep the point under the mouse where it is
+        Axis<String> axis = trendChart.getXAxis();
+        double anchor = axis.getWidth() > 0
+            ? Math.max(0.0, Math.min(1.0, axis.sceneToLocal(event.getSceneX(), event.getSceneY()).getX() / axis.getWidth()))
+            : 0.5;
+        int center = zoomFrom + (int) Math.round(anchor * shown);
+        zoomFrom = Math.max(0, Math.min(center - (int) Math.round(anchor * size), trendPoints.size() - size));
+        zoomTo = zoomFrom + size;
+        renderTrends();
+        event.consume();
+    }
+
+    private void resetTrendZoom() {
+        if (!trendPoints.isEmpty() && zoomTo - zoomFrom < trendPoints.size()) {
+            zoomFrom = 0;
+            zoomTo = trendPoints.size();
+            renderTrends();
         }
-        
-        // Add all series to the chart
-        trendChart.getData().addAll(actualSeries, averageSeries, trendSeries);
-        
-        // Force chart update
-        trendChart.layout();
     }
 
     private String formatDate(LocalDate date, String interval) {
@@ -1,5 +1,6 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 import it.unicam.cs.mpgc.jbudget120002.service.TagService;
@@ -77,6 +78,11 @@ public class TagsController extends BaseController {
         updateTreeView();
     }
 
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        return event.type() == LedgerEvent.Type.TAG_CHANGED;
+    }
+
     private void updateParentComboBox() {
         List<Tag> allTags = tagService.findAll();
         Tag noneOption = new Tag("None");
@@ -125,7 +131,6 @@ public class TagsController extends BaseController {
             updateParentComboBox();
             updateTreeView();
             clearForm();
-            refreshTransactionTags();
         } catch (Exception e) {
             showError("Error", "Failed to create tag: " + e.getMessage());
         }
@@ -148,7 +153,6 @@ public class TagsController extends BaseController {
             cbParent.getItems().remove(selected);
             updateParentComboBox();
             updateTreeView();
-            refreshTransactionTags();
         } catch (Exception e) {
             showError("Error", "Failed to delete tag: " + e.getMessage());
         }
@@ -173,8 +177,7 @@ public class TagsController extends BaseController {
                 tagService.updateTag(selected.getId(), name, parent != null ? parent.getId() : null);
                 refreshData();
                 clearForm();
-                refreshTransactionTags();
-            } catch (Exception e) {
+                } catch (Exception e) {
                 showError("Error", "Failed to update tag: " + e.getMessage());
             }
         }
@@ -199,24 +202,6 @@ public class TagsController extends BaseController {
         }
     }
 
-    private void refreshTransactionTags() {
-        if (mainController != null) {
-            // Refresh TransactionsController
-            TransactionsController transactionsController = mainController.getTransactionsViewController();
-            if (transactionsController != null) {
-                transactionsController.refreshTags();
-            }
-            
-            // Force refresh of all controllers that use category filters
-            // This ensures tags appear immediately in all category dropdowns
-            try {
-                mainController.refreshAllViews();
-            } catch (Exception e) {
-                System.err.println("Error refreshing controllers: " + e.getMessage());
-            }
-        }
-    }
-
     public void setCurrentUser(User user) {
         this.currentUser = user;
     }
@@ -1,7 +1,9 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
 import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.TransactionRow;
 import it.unicam.cs.mpgc.jbudget120002.model.UserSettings;
 import it.unicam.cs.mpgc.jbudget120002.service.TagService;
 import it.unicam.cs.mpgc.jbudget120002.service.TransactionService;
@@ -10,12 +12,11 @@ import it.unicam.cs.mpgc.jbudget120002.service.ScheduledTransactionService;
 import it.unicam.cs.mpgc.jbudget120002.util.DateTimeUtils;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -24,6 +25,7 @@ import java.time.LocalDate;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.ArrayList;
@@ -71,12 +73,12 @@ public class TransactionsController extends BaseController {
     @FXML private Label lblBalance;
     
     // Table
-    @FXML private TableView<Transaction> table;
-    @FXML private TableColumn<Transaction, LocalDate> colDate;
-    @FXML private TableColumn<Transaction, String> colDesc;
-    @FXML private TableColumn<Transaction, BigDecimal> colAmount;
-    @FXML private TableColumn<Transaction, String> colTags;
-    @FXML private TableColumn<Transaction, Boolean> colScheduled;
+    @FXML private TableView<TransactionRow> table;
+    @FXML private TableColumn<TransactionRow, LocalDate> colDate;
+    @FXML private TableColumn<TransactionRow, String> colDesc;
+    @FXML private TableColumn<TransactionRow, BigDecimal> colAmount;
+    @FXML private TableColumn<TransactionRow, String> colTags;
+    @FXML private TableColumn<TransactionRow, Boolean> colScheduled;
 
     @FXML private CheckBox cbIncludeSubcategories;
     private boolean isEditMode = false;
@@ -92,7 +94,7 @@ public class TransactionsController extends BaseController {
     private TagService tagService;
     private UserSettingsService settingsService;
     private ScheduledTransactionService scheduledTransactionService;
-    private ObservableList<Transaction> transactions;
+    private ObservableList<TransactionRow> transactions;
 
     public void setCurrentUser(User user) {
         this.currentUser = user;
@@ -122,7 +124,7 @@ public class TransactionsController extends BaseController {
         updateButtonStates();
 
         // Update amount column to always show EUR
-        colAmount.setCellFactory(column -> new TableCell<Transaction, BigDecimal>() {
+        colAmount.setCellFactory(column -> new TableCell<TransactionRow, BigDecimal>() {
             @Override
             protected void updateItem(BigDecimal amount, boolean empty) {
                 super.updateItem(amount, empty);
@@ -130,10 +132,10 @@ public class TransactionsController extends BaseController {
                     setText(null);
                     setStyle("");
                 } else {
-                    Transaction transaction = getTableRow().getItem();
+                    TransactionRow transaction = getTableRow().getItem();
                     if (transaction != null) {
                         String formattedAmount = String.format("€%.2f", amount);
-                        if (transaction.isIncome()) {
+                        if (transaction.income()) {
                             setText(formattedAmount);
                             getStyleClass().removeAll("negative");
                             if (!getStyleClass().contains("positive")) getStyleClass().add("positive");
@@ -183,8 +185,9 @@ public class TransactionsController extends BaseController {
     }
 
     private void setupTable() {
-        colDate.setCellValueFactory(new PropertyValueFactory<>("date"));
-        colDate.setCellFactory(column -> new TableCell<Transaction, LocalDate>() {
+        // Rows are records, so the columns read their accessors directly
+        colDate.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().date()));
+        colDate.setCellFactory(column -> new TableCell<TransactionRow, LocalDate>() {
             @Override
             protected void updateItem(LocalDate date, boolean empty) {
                 super.updateItem(date, empty);
@@ -192,20 +195,15 @@ public class TransactionsController extends BaseController {
             }
         });
         
-        colDesc.setCellValueFactory(new PropertyValueFactory<>("description"));
+        colDesc.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().description()));
         
-        colAmount.setCellValueFactory(new PropertyValueFactory<>("amount"));
+        colAmount.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().amount()));
         
-        colTags.setCellValueFactory(cellData -> {
-            String tags = cellData.getValue().getTags().stream()
-                .map(Tag::getName)
-                .collect(Collectors.joining(", "));
-            return new SimpleStringProperty(tags);
-        });
+        colTags.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().tagNames()));
 
         // Scheduled indicator column
-        colScheduled.setCellValueFactory(cellData -> new javafx.beans.property.SimpleBooleanProperty(cellData.getValue().isScheduled()));
-        colScheduled.setCellFactory(column -> new TableCell<Transaction, Boolean>() {
+        colScheduled.setCellValueFactory(cellData -> new ReadOnlyObjectWrapper<>(cellData.getValue().scheduled()));
+        colScheduled.setCellFactory(column -> new TableCell<TransactionRow, Boolean>() {
             @Override
             protected void updateItem(Boolean scheduled, boolean empty) {
                 super.updateItem(scheduled, empty);
@@ -324,9 +322,10 @@ public class TransactionsController extends BaseController {
     protected void loadData() {
         setupDatePickers();
         // Initialize date pickers
-        List<Transaction> all = (currentUser == null) ? transactionService.findAll() : transactionService.findAllForUser(currentUser);
-        LocalDate minDate = all.stream().map(Transaction::getDate).min(LocalDate::compareTo).orElse(LocalDate.now().minusYears(10));
-        LocalDate maxDate = all.stream().map(Transaction::getDate).max(LocalDate::compareTo).orElse(LocalDate.now().plusYears(10));
+        Optional<TransactionService.DateRange> range = (currentUser == null) ? Optional.empty()
+            : transactionService.findDateRange(currentUser);
+        LocalDate minDate = range.map(TransactionService.DateRange::first).orElse(LocalDate.now().minusYears(10));
+        LocalDate maxDate = range.map(TransactionService.DateRange::last).orElse(LocalDate.now().plusYears(10));
         dpDate.setValue(LocalDate.now());
         dpStartDate.setValue(minDate);
         dpEndDate.setValue(maxDate);
@@ -335,10 +334,31 @@ public class TransactionsController extends BaseController {
 
     public void refreshData() {
         if (currentUser == null) return;
+        checkpointPersistenceContext();
         loadTransactions();
         updateStatistics();
     }
 
+    // ==================== CHANGE TRACKING ====================
+
+    /**
+     * Affected by transactions dated within the filter, or updated, by tags (the
+     * filters list them) and by users.
+     */
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        if (event.isTransactionChange()) {
+            return event.mayConcern(dpStartDate.getValue(), dpEndDate.getValue());
+        }
+        return event.type() == LedgerEvent.Type.TAG_CHANGED || event.type() == LedgerEvent.Type.USERS_CHANGED;
+    }
+
+    @Override
+    protected void refreshForChanges() {
+        refreshTags();
+        refreshData();
+    }
+
     public void refreshTags() {
         if (tagService != null) {
             // Preserve selection
@@ -368,7 +388,7 @@ public class TransactionsController extends BaseController {
             category = null;
         }
 
-        List<Transaction> filteredTransactions = transactionService.findTransactions(
+        List<TransactionRow> filteredTransactions = transactionService.findTransactionRows(
             currentUser, searchTerm, startDate, endDate, category, includeSubcategories);
         
         transactions.setAll(filteredTransactions);
@@ -379,11 +399,11 @@ public class TransactionsController extends BaseController {
         BigDecimal totalIncome = BigDecimal.ZERO;
         BigDecimal totalExpense = BigDecimal.ZERO;
         
-        for (Transaction transaction : transactions) {
-            if (transaction.isIncome()) {
-                totalIncome = totalIncome.add(transaction.getAmount());
+        for (TransactionRow transaction : transactions) {
+            if (transaction.income()) {
+                totalIncome = totalIncome.add(transaction.amount());
             } else {
-                totalExpense = totalExpense.add(transaction.getAmount());
+                totalExpense = totalExpense.add(transaction.amount());
             }
         }
         
@@ -420,7 +440,7 @@ public class TransactionsController extends BaseController {
                 cbIncome.isSelected(),
                 selectedTags.stream().map(Tag::getId).collect(Collectors.toSet())
             );
-            transactions.add(0, transaction);
+            transactions.add(0, TransactionRow.of(transaction));
             clearForm();
         } catch (NumberFormatException e) {
             showError("Invalid Amount", "Please enter a valid number for the amount.");
@@ -431,7 +451,7 @@ public class TransactionsController extends BaseController {
 
     @FXML
     private void handleEditTransaction() {
-        Transaction selected = table.getSelectionModel().getSelectedItem();
+        Transaction selected = loadSelectedTransaction();
         if (selected != null) {
             isEditMode = true;
             dpDate.setValue(selected.getDate());
@@ -447,17 +467,12 @@ public class TransactionsController extends BaseController {
 
     @FXML
     private void handleDeleteTransaction() {
-        Transaction selected = table.getSelectionModel().getSelectedItem();
+        TransactionRow selected = table.getSelectionModel().getSelectedItem();
         if (selected != null) {
             try {
-                transactionService.deleteTransaction(selected.getId());
+                transactionService.deleteTransaction(selected.id());
                 transactions.remove(selected);
                 refreshData();
-                
-                // Refresh all views including dashboard
-                if (mainController != null) {
-                    mainController.refreshAllViews();
-                }
             } catch (Exception e) {
                 showError("Error", "Failed to delete transaction: " + e.getMessage());
             }
@@ -490,7 +505,7 @@ public class TransactionsController extends BaseController {
             showError("Invalid Date", "Cannot save a transaction with a future date.");
             return;
         }
-        Transaction selected = table.getSelectionModel().getSelectedItem();
+        TransactionRow selected = table.getSelectionModel().getSelectedItem();
         if (selected == null) {
             showError("No Selection", "Please select a transaction to edit.");
             return;
@@ -498,7 +513,7 @@ public class TransactionsController extends BaseController {
         try {
             BigDecimal amount = new BigDecimal(amountText);
             transactionService.updateTransaction(
-                selected.getId(),
+                selected.id(),
                 dpDate.getValue(),
                 tfDesc.getText(),
                 amount,
@@ -548,7 +563,7 @@ public class TransactionsController extends BaseController {
 
     @FXML
     private void handleCancelEdit() {
-        Transaction selected = table.getSelectionModel().getSelectedItem();
+        Transaction selected = loadSelectedTransaction();
         if (selected != null) {
             // Restore the original transaction data
             dpDate.setValue(selected.getDate());
@@ -629,7 +644,7 @@ public class TransactionsController extends BaseController {
 
     @FXML
     private void handleTableSelection() {
-        Transaction selected = table.getSelectionModel().getSelectedItem();
+        Transaction selected = loadSelectedTransaction();
         if (selected != null) {
             isEditMode = true;
             dpDate.setValue(selected.getDate());
@@ -642,4 +657,15 @@ public class TransactionsController extends BaseController {
             updateButtonStates();
         }
     }
+
+    /**
+     * Loads the transaction of the selected row for editing. Table rows are read-only
+     * projections, so the entity is only fetched here.
+     *
+     * @return the selected transaction, or null if no row is selected or it was deleted
+     */
+    private Transaction loadSelectedTransaction() {
+        TransactionRow selected = table.getSelectionModel().getSelectedItem();
+        return selected != null ? transactionService.findById(selected.id()) : null;
+    }
 }
@@ -1,6 +1,8 @@
 package it.unicam.cs.mpgc.jbudget120002.controller;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.Group;
+import it.unicam.cs.mpgc.jbudget120002.model.GroupRollup;
 import it.unicam.cs.mpgc.jbudget120002.model.Role;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 import it.unicam.cs.mpgc.jbudget120002.service.GroupService;
@@ -9,6 +11,8 @@ import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -22,6 +26,7 @@ public class UserManagementController extends BaseController {
     @FXML private TextField groupNameField;
     @FXML private TextArea groupDescriptionArea;
     @FXML private ComboBox<Group> parentGroupComboBox;
+    @FXML private Label groupRollupLabel;
     @FXML private ListView<User> userListView;
     @FXML private TextField userNameField;
     @FXML private TextField userSurnameField;
@@ -78,6 +83,11 @@ public class UserManagementController extends BaseController {
         clearUserDetails();
     }
 
+    @Override
+    protected boolean isAffectedBy(LedgerEvent event) {
+        return event.type() == LedgerEvent.Type.USERS_CHANGED;
+    }
+
     private void loadGroupTreeView(List<Group> groups) {
         Group rootGroup = new Group("All Groups");
         rootGroup.setId(0L); // A virtual root
@@ -159,11 +169,30 @@ public class UserManagementController extends BaseController {
             groupNameField.setText(group.getName());
             groupDescriptionArea.setText(group.getDescription());
             parentGroupComboBox.setValue(group.getParent());
+            showGroupRollup(group);
         } else {
             clearGroupDetails();
         }
     }
 
+    /**
+     * Shows the year-to-date totals of a group together with all its sub-groups, each
+     * member counted once.
+     */
+    private void showGroupRollup(Group group) {
+        LocalDate today = LocalDate.now();
+        GroupRollup rollup = groupService.getSubtreeRollup(group.getId(), today.withDayOfYear(1), today);
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expenses = BigDecimal.ZERO;
+        for (GroupRollup.Month month : rollup.months()) {
+            income = income.add(month.income());
+            expenses = expenses.add(month.expenses());
+        }
+        groupRollupLabel.setText(String.format(
+            "With sub-groups: %d member(s), %d group(s). This year: income €%.2f, expenses €%.2f, balance €%.2f",
+            rollup.memberIds().size(), rollup.groupIds().size(), income, expenses, income.subtract(expenses)));
+    }
+
     private void clearUserDetails() {
         selectedUserNameLabel.setText("");
         selectedUserSurnameLabel.setText("");
@@ -176,6 +205,7 @@ public class UserManagementController extends BaseController {
         groupNameField.clear();
         groupDescriptionArea.clear();
         parentGroupComboBox.setValue(null);
+        groupRollupLabel.setText("");
     }
 
     @FXML
@@ -0,0 +1,263 @@
+package it.unicam.cs.mpgc.jbudget120002.controller;
+
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+import it.unicam.cs.mpgc.jbudget120002.service.LedgerEventBus;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Refreshes the tab views of the main window after ledger changes, only where and when
+ * they are needed.
+ *
+ * <p>The coordinator listens to the {@link LedgerEventBus}, so it hears of every
+ * committed change, and hands the events to the FX thread. Events that arrive together
+ * are handled as one batch. Events about users the current user cannot see are
+ * dropped. Each loaded view is then asked whether the batch concerns what it shows,
+ * through {@link BaseController#isAffectedBy(LedgerEvent)}, which compares each
+ * change's owner, dates and tags with the view's own:</p>
+ * <ul>
+ *   <li>A hidden view that is affected is only marked dirty. It is refreshed when its
+ *   tab is next selected, once, however many changes came in meanwhile</li>
+ *   <li>The visible view is refreshed at once for changes made off the FX thread, such
+ *   as reminders or background work. A change published on the FX thread was made by
+ *   the visible view, which reloads itself after its own edits, so such changes only
+ *   mark the other views</li>
+ *   <li>Selecting a tab whose view is clean reloads nothing</li>
+ *   <li>A {@link LedgerEvent.Type#RESYNC} affects every view</li>
+ * </ul>
+ *
+ * <p>The refreshes performed are counted for the diagnostics panel. So are the
+ * refreshes avoided: a view not affected by a batch, a change folded into an
+ * already-dirty view, or a clean tab being selected. Refreshing every view after every
+ * change would have performed all of those.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * ViewRefreshCoordinator views = new ViewRefreshCoordinator(() -> visibleOwners(user));
+ * views.start();
+ * views.register(statisticsController, true);
+ * views.show(statisticsController);   // on tab selection: refreshes only if dirty
+ * views.close();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ViewRefreshCoordinator implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ViewRefreshCoordinator.class.getName());
+
+    /** An event, and whether it was published on the FX thread */
+    private record Change(LedgerEvent event, boolean fromFxThread) {}
+
+    private final Supplier<Set<Long>> visibleOwnersSource;
+    private final Consumer<LedgerEvent> listener = this::onPublished;
+    private final Queue<Change> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // FX thread only
+    private final List<BaseController> views = new ArrayList<>();
+    private BaseController visibleView;
+    private Set<Long> visibleOwners;
+    private long performed;
+    private long avoided;
+
+    /**
+     * Creates a coordinator for the views of one user.
+     *
+     * @param visibleOwners supplies the users whose changes the views may show, or
+     *                      null for everyone; asked again after users or groups change
+     * @throws IllegalArgumentException if visibleOwners is null
+     */
+    public ViewRefreshCoordinator(Supplier<Set<Long>> visibleOwners) {
+        if (visibleOwners == null) {
+            throw new IllegalArgumentException("Visible owners supplier cannot be null");
+        }
+        this.visibleOwnersSource = visibleOwners;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Starts listening to the ledger events.
+     */
+    public void start() {
+        LedgerEventBus.getInstance().addListener(listener);
+    }
+
+    /**
+     * Stops listening to the ledger events.
+     */
+    @Override
+    public void close() {
+        LedgerEventBus.getInstance().removeListener(listener);
+        incoming.clear();
+    }
+
+    // ==================== VIEWS ====================
+
+    /**
+     * Adds a view just loaded.
+     *
+     * @param view the view's controller
+     * @param stale whether its first load ran before it had everything it shows (its
+     *              user), so that it must be refreshed when shown
+     * @throws IllegalArgumentException if view is null
+     */
+    public void register(BaseController view, boolean stale) {
+        if (view == null) {
+            throw new IllegalArgumentException("View cannot be null");
+        }
+        views.add(view);
+        if (stale) {
+            view.markDirty();
+        }
+    }
+
+    /**
+     * Makes a view the visible one, refreshing it if changes concerning it came in
+     * while it was hidden.
+     *
+     * @param view the view of the selected tab
+     */
+    public void show(BaseController view) {
+        visibleView = view;
+        if (view == null) {
+            return;
+        }
+        if (view.isDirty()) {
+            refresh(view);
+        } else {
+            avoided++;
+        }
+    }
+
+    /**
+     * Marks every view dirty and refreshes the visible one, for changes that bypassed the
+     * events.
+     */
+    public void invalidateAll() {
+        for (BaseController view : views) {
+            view.markDirty();
+        }
+        if (visibleView != null) {
+            refresh(visibleView);
+        }
+    }
+
+    /**
+     * Forgets the visible users, after the current user changed.
+     */
+    public void invalidateVisibleOwners() {
+        visibleOwners = null;
+    }
+
+    // ==================== EVENTS ====================
+
+    /** Called on the publishing thread, under the bus lock */
+    private void onPublished(LedgerEvent event) {
+        incoming.add(new Change(event, Platform.isFxApplicationThread()));
+        if (drainScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        List<Change> batch = new ArrayList<>();
+        for (Change change = incoming.poll(); change != null; change = incoming.poll()) {
+            batch.add(change);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (batch.stream().anyMatch(c -> c.event().type() == LedgerEvent.Type.USERS_CHANGED
+                || c.event().type() == LedgerEvent.Type.RESYNC)) {
+            visibleOwners = null;
+        }
+        Set<Long> owners = visibleOwners();
+        batch.removeIf(c -> owners != null && !c.event().isVisibleTo(owners));
+
+        for (BaseController view : List.copyOf(views)) {
+            boolean affected = false;
+            boolean madeElsewhere = false;
+            for (Change change : batch) {
+                LedgerEvent event = change.event();
+                if (event.type() == LedgerEvent.Type.RESYNC || view.isAffectedBy(event)) {
+                    affected = true;
+                    madeElsewhere |= !change.fromFxThread();
+                }
+            }
+            if (!affected) {
+                avoided++;
+            } else if (view == visibleView) {
+                if (madeElsewhere) {
+                    refresh(view);
+                } else {
+                    avoided++;
+                }
+            } else if (view.isDirty()) {
+                avoided++;
+            } else {
+                view.markDirty();
+            }
+        }
+        LOGGER.fine(() -> "Handled " + batch.size() + " ledger events: " + performed + " refreshes performed, "
+            + avoided + " avoided so far");
+    }
+
+    private Set<Long> visibleOwners() {
+        if (visibleOwners == null) {
+            try {
+                visibleOwners = visibleOwnersSource.get();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not compute the visible users; showing every change", e);
+            }
+        }
+        return visibleOwners;
+    }
+
+    private void refresh(BaseController view) {
+        view.clearDirty();
+        performed++;
+        try {
+            view.refreshForChanges();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed to refresh " + view.getClass().getSimpleName(), e);
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    /**
+     * Returns how many view refreshes were run, on tab selection or for changes to the
+     * visible view.
+     */
+    public long getPerformedCount() {
+        return performed;
+    }
+
+    /**
+     * Returns how many view refreshes were skipped because nothing the view shows had
+     * changed, or because it had already been marked dirty.
+     */
+    public long getAvoidedCount() {
+        return avoided;
+    }
+
+    public void resetCounts() {
+        performed = 0;
+        avoided = 0;
+    }
+}
@@ -0,0 +1,134 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Always-on, in-process JDK Flight Recorder recording of the application.
+ *
+ * <p>On startup a recording named {@value #RECORDING_NAME} is started with the JDK
+ * {@code default} settings (the low-overhead profile meant for production) plus the
+ * application events: {@link ServiceCallEvent}, {@link SyncPhaseEvent},
+ * {@link ScheduledGenerationEvent}, {@link StatisticsComputationEvent} and
+ * {@link StartupPhaseEvent}. It keeps a
+ * rolling window of the last {@value #DEFAULT_MAX_AGE_MINUTES} minutes, capped at
+ * {@value #DEFAULT_MAX_SIZE_MB} MB, so a slow session can be dumped after the fact and
+ * opened in JDK Mission Control.</p>
+ *
+ * <p>The recording can be dumped from the settings view, or from the command line
+ * without touching the UI:</p>
+ * <pre>{@code
+ * jcmd <pid> JFR.dump name=jbudget filename=slow-session.jfr
+ * }</pre>
+ *
+ * <p>It is disabled with {@code -D}{@value #ENABLED_PROPERTY}{@code =false}; the window
+ * is set with {@value #MAX_AGE_PROPERTY} (minutes) and {@value #MAX_SIZE_PROPERTY} (MB),
+ * and the minimum duration of recorded service calls with
+ * {@value #SERVICE_THRESHOLD_PROPERTY} (milliseconds).</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * FlightRecording.getInstance().start();
+ * Path file = FlightRecording.getInstance().dump(Path.of("jbudget.jfr"));
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class FlightRecording {
+
+    private static final Logger LOGGER = Logger.getLogger(FlightRecording.class.getName());
+
+    public static final String RECORDING_NAME = "jbudget";
+    public static final String ENABLED_PROPERTY = "jbudget.jfr";
+    public static final String MAX_AGE_PROPERTY = "jbudget.jfr.maxAgeMinutes";
+    public static final String MAX_SIZE_PROPERTY = "jbudget.jfr.maxSizeMb";
+    public static final String SERVICE_THRESHOLD_PROPERTY = "jbudget.jfr.serviceThresholdMillis";
+    public static final long DEFAULT_MAX_AGE_MINUTES = 30;
+    public static final long DEFAULT_MAX_SIZE_MB = 64;
+    public static final long DEFAULT_SERVICE_THRESHOLD_MILLIS = 1;
+
+    private static final FlightRecording INSTANCE = new FlightRecording();
+
+    private Recording recording;
+
+    private FlightRecording() {
+    }
+
+    public static FlightRecording getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Starts the recording, unless disabled or already running. Failures (for example a
+     * JVM without Flight Recorder support) are logged and leave the application running
+     * without a recording.
+     */
+    public synchronized void start() {
+        if (recording != null || !Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return;
+        }
+        try {
+            Recording newRecording = new Recording(Configuration.getConfiguration("default"));
+            newRecording.setName(RECORDING_NAME);
+            newRecording.setToDisk(true);
+            newRecording.setMaxAge(Duration.ofMinutes(Long.getLong(MAX_AGE_PROPERTY, DEFAULT_MAX_AGE_MINUTES)));
+            newRecording.setMaxSize(Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE_MB) * 1024 * 1024);
+            newRecording.enable(ServiceCallEvent.class).withThreshold(
+                Duration.ofMillis(Long.getLong(SERVICE_THRESHOLD_PROPERTY, DEFAULT_SERVICE_THRESHOLD_MILLIS)));
+            newRecording.enable(SyncPhaseEvent.class);
+            newRecording.enable(ScheduledGenerationEvent.class);
+            newRecording.enable(StatisticsComputationEvent.class);
+            newRecording.enable(StartupPhaseEvent.class);
+            newRecording.start();
+            recording = newRecording;
+            LOGGER.info("Flight recording '" + RECORDING_NAME + "' started");
+        } catch (Exception | LinkageError e) {
+            LOGGER.log(Level.WARNING, "Could not start flight recording", e);
+        }
+    }
+
+    public synchronized void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    public synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    // ==================== DUMPING ====================
+
+    /**
+     * Writes the events currently held by the recording to a file, which can be opened in
+     * JDK Mission Control. The recording keeps running.
+     *
+     * @param destination the .jfr file to write
+     * @return the destination
+     * @throws IllegalArgumentException if destination is null
+     * @throws IllegalStateException if the recording is not running
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized Path dump(Path destination) throws IOException {
+        if (destination == null) {
+            throw new IllegalArgumentException("Destination cannot be null");
+        }
+        if (recording == null) {
+            throw new IllegalStateException("Flight recording is not running");
+        }
+        recording.dump(destination);
+        LOGGER.info("Flight recording dumped to " + destination.toAbsolutePath());
+        return destination;
+    }
+}
@@ -0,0 +1,186 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Watchdog measuring how long the JavaFX Application Thread is blocked.
+ *
+ * <p>A daemon monitor thread posts a heartbeat probe with {@link Platform#runLater}
+ * and waits for it to run. While a probe is pending for longer than the stall threshold
+ * the monitor samples the stack of the FX thread once, which shows the code keeping it
+ * busy (typically database work in a controller). When the probe finally runs, the
+ * stall is logged with that stack and its duration is recorded in a histogram of the
+ * view that was active, as reported by {@link #setCurrentView(String)}.</p>
+ *
+ * <p>The threshold defaults to {@value #DEFAULT_THRESHOLD_MILLIS} ms and can be changed
+ * with the {@value #THRESHOLD_PROPERTY} system property. Between stalls the cost is one
+ * empty runnable every {@value #PROBE_INTERVAL_MILLIS} ms.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * // In Application.start, on the FX thread
+ * FxStallWatchdog.getInstance().start();
+ * FxStallWatchdog.getInstance().setCurrentView("Dashboard");
+ * List<ViewStallSnapshot> stalls = FxStallWatchdog.getInstance().snapshot();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class FxStallWatchdog {
+
+    private static final Logger LOGGER = Logger.getLogger(FxStallWatchdog.class.getName());
+
+    public static final String THRESHOLD_PROPERTY = "jbudget.stall.thresholdMillis";
+    public static final long DEFAULT_THRESHOLD_MILLIS = 200;
+    private static final long PROBE_INTERVAL_MILLIS = 50;
+
+    private static final FxStallWatchdog INSTANCE = new FxStallWatchdog();
+
+    private final long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(
+        Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MILLIS));
+    private final Map<String, ViewStalls> stallsByView = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService monitor;
+    private volatile Thread fxThread;
+    private volatile String currentView = "Startup";
+
+    /** System.nanoTime() at which the pending probe was posted, 0 when none is pending */
+    private volatile long probePostedAt;
+    private volatile StackTraceElement[] stallStack;
+    private volatile String stallView;
+
+    private FxStallWatchdog() {
+    }
+
+    public static FxStallWatchdog getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Starts monitoring. Must be called on the JavaFX Application Thread.
+     *
+     * @throws IllegalStateException if called from another thread
+     */
+    public synchronized void start() {
+        if (!Platform.isFxApplicationThread()) {
+            throw new IllegalStateException("The watchdog must be started on the JavaFX Application Thread");
+        }
+        if (monitor != null) {
+            return;
+        }
+        fxThread = Thread.currentThread();
+        monitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fx-stall-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        monitor.scheduleAtFixedRate(this::tick, PROBE_INTERVAL_MILLIS, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (monitor != null) {
+            monitor.shutdownNow();
+            monitor = null;
+        }
+    }
+
+    /**
+     * Sets the view stalls are attributed to, e.g. the selected tab.
+     */
+    public void setCurrentView(String view) {
+        if (view != null) {
+            this.currentView = view;
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Returns the stall statistics of every view that stalled at least once, worst first.
+     */
+    public List<ViewStallSnapshot> snapshot() {
+        List<ViewStallSnapshot> result = new ArrayList<>();
+        stallsByView.forEach((view, stalls) -> result.add(stalls.snapshot(view)));
+        result.sort(Comparator.comparingDouble(ViewStallSnapshot::getMaxMillis).reversed());
+        return result;
+    }
+
+    public void reset() {
+        stallsByView.clear();
+    }
+
+    // ==================== MONITORING ====================
+
+    /** Runs on the monitor thread */
+    private void tick() {
+        long posted = probePostedAt;
+        if (posted == 0) {
+            probePostedAt = System.nanoTime();
+            Platform.runLater(this::onProbe);
+            return;
+        }
+        if (stallStack == null && System.nanoTime() - posted >= thresholdNanos) {
+            String view = currentView;
+            StackTraceElement[] stack = fxThread.getStackTrace();
+            // The probe may have run while the stack was being sampled
+            if (probePostedAt == posted) {
+                stallView = view;
+                stallStack = stack;
+            }
+        }
+    }
+
+    /** Runs on the FX thread */
+    private void onProbe() {
+        long delay = System.nanoTime() - probePostedAt;
+        StackTraceElement[] stack = stallStack;
+        String view = stallView != null ? stallView : currentView;
+        stallStack = null;
+        stallView = null;
+        probePostedAt = 0;
+
+        if (delay >= thresholdNanos) {
+            List<StackTraceElement> frames = stack != null ? Arrays.asList(stack) : List.of();
+            stallsByView.computeIfAbsent(view, key -> new ViewStalls()).record(delay, frames);
+            StringBuilder message = new StringBuilder(String.format(
+                "JavaFX thread stalled for %d ms in view %s", TimeUnit.NANOSECONDS.toMillis(delay), view));
+            for (StackTraceElement element : frames) {
+                message.append(System.lineSeparator()).append("    at ").append(element);
+            }
+            LOGGER.warning(message.toString());
+        }
+    }
+
+    private static final class ViewStalls {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private volatile List<StackTraceElement> lastStack = List.of();
+
+        void record(long nanos, List<StackTraceElement> stack) {
+            histogram.record(nanos);
+            lastStack = stack;
+        }
+
+        ViewStallSnapshot snapshot(String view) {
+            return new ViewStallSnapshot(view, histogram.getCount(),
+                histogram.valueAtPercentile(50) / 1_000_000.0,
+                histogram.valueAtPercentile(99) / 1_000_000.0,
+                histogram.getMax() / 1_000_000.0,
+                lastStack);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import jdk.jfr.EventType;
+
+/**
+ * Per-call timing and JDBC statement counting for services and repositories.
+ *
+ * <p>{@link it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory} wraps every service
+ * and repository it hands out in a dynamic proxy created by {@link #wrap(Class, Object)}.
+ * While instrumentation is enabled each call records its latency in a
+ * {@link LatencyHistogram} and the number of JDBC statements it issued, counted by
+ * {@link StatementCounter}. Statements of nested calls (a service calling a repository)
+ * are counted for both. When disabled, the proxy forwards the call directly, so the
+ * only remaining cost is one volatile read and the reflective dispatch.</p>
+ *
+ * <p>Instrumentation starts disabled unless the {@value #ENABLED_PROPERTY} system
+ * property is {@code true}, and can be toggled at runtime from the settings view or
+ * through JMX. The same proxies feed the {@link QueryPatternDetector}, which has its
+ * own switch, and emit a {@link ServiceCallEvent} whenever Flight Recorder is recording
+ * it (see {@link FlightRecording}).</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * TransactionService service = Instrumentation.getInstance()
+ *     .wrap(TransactionService.class, new TransactionServiceImpl(em, repository, tagService));
+ * Instrumentation.getInstance().setEnabled(true);
+ * List<MethodStatsSnapshot> stats = Instrumentation.getInstance().snapshot();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class Instrumentation implements InstrumentationMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(Instrumentation.class.getName());
+
+    public static final String ENABLED_PROPERTY = "jbudget.instrumentation";
+    public static final String OBJECT_NAME = "it.unicam.cs.mpgc.jbudget120002:type=Instrumentation";
+
+    private static final Instrumentation INSTANCE = new Instrumentation();
+
+    /** Checked before each call, so no event is allocated while Flight Recorder ignores them */
+    private static final EventType SERVICE_CALL_EVENT = EventType.getEventType(ServiceCallEvent.class);
+
+    private volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+    private final Map<String, MethodStats> statsByName = new ConcurrentHashMap<>();
+    private final ThreadLocal<CallFrame> currentFrame = new ThreadLocal<>();
+    private final ThreadLocal<List<String>> capturedStatements = new ThreadLocal<>();
+    private final LongAdder totalStatements = new LongAdder();
+    private final QueryPatternDetector detector = new QueryPatternDetector();
+
+    private Instrumentation() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not register instrumentation MBean", e);
+        }
+    }
+
+    public static Instrumentation getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== WRAPPING ====================
+
+    /**
+     * Wraps a service or repository in an instrumented proxy implementing the given interface.
+     *
+     * @param type the interface handed out to callers
+     * @param target the implementation
+     * @return the proxy
+     * @throws IllegalArgumentException if type is not an interface or target is null
+     */
+    public <T> T wrap(Class<T> type, T target) {
+        if (type == null || !type.isInterface()) {
+            throw new IllegalArgumentException("Type must be an interface");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("Target cannot be null");
+        }
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+            new InstrumentedHandler(type, target));
+        return type.cast(proxy);
+    }
+
+    // ==================== RECORDING ====================
+
+    /**
+     * Called by {@link StatementCounter} for every statement prepared by Hibernate.
+     */
+    void onStatement(String sql) {
+        List<String> captured = capturedStatements.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        CallFrame frame = currentFrame.get();
+        if (enabled) {
+            totalStatements.increment();
+        }
+        if (frame != null) {
+            frame.statements++;
+            if (detector.isEnabled()) {
+                detector.onStatement(frame.root, sql);
+            }
+        }
+    }
+
+    /**
+     * Runs an action as a call of its own and stores the number of statements it issued
+     * in {@code statementCount[0]}, regardless of whether instrumentation is enabled.
+     * Used by {@link QueryBudgets}.
+     */
+    <T> T measure(String name, Supplier<T> action, long[] statementCount) {
+        CallFrame parent = currentFrame.get();
+        CallFrame frame = new CallFrame(parent, name);
+        currentFrame.set(frame);
+        try {
+            return action.get();
+        } finally {
+            statementCount[0] = frame.statements;
+            if (parent != null) {
+                parent.statements += frame.statements;
+                currentFrame.set(parent);
+            } else {
+                currentFrame.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs an action and adds the SQL of every statement it prepared to {@code statements},
+     * regardless of whether instrumentation is enabled. Used by {@link QueryPlanCheck}.
+     */
+    <T> T capture(Supplier<T> action, List<String> statements) {
+        List<String> outer = capturedStatements.get();
+        capturedStatements.set(statements);
+        try {
+            return action.get();
+        } finally {
+            if (outer != null) {
+                outer.addAll(statements);
+                capturedStatements.set(outer);
+            } else {
+                capturedStatements.remove();
+            }
+        }
+    }
+
+    // ==================== MANAGEMENT ====================
+
+    public QueryPatternDetector getDetector() {
+        return detector;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getTotalStatements() {
+        return totalStatements.sum();
+    }
+
+    @Override
+    public List<MethodStatsSnapshot> getMethodStats() {
+        return snapshot();
+    }
+
+    /**
+     * Returns the statistics of every method called at least once, most expensive
+     * (by total time) first.
+     */
+    public List<MethodStatsSnapshot> snapshot() {
+        List<MethodStatsSnapshot> result = new ArrayList<>();
+        for (MethodStats stats : statsByName.values()) {
+            if (stats.histogram.getCount() > 0) {
+                result.add(stats.snapshot());
+            }
+        }
+        result.sort(Comparator.comparingDouble(MethodStatsSnapshot::getTotalMillis).reversed());
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        statsByName.values().forEach(MethodStats::reset);
+        totalStatements.reset();
+    }
+
+    // ==================== INTERNAL TYPES ====================
+
+    /**
+     * One instrumented call on the stack of the current thread.
+     */
+    static final class CallFrame {
+        final CallFrame parent;
+        final CallFrame root;
+        final String method;
+        long statements;
+
+        /** Statement shapes seen by the whole call tree, kept on the root frame only */
+        Map<String, QueryPatternDetector.ShapeCount> shapes;
+
+        CallFrame(CallFrame parent, String method) {
+            this.parent = parent;
+            this.root = parent != null ? parent.root : this;
+            this.method = method;
+        }
+    }
+
+    private static final class MethodStats {
+        private final String name;
+        private int queryBudget = -1;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+
+        MethodStats(String name) {
+            this.name = name;
+        }
+
+        void record(long elapsedNanos, long statementCount, boolean failed) {
+            histogram.record(elapsedNanos);
+            statements.add(statementCount);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        void reset() {
+            histogram.reset();
+            errors.reset();
+            statements.reset();
+        }
+
+        MethodStatsSnapshot snapshot() {
+            long calls = histogram.getCount();
+            return new MethodStatsSnapshot(name, calls, errors.sum(), statements.sum(),
+                toMillis(histogram.getMean() * calls), toMillis(histogram.getMean()),
+                toMillis(histogram.valueAtPercentile(50)), toMillis(histogram.valueAtPercentile(99)),
+                toMillis(histogram.getMax()));
+        }
+
+        private static double toMillis(double nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    private final class InstrumentedHandler implements InvocationHandler {
+        private final Class<?> type;
+        private final Object target;
+        private final Map<Method, MethodStats> statsByMethod = new ConcurrentHashMap<>();
+
+        InstrumentedHandler(Class<?> type, Object target) {
+            this.type = type;
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeTarget(method, args);
+            }
+            boolean detecting = detector.isEnabled();
+            boolean recording = SERVICE_CALL_EVENT.isEnabled();
+            if (!(enabled || detecting || recording)) {
+                return invokeTarget(method, args);
+            }
+
+            MethodStats stats = statsByMethod.computeIfAbsent(method, this::statsFor);
+            CallFrame parent = currentFrame.get();
+            CallFrame frame = new CallFrame(parent, stats.name);
+            currentFrame.set(frame);
+            boolean failed = false;
+            Object result = null;
+            ServiceCallEvent event = recording ? new ServiceCallEvent() : null;
+            if (recording) {
+                event.begin();
+            }
+            long start = System.nanoTime();
+            try {
+                result = invokeTarget(method, args);
+                return result;
+            } catch (Throwable t) {
+                failed = true;
+                throw t;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                if (recording) {
+                    event.end();
+                }
+                if (recording && event.shouldCommit()) {
+                    event.method = stats.name;
+                    event.statements = frame.statements;
+                    event.failed = failed;
+                    event.describeArguments(args);
+                    event.describeResult(result);
+                    event.commit();
+                }
+                if (parent != null) {
+                    parent.statements += frame.statements;
+                    currentFrame.set(parent);
+                } else {
+                    currentFrame.remove();
+                }
+                if (enabled) {
+                    stats.record(elapsed, frame.statements, failed);
+                }
+                if (detecting) {
+                    detector.onCallCompleted(frame, stats.queryBudget, failed);
+                }
+            }
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /** Overloaded methods are told apart by their number of parameters */
+        private MethodStats statsFor(Method method) {
+            long overloads = Arrays.stream(type.getMethods())
+                .filter(m -> m.getName().equals(method.getName()))
+                .count();
+            String name = type.getSimpleName() + "." + method.getName()
+                + (overloads > 1 ? "/" + method.getParameterCount() : "");
+            MethodStats stats = statsByName.computeIfAbsent(name, MethodStats::new);
+            QueryBudget budget = method.getAnnotation(QueryBudget.class);
+            if (budget != null) {
+                stats.queryBudget = budget.value();
+            }
+            return stats;
+        }
+    }
+}
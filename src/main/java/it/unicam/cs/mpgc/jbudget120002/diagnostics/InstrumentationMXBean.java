@@ -0,0 +1,21 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import java.util.List;
+
+/**
+ * JMX management interface of {@link Instrumentation}, registered as
+ * {@code it.unicam.cs.mpgc.jbudget120002:type=Instrumentation}.
+ */
+public interface InstrumentationMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /** JDBC statements executed since the last reset, inside or outside instrumented calls */
+    long getTotalStatements();
+
+    List<MethodStatsSnapshot> getMethodStats();
+
+    void reset();
+}
@@ -0,0 +1,54 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Immutable view of the statistics collected for one instrumented method.
+ *
+ * Responsibilities:
+ * - Expose call count, errors, JDBC statements and latency percentiles in milliseconds
+ * - Serve as row type of the diagnostics table and as JMX composite type
+ *
+ * Usage:
+ * Returned by Instrumentation.snapshot() and InstrumentationMXBean.getMethodStats().
+ */
+public class MethodStatsSnapshot {
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long statements;
+    private final double totalMillis;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    @ConstructorParameters({"name", "calls", "errors", "statements", "totalMillis",
+        "meanMillis", "p50Millis", "p99Millis", "maxMillis"})
+    public MethodStatsSnapshot(String name, long calls, long errors, long statements, double totalMillis,
+                               double meanMillis, double p50Millis, double p99Millis, double maxMillis) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.statements = statements;
+        this.totalMillis = totalMillis;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public String getName() { return name; }
+    public long getCalls() { return calls; }
+    public long getErrors() { return errors; }
+    public long getStatements() { return statements; }
+    public double getTotalMillis() { return totalMillis; }
+    public double getMeanMillis() { return meanMillis; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public double getMaxMillis() { return maxMillis; }
+
+    public double getStatementsPerCall() {
+        return calls == 0 ? 0.0 : (double) statements / calls;
+    }
+}
@@ -0,0 +1,28 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the maximum number of JDBC statements a service or repository method may
+ * issue in one call, nested calls included.
+ *
+ * <p>Placed on the interface method handed out by the ServiceFactory. The budgets are
+ * enforced by the {@link QueryBudgetCheck} ({@code ./gradlew checkQueryBudgets}, part of
+ * {@code check}), which calls each budgeted method on a generated ledger under
+ * {@link QueryBudgets#assertAtMost}. While the {@link QueryPatternDetector} is enabled
+ * every call over budget is also reported; in strict mode
+ * ({@code -Djbudget.querybudget.strict=true}, test task only) the call then fails with a
+ * {@link QueryBudgetExceededError}, after the call has already committed its work.</p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface QueryBudget {
+
+    /** Maximum number of statements per call */
+    int value();
+}
@@ -0,0 +1,155 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.repository.MigrationEngine;
+import it.unicam.cs.mpgc.jbudget120002.service.BudgetService;
+import it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory;
+import it.unicam.cs.mpgc.jbudget120002.service.StatisticsService;
+import it.unicam.cs.mpgc.jbudget120002.service.TransactionService;
+import it.unicam.cs.mpgc.jbudget120002.util.LedgerGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Checks with {@link QueryBudgets#assertAtMost} that the service methods declaring a
+ * {@link QueryBudget} stay within it.
+ *
+ * Responsibilities:
+ * - Generate a small seeded ledger in an in-memory database migrated by the MigrationEngine
+ * - Call each budgeted method with an empty persistence context, as a view would after a
+ *   checkpoint, and count its statements
+ * - Report the count against the budget read from the annotation, and fail if any
+ *   method exceeds it
+ *
+ * The budgets do not depend on the number of rows, so a small ledger is enough; the
+ * tag hierarchy and the budgets of the generator make the category loops visible.
+ *
+ * Usage:
+ * ./gradlew checkQueryBudgets
+ * ./gradlew checkQueryBudgets --args="--transactions 20000"
+ */
+public class QueryBudgetCheck {
+
+    private static final String URL = "jdbc:h2:mem:jbudget_query_budgets;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    private static final LocalDate END_DATE = LocalDate.of(2024, 12, 31);
+
+    private final List<String> exceeded = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        long transactions = args.length == 2 && "--transactions".equals(args[0]) ? Long.parseLong(args[1]) : 2000;
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url", URL);
+        EntityManagerFactory emf = MigrationEngine.createEntityManagerFactory(overrides);
+        QueryBudgetCheck check = new QueryBudgetCheck();
+        EntityManager em = emf.createEntityManager();
+        try {
+            LedgerGenerator generator = new LedgerGenerator(new LedgerGenerator.Options()
+                .withTransactions(transactions)
+                .withEndDate(END_DATE), LedgerGenerator.defaultTemplates());
+            em.getTransaction().begin();
+            LedgerGenerator.Result ledger = em.unwrap(Session.class).doReturningWork(generator::generate);
+            em.getTransaction().commit();
+            check.run(em, new ServiceFactory(em), ledger);
+        } finally {
+            em.close();
+            emf.close();
+        }
+        if (!check.exceeded.isEmpty()) {
+            System.out.println("Methods over their query budget: " + check.exceeded);
+            System.exit(1);
+        }
+    }
+
+    private void run(EntityManager em, ServiceFactory services, LedgerGenerator.Result ledger) {
+        StatisticsService statistics = services.getStatisticsService(false);
+        BudgetService budgets = services.getBudgetService(false);
+        TransactionService transactions = services.getTransactionService(false);
+        User user = em.find(User.class, ledger.userIds().get(0));
+        Tag category = em.find(Tag.class, ledger.rootTagIds().get(0));
+        Long leafTagId = ledger.leafTagIdsByCategory().values().iterator().next().get(0);
+        Set<Long> tagIds = new HashSet<>(List.of(ledger.rootTagIds().get(0), leafTagId));
+        LocalDate start = END_DATE.withDayOfYear(1);
+
+        check(em, StatisticsService.class, "getCategoryStatistics",
+            new Class<?>[] {LocalDate.class, LocalDate.class, Tag.class, boolean.class},
+            () -> statistics.getCategoryStatistics(start, END_DATE, null, false));
+        check(em, StatisticsService.class, "getCategoryStatistics",
+            new Class<?>[] {LocalDate.class, LocalDate.class, Tag.class, boolean.class},
+            () -> statistics.getCategoryStatistics(start, END_DATE, category, true));
+        check(em, StatisticsService.class, "getTopExpenseCategories",
+            new Class<?>[] {LocalDate.class, LocalDate.class, int.class},
+            () -> statistics.getTopExpenseCategories(start, END_DATE, 10));
+        check(em, StatisticsService.class, "getTopExpenseCategories",
+            new Class<?>[] {User.class, LocalDate.class, LocalDate.class, int.class},
+            () -> statistics.getTopExpenseCategories(user, start, END_DATE, 10));
+        check(em, StatisticsService.class, "getCategoryPercentages",
+            new Class<?>[] {LocalDate.class, LocalDate.class},
+            () -> statistics.getCategoryPercentages(start, END_DATE));
+
+        check(em, BudgetService.class, "calculateBudgetStatus",
+            new Class<?>[] {LocalDate.class, LocalDate.class},
+            () -> budgets.calculateBudgetStatus(start, END_DATE));
+        check(em, BudgetService.class, "getBudgetComparison",
+            new Class<?>[] {LocalDate.class, LocalDate.class},
+            () -> budgets.getBudgetComparison(start, END_DATE));
+        check(em, BudgetService.class, "calculateSpentAmount",
+            new Class<?>[] {Long.class},
+            () -> budgets.calculateSpentAmount(1L));
+
+        Transaction created = check(em, TransactionService.class, "createTransaction",
+            new Class<?>[] {User.class, LocalDate.class, String.class, BigDecimal.class, boolean.class, Set.class},
+            () -> transactions.createTransaction(user, END_DATE, "Query budget check", new BigDecimal("12.50"),
+                false, tagIds));
+        if (created == null) {
+            // Over budget, so its result was not returned: nothing to update
+            return;
+        }
+        check(em, TransactionService.class, "updateTransaction",
+            new Class<?>[] {Long.class, LocalDate.class, String.class, BigDecimal.class, boolean.class, Set.class},
+            () -> {
+                transactions.updateTransaction(created.getId(), END_DATE, "Query budget check", new BigDecimal("15.00"),
+                    false, Set.of(leafTagId));
+                return null;
+            });
+    }
+
+    /**
+     * Runs a call of a budgeted method with an empty persistence context and reports its
+     * statement count against the budget of the method.
+     */
+    private <T> T check(EntityManager em, Class<?> type, String method, Class<?>[] parameterTypes, Supplier<T> call) {
+        QueryBudget budget;
+        try {
+            budget = type.getMethod(method, parameterTypes).getAnnotation(QueryBudget.class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("No method " + type.getSimpleName() + "." + method, e);
+        }
+        if (budget == null) {
+            throw new IllegalStateException(type.getSimpleName() + "." + method + " declares no query budget");
+        }
+        String name = type.getSimpleName() + "." + method + "/" + parameterTypes.length;
+        em.clear();
+        try {
+            T result = QueryBudgets.assertAtMost(budget.value(), call);
+            System.out.printf("%-4s %-55s budget %d%n", "OK", name, budget.value());
+            return result;
+        } catch (QueryBudgetExceededError e) {
+            exceeded.add(name);
+            System.out.printf("%-4s %-55s %s%n", "OVER", name, e.getMessage());
+            return null;
+        }
+    }
+}
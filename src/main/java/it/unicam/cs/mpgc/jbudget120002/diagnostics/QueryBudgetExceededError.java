@@ -0,0 +1,12 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+/**
+ * Thrown in strict mode when a call issues more statements than its {@link QueryBudget}.
+ * Extends {@link AssertionError} so test frameworks report it as a failure, not an error.
+ */
+public class QueryBudgetExceededError extends AssertionError {
+
+    public QueryBudgetExceededError(String message) {
+        super(message);
+    }
+}
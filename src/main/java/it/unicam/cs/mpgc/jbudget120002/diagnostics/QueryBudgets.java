@@ -0,0 +1,54 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import java.util.function.Supplier;
+
+/**
+ * Query budget assertions for tests.
+ *
+ * Responsibilities:
+ * - Count the statements issued by an arbitrary block of code
+ * - Fail with QueryBudgetExceededError when the count exceeds the given budget
+ *
+ * Usage:
+ * List<Transaction> rows = QueryBudgets.assertAtMost(2,
+ *     () -> transactionService.findTransactionsInPeriodForUser(user, start, end, 10));
+ */
+public final class QueryBudgets {
+
+    private QueryBudgets() {
+    }
+
+    /**
+     * Runs the action and checks that it issued at most {@code maxStatements} statements.
+     *
+     * @param maxStatements the budget
+     * @param action the code under test
+     * @return the result of the action
+     * @throws QueryBudgetExceededError if the budget is exceeded
+     */
+    public static <T> T assertAtMost(int maxStatements, Supplier<T> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        long[] statements = new long[1];
+        T result = Instrumentation.getInstance().measure("QueryBudgets.assertAtMost", action, statements);
+        if (statements[0] > maxStatements) {
+            throw new QueryBudgetExceededError(String.format(
+                "Expected at most %d statements but %d were executed", maxStatements, statements[0]));
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #assertAtMost(int, Supplier)} for code without a result.
+     */
+    public static void assertRunsWithin(int maxStatements, Runnable action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action cannot be null");
+        }
+        assertAtMost(maxStatements, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
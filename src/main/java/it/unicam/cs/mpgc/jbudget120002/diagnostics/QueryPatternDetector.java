@@ -0,0 +1,186 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Detects N+1 query patterns and exceeded query budgets in instrumented service calls.
+ *
+ * <p>Every statement seen by {@link StatementCounter} during an instrumented call is
+ * reduced to its shape (literals, parameters and IN lists collapsed) and counted on the
+ * outermost call of the current thread. When that call returns, every shape issued at
+ * least {@link #getThreshold()} times is reported as a suspected N+1 together with the
+ * application stack at its second execution, which is where the per-element query is
+ * triggered (for example a lazy {@code getTags()} in a loop).</p>
+ *
+ * <p>Methods annotated with {@link QueryBudget} are checked on every call. In strict
+ * mode an exceeded budget fails the call with a {@link QueryBudgetExceededError}. The
+ * budget is only known to be exceeded once the call has returned, so by then a write
+ * has already been committed: strict mode is meant for tests and diagnostics, never for
+ * a running application.</p>
+ *
+ * <p>Detection starts disabled unless the {@value #ENABLED_PROPERTY} system property is
+ * {@code true}; strict mode follows {@value #STRICT_PROPERTY}. Both are set by the Gradle
+ * test task only.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * QueryPatternDetector detector = Instrumentation.getInstance().getDetector();
+ * detector.setEnabled(true);
+ * statisticsService.getTopExpenseCategories(user, start, end, 5);
+ * detector.getFindings().forEach(f -> System.out.println(f.describe()));
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class QueryPatternDetector {
+
+    private static final Logger LOGGER = Logger.getLogger(QueryPatternDetector.class.getName());
+
+    public static final String ENABLED_PROPERTY = "jbudget.nplusone";
+    public static final String STRICT_PROPERTY = "jbudget.querybudget.strict";
+    public static final int DEFAULT_THRESHOLD = 5;
+
+    private static final int MAX_FINDINGS = 100;
+    private static final int MAX_CALL_SITE_FRAMES = 12;
+    private static final String APPLICATION_PACKAGE = "it.unicam.cs.mpgc.jbudget120002.";
+    private static final String DIAGNOSTICS_PACKAGE = APPLICATION_PACKAGE + "diagnostics.";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+    private volatile boolean strict = Boolean.getBoolean(STRICT_PROPERTY);
+    private volatile int threshold = DEFAULT_THRESHOLD;
+    private final Deque<QueryPatternFinding> findings = new ArrayDeque<>();
+
+    QueryPatternDetector() {
+    }
+
+    // ==================== CONFIGURATION ====================
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isStrict() { return strict; }
+    public void setStrict(boolean strict) { this.strict = strict; }
+    public int getThreshold() { return threshold; }
+
+    public void setThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("Threshold must be at least 2");
+        }
+        this.threshold = threshold;
+    }
+
+    // ==================== FINDINGS ====================
+
+    /**
+     * Returns the most recent findings, newest first.
+     */
+    public List<QueryPatternFinding> getFindings() {
+        synchronized (findings) {
+            return new ArrayList<>(findings);
+        }
+    }
+
+    public void clearFindings() {
+        synchronized (findings) {
+            findings.clear();
+        }
+    }
+
+    // ==================== DETECTION ====================
+
+    /**
+     * Counts one statement on the outermost call of the current thread.
+     */
+    void onStatement(Instrumentation.CallFrame root, String sql) {
+        if (root.shapes == null) {
+            root.shapes = new HashMap<>();
+        }
+        ShapeCount shape = root.shapes.computeIfAbsent(shapeOf(sql), key -> new ShapeCount());
+        shape.count++;
+        if (shape.count == 2) {
+            shape.callSite = captureCallSite();
+        }
+    }
+
+    /**
+     * Checks the budget of a completed call and, for the outermost call, its repeated shapes.
+     *
+     * @throws QueryBudgetExceededError in strict mode when the budget is exceeded; any
+     *         work the call committed stays committed
+     */
+    void onCallCompleted(Instrumentation.CallFrame frame, int budget, boolean failed) {
+        if (frame.parent == null && frame.shapes != null) {
+            for (Map.Entry<String, ShapeCount> entry : frame.shapes.entrySet()) {
+                if (entry.getValue().count >= threshold) {
+                    report(new QueryPatternFinding(QueryPatternFinding.Kind.REPEATED_STATEMENT, frame.method,
+                        entry.getKey(), entry.getValue().count, entry.getValue().callSite));
+                }
+            }
+        }
+
+        if (budget >= 0 && frame.statements > budget) {
+            QueryPatternFinding finding = new QueryPatternFinding(QueryPatternFinding.Kind.BUDGET_EXCEEDED,
+                frame.method, "budget " + budget, frame.statements, captureCallSite());
+            report(finding);
+            if (strict && !failed) {
+                throw new QueryBudgetExceededError(String.format("%s executed %d statements, budget is %d",
+                    frame.method, frame.statements, budget));
+            }
+        }
+    }
+
+    /**
+     * Reduces a statement to its shape so that executions differing only in
+     * literals, bound parameters or IN list length are grouped together.
+     */
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void report(QueryPatternFinding finding) {
+        LOGGER.warning("Suspicious query pattern: " + finding.describe());
+        synchronized (findings) {
+            findings.addFirst(finding);
+            while (findings.size() > MAX_FINDINGS) {
+                findings.removeLast();
+            }
+        }
+    }
+
+    /** Application frames only, without the proxy and diagnostics plumbing */
+    private static List<StackTraceElement> captureCallSite() {
+        return Arrays.stream(new Throwable().getStackTrace())
+            .filter(element -> element.getClassName().startsWith(APPLICATION_PACKAGE))
+            .filter(element -> !element.getClassName().startsWith(DIAGNOSTICS_PACKAGE))
+            .limit(MAX_CALL_SITE_FRAMES)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Executions of one statement shape within a call tree.
+     */
+    static final class ShapeCount {
+        long count;
+        List<StackTraceElement> callSite;
+    }
+}
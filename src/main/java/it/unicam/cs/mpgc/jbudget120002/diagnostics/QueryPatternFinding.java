@@ -0,0 +1,73 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A suspicious query pattern reported by the {@link QueryPatternDetector}.
+ *
+ * Responsibilities:
+ * - Describe a repeated statement shape (suspected N+1) or an exceeded query budget
+ * - Keep the application call site that triggered the repetition
+ *
+ * Usage:
+ * Listed in the diagnostics panel of the settings view and written to the log.
+ */
+public class QueryPatternFinding {
+
+    public enum Kind {
+        /** The same statement shape was issued many times within one service call */
+        REPEATED_STATEMENT,
+        /** A method annotated with {@link QueryBudget} issued more statements than declared */
+        BUDGET_EXCEEDED
+    }
+
+    private final Kind kind;
+    private final String method;
+    private final String shape;
+    private final long count;
+    private final List<StackTraceElement> callSite;
+    private final LocalDateTime detectedAt;
+
+    public QueryPatternFinding(Kind kind, String method, String shape, long count, List<StackTraceElement> callSite) {
+        this.kind = kind;
+        this.method = method;
+        this.shape = shape;
+        this.count = count;
+        this.callSite = callSite != null ? List.copyOf(callSite) : List.of();
+        this.detectedAt = LocalDateTime.now();
+    }
+
+    public Kind getKind() { return kind; }
+    public String getMethod() { return method; }
+    public String getShape() { return shape; }
+    public long getCount() { return count; }
+    public List<StackTraceElement> getCallSite() { return callSite; }
+    public LocalDateTime getDetectedAt() { return detectedAt; }
+
+    public String getSummary() {
+        if (kind == Kind.BUDGET_EXCEEDED) {
+            return String.format("%s: %d statements, over its query budget", method, count);
+        }
+        return String.format("%s: %dx %s", method, count, shape);
+    }
+
+    /**
+     * Returns the summary followed by the statement shape and the call site, one frame per line.
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder(getSummary());
+        if (shape != null && kind == Kind.BUDGET_EXCEEDED) {
+            text.append(System.lineSeparator()).append(shape);
+        }
+        for (StackTraceElement element : callSite) {
+            text.append(System.lineSeparator()).append("    at ").append(element);
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
@@ -0,0 +1,178 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.repository.BudgetRepositoryJpa;
+import it.unicam.cs.mpgc.jbudget120002.repository.DeadlineRepositoryJpa;
+import it.unicam.cs.mpgc.jbudget120002.repository.MigrationEngine;
+import it.unicam.cs.mpgc.jbudget120002.repository.ScheduledTransactionRepositoryJpa;
+import it.unicam.cs.mpgc.jbudget120002.repository.TagRepositoryJpa;
+import it.unicam.cs.mpgc.jbudget120002.repository.TransactionRepositoryJpa;
+import it.unicam.cs.mpgc.jbudget120002.service.ServiceFactory;
+import it.unicam.cs.mpgc.jbudget120002.service.StatisticsService;
+import it.unicam.cs.mpgc.jbudget120002.util.LedgerGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks with EXPLAIN that the hot repository queries are served by an index.
+ *
+ * Responsibilities:
+ * - Generate a seeded ledger in an in-memory database migrated by the MigrationEngine,
+ *   so the indexes of every migration exist and H2 has rows to cost its plans with
+ * - Call each hot repository method and capture the SQL Hibernate prepares for it
+ *   through the {@link StatementCounter} statement inspector
+ * - EXPLAIN every captured statement, report the indexes its plan uses and fail if
+ *   any table is scanned
+ *
+ * H2 plans a prepared statement before its parameters are bound, so the captured SQL is
+ * explained with every parameter bound to NULL. The ledger must be large enough for H2
+ * to prefer an index: on a nearly empty table a scan is rightly cheaper.
+ *
+ * Usage:
+ * ./gradlew checkQueryPlans
+ * ./gradlew checkQueryPlans --args="--transactions 100000"
+ */
+public class QueryPlanCheck {
+
+    private static final String URL = "jdbc:h2:mem:jbudget_query_plans;DB_CLOSE_DELAY=-1;MODE=MySQL";
+    private static final LocalDate END_DATE = LocalDate.of(2024, 12, 31);
+
+    /** Index or scan named in the comment H2 adds after each table of a plan */
+    private static final Pattern ACCESS = Pattern.compile("/\\* PUBLIC\\.([A-Za-z0-9_.]+)");
+
+    private final EntityManager em;
+    private final List<String> scans = new ArrayList<>();
+
+    private QueryPlanCheck(EntityManager em) {
+        this.em = em;
+    }
+
+    public static void main(String[] args) {
+        long transactions = args.length == 2 && "--transactions".equals(args[0]) ? Long.parseLong(args[1]) : 20000;
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url", URL);
+        EntityManagerFactory emf = MigrationEngine.createEntityManagerFactory(overrides);
+        EntityManager em = emf.createEntityManager();
+        QueryPlanCheck check = new QueryPlanCheck(em);
+        try {
+            LedgerGenerator generator = new LedgerGenerator(new LedgerGenerator.Options()
+                .withTransactions(transactions)
+                .withEndDate(END_DATE), LedgerGenerator.defaultTemplates());
+            em.getTransaction().begin();
+            LedgerGenerator.Result ledger = em.unwrap(Session.class).doReturningWork(generator::generate);
+            em.getTransaction().commit();
+            em.unwrap(Session.class).doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ANALYZE");
+                }
+            });
+            check.run(new ServiceFactory(em), ledger);
+        } finally {
+            em.close();
+            emf.close();
+        }
+        if (!check.scans.isEmpty()) {
+            System.out.println("Queries scanning a table: " + check.scans);
+            System.exit(1);
+        }
+    }
+
+    private void run(ServiceFactory services, LedgerGenerator.Result ledger) {
+        TransactionRepositoryJpa transactions = new TransactionRepositoryJpa(em);
+        ScheduledTransactionRepositoryJpa scheduled = new ScheduledTransactionRepositoryJpa(em);
+        BudgetRepositoryJpa budgets = new BudgetRepositoryJpa(em);
+        DeadlineRepositoryJpa deadlines = new DeadlineRepositoryJpa(em);
+        TagRepositoryJpa tags = new TagRepositoryJpa(em);
+        StatisticsService statistics = services.getStatisticsService(false);
+        User user = em.find(User.class, ledger.userIds().get(0));
+        Tag category = em.find(Tag.class, ledger.rootTagIds().get(0));
+        Long leafTagId = ledger.leafTagIdsByCategory().values().iterator().next().get(0);
+        LocalDate start = END_DATE.withDayOfYear(1);
+        LocalDate monthStart = END_DATE.withDayOfMonth(1);
+
+        check("TransactionRepository.findByDateBetween",
+            () -> transactions.findByDateBetween(start, END_DATE));
+        check("TransactionRepository.findPageByOwners",
+            () -> transactions.findPageByOwners(ledger.userIds(), start, END_DATE, 0L, 100));
+        check("TransactionRepository.findByTagAndDateRange",
+            () -> transactions.findByTagAndDateRange(leafTagId, start, END_DATE));
+        check("TransactionRepository.findDatesByScheduledTransaction",
+            () -> transactions.findDatesByScheduledTransaction(1L));
+        check("StatisticsService.getTopExpenseCategories",
+            () -> statistics.getTopExpenseCategories(start, END_DATE, 10));
+        check("ScheduledTransactionRepository.findByUser",
+            () -> scheduled.findByUser(user));
+        check("ScheduledTransactionRepository.findByTag",
+            () -> scheduled.findByTag(category));
+        check("BudgetRepository.findByDateRange",
+            () -> budgets.findByDateRange(monthStart, END_DATE));
+        check("DeadlineRepository.findByUserAndDueDateBetween",
+            () -> deadlines.findByUserAndDueDateBetween(user, monthStart, END_DATE));
+        check("DeadlineRepository.findUnpaidDueFrom",
+            () -> deadlines.findUnpaidDueFrom(monthStart));
+        check("TagRepository.findByName",
+            () -> tags.findByName(category.getName()));
+    }
+
+    /**
+     * Calls a repository method with an empty persistence context, so the statements
+     * loading its results are captured too, and explains every statement it prepared.
+     */
+    private void check(String name, Supplier<?> call) {
+        em.clear();
+        List<String> statements = new ArrayList<>();
+        Instrumentation.getInstance().capture(call, statements);
+        for (int i = 0; i < statements.size(); i++) {
+            String label = statements.size() == 1 ? name : name + "#" + (i + 1);
+            List<String> access = accessPaths(explain(statements.get(i)));
+            boolean scan = access.stream().anyMatch(a -> a.endsWith(".tableScan"));
+            if (scan) {
+                scans.add(label);
+            }
+            System.out.printf("%-4s %-55s %s%n", scan ? "SCAN" : "OK", label, access);
+        }
+    }
+
+    private String explain(String sql) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = statement.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    statement.setNull(i, Types.NULL);
+                }
+                try (ResultSet rows = statement.executeQuery()) {
+                    rows.next();
+                    return rows.getString(1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the access path H2 chose for each table of a plan: an index name, the
+     * primary key, or {@code TABLE.tableScan}.
+     */
+    static List<String> accessPaths(String plan) {
+        List<String> paths = new ArrayList<>();
+        Matcher matcher = ACCESS.matcher(plan);
+        while (matcher.find()) {
+            paths.add(matcher.group(1));
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,73 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.time.LocalDate;
+
+/**
+ * Flight Recorder event emitted for each batch of transactions generated from
+ * scheduled transactions.
+ *
+ * Responsibilities:
+ * - Carry the scheduled transaction (or user, for a per-user batch) and the target date
+ * - Carry the number of occurrences examined and transactions actually created
+ *
+ * Usage:
+ * ScheduledGenerationEvent event = ScheduledGenerationEvent.start(scheduledId, 0L, until);
+ * ... generate ...
+ * event.finish(1, occurrences, generated);
+ */
+@Name("jbudget.ScheduledGeneration")
+@Label("Scheduled Generation")
+@Category({"JBudget", "Scheduling"})
+@Description("Generation of transactions from scheduled transactions")
+@StackTrace(false)
+public class ScheduledGenerationEvent extends jdk.jfr.Event {
+
+    @Label("Scheduled Transaction Id")
+    @Description("Id of the scheduled transaction, 0 for a per-user batch")
+    long scheduledId;
+
+    @Label("User Id")
+    @Description("Id of the user of a per-user batch, 0 otherwise")
+    long userId;
+
+    @Label("Until")
+    String until;
+
+    @Label("Schedules")
+    long schedules;
+
+    @Label("Occurrences")
+    @Description("Occurrences examined, including the ones that already had a transaction")
+    long occurrences;
+
+    @Label("Generated")
+    @Description("Transactions created")
+    long generated;
+
+    public static ScheduledGenerationEvent start(Long scheduledId, Long userId, LocalDate until) {
+        ScheduledGenerationEvent event = new ScheduledGenerationEvent();
+        if (event.isEnabled()) {
+            event.scheduledId = scheduledId != null ? scheduledId : 0L;
+            event.userId = userId != null ? userId : 0L;
+            event.until = String.valueOf(until);
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(long schedules, long occurrences, long generated) {
+        end();
+        if (shouldCommit()) {
+            this.schedules = schedules;
+            this.occurrences = occurrences;
+            this.generated = generated;
+            commit();
+        }
+    }
+}
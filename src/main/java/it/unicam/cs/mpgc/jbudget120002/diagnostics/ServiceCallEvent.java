@@ -0,0 +1,172 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import it.unicam.cs.mpgc.jbudget120002.model.Budget;
+import it.unicam.cs.mpgc.jbudget120002.model.Group;
+import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.hibernate.Hibernate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Flight Recorder event emitted for every call through an instrumented service or
+ * repository proxy.
+ *
+ * Responsibilities:
+ * - Carry the method name, a short summary of the arguments, the user id and the date
+ *   range the call was about
+ * - Carry the number of JDBC statements issued and the number of rows returned
+ *
+ * Usage:
+ * Emitted by Instrumentation whenever the event is enabled in a running recording;
+ * calls shorter than the threshold (1 ms by default) are discarded.
+ */
+@Name("jbudget.ServiceCall")
+@Label("Service Call")
+@Category({"JBudget", "Services"})
+@Description("Call to a service or repository handed out by the ServiceFactory")
+@StackTrace(false)
+@Threshold("1 ms")
+public class ServiceCallEvent extends jdk.jfr.Event {
+
+    private static final int MAX_SUMMARY_LENGTH = 256;
+    private static final int MAX_STRING_ARGUMENT = 32;
+
+    @Label("Method")
+    String method;
+
+    @Label("Arguments")
+    String arguments;
+
+    @Label("User Id")
+    @Description("Id of the first User argument, 0 if none")
+    long userId;
+
+    @Label("Start Date")
+    @Description("First date argument, if any")
+    String startDate;
+
+    @Label("End Date")
+    @Description("Last date argument, if any")
+    String endDate;
+
+    @Label("Statements")
+    long statements;
+
+    @Label("Rows")
+    @Description("Elements in the returned collection, map or array; 1 for a single entity; -1 otherwise")
+    long rows;
+
+    @Label("Failed")
+    boolean failed;
+
+    // ==================== POPULATION ====================
+
+    /**
+     * Fills in the argument related fields. Only called for events that will be committed,
+     * so the summary is never built for calls below the threshold.
+     */
+    void describeArguments(Object[] args) {
+        if (args == null || args.length == 0) {
+            arguments = "";
+            return;
+        }
+        StringBuilder summary = new StringBuilder();
+        for (Object arg : args) {
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(summarize(arg));
+            if (arg instanceof User user && userId == 0 && user.getId() != null) {
+                userId = user.getId();
+            }
+            if (arg instanceof LocalDate || arg instanceof LocalDateTime) {
+                if (startDate == null) {
+                    startDate = arg.toString();
+                }
+                endDate = arg.toString();
+            }
+        }
+        arguments = summary.length() > MAX_SUMMARY_LENGTH
+            ? summary.substring(0, MAX_SUMMARY_LENGTH - 3) + "..."
+            : summary.toString();
+    }
+
+    void describeResult(Object result) {
+        rows = rowsOf(result);
+    }
+
+    static long rowsOf(Object result) {
+        if (!Hibernate.isInitialized(result)) {
+            // Counting a lazy collection would load it
+            return -1;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Object[] array) {
+            return array.length;
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof User || result instanceof Tag || result instanceof Transaction
+            || result instanceof ScheduledTransaction || result instanceof Budget || result instanceof Group) {
+            return 1;
+        }
+        return -1;
+    }
+
+    private static String summarize(Object arg) {
+        if (arg == null) {
+            return "null";
+        }
+        if (arg instanceof Number || arg instanceof Boolean || arg instanceof Enum<?> || arg instanceof Temporal) {
+            return arg.toString();
+        }
+        if (arg instanceof String text) {
+            return "\"" + (text.length() > MAX_STRING_ARGUMENT ? text.substring(0, MAX_STRING_ARGUMENT) + "..." : text) + "\"";
+        }
+        if (arg instanceof Collection<?> collection) {
+            return Hibernate.isInitialized(collection) ? "[" + collection.size() + " items]" : "[lazy]";
+        }
+        if (arg instanceof Map<?, ?> map) {
+            return "{" + map.size() + " entries}";
+        }
+        if (arg instanceof User user) {
+            return "User#" + user.getId();
+        }
+        if (arg instanceof Tag tag) {
+            return "Tag#" + tag.getId();
+        }
+        if (arg instanceof Group group) {
+            return "Group#" + group.getId();
+        }
+        if (arg instanceof Budget budget) {
+            return "Budget#" + budget.getId();
+        }
+        if (arg instanceof Transaction transaction) {
+            return "Transaction#" + transaction.getId();
+        }
+        if (arg instanceof ScheduledTransaction scheduled) {
+            return "ScheduledTransaction#" + scheduled.getId();
+        }
+        return arg.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,42 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event emitted for each phase of the application startup.
+ *
+ * Responsibilities:
+ * - Carry the phase name, as marked on the {@link StartupTimeline}
+ * - Carry the time from JVM start to the phase
+ *
+ * Usage:
+ * StartupPhaseEvent.emit("login.shown", 850);
+ */
+@Name("jbudget.StartupPhase")
+@Label("Startup Phase")
+@Category({"JBudget", "Startup"})
+@Description("A phase of the application startup, from JVM start to the first frame of the main view")
+@StackTrace(false)
+public class StartupPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Since JVM Start")
+    @Timespan(Timespan.MILLISECONDS)
+    long sinceJvmStart;
+
+    public static void emit(String phase, long sinceJvmStartMillis) {
+        StartupPhaseEvent event = new StartupPhaseEvent();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.sinceJvmStart = sinceJvmStartMillis;
+            event.commit();
+        }
+    }
+}
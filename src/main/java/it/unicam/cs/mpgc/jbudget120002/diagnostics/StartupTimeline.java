@@ -0,0 +1,111 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Timeline of the application startup, from JVM start to the first frame of the main
+ * view.
+ *
+ * <p>Each phase is marked once, from whichever thread reaches it, with the time elapsed
+ * since the JVM started and the name of that thread, so the phases run by the database
+ * bootstrap in the background can be told from those of the FX thread. Every mark is
+ * also emitted as a {@link StartupPhaseEvent} for the flight recording. Once the main
+ * view is interactive the timeline is logged as a table and stops recording; later
+ * marks, such as tabs loaded after startup, are ignored.</p>
+ *
+ * <p>The phases marked by the application are, in order: {@code fx.started},
+ * {@code login.shown}, {@code database.ready} (usually before the login is submitted),
+ * {@code login.submitted}, {@code main.loaded}, the first tab loaded, and
+ * {@code interactive}.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * StartupTimeline.getInstance().mark("login.shown");
+ * ...
+ * StartupTimeline.getInstance().mark("interactive");
+ * StartupTimeline.getInstance().report();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class StartupTimeline {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupTimeline.class.getName());
+
+    private static final StartupTimeline INSTANCE = new StartupTimeline();
+
+    /**
+     * A marked phase.
+     *
+     * @param name the phase
+     * @param sinceJvmStartMillis the time from JVM start to the mark
+     * @param thread the thread that marked it
+     */
+    public record Phase(String name, long sinceJvmStartMillis, String thread) {}
+
+    private final List<Phase> phases = new ArrayList<>();
+    private boolean reported;
+
+    private StartupTimeline() {
+    }
+
+    public static StartupTimeline getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Marks a phase as reached now. Ignored once the timeline was reported, or if the
+     * phase was already marked.
+     *
+     * @param name the phase
+     * @throws IllegalArgumentException if name is null
+     */
+    public void mark(String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Phase name cannot be null");
+        }
+        long sinceJvmStart = ManagementFactory.getRuntimeMXBean().getUptime();
+        synchronized (this) {
+            if (reported || phases.stream().anyMatch(p -> p.name().equals(name))) {
+                return;
+            }
+            phases.add(new Phase(name, sinceJvmStart, Thread.currentThread().getName()));
+        }
+        StartupPhaseEvent.emit(name, sinceJvmStart);
+    }
+
+    /**
+     * Returns the phases marked so far, in the order they were reached.
+     */
+    public synchronized List<Phase> phases() {
+        return List.copyOf(phases);
+    }
+
+    /**
+     * Logs the timeline, with the time of each phase since JVM start and since the
+     * previous phase, and stops recording. Only the first call logs.
+     */
+    public void report() {
+        List<Phase> marked;
+        synchronized (this) {
+            if (reported) {
+                return;
+            }
+            reported = true;
+            marked = List.copyOf(phases);
+        }
+        StringBuilder table = new StringBuilder("Startup timeline (ms since JVM start, +ms since previous phase):");
+        long previous = 0;
+        for (Phase phase : marked) {
+            table.append(String.format("%n  %6d  +%-6d %-28s [%s]", phase.sinceJvmStartMillis(),
+                phase.sinceJvmStartMillis() - previous, phase.name(), phase.thread()));
+            previous = phase.sinceJvmStartMillis();
+        }
+        LOGGER.info(table.toString());
+    }
+}
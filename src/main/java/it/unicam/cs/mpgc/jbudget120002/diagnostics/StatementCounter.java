@@ -0,0 +1,19 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate statement inspector attributing every JDBC statement to the instrumented
+ * call running on the current thread.
+ *
+ * <p>Registered in {@code persistence.xml} through
+ * {@code hibernate.session_factory.statement_inspector}. The SQL is returned unchanged.</p>
+ */
+public class StatementCounter implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        Instrumentation.getInstance().onStatement(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,65 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.time.LocalDate;
+
+/**
+ * Flight Recorder event emitted for each statistics computation.
+ *
+ * Responsibilities:
+ * - Carry the computation name and the period it covered
+ * - Carry the number of input rows read and result rows produced
+ *
+ * Usage:
+ * StatisticsComputationEvent event = StatisticsComputationEvent.start("MonthlyStatistics", start, end);
+ * ... compute ...
+ * event.finish(transactions.size(), stats.size());
+ */
+@Name("jbudget.StatisticsComputation")
+@Label("Statistics Computation")
+@Category({"JBudget", "Statistics"})
+@Description("Computation performed by the StatisticsService")
+@StackTrace(false)
+public class StatisticsComputationEvent extends jdk.jfr.Event {
+
+    @Label("Computation")
+    String computation;
+
+    @Label("Start Date")
+    String startDate;
+
+    @Label("End Date")
+    String endDate;
+
+    @Label("Input Rows")
+    @Description("Transactions or aggregate rows read, -1 if not known")
+    long inputRows;
+
+    @Label("Result Rows")
+    long resultRows;
+
+    public static StatisticsComputationEvent start(String computation, LocalDate startDate, LocalDate endDate) {
+        StatisticsComputationEvent event = new StatisticsComputationEvent();
+        if (event.isEnabled()) {
+            event.computation = computation;
+            event.startDate = String.valueOf(startDate);
+            event.endDate = String.valueOf(endDate);
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(long inputRows, long resultRows) {
+        end();
+        if (shouldCommit()) {
+            this.inputRows = inputRows;
+            this.resultRows = resultRows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flight Recorder event emitted for each phase of a file synchronization.
+ *
+ * Responsibilities:
+ * - Carry the phase name (collect, read, resolve, apply, write) and its duration
+ * - Carry the number of entities the phase handled
+ *
+ * Usage:
+ * SyncPhaseEvent event = SyncPhaseEvent.start("read");
+ * Map<String, List<?>> remote = readRemoteChanges();
+ * event.finish(remote);
+ */
+@Name("jbudget.SyncPhase")
+@Label("Sync Phase")
+@Category({"JBudget", "Sync"})
+@Description("One phase of FileSyncService.syncWithServer")
+@StackTrace(false)
+public class SyncPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Entities")
+    @Description("Entities read, resolved, applied or written by the phase")
+    long entities;
+
+    public static SyncPhaseEvent start(String phase) {
+        SyncPhaseEvent event = new SyncPhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase;
+            event.begin();
+        }
+        return event;
+    }
+
+    /**
+     * Ends the phase and commits the event, counting the entities of a change set.
+     */
+    public void finish(Map<String, List<?>> changes) {
+        end();
+        if (shouldCommit()) {
+            long count = 0;
+            if (changes != null) {
+                for (List<?> list : changes.values()) {
+                    count += list != null ? list.size() : 0;
+                }
+            }
+            entities = count;
+            commit();
+        }
+    }
+}
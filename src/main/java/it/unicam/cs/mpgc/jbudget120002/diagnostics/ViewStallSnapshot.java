@@ -0,0 +1,39 @@
+package it.unicam.cs.mpgc.jbudget120002.diagnostics;
+
+import java.util.List;
+
+/**
+ * Immutable view of the JavaFX thread stalls recorded while one view was active.
+ *
+ * Responsibilities:
+ * - Expose stall count and duration percentiles in milliseconds
+ * - Keep the stack of the FX thread during the most recent stall
+ *
+ * Usage:
+ * Returned by FxStallWatchdog.snapshot() and shown in the settings diagnostics panel.
+ */
+public class ViewStallSnapshot {
+    private final String view;
+    private final long stalls;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private final List<StackTraceElement> lastStallStack;
+
+    public ViewStallSnapshot(String view, long stalls, double p50Millis, double p99Millis, double maxMillis,
+                             List<StackTraceElement> lastStallStack) {
+        this.view = view;
+        this.stalls = stalls;
+        this.p50Millis = p50Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+        this.lastStallStack = lastStallStack != null ? List.copyOf(lastStallStack) : List.of();
+    }
+
+    public String getView() { return view; }
+    public long getStalls() { return stalls; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public double getMaxMillis() { return maxMillis; }
+    public List<StackTraceElement> getLastStallStack() { return lastStallStack; }
+}
@@ -0,0 +1,46 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Result of evaluating a {@link LoanScenario}: the installment list plus the
+ * totals used to compare scenarios side by side.
+ *
+ * Responsibilities:
+ * - Hold the computed installments
+ * - Expose the first regular payment, total interest, total paid and payoff date
+ *
+ * Usage:
+ * Produced by AmortizationEngine, displayed by LoanAmortizationController and
+ * persisted through LoanService.acceptPlan once the user accepts it.
+ */
+public class AmortizationSchedule {
+    private final LoanScenario scenario;
+    private final List<Installment> installments;
+    private final long firstPaymentCents;
+    private final long totalInterestCents;
+    private final long totalPaidCents;
+
+    public AmortizationSchedule(LoanScenario scenario, List<Installment> installments,
+                                long firstPaymentCents, long totalInterestCents, long totalPaidCents) {
+        this.scenario = scenario;
+        this.installments = List.copyOf(installments);
+        this.firstPaymentCents = firstPaymentCents;
+        this.totalInterestCents = totalInterestCents;
+        this.totalPaidCents = totalPaidCents;
+    }
+
+    public LoanScenario getScenario() { return scenario; }
+    public String getName() { return scenario.getName(); }
+    public List<Installment> getInstallments() { return installments; }
+    public int getNumberOfPayments() { return installments.size(); }
+    public BigDecimal getFirstPayment() { return BigDecimal.valueOf(firstPaymentCents, 2); }
+    public BigDecimal getTotalInterest() { return BigDecimal.valueOf(totalInterestCents, 2); }
+    public BigDecimal getTotalPaid() { return BigDecimal.valueOf(totalPaidCents, 2); }
+
+    public LocalDate getPayoffDate() {
+        return installments.isEmpty() ? null : installments.get(installments.size() - 1).getDueDate();
+    }
+}
@@ -45,7 +45,10 @@ import java.util.Objects;
  * @since 1.0
  */
 @Entity
-@Table(name = "budgets")
+@Table(name = "budgets", indexes = {
+    @Index(name = "idx_budget_dates", columnList = "startDate, endDate")
+})
+@EntityListeners({LedgerVersionListener.class, LedgerEventListener.class, BudgetAlertListener.class})
 public class Budget {
     
     @Id
@@ -68,7 +71,8 @@ public class Budget {
     @JoinTable(
         name = "budget_tags",
         joinColumns = @JoinColumn(name = "budget_id"),
-        inverseJoinColumns = @JoinColumn(name = "tag_id")
+        inverseJoinColumns = @JoinColumn(name = "tag_id"),
+        indexes = @Index(name = "idx_budget_tags_tag", columnList = "tag_id, budget_id")
     )
     private Set<Tag> tags = new HashSet<>();
 
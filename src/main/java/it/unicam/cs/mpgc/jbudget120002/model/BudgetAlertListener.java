@@ -0,0 +1,36 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import it.unicam.cs.mpgc.jbudget120002.service.BudgetAlertEngine;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener keeping the {@link BudgetAlertEngine} in sync with the ledger.
+ *
+ * <p>Attached to {@link Transaction}, whose writes update the running totals of the
+ * budgets they fall in, and to {@link Tag} and {@link Budget}, whose writes change which
+ * budgets a tag counts towards and therefore invalidate the engine. The engine applies
+ * both once the database transaction commits.</p>
+ */
+public class BudgetAlertListener {
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Object entity) {
+        if (entity instanceof Transaction transaction) {
+            BudgetAlertEngine.getInstance().onTransactionWritten(transaction);
+        } else {
+            BudgetAlertEngine.getInstance().onMappingChanged();
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Transaction transaction) {
+            BudgetAlertEngine.getInstance().onTransactionRemoved(transaction.getId());
+        } else {
+            BudgetAlertEngine.getInstance().onMappingChanged();
+        }
+    }
+}
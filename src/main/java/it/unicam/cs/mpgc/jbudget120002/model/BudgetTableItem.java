@@ -2,9 +2,11 @@ package it.unicam.cs.mpgc.jbudget120002.model;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
+/**
+ * Read-only row of the budgets table. Items are built from projection queries and hold
+ * only what the table shows; the {@link Budget} itself is loaded when it is edited.
+ */
 public class BudgetTableItem {
     private final Long id;
     private final String name;
@@ -13,11 +15,11 @@ public class BudgetTableItem {
     private final BigDecimal remainingAmount;
     private final LocalDate startDate;
     private final LocalDate endDate;
-    private final Set<Tag> tags;
+    private final String tagNames;
 
     public BudgetTableItem(Long id, String name, BigDecimal budgetedAmount,
                           BigDecimal actualAmount, BigDecimal remainingAmount,
-                          LocalDate startDate, LocalDate endDate) {
+                          LocalDate startDate, LocalDate endDate, String tagNames) {
         this.id = id;
         this.name = name;
         this.budgetedAmount = budgetedAmount;
@@ -25,7 +27,7 @@ public class BudgetTableItem {
         this.remainingAmount = remainingAmount;
         this.startDate = startDate;
         this.endDate = endDate;
-        this.tags = new HashSet<>();
+        this.tagNames = tagNames != null ? tagNames : "";
     }
 
     public Long getId() {
@@ -56,11 +58,7 @@ public class BudgetTableItem {
         return endDate;
     }
 
-    public Set<Tag> getTags() {
-        return tags;
-    }
-
-    public void addTag(Tag tag) {
-        tags.add(tag);
+    public String getTagNames() {
+        return tagNames;
     }
 } 
\ No newline at end of file
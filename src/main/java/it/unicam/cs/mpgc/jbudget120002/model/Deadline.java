@@ -5,6 +5,15 @@ import java.time.LocalDate;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 
 @Entity
+@Table(indexes = {
+    // Serves the month, overdue and due-soon slices of a user's deadlines in due-date order
+    @Index(name = "idx_deadline_user_paid_due", columnList = "user_id, isPaid, dueDate"),
+    // The calendar shows paid and unpaid deadlines of a month
+    @Index(name = "idx_deadline_user_due", columnList = "user_id, dueDate"),
+    // Reminders and overdue checks across all users
+    @Index(name = "idx_deadline_paid_due", columnList = "isPaid, dueDate")
+})
+@EntityListeners(LedgerEventListener.class)
 public class Deadline {
 
     @Id
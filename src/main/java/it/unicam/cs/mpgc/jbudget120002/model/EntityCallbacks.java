@@ -0,0 +1,86 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import it.unicam.cs.mpgc.jbudget120002.service.LedgerVersion;
+
+import java.util.Objects;
+
+/**
+ * Runs the entity listeners for rows written outside the persistence context.
+ *
+ * <p>Rows written through a stateless session or plain JDBC trigger no entity callback,
+ * so the shared indexes would not hear of them. The code writing them calls these
+ * methods for each row instead, once the row has its ID, and they do what the listeners
+ * attached to the entity do on flush: the balance index, budget alert engine and ledger
+ * versions are updated for that row only, and its ledger event is queued. Once the
+ * database transaction commits, {@code CommitHooks.afterCommit()} publishes them as
+ * for any other write; a rollback drops them.</p>
+ *
+ * <p>Supports the entities written that way: {@link Transaction},
+ * {@link ScheduledTransaction} and {@link Tag}.</p>
+ */
+public final class EntityCallbacks {
+
+    private static final TransactionBalanceListener BALANCE = new TransactionBalanceListener();
+    private static final BudgetAlertListener ALERTS = new BudgetAlertListener();
+    private static final LedgerVersionListener VERSIONS = new LedgerVersionListener();
+    private static final LedgerEventListener EVENTS = new LedgerEventListener();
+
+    private EntityCallbacks() {
+    }
+
+    /**
+     * Reports an inserted row.
+     *
+     * @param entity the row, with its generated ID
+     * @throws IllegalArgumentException if the entity is not of a supported type
+     */
+    public static void afterInsert(Object entity) {
+        if (entity instanceof Transaction transaction) {
+            BALANCE.onPersist(transaction);
+            ALERTS.onWrite(transaction);
+            VERSIONS.onWrite(transaction);
+            EVENTS.onPersist(transaction);
+        } else if (entity instanceof Tag tag) {
+            VERSIONS.onWrite(tag);
+            EVENTS.onPersist(tag);
+            ALERTS.onWrite(tag);
+        } else if (entity instanceof ScheduledTransaction scheduled) {
+            EVENTS.onPersist(scheduled);
+        } else {
+            throw new IllegalArgumentException("Unsupported entity: " + entity);
+        }
+    }
+
+    /**
+     * Reports an updated transaction, which was not loaded in this database: the owner
+     * of the row it replaced is given, so that the balance index reloads it too.
+     *
+     * @param transaction the transaction as written
+     * @param previousOwnerId the owner of the row replaced
+     * @throws IllegalArgumentException if transaction is null
+     */
+    public static void afterUpdate(Transaction transaction, Long previousOwnerId) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be null");
+        }
+        transaction.rememberIndexedOwner(previousOwnerId);
+        BALANCE.onUpdate(transaction);
+        ALERTS.onWrite(transaction);
+        VERSIONS.onWrite(transaction);
+        Long ownerId = transaction.getUser() != null ? transaction.getUser().getId() : null;
+        if (previousOwnerId != null && !Objects.equals(previousOwnerId, ownerId)) {
+            // The previous owner's users no longer see it
+            LedgerVersion.getInstance().onTransactionWritten(previousOwnerId);
+        }
+        EVENTS.onUpdate(transaction);
+    }
+
+    /**
+     * Reports an updated scheduled transaction.
+     *
+     * @param scheduled the scheduled transaction as written
+     */
+    public static void afterUpdate(ScheduledTransaction scheduled) {
+        EVENTS.onUpdate(scheduled);
+    }
+}
@@ -48,6 +48,7 @@ import java.util.ArrayList;
  */
 @Entity
 @Table(name = "groups")
+@EntityListeners({LedgerVersionListener.class, LedgerEventListener.class})
 public class Group {
 
     @Id
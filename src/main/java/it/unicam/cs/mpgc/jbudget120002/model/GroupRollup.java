@@ -0,0 +1,53 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Consolidated monthly figures of a group and all its sub-groups.
+ *
+ * <p>Every user belonging to any group of the subtree is counted once, even when it is
+ * a member of several of them. Expenses are attributed to the primary tag of each
+ * transaction; untagged expenses count towards the month's expenses but no tag.</p>
+ *
+ * @param groupId the root of the subtree
+ * @param groupIds the root and all its descendants
+ * @param memberIds the users of the subtree
+ * @param months the months with at least one transaction, in chronological order
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public record GroupRollup(
+    Long groupId,
+    Set<Long> groupIds,
+    Set<Long> memberIds,
+    List<Month> months
+) {
+
+    /**
+     * The figures of one month.
+     *
+     * @param month the month
+     * @param income the income of the members
+     * @param expenses the expenses of the members
+     * @param expensesByTag expenses by primary tag ID
+     */
+    public record Month(
+        YearMonth month,
+        BigDecimal income,
+        BigDecimal expenses,
+        Map<Long, BigDecimal> expensesByTag
+    ) {
+
+        /**
+         * Returns income minus expenses.
+         */
+        public BigDecimal balance() {
+            return income.subtract(expenses);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * A change to the ledger, published once the database transaction that made it commits.
+ *
+ * <p>Events tell subscribers which aggregates to refresh rather than carrying the changed
+ * data: a transaction event names its owner, date and tags, so a client showing another
+ * user's figures, another month or another category can ignore it. An update carries the
+ * new date and tags only, since the entity callbacks do not see the previous ones;
+ * {@link #mayConcern(LocalDate, LocalDate)} and {@link #mayConcernTags(Set)} account for
+ * that. Events are numbered in publication order; a
+ * subscriber that misses some (its buffer overflowed, or it reconnected too late) is sent
+ * a {@link Type#RESYNC} and must reload everything it shows.</p>
+ *
+ * @param id the publication sequence number, increasing by one per event
+ * @param type what changed
+ * @param ownerId the user whose data changed, or null if the change is visible to everyone
+ * @param entityId the changed entity, or null for events about the whole ledger
+ * @param date the date whose aggregates changed (the transaction date, or the first
+ *             generated occurrence), or null if no single date is affected
+ * @param tagIds the tags of the changed entity, empty if unknown or none
+ * @param time when the event was published
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public record LedgerEvent(
+    long id,
+    Type type,
+    Long ownerId,
+    Long entityId,
+    LocalDate date,
+    Set<Long> tagIds,
+    Instant time
+) {
+
+    public LedgerEvent {
+        tagIds = tagIds == null ? Set.of() : Set.copyOf(tagIds);
+    }
+
+    /**
+     * The kinds of ledger changes.
+     */
+    public enum Type {
+        TRANSACTION_CREATED,
+        TRANSACTION_UPDATED,
+        TRANSACTION_DELETED,
+        TAG_CHANGED,
+        BUDGET_CHANGED,
+        BUDGET_THRESHOLD_CROSSED,
+        /** A scheduled transaction was created, updated or deleted */
+        SCHEDULED_TRANSACTION_CHANGED,
+        SCHEDULED_OCCURRENCES_GENERATED,
+        /** A deadline was created, updated (paid, for example) or deleted */
+        DEADLINE_CHANGED,
+        DEADLINE_DUE_SOON,
+        DEADLINE_OVERDUE,
+        /** Users, groups or memberships changed, so what each user can see may have changed */
+        USERS_CHANGED,
+        /** The subscriber missed events, or the ledger was replaced by a sync: reload everything */
+        RESYNC
+    }
+
+    /**
+     * Tells whether the event concerns data a user can see.
+     *
+     * @param visibleOwners the user and the members of its groups
+     */
+    public boolean isVisibleTo(Set<Long> visibleOwners) {
+        return ownerId == null || visibleOwners.contains(ownerId);
+    }
+
+    /**
+     * Tells whether transactions were written, one by one or by a scheduled generation.
+     */
+    public boolean isTransactionChange() {
+        return switch (type) {
+            case TRANSACTION_CREATED, TRANSACTION_UPDATED, TRANSACTION_DELETED, SCHEDULED_OCCURRENCES_GENERATED -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Tells whether the change may concern the aggregates of a date range: it has no
+     * single date, its date is in the range, or it is an update, whose previous date
+     * may have been. Generated occurrences start at the event date and may run to any
+     * later one.
+     *
+     * @param start the first day of the range, or null if unbounded
+     * @param end the last day of the range, or null if unbounded
+     */
+    public boolean mayConcern(LocalDate start, LocalDate end) {
+        if (date == null || type == Type.TRANSACTION_UPDATED) {
+            return true;
+        }
+        boolean afterStart = start == null || !date.isBefore(start)
+            || type == Type.SCHEDULED_OCCURRENCES_GENERATED;
+        return afterStart && (end == null || !date.isAfter(end));
+    }
+
+    /**
+     * Tells whether the change may concern a set of tags: the tags of the changed entity
+     * are unknown, one of them is in the set, or it is an update, whose previous tags
+     * may have been.
+     *
+     * @param shownTagIds the tags a view is filtered on
+     */
+    public boolean mayConcernTags(Set<Long> shownTagIds) {
+        if (tagIds.isEmpty() || type == Type.TRANSACTION_UPDATED) {
+            return true;
+        }
+        for (Long tagId : tagIds) {
+            if (shownTagIds.contains(tagId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
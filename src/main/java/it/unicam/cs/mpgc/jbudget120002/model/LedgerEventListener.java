@@ -0,0 +1,79 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import it.unicam.cs.mpgc.jbudget120002.service.LedgerEventBus;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * JPA entity listener turning entity writes into {@link LedgerEvent}s.
+ *
+ * <p>Attached to {@link Transaction}, {@link ScheduledTransaction}, {@link Deadline},
+ * {@link Tag}, {@link Budget}, {@link User} and {@link Group}. Events are queued on the
+ * {@link LedgerEventBus} when the write is flushed and published when the database
+ * transaction commits. Transaction and scheduled transaction events name their tags when
+ * these are loaded; the primary tag of a transaction is always known.</p>
+ */
+public class LedgerEventListener {
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        publish(entity, LedgerEvent.Type.TRANSACTION_CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        publish(entity, LedgerEvent.Type.TRANSACTION_UPDATED);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, LedgerEvent.Type.TRANSACTION_DELETED);
+    }
+
+    private static void publish(Object entity, LedgerEvent.Type transactionEvent) {
+        LedgerEventBus bus = LedgerEventBus.getInstance();
+        if (entity instanceof Transaction transaction) {
+            Set<Long> tagIds = tagIds(transaction.getTags());
+            if (transaction.getPrimaryTag() != null) {
+                tagIds.add(transaction.getPrimaryTag().getId());
+            }
+            bus.publishAfterCommit(transactionEvent, ownerId(transaction.getUser()),
+                transaction.getId(), transaction.getDate(), tagIds);
+        } else if (entity instanceof ScheduledTransaction scheduled) {
+            bus.publishAfterCommit(LedgerEvent.Type.SCHEDULED_TRANSACTION_CHANGED, ownerId(scheduled.getUser()),
+                scheduled.getId(), scheduled.getStartDate(), tagIds(scheduled.getTags()));
+        } else if (entity instanceof Deadline deadline) {
+            bus.publishAfterCommit(LedgerEvent.Type.DEADLINE_CHANGED, ownerId(deadline.getUser()),
+                deadline.getId(), deadline.getDueDate());
+        } else if (entity instanceof Tag tag) {
+            bus.publishAfterCommit(LedgerEvent.Type.TAG_CHANGED, null, tag.getId(), null, Set.of(tag.getId()));
+        } else if (entity instanceof Budget budget) {
+            bus.publishAfterCommit(LedgerEvent.Type.BUDGET_CHANGED, null, budget.getId(), null);
+        } else if (entity instanceof User || entity instanceof Group) {
+            bus.publishAfterCommit(LedgerEvent.Type.USERS_CHANGED, null, null, null);
+        }
+    }
+
+    private static Long ownerId(User user) {
+        return user != null ? user.getId() : null;
+    }
+
+    /** The IDs of loaded tags; tags not loaded are left out rather than loaded during a flush */
+    private static Set<Long> tagIds(Collection<Tag> tags) {
+        Set<Long> ids = new HashSet<>();
+        if (tags != null && Hibernate.isInitialized(tags)) {
+            for (Tag tag : tags) {
+                if (tag.getId() != null) {
+                    ids.add(tag.getId());
+                }
+            }
+        }
+        return ids;
+    }
+}
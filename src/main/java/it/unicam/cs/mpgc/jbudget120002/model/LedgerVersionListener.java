@@ -0,0 +1,36 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import it.unicam.cs.mpgc.jbudget120002.service.LedgerVersion;
+import it.unicam.cs.mpgc.jbudget120002.service.VisibilityIndex;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener reporting writes to the {@link LedgerVersion}.
+ *
+ * <p>Attached to {@link Transaction}, {@link Tag}, {@link Budget}, {@link User} and
+ * {@link Group}, so every write made through the persistence context changes the
+ * versions that cached statistics and HTTP entity tags are keyed on. Transaction writes
+ * only change the version of the users who can see the owner's transactions; tag and
+ * budget writes change every version; user and group writes also drop the
+ * {@link VisibilityIndex}, so the visibility of each user is recomputed. Membership changes that only touch the join table do not
+ * trigger an entity callback, so the group service reports them itself.</p>
+ */
+public class LedgerVersionListener {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        LedgerVersion versions = LedgerVersion.getInstance();
+        if (entity instanceof Transaction transaction) {
+            versions.onTransactionWritten(transaction.getUser() != null ? transaction.getUser().getId() : null);
+        } else if (entity instanceof User || entity instanceof Group) {
+            VisibilityIndex.getInstance().onMembershipChanged();
+            versions.onUsersChanged();
+        } else {
+            versions.onSharedWritten();
+        }
+    }
+}
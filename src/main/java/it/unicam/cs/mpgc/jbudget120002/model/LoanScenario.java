@@ -0,0 +1,120 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Describes one "what-if" variant of a loan for amortization simulation.
+ *
+ * Responsibilities:
+ * - Store the base loan terms (principal, annual rate, term, start date)
+ * - Store extra prepayments, either recurring monthly or on specific installments
+ * - Store variable rate changes taking effect from a given installment
+ * - Store an optional refinancing of the remaining balance
+ *
+ * Usage:
+ * Built by LoanAmortizationController from the user input and evaluated by
+ * AmortizationEngine. Amounts are held in cents so the engine can work on
+ * primitive longs.
+ */
+public class LoanScenario {
+    private final String name;
+    private final long principalCents;
+    private final double annualRate; // annual, as percent
+    private final int termMonths;
+    private final LocalDate startDate;
+    private long monthlyExtraCents;
+    private final Map<Integer, Long> prepayments = new TreeMap<>();
+    private final Map<Integer, Double> rateChanges = new TreeMap<>();
+    private Refinance refinance;
+
+    /**
+     * Refinancing of the remaining balance at a given installment, with a new rate,
+     * a new term counted from that installment and a fee added to the balance.
+     */
+    public record Refinance(int month, double annualRate, int termMonths, long feeCents) {}
+
+    public LoanScenario(String name, BigDecimal principal, double annualRate, int termMonths, LocalDate startDate) {
+        if (principal == null || principal.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Loan amount must be greater than zero");
+        }
+        if (annualRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative");
+        }
+        if (termMonths <= 0) {
+            throw new IllegalArgumentException("Loan term must be greater than zero");
+        }
+        if (startDate == null) {
+            throw new IllegalArgumentException("Start date cannot be null");
+        }
+        this.name = name;
+        this.principalCents = toCents(principal);
+        this.annualRate = annualRate;
+        this.termMonths = termMonths;
+        this.startDate = startDate;
+    }
+
+    /**
+     * Creates a copy of this scenario under a different name, including all
+     * prepayments, rate changes and refinancing.
+     */
+    public LoanScenario copy(String newName) {
+        LoanScenario copy = new LoanScenario(newName, toAmount(principalCents), annualRate, termMonths, startDate);
+        copy.monthlyExtraCents = monthlyExtraCents;
+        copy.prepayments.putAll(prepayments);
+        copy.rateChanges.putAll(rateChanges);
+        copy.refinance = refinance;
+        return copy;
+    }
+
+    public LoanScenario withMonthlyExtraPayment(BigDecimal amount) {
+        this.monthlyExtraCents = toCents(amount);
+        return this;
+    }
+
+    public LoanScenario withPrepayment(int month, BigDecimal amount) {
+        prepayments.merge(month, toCents(amount), Long::sum);
+        return this;
+    }
+
+    public LoanScenario withRateChange(int month, double newAnnualRate) {
+        if (newAnnualRate < 0) {
+            throw new IllegalArgumentException("Interest rate cannot be negative");
+        }
+        rateChanges.put(month, newAnnualRate);
+        return this;
+    }
+
+    public LoanScenario withRefinance(int month, double newAnnualRate, int newTermMonths, BigDecimal fee) {
+        if (newAnnualRate < 0 || newTermMonths <= 0) {
+            throw new IllegalArgumentException("Refinancing requires a non-negative rate and a positive term");
+        }
+        this.refinance = new Refinance(month, newAnnualRate, newTermMonths, toCents(fee));
+        return this;
+    }
+
+    public String getName() { return name; }
+    public long getPrincipalCents() { return principalCents; }
+    public BigDecimal getPrincipal() { return toAmount(principalCents); }
+    public double getAnnualRate() { return annualRate; }
+    public int getTermMonths() { return termMonths; }
+    public LocalDate getStartDate() { return startDate; }
+    public long getMonthlyExtraCents() { return monthlyExtraCents; }
+    public Map<Integer, Long> getPrepayments() { return Collections.unmodifiableMap(prepayments); }
+    public Map<Integer, Double> getRateChanges() { return Collections.unmodifiableMap(rateChanges); }
+    public Refinance getRefinance() { return refinance; }
+
+    private static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(2, java.math.RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
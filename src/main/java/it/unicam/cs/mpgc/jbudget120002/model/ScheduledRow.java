@@ -0,0 +1,61 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a scheduled transaction as shown in a table.
+ *
+ * <p>Like {@link TransactionRow}, rows are read with a constructor projection and are
+ * not managed by the persistence context; the {@link ScheduledTransaction} is loaded by
+ * ID only when it is edited, deleted or converted.</p>
+ *
+ * @param id the scheduled transaction ID
+ * @param startDate the first occurrence
+ * @param endDate the last possible occurrence, or null if open ended
+ * @param description the description
+ * @param amount the amount of each occurrence
+ * @param income true for income, false for an expense
+ * @param pattern the recurrence pattern
+ * @param recurrenceValue the recurrence interval in units of the pattern
+ * @param tagNames the names of the tags, comma separated in alphabetical order
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public record ScheduledRow(
+    Long id,
+    LocalDate startDate,
+    LocalDate endDate,
+    String description,
+    BigDecimal amount,
+    boolean income,
+    ScheduledTransaction.RecurrencePattern pattern,
+    Integer recurrenceValue,
+    String tagNames
+) {
+
+    /**
+     * Projection constructor, used by {@code SELECT new} queries before the tag names
+     * are read.
+     */
+    public ScheduledRow(Long id, LocalDate startDate, LocalDate endDate, String description, BigDecimal amount,
+                        boolean income, ScheduledTransaction.RecurrencePattern pattern, Integer recurrenceValue) {
+        this(id, startDate, endDate, description, amount, income, pattern, recurrenceValue, "");
+    }
+
+    /**
+     * Returns a copy of this row with the given tag names.
+     */
+    public ScheduledRow withTagNames(String tagNames) {
+        return new ScheduledRow(id, startDate, endDate, description, amount, income, pattern, recurrenceValue,
+            tagNames);
+    }
+
+    /**
+     * Returns the recurrence as shown in tables, such as "2 MONTHLY".
+     */
+    public String recurrence() {
+        return pattern != null ? recurrenceValue + " " + pattern : "";
+    }
+}
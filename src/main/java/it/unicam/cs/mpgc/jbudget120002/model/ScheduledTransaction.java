@@ -47,7 +47,10 @@ import java.util.Objects;
  * @since 1.0
  */
 @Entity
-@Table(name = "scheduled_transactions")
+@Table(name = "scheduled_transactions", indexes = {
+    @Index(name = "idx_scheduled_user_start", columnList = "user_id, startDate")
+})
+@EntityListeners(LedgerEventListener.class)
 public class ScheduledTransaction {
     
     /**
@@ -114,7 +117,8 @@ public class ScheduledTransaction {
     @JoinTable(
         name = "scheduled_transaction_tags",
         joinColumns = @JoinColumn(name = "scheduled_transaction_id"),
-        inverseJoinColumns = @JoinColumn(name = "tag_id")
+        inverseJoinColumns = @JoinColumn(name = "tag_id"),
+        indexes = @Index(name = "idx_scheduled_tags_tag", columnList = "tag_id, scheduled_transaction_id")
     )
     private Set<Tag> tags = new HashSet<>();
 
@@ -74,4 +74,21 @@ public class StatisticsModels {
         Map<Integer, BigDecimal> dailyDistribution,  // 1-7
         Map<Integer, BigDecimal> monthlyDistribution // 1-12
     ) {}
-} 
\ No newline at end of file
+
+    /**
+     * Everything the dashboard shows for a period, computed in one service call.
+     *
+     * @param income the income of the period
+     * @param expenses the expenses of the period
+     * @param balance income minus expenses
+     * @param topCategories the largest expense categories, largest first
+     * @param recentTransactions the latest transactions of the period as table rows, newest first
+     */
+    public record DashboardSnapshot(
+        BigDecimal income,
+        BigDecimal expenses,
+        BigDecimal balance,
+        List<CategoryExpense> topCategories,
+        List<TransactionRow> recentTransactions
+    ) {}
+}
@@ -1,8 +1,10 @@
 package it.unicam.cs.mpgc.jbudget120002.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.util.*;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Entity class representing a categorization tag in the Family Budget App.
@@ -44,7 +46,10 @@ import java.util.Objects;
  * @since 1.0
  */
 @Entity
-@Table(name = "tags")
+@Table(name = "tags", indexes = {
+    @Index(name = "idx_tag_name", columnList = "name")
+})
+@EntityListeners({LedgerVersionListener.class, LedgerEventListener.class, BudgetAlertListener.class})
 public class Tag {
     
     @Id
@@ -60,6 +65,7 @@ public class Tag {
     private Tag parent;
 
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 32)
     private Set<Tag> children = new HashSet<>();
 
     @ManyToMany(mappedBy = "tags")
@@ -379,6 +385,20 @@ public class Tag {
         return fullPath;
     }
 
+    /**
+     * Formats tag names the way tables show them: sorted alphabetically and comma
+     * separated.
+     *
+     * @param names the tag names
+     * @return the joined names, empty if there are none
+     */
+    public static String joinNames(Collection<String> names) {
+        return names.stream()
+            .filter(Objects::nonNull)
+            .sorted(String.CASE_INSENSITIVE_ORDER)
+            .collect(Collectors.joining(", "));
+    }
+
     // ==================== EQUALS, HASHCODE, TOSTRING ====================
 
     @Override
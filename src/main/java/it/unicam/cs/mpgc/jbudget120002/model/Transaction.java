@@ -1,6 +1,7 @@
 package it.unicam.cs.mpgc.jbudget120002.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
@@ -43,7 +44,25 @@ import java.util.Objects;
  * @since 1.0
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transaction_user_date", columnList = "user_id, date"),
+    @Index(name = "idx_transaction_primary_tag", columnList = "primary_tag_id, date"),
+    @Index(name = "idx_transaction_date", columnList = "date"),
+    @Index(name = "idx_transaction_scheduled_date", columnList = "scheduled_transaction_id, date")
+})
+@NamedEntityGraph(name = "Transaction.tableRow", attributeNodes = {
+    @NamedAttributeNode("tags"),
+    @NamedAttributeNode("user")
+})
+@NamedEntityGraph(name = "Transaction.statistics", attributeNodes = @NamedAttributeNode("primaryTag"))
+@NamedEntityGraph(name = "Transaction.syncExport", attributeNodes = {
+    @NamedAttributeNode("tags"),
+    @NamedAttributeNode("user"),
+    @NamedAttributeNode("scheduledTransaction"),
+    @NamedAttributeNode("loanPlan")
+})
+@EntityListeners({TransactionBalanceListener.class, BudgetAlertListener.class, LedgerVersionListener.class,
+    LedgerEventListener.class})
 public class Transaction {
     
     @Id
@@ -69,10 +88,21 @@ public class Transaction {
     @JoinTable(
         name = "transaction_tags",
         joinColumns = @JoinColumn(name = "transaction_id"),
-        inverseJoinColumns = @JoinColumn(name = "tag_id")
+        inverseJoinColumns = @JoinColumn(name = "tag_id"),
+        // Tag filters go from the tag to its transactions
+        indexes = @Index(name = "idx_transaction_tags_tag", columnList = "tag_id, transaction_id")
     )
+    @BatchSize(size = 32)
     private Set<Tag> tags = new HashSet<>();
 
+    /**
+     * The category of the transaction, derived from its tags whenever they change so that
+     * statistics can group by it without loading the tag collection.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "primary_tag_id", foreignKey = @ForeignKey(name = "fk_transaction_primary_tag"))
+    private Tag primaryTag;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "scheduled_transaction_id")
     private ScheduledTransaction scheduledTransaction;
@@ -91,6 +121,14 @@ public class Transaction {
     @Column(name = "interest_amount", precision = 10, scale = 2)
     private BigDecimal interestAmount;
 
+    /** Whether the owner last seen in the database is known */
+    @Transient
+    private boolean indexed;
+
+    /** Owner ID last seen in the database, reported to the balance index on update/delete */
+    @Transient
+    private Long indexedOwnerId;
+
     // ==================== CONSTRUCTORS ====================
 
     /**
@@ -150,10 +188,11 @@ public class Transaction {
      * @return true if the tag was added, false if already present
      */
     public boolean addTag(Tag tag) {
-        if (tag == null) {
+        if (tag == null || !tags.add(tag)) {
             return false;
         }
-        return tags.add(tag);
+        refreshPrimaryTag();
+        return true;
     }
 
     /**
@@ -163,10 +202,11 @@ public class Transaction {
      * @return true if the tag was removed, false if not present
      */
     public boolean removeTag(Tag tag) {
-        if (tag == null) {
+        if (tag == null || !tags.remove(tag)) {
             return false;
         }
-        return tags.remove(tag);
+        refreshPrimaryTag();
+        return true;
     }
 
     /**
@@ -174,6 +214,7 @@ public class Transaction {
      */
     public void clearTags() {
         tags.clear();
+        primaryTag = null;
     }
 
     /**
@@ -222,10 +263,48 @@ public class Transaction {
         if (newTags != null) {
             for (Tag tag : newTags) {
                 if (tag != null) {
-                    addTag(tag);
+                    tags.add(tag);
                 }
             }
         }
+        refreshPrimaryTag();
+    }
+
+    /**
+     * Recomputes the primary tag from the current tags: among the tags whose parent is not
+     * also on this transaction, the one with the lowest ID (tags not yet saved last). Called
+     * whenever the tags change, and by the tag service when a tag is moved in the hierarchy.
+     * 
+     * @return true if the primary tag changed
+     */
+    public boolean refreshPrimaryTag() {
+        Set<Long> tagIds = new HashSet<>();
+        for (Tag tag : tags) {
+            tagIds.add(tag.getId());
+        }
+        Tag resolved = null;
+        for (Tag tag : tags) {
+            Tag parent = tag.getParent();
+            boolean parentOnTransaction = parent != null
+                && (parent.getId() != null ? tagIds.contains(parent.getId()) : tags.contains(parent));
+            if (!parentOnTransaction && (resolved == null || compareIds(tag, resolved) < 0)) {
+                resolved = tag;
+            }
+        }
+        boolean unchanged = resolved == primaryTag || (resolved != null && primaryTag != null
+            && resolved.getId() != null && resolved.getId().equals(primaryTag.getId()));
+        if (unchanged) {
+            return false;
+        }
+        primaryTag = resolved;
+        return true;
+    }
+
+    private static int compareIds(Tag a, Tag b) {
+        if (a.getId() == null || b.getId() == null) {
+            return a.getId() == null ? (b.getId() == null ? 0 : 1) : -1;
+        }
+        return a.getId().compareTo(b.getId());
     }
 
     /**
@@ -302,6 +381,16 @@ public class Transaction {
         return id; 
     }
 
+    /**
+     * Sets the transaction's unique identifier, for a row inserted without the
+     * persistence context.
+     * 
+     * @param id the transaction ID
+     */
+    public void setId(Long id) { 
+        this.id = id; 
+    }
+
     /**
      * Gets the transaction date.
      * 
@@ -347,6 +436,15 @@ public class Transaction {
         return Collections.unmodifiableSet(tags); 
     }
 
+    /**
+     * Gets the primary (category) tag, kept up to date as the tags change.
+     * 
+     * @return the primary tag, or null if the transaction has no tags
+     */
+    public Tag getPrimaryTag() {
+        return primaryTag;
+    }
+
     /**
      * Gets the associated scheduled transaction.
      * 
@@ -466,6 +564,40 @@ public class Transaction {
         this.scheduledTransaction = scheduledTransaction;
     }
 
+    // ==================== BALANCE INDEX STATE ====================
+
+    /**
+     * Remembers the current owner as the one in the database.
+     */
+    void rememberIndexedOwner() {
+        rememberIndexedOwner(user != null ? user.getId() : null);
+    }
+
+    /**
+     * Remembers a given owner as the one in the database, for a row replaced without
+     * having been loaded.
+     */
+    void rememberIndexedOwner(Long ownerId) {
+        this.indexed = true;
+        this.indexedOwnerId = ownerId;
+    }
+
+    /**
+     * Clears the remembered owner after removal.
+     */
+    void forgetIndexedOwner() {
+        this.indexed = false;
+        this.indexedOwnerId = null;
+    }
+
+    boolean isIndexed() {
+        return indexed;
+    }
+
+    Long getIndexedOwnerId() {
+        return indexedOwnerId;
+    }
+
     // ==================== EQUALS, HASHCODE, TOSTRING ====================
 
     @Override
@@ -0,0 +1,55 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import it.unicam.cs.mpgc.jbudget120002.service.BalanceIndex;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener reporting the writes of the {@code transactions} table to the
+ * {@link BalanceIndex}.
+ *
+ * <p>Every write path (services, scheduled generation, sync, cascaded user deletion)
+ * goes through the persistence context, so hooking the lifecycle callbacks here keeps
+ * the index correct without each service having to remember to update it. The index
+ * applies the writes once the database transaction commits. The owner last seen in the
+ * database is remembered on the entity, so that an update moving the transaction to
+ * another owner also reloads the previous one.</p>
+ */
+public class TransactionBalanceListener {
+
+    @PostLoad
+    public void onLoad(Transaction transaction) {
+        transaction.rememberIndexedOwner();
+    }
+
+    @PostPersist
+    public void onPersist(Transaction transaction) {
+        long cents = BalanceIndex.toSignedCents(transaction.getAmount(), transaction.isIncome());
+        BalanceIndex.getInstance().recordInsert(ownerId(transaction.getUser()), transaction.getDate(), cents);
+        transaction.rememberIndexedOwner();
+    }
+
+    @PostUpdate
+    public void onUpdate(Transaction transaction) {
+        Long ownerId = ownerId(transaction.getUser());
+        BalanceIndex.getInstance().recordRewrite(transaction.getId(), previousOwnerId(transaction, ownerId), ownerId, false);
+        transaction.rememberIndexedOwner();
+    }
+
+    @PostRemove
+    public void onRemove(Transaction transaction) {
+        Long ownerId = ownerId(transaction.getUser());
+        BalanceIndex.getInstance().recordRewrite(transaction.getId(), previousOwnerId(transaction, ownerId), ownerId, true);
+        transaction.forgetIndexedOwner();
+    }
+
+    private static Long previousOwnerId(Transaction transaction, Long ownerId) {
+        return transaction.isIndexed() ? transaction.getIndexedOwnerId() : ownerId;
+    }
+
+    private static Long ownerId(User user) {
+        return user != null ? user.getId() : null;
+    }
+}
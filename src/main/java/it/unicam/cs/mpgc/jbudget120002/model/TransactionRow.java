@@ -0,0 +1,66 @@
+package it.unicam.cs.mpgc.jbudget120002.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Read-only view of a transaction as shown in a table.
+ *
+ * <p>Rows are read with a constructor projection, so they are plain values rather than
+ * managed entities: the persistence context keeps no copy of them and never dirty-checks
+ * them on flush. Views display rows and load the {@link Transaction} by ID only when it
+ * is edited.</p>
+ *
+ * @param id the transaction ID
+ * @param date the transaction date
+ * @param description the description
+ * @param amount the amount, always positive
+ * @param income true for income, false for an expense
+ * @param scheduled true if generated by a scheduled transaction
+ * @param tagNames the names of the tags, comma separated in alphabetical order
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public record TransactionRow(
+    Long id,
+    LocalDate date,
+    String description,
+    BigDecimal amount,
+    boolean income,
+    boolean scheduled,
+    String tagNames
+) {
+
+    /**
+     * Projection constructor, used by {@code SELECT new} queries before the tag names
+     * are read.
+     */
+    public TransactionRow(Long id, LocalDate date, String description, BigDecimal amount,
+                          boolean income, boolean scheduled) {
+        this(id, date, description, amount, income, scheduled, "");
+    }
+
+    /**
+     * Returns a copy of this row with the given tag names.
+     */
+    public TransactionRow withTagNames(String tagNames) {
+        return new TransactionRow(id, date, description, amount, income, scheduled, tagNames);
+    }
+
+    /**
+     * Builds the row of a transaction already in memory, such as one just created.
+     *
+     * @param transaction the transaction
+     * @return its row
+     * @throws IllegalArgumentException if transaction is null
+     */
+    public static TransactionRow of(Transaction transaction) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be null");
+        }
+        return new TransactionRow(transaction.getId(), transaction.getDate(), transaction.getDescription(),
+            transaction.getAmount(), transaction.isIncome(), transaction.isScheduled(),
+            Tag.joinNames(transaction.getTags().stream().map(Tag::getName).toList()));
+    }
+}
@@ -1,6 +1,7 @@
 package it.unicam.cs.mpgc.jbudget120002.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.Objects;
@@ -38,6 +39,8 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "users")
+@NamedEntityGraph(name = "User.list", attributeNodes = @NamedAttributeNode("groups"))
+@EntityListeners({LedgerVersionListener.class, LedgerEventListener.class})
 public class User {
 
     @Id
@@ -62,7 +65,10 @@ public class User {
     @Column(length = 50)
     private String surname;
 
+    // Groups and roles stay eager: the session user is read outside the EntityManager
+    // that loaded it. Batch fetching loads them for many users in a few statements.
     @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 32)
     @JoinTable(
         name = "user_groups",
         joinColumns = @JoinColumn(name = "user_id"),
@@ -71,6 +77,7 @@ public class User {
     private Set<Group> groups = new HashSet<>();
 
     @ElementCollection(targetClass = Role.class, fetch = FetchType.EAGER)
+    @BatchSize(size = 32)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Enumerated(EnumType.STRING)
     @Column(name = "role", nullable = false)
@@ -13,5 +13,7 @@ public interface BudgetRepository extends Repository<Budget, Long> {
 
     List<Budget> findByDateRange(LocalDate start, LocalDate end);
 
+    List<Budget> findByDateRangeWithTags(LocalDate start, LocalDate end);
+
     List<Budget> findByCategory(Long categoryId);
 } 
\ No newline at end of file
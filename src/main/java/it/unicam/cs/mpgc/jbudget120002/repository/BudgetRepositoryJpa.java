@@ -37,6 +37,20 @@ public class BudgetRepositoryJpa extends JpaRepository<Budget, Long> implements
         return query.getResultList();
     }
 
+    /**
+     * Same as {@link #findByDateRange(LocalDate, LocalDate)}, with the tags of the
+     * budgets fetched by the same statement.
+     */
+    @Override
+    public List<Budget> findByDateRangeWithTags(LocalDate start, LocalDate end) {
+        TypedQuery<Budget> query = em.createQuery(
+                "SELECT DISTINCT b FROM Budget b LEFT JOIN FETCH b.tags WHERE b.startDate <= :end AND b.endDate >= :start",
+                Budget.class);
+        query.setParameter("start", start);
+        query.setParameter("end", end);
+        return query.getResultList();
+    }
+
     @Override
     public List<Budget> findByCategory(Long categoryId) {
         TypedQuery<Budget> query = em.createQuery(
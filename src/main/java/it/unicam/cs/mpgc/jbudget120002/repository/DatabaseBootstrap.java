@@ -0,0 +1,179 @@
+package it.unicam.cs.mpgc.jbudget120002.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opens the application database on a background thread.
+ *
+ * <p>Building the {@link EntityManagerFactory} (parsing the mappings, building the
+ * metamodel, migrating and validating the schema through the {@link MigrationEngine})
+ * is the longest step of a cold start. The desktop application starts it before the
+ * login view is shown and only waits for it when the first controller needs an
+ * EntityManager, so the login view is up while the factory is being built:</p>
+ * <ul>
+ *   <li>{@link #start()} begins the build on a daemon thread, once; later calls return
+ *   the same future</li>
+ *   <li>After the build the factory runs a first query, so the query parser and the
+ *   first JDBC connection are ready before the user's first login</li>
+ *   <li>{@link #get()} waits for the factory, starting the build if nobody did</li>
+ *   <li>{@link #close()} closes the factory, also when it is still being built; a
+ *   shutdown hook does the same if the application exits without closing it</li>
+ * </ul>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * // In Application.start, before showing the first view
+ * DatabaseBootstrap.getInstance().start();
+ *
+ * // Where an EntityManager is needed
+ * EntityManager em = DatabaseBootstrap.getInstance().get().createEntityManager();
+ *
+ * // Without blocking the FX thread
+ * DatabaseBootstrap.getInstance().start().thenRun(() -> Platform.runLater(this::showLogin));
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class DatabaseBootstrap {
+
+    private static final Logger LOGGER = Logger.getLogger(DatabaseBootstrap.class.getName());
+
+    public static final String THREAD_NAME = "database-bootstrap";
+
+    private static final DatabaseBootstrap INSTANCE = new DatabaseBootstrap(Map.of());
+
+    private final Map<String, Object> overrides;
+    private CompletableFuture<EntityManagerFactory> factory;
+    private Thread shutdownHook;
+
+    /**
+     * Creates a bootstrap of the application persistence unit.
+     *
+     * @param overrides properties overriding those of {@code persistence.xml}
+     * @throws IllegalArgumentException if overrides is null
+     */
+    public DatabaseBootstrap(Map<String, Object> overrides) {
+        if (overrides == null) {
+            throw new IllegalArgumentException("Overrides cannot be null");
+        }
+        this.overrides = new HashMap<>(overrides);
+    }
+
+    /**
+     * Returns the bootstrap of the application database, configured by
+     * {@code persistence.xml} alone.
+     */
+    public static DatabaseBootstrap getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Starts building the factory on a background thread, unless already started.
+     *
+     * @return the future factory, failed if it could not be built
+     */
+    public synchronized CompletableFuture<EntityManagerFactory> start() {
+        if (factory == null) {
+            CompletableFuture<EntityManagerFactory> target = new CompletableFuture<>();
+            Thread thread = new Thread(() -> build(target), THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+            factory = target;
+        }
+        return factory;
+    }
+
+    /**
+     * Returns the factory, waiting for it to be built.
+     *
+     * @return the factory
+     * @throws RuntimeException the failure of the build, if it failed
+     */
+    public EntityManagerFactory get() {
+        try {
+            return start().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Failed to create EntityManagerFactory", e.getCause());
+        }
+    }
+
+    /**
+     * Tells whether the factory is built and can be used without waiting.
+     */
+    public synchronized boolean isReady() {
+        return factory != null && factory.isDone() && !factory.isCompletedExceptionally();
+    }
+
+    /**
+     * Closes the factory; one still being built is closed as soon as it is. A later
+     * {@link #start()} builds a new one.
+     */
+    public synchronized void close() {
+        if (factory == null) {
+            return;
+        }
+        factory.thenAccept(DatabaseBootstrap::closeQuietly);
+        factory = null;
+    }
+
+    // ==================== BUILD ====================
+
+    private void build(CompletableFuture<EntityManagerFactory> target) {
+        long started = System.nanoTime();
+        try {
+            EntityManagerFactory emf = MigrationEngine.createEntityManagerFactory(overrides);
+            warmUp(emf);
+            registerShutdownHook();
+            LOGGER.info("Database opened in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+            target.complete(emf);
+        } catch (RuntimeException | LinkageError e) {
+            LOGGER.log(Level.SEVERE, "Failed to create EntityManagerFactory", e);
+            target.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Runs a first query, which initializes the query parser and opens the first
+     * connection; the login lookup would pay for both otherwise.
+     */
+    private static void warmUp(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.createQuery("SELECT COUNT(u) FROM User u", Long.class).getSingleResult();
+        } finally {
+            em.close();
+        }
+    }
+
+    private synchronized void registerShutdownHook() {
+        if (shutdownHook == null) {
+            shutdownHook = new Thread(this::close, THREAD_NAME + "-shutdown");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+    }
+
+    private static void closeQuietly(EntityManagerFactory emf) {
+        try {
+            if (emf.isOpen()) {
+                emf.close();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error closing EntityManagerFactory", e);
+        }
+    }
+}
@@ -2,10 +2,28 @@
 package it.unicam.cs.mpgc.jbudget120002.repository;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Deadline;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
 import java.time.LocalDate;
 import java.util.List;
 
 public interface DeadlineRepository
         extends Repository<Deadline, Long> {
     List<Deadline> findByDueDateBefore(LocalDate date);
+
+    /**
+     * Finds the deadlines of a user due in a date range (inclusive), in due-date order.
+     * Deadlines without a user are shared and always included; a null user means all.
+     */
+    List<Deadline> findByUserAndDueDateBetween(User user, LocalDate from, LocalDate to);
+
+    /**
+     * Finds the unpaid deadlines of a user due before a date, in due-date order.
+     * Deadlines without a user are shared and always included; a null user means all.
+     */
+    List<Deadline> findUnpaidByUserDueBefore(User user, LocalDate date);
+
+    /**
+     * Finds every unpaid deadline due on or after a date, in due-date order.
+     */
+    List<Deadline> findUnpaidDueFrom(LocalDate date);
 }
@@ -2,7 +2,9 @@
 package it.unicam.cs.mpgc.jbudget120002.repository;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Deadline;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -21,4 +23,43 @@ public class DeadlineRepositoryJpa
                 .setParameter("d", date)
                 .getResultList();
     }
+
+    @Override
+    public List<Deadline> findByUserAndDueDateBetween(User user, LocalDate from, LocalDate to) {
+        return forUser(user, "d.dueDate BETWEEN :from AND :to")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    @Override
+    public List<Deadline> findUnpaidByUserDueBefore(User user, LocalDate date) {
+        return forUser(user, "d.isPaid = false AND d.dueDate < :date")
+                .setParameter("date", date)
+                .getResultList();
+    }
+
+    @Override
+    public List<Deadline> findUnpaidDueFrom(LocalDate date) {
+        return em.createQuery(
+                "SELECT d FROM Deadline d WHERE d.isPaid = false AND d.dueDate >= :date " +
+                "ORDER BY d.dueDate, d.id", Deadline.class)
+                .setParameter("date", date)
+                .getResultList();
+    }
+
+    /**
+     * Builds a due-date ordered query for the deadlines of a user and the shared ones.
+     * The (user_id, isPaid, dueDate) index serves the user condition and the date range.
+     */
+    private TypedQuery<Deadline> forUser(User user, String condition) {
+        if (user == null) {
+            return em.createQuery(
+                    "SELECT d FROM Deadline d WHERE " + condition + " ORDER BY d.dueDate, d.id", Deadline.class);
+        }
+        return em.createQuery(
+                "SELECT d FROM Deadline d WHERE (d.user = :user OR d.user IS NULL) AND " + condition +
+                " ORDER BY d.dueDate, d.id", Deadline.class)
+                .setParameter("user", user);
+    }
 }
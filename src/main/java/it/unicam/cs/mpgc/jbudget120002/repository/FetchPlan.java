@@ -0,0 +1,66 @@
+package it.unicam.cs.mpgc.jbudget120002.repository;
+
+/**
+ * Fetch plans: what each use case loads along with the entities it queries, so that a
+ * screen costs a fixed number of SQL statements whatever the number of rows.
+ *
+ * Responsibilities:
+ * - Name, per use case, the named entity graph applied to a repository query as a
+ *   load graph (attributes outside the graph keep their mapped fetch type)
+ * - Document the statements each plan costs; "users" is the number of distinct owners
+ *   in the result, whose eager groups and roles are loaded in batches of
+ *   {@value #BATCH_SIZE}
+ *
+ * Plans:
+ * - TABLE_ROW (Transaction.tableRow): tags and owner. 1 + 2 * ceil(users / 32) statements
+ * - STATISTICS (Transaction.statistics): primary tag. 1 statement
+ * - SYNC_EXPORT (Transaction.syncExport): tags, owner, scheduled transaction and loan
+ *   plan. 1 + 2 * ceil(users / 32) statements
+ * - USER_LIST (User.list): groups. 1 + ceil(users / 32) statements for the roles
+ *
+ * STATISTICS and SYNC_EXPORT loads are read-only (see {@link #isReadOnly()}); a
+ * read-only entity is made modifiable again when it is looked up by ID for editing.
+ *
+ * Collections not in a plan (Tag.children, Transaction.tags) are batch fetched, so even
+ * walking them costs one statement per {@value #BATCH_SIZE} owners rather than one per row.
+ *
+ * Usage:
+ * transactionRepository.findByOwnersAndDateBetween(owners, start, end, FetchPlan.TABLE_ROW);
+ * userRepository.findAll(FetchPlan.USER_LIST);
+ */
+public enum FetchPlan {
+    TABLE_ROW("tableRow", false),
+    STATISTICS("statistics", true),
+    SYNC_EXPORT("syncExport", true),
+    USER_LIST("list", false);
+
+    /** Batch size of the batch-fetched associations, kept in step with their @BatchSize */
+    public static final int BATCH_SIZE = 32;
+
+    private final String graphSuffix;
+    private final boolean readOnly;
+
+    FetchPlan(String graphSuffix, boolean readOnly) {
+        this.graphSuffix = graphSuffix;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Tells whether the plan's loads only display or export data, so their entities are
+     * loaded read-only: Hibernate keeps no snapshot of them and skips them when flushing.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Returns the name of the entity graph of this plan for an entity, such as
+     * {@code Transaction.tableRow}.
+     *
+     * @param entityClass the queried entity
+     * @return the graph name
+     */
+    public String graphName(Class<?> entityClass) {
+        return entityClass.getSimpleName() + "." + graphSuffix;
+    }
+}
@@ -3,6 +3,9 @@ package it.unicam.cs.mpgc.jbudget120002.repository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.Persistence;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,9 +34,21 @@ public abstract class JpaRepository<T, ID> implements Repository<T, ID> {
         this.em = entityManager;
     }
 
+    /**
+     * Finds an entity by ID, ready to be modified. Lookups by ID are how entities are
+     * loaded for editing, so an instance already in the persistence context from a
+     * read-only load is made modifiable again.
+     */
     @Override
     public Optional<T> findById(ID id) {
-        return Optional.ofNullable(em.find(entityClass, id));
+        T entity = em.find(entityClass, id);
+        if (entity != null) {
+            Session session = em.unwrap(Session.class);
+            if (session.isReadOnly(entity)) {
+                session.setReadOnly(entity, false);
+            }
+        }
+        return Optional.ofNullable(entity);
     }
 
     @Override
@@ -52,6 +67,28 @@ public abstract class JpaRepository<T, ID> implements Repository<T, ID> {
         }
     }
 
+    /**
+     * Loads all entities with the given fetch plan.
+     */
+    public List<T> findAll(FetchPlan plan) {
+        return withPlan(em.createQuery("FROM " + entityClass.getSimpleName(), entityClass), plan)
+                .getResultList();
+    }
+
+    /**
+     * Applies a fetch plan to a query on this repository's entity, as a load graph,
+     * loading the results read-only if the plan says so.
+     *
+     * @throws IllegalArgumentException if the entity has no graph for the plan
+     */
+    protected TypedQuery<T> withPlan(TypedQuery<T> query, FetchPlan plan) {
+        query.setHint("jakarta.persistence.loadgraph", em.getEntityGraph(plan.graphName(entityClass)));
+        if (plan.isReadOnly()) {
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        }
+        return query;
+    }
+
     // Helper method to get the ID of the entity using reflection
     private Object getEntityId(T entity) {
         try {
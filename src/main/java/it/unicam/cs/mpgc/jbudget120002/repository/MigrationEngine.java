@@ -0,0 +1,278 @@
+package it.unicam.cs.mpgc.jbudget120002.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned schema migrations of the application database.
+ *
+ * <p>The schema is no longer updated by Hibernate on every startup. Instead each change
+ * is a numbered migration, applied once and recorded in the {@value #HISTORY_TABLE}
+ * table with a checksum of its script, and the mappings are then validated against the
+ * resulting schema, as {@code hibernate.hbm2ddl.auto=validate} would:</p>
+ * <ul>
+ *   <li>Version 1 is the baseline. On an empty database it creates the tables of the
+ *   entity mappings; on a database created by the former {@code update} strategy it is
+ *   only recorded. Such a database has the tables of the mappings of the last version
+ *   that ran on it, which may lack columns mapped since; the later migrations add them
+ *   where they are missing, so that they succeed on both kinds of database</li>
+ *   <li>Later versions are SQL scripts under {@code db/migration} on the classpath,
+ *   listed in {@link #MIGRATIONS}; statements end with a semicolon at the end of a line</li>
+ *   <li>A script changed after it was applied, or a database migrated by a newer
+ *   version of the application, stops the startup</li>
+ * </ul>
+ *
+ * <p>A change to the mappings therefore comes with a new script; validation reports the
+ * ones that were forgotten.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * // Builds the factory of the application persistence unit and migrates its database
+ * EntityManagerFactory emf = MigrationEngine.createEntityManagerFactory(Map.of());
+ *
+ * // Migrates a factory built elsewhere
+ * int applied = new MigrationEngine(emf).migrate();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class MigrationEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(MigrationEngine.class.getName());
+
+    public static final String PERSISTENCE_UNIT = "jbudgetPU";
+    public static final String HISTORY_TABLE = "schema_version";
+
+    /**
+     * A numbered schema change.
+     *
+     * @param version the version the database has once the migration is applied
+     * @param description what the migration does
+     * @param script the classpath resource of its SQL, or null for the baseline
+     */
+    public record Migration(int version, String description, String script) {}
+
+    /** Every migration, in version order */
+    public static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Baseline: the tables of the entity mappings", null),
+        new Migration(2, "Primary tag column of transactions", "db/migration/V2__transaction_primary_tag.sql"),
+        new Migration(3, "Composite indexes for the hot queries", "db/migration/V3__hot_query_indexes.sql")
+    );
+
+    /** A table every version of the schema has, telling a database created by the former update strategy */
+    private static final String LEGACY_MARKER_TABLE = "transactions";
+
+    private final EntityManagerFactory emf;
+
+    /**
+     * Creates an engine for the database of a factory.
+     *
+     * @param emf the factory, built without a schema generation strategy
+     * @throws IllegalArgumentException if emf is null
+     */
+    public MigrationEngine(EntityManagerFactory emf) {
+        if (emf == null) {
+            throw new IllegalArgumentException("EntityManagerFactory cannot be null");
+        }
+        this.emf = emf;
+    }
+
+    /**
+     * Builds the factory of the application persistence unit, then migrates and validates
+     * its database. The factory is closed again if that fails.
+     *
+     * @param overrides properties overriding those of {@code persistence.xml}
+     * @return the factory, ready for use
+     */
+    public static EntityManagerFactory createEntityManagerFactory(Map<String, Object> overrides) {
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, overrides);
+        try {
+            new MigrationEngine(emf).migrate();
+            return emf;
+        } catch (RuntimeException e) {
+            emf.close();
+            throw e;
+        }
+    }
+
+    // ==================== MIGRATION ====================
+
+    /**
+     * Applies the pending migrations and validates the mappings against the schema.
+     *
+     * @return the number of migrations applied
+     * @throws IllegalStateException if an applied migration changed or the database is newer
+     * @throws org.hibernate.tool.schema.spi.SchemaManagementException if validation fails
+     */
+    public int migrate() {
+        SessionFactory sessionFactory = emf.unwrap(SessionFactory.class);
+        Map<Integer, Long> applied;
+        boolean legacy;
+        try (Session session = sessionFactory.openSession()) {
+            applied = session.doReturningWork(this::readHistory);
+            legacy = applied.isEmpty() && session.doReturningWork(c -> tableExists(c, LEGACY_MARKER_TABLE));
+        }
+
+        int count = 0;
+        for (Migration migration : MIGRATIONS) {
+            Long checksum = applied.remove(migration.version());
+            String sql = migration.script() != null ? readScript(migration.script()) : "";
+            long expected = checksum(sql);
+            if (checksum != null) {
+                if (checksum != expected) {
+                    throw new IllegalStateException("Migration V" + migration.version()
+                        + " was changed after it was applied");
+                }
+                continue;
+            }
+            long started = System.nanoTime();
+            if (migration.script() == null) {
+                if (!legacy) {
+                    sessionFactory.getSchemaManager().exportMappedObjects(true);
+                }
+            }
+            try (Session session = sessionFactory.openSession()) {
+                session.doWork(connection -> {
+                    if (migration.script() != null) {
+                        execute(connection, sql);
+                    }
+                    record(connection, migration, expected, (System.nanoTime() - started) / 1_000_000);
+                });
+            }
+            LOGGER.info("Applied schema migration V" + migration.version() + ": " + migration.description()
+                + (migration.script() == null && legacy ? " (existing schema)" : ""));
+            count++;
+        }
+        if (!applied.isEmpty()) {
+            throw new IllegalStateException("The database has schema versions " + applied.keySet()
+                + " unknown to this version of the application");
+        }
+
+        sessionFactory.getSchemaManager().validateMappedObjects();
+        return count;
+    }
+
+    // ==================== HISTORY ====================
+
+    private Map<Integer, Long> readHistory(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " ("
+                + "version INT PRIMARY KEY, "
+                + "description VARCHAR(200) NOT NULL, "
+                + "checksum BIGINT NOT NULL, "
+                + "installed_on TIMESTAMP NOT NULL, "
+                + "execution_millis BIGINT NOT NULL)");
+        }
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT version, checksum FROM " + HISTORY_TABLE)) {
+            while (rows.next()) {
+                applied.put(rows.getInt(1), rows.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void record(Connection connection, Migration migration, long checksum, long millis)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + HISTORY_TABLE
+                + " (version, description, checksum, installed_on, execution_millis) VALUES (?, ?, ?, ?, ?)")) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.setLong(3, checksum);
+            insert.setTimestamp(4, Timestamp.from(Instant.now()));
+            insert.setLong(5, millis);
+            insert.executeUpdate();
+        }
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet tables = metaData.getTables(null, null, "%", new String[]{"TABLE"})) {
+            while (tables.next()) {
+                if (table.equalsIgnoreCase(tables.getString("TABLE_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ==================== SCRIPTS ====================
+
+    private static String readScript(String resource) {
+        try (InputStream in = MigrationEngine.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing migration script " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read migration script " + resource, e);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String command : statements(sql)) {
+                statement.execute(command);
+            }
+        }
+    }
+
+    /**
+     * Splits a script into statements: comment lines are dropped and a statement ends
+     * with a semicolon at the end of a line.
+     */
+    static List<String> statements(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : sql.split("\\R")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            current.append(current.length() > 0 ? " " : "").append(trimmed);
+            if (trimmed.endsWith(";")) {
+                current.setLength(current.length() - 1);
+                statements.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    private static long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
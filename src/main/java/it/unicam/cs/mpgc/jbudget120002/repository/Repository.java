@@ -6,6 +6,7 @@ import java.util.Optional;
 public interface Repository<T, ID> {
     Optional<T> findById(ID id);
     List<T> findAll();
+    List<T> findAll(FetchPlan plan);
     void save(T entity);
     void delete(T entity);
     void deleteById(ID id);
@@ -1,12 +1,14 @@
 // src/main/java/it/unicam/cs/mpgc/jbudget120002/repository/ScheduledTransactionRepository.java
 package it.unicam.cs.mpgc.jbudget120002.repository;
 
+import it.unicam.cs.mpgc.jbudget120002.model.ScheduledRow;
 import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface ScheduledTransactionRepository
@@ -23,4 +25,6 @@ public interface ScheduledTransactionRepository
     BigDecimal calculateSumForPeriod(LocalDate startDate, LocalDate endDate, boolean isIncome);
 
     List<ScheduledTransaction> findByUser(User user);
+
+    List<ScheduledRow> findRows(Collection<Long> tagIds, LocalDate startDate, LocalDate endDate, String searchTerm);
 }
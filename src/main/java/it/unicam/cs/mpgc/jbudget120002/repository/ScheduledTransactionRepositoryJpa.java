@@ -1,6 +1,7 @@
 // src/main/java/it/unicam/cs/mpgc/jbudget120002/repository/ScheduledTransactionRepositoryJpa.java
 package it.unicam.cs.mpgc.jbudget120002.repository;
 
+import it.unicam.cs.mpgc.jbudget120002.model.ScheduledRow;
 import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
@@ -10,8 +11,13 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Repository
 public class ScheduledTransactionRepositoryJpa
@@ -82,4 +88,74 @@ public class ScheduledTransactionRepositoryJpa
                 .setParameter("user", user)
                 .getResultList();
     }
+
+    /**
+     * Reads scheduled transactions as {@link ScheduledRow}s: one constructor projection
+     * for the rows and one scalar query for their tag names. Every filter is optional;
+     * dates bound the start date from below and the end date from above, so open-ended
+     * schedules are left out when an end is given.
+     */
+    @Override
+    public List<ScheduledRow> findRows(Collection<Long> tagIds, LocalDate startDate, LocalDate endDate, String searchTerm) {
+        if (tagIds != null && tagIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        boolean search = searchTerm != null && !searchTerm.trim().isEmpty();
+        StringBuilder jpql = new StringBuilder(
+                "SELECT DISTINCT new it.unicam.cs.mpgc.jbudget120002.model.ScheduledRow(" +
+                        "st.id, st.startDate, st.endDate, st.description, st.amount, st.isIncome, " +
+                        "st.pattern, st.recurrenceValue) FROM ScheduledTransaction st");
+        if (tagIds != null) {
+            jpql.append(" JOIN st.tags t");
+        }
+        List<String> conditions = new ArrayList<>();
+        if (tagIds != null) {
+            conditions.add("t.id IN :tagIds");
+        }
+        if (startDate != null) {
+            conditions.add("st.startDate >= :startDate");
+        }
+        if (endDate != null) {
+            conditions.add("st.endDate <= :endDate");
+        }
+        if (search) {
+            conditions.add("LOWER(st.description) LIKE :search");
+        }
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        jpql.append(" ORDER BY st.startDate, st.id");
+
+        TypedQuery<ScheduledRow> query = em.createQuery(jpql.toString(), ScheduledRow.class);
+        if (tagIds != null) {
+            query.setParameter("tagIds", tagIds);
+        }
+        if (startDate != null) {
+            query.setParameter("startDate", startDate);
+        }
+        if (endDate != null) {
+            query.setParameter("endDate", endDate);
+        }
+        if (search) {
+            query.setParameter("search", "%" + searchTerm.trim().toLowerCase() + "%");
+        }
+        List<ScheduledRow> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return rows;
+        }
+
+        Map<Long, List<String>> namesById = new HashMap<>();
+        for (Object[] row : em.createQuery(
+                "SELECT st.id, t.name FROM ScheduledTransaction st JOIN st.tags t WHERE st.id IN :ids", Object[].class)
+                .setParameter("ids", rows.stream().map(ScheduledRow::id).collect(Collectors.toList()))
+                .getResultList()) {
+            namesById.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+        List<ScheduledRow> named = new ArrayList<>(rows.size());
+        for (ScheduledRow row : rows) {
+            List<String> names = namesById.get(row.id());
+            named.add(names != null ? row.withTagNames(Tag.joinNames(names)) : row);
+        }
+        return named;
+    }
 }
@@ -1,6 +1,7 @@
 package it.unicam.cs.mpgc.jbudget120002.repository;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.TransactionRow;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
 import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
@@ -12,16 +13,27 @@ import java.util.Set;
 
 public interface TransactionRepository extends Repository<Transaction, Long> {
     List<Transaction> findByDateBetween(LocalDate from, LocalDate to);
-    List<Transaction> findByDateBetweenForUser(User user, LocalDate from, LocalDate to);
+    List<Transaction> findByDateBetween(LocalDate from, LocalDate to, FetchPlan plan);
+    List<Transaction> findByOwnersAndDateBetween(Collection<Long> ownerIds, LocalDate from, LocalDate to, FetchPlan plan);
     List<Transaction> findByTagName(String tagName);
     List<Transaction> findByTagId(Long tagId);
     List<Transaction> findByTagIdAndDateRange(Long tagId, LocalDate startDate, LocalDate endDate);
     List<Transaction> findByScheduledTransaction(Long scheduledTransactionId);
     List<Transaction> findByLoanPlan(Long loanPlanId);
     List<Transaction> findByTags(Collection<Long> tagIds, boolean matchAll, int tagCount);
-    List<Transaction> findAllForUser(User user);
-    List<Transaction> findWithFilters(User user, List<Long> groupIds, String searchTerm, LocalDate startDate, LocalDate endDate, List<Long> tagIds);
+    List<Transaction> findAllByOwners(Collection<Long> ownerIds, FetchPlan plan);
+    List<Transaction> findWithFilters(Collection<Long> ownerIds, String searchTerm, LocalDate startDate, LocalDate endDate, List<Long> tagIds, FetchPlan plan);
+    List<TransactionRow> findRowsWithFilters(Collection<Long> ownerIds, String searchTerm, LocalDate startDate, LocalDate endDate, List<Long> tagIds);
+    Object[] findDateBoundsByOwners(Collection<Long> ownerIds);
     List<Transaction> findByUserAndGroups(User user, Set<Long> groupIds, LocalDate startDate, LocalDate endDate, String search, List<Tag> tags);
     List<Transaction> findByTagAndDateRange(Long tagId, LocalDate startDate, LocalDate endDate);
+    List<Object[]> sumSignedAmountsByTag(LocalDate startDate, LocalDate endDate);
     boolean existsByScheduledTransactionAndDate(ScheduledTransaction scheduledTransaction, LocalDate date);
+    Set<LocalDate> findDatesByScheduledTransaction(Long scheduledTransactionId);
+    List<Transaction> findPageByOwners(Collection<Long> ownerIds, LocalDate from, LocalDate to, Long afterId, int limit);
+    List<Transaction> findRecentByOwners(Collection<Long> ownerIds, LocalDate from, LocalDate to, int limit);
+    List<TransactionRow> findRecentRowsByOwners(Collection<Long> ownerIds, LocalDate from, LocalDate to, int limit);
+    List<Transaction> findByIdsWithTags(Collection<Long> ids);
+    List<Long> findIdsWithoutPrimaryTag(Long afterId, int limit);
+    int updatePrimaryTags(List<Long> ids);
 }
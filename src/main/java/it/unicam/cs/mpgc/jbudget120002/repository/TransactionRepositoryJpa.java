@@ -1,59 +1,69 @@
 package it.unicam.cs.mpgc.jbudget120002.repository;
 
-import it.unicam.cs.mpgc.jbudget120002.model.Group;
 import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
 import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.TransactionRow;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class TransactionRepositoryJpa extends JpaRepository<Transaction, Long> implements TransactionRepository {
 
+    /** Largest number of IDs bound to one IN list */
+    private static final int ID_CHUNK_SIZE = 500;
+
     public TransactionRepositoryJpa(EntityManager entityManager) {
         super(Transaction.class, entityManager);
     }
 
     @Override
     public List<Transaction> findByDateBetween(LocalDate from, LocalDate to) {
-        return em.createQuery(
+        return findByDateBetween(from, to, FetchPlan.STATISTICS);
+    }
+
+    @Override
+    public List<Transaction> findByDateBetween(LocalDate from, LocalDate to, FetchPlan plan) {
+        return withPlan(em.createQuery(
                 "FROM Transaction t WHERE t.date BETWEEN :from AND :to ORDER BY t.date",
-                Transaction.class)
+                Transaction.class), plan)
                 .setParameter("from", from)
                 .setParameter("to", to)
                 .getResultList();
     }
 
+    /**
+     * Returns the transactions of the given owners in a period. The owners are resolved
+     * by the caller (see {@code VisibilityIndex}), so the query is a plain range scan of
+     * the (user_id, date) index. The fetch plan decides what is loaded with them.
+     */
     @Override
-    public List<Transaction> findByDateBetweenForUser(User user, LocalDate from, LocalDate to) {
-        Set<Group> userGroups = user.getGroups();
-        if (userGroups.isEmpty()) {
-            TypedQuery<Transaction> query = em.createQuery(
-                "SELECT t FROM Transaction t WHERE t.user = :user AND t.date BETWEEN :from AND :to ORDER BY t.date", 
-                Transaction.class);
-            query.setParameter("user", user);
-            query.setParameter("from", from);
-            query.setParameter("to", to);
-            return query.getResultList();
+    public List<Transaction> findByOwnersAndDateBetween(Collection<Long> ownerIds, LocalDate from, LocalDate to,
+                                                        FetchPlan plan) {
+        if (ownerIds.isEmpty()) {
+            return new ArrayList<>();
         }
-
-        TypedQuery<Transaction> query = em.createQuery(
-            "SELECT t FROM Transaction t WHERE (t.user = :user OR EXISTS " +
-            "(SELECT g FROM t.user.groups g WHERE g IN :groups)) AND t.date BETWEEN :from AND :to ORDER BY t.date", 
-            Transaction.class);
-        query.setParameter("user", user);
-        query.setParameter("groups", userGroups);
-        query.setParameter("from", from);
-        query.setParameter("to", to);
-        return query.getResultList();
+        return withPlan(em.createQuery(
+                "SELECT t FROM Transaction t WHERE t.user.id IN :owners AND t.date BETWEEN :from AND :to " +
+                        "ORDER BY t.date", Transaction.class), plan)
+                .setParameter("owners", ownerIds)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
     }
 
     @Override
@@ -125,66 +135,75 @@ public class TransactionRepositoryJpa extends JpaRepository<Transaction, Long> i
     }
 
     @Override
-    public List<Transaction> findAllForUser(User user) {
-        Set<Group> userGroups = user.getGroups();
-        if (userGroups.isEmpty()) {
-            TypedQuery<Transaction> query = em.createQuery(
-                "SELECT t FROM Transaction t WHERE t.user = :user", Transaction.class);
-            query.setParameter("user", user);
-            return query.getResultList();
+    public List<Transaction> findAllByOwners(Collection<Long> ownerIds, FetchPlan plan) {
+        if (ownerIds.isEmpty()) {
+            return new ArrayList<>();
         }
-
-        TypedQuery<Transaction> query = em.createQuery(
-            "SELECT t FROM Transaction t WHERE t.user = :user OR EXISTS " +
-            "(SELECT g FROM t.user.groups g WHERE g IN :groups)", Transaction.class);
-        query.setParameter("user", user);
-        query.setParameter("groups", userGroups);
-        return query.getResultList();
+        return withPlan(em.createQuery("SELECT t FROM Transaction t WHERE t.user.id IN :owners", Transaction.class), plan)
+                .setParameter("owners", ownerIds)
+                .getResultList();
     }
 
     @Override
-    public List<Transaction> findWithFilters(User user, List<Long> groupIds, String searchTerm, LocalDate startDate, LocalDate endDate, List<Long> tagIds) {
+    public List<Transaction> findWithFilters(Collection<Long> ownerIds, String searchTerm, LocalDate startDate, LocalDate endDate, List<Long> tagIds, FetchPlan plan) {
+        if (ownerIds != null && ownerIds.isEmpty()) {
+            return new ArrayList<>();
+        }
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Transaction> cq = cb.createQuery(Transaction.class);
         Root<Transaction> transaction = cq.from(Transaction.class);
-        List<Predicate> predicates = new ArrayList<>();
 
-        // User and Group filtering
-        if (user != null) {
-            Predicate userPredicate = cb.equal(transaction.get("user"), user);
-            if (groupIds != null && !groupIds.isEmpty()) {
-                Join<Transaction, User> userJoin = transaction.join("user");
-                Join<User, Group> groupJoin = userJoin.join("groups");
-                Predicate groupPredicate = groupJoin.get("id").in(groupIds);
-                predicates.add(cb.or(userPredicate, groupPredicate));
-            } else {
-                predicates.add(userPredicate);
-            }
-        }
+        // Only the tag join can repeat a transaction
+        cq.where(filterPredicates(cb, transaction, ownerIds, searchTerm, startDate, endDate, tagIds))
+                .distinct(tagIds != null && !tagIds.isEmpty());
+        cq.orderBy(cb.desc(transaction.get("date")));
 
-        // Date range filtering
-        if (startDate != null) {
-            predicates.add(cb.greaterThanOrEqualTo(transaction.get("date"), startDate));
-        }
-        if (endDate != null) {
-            predicates.add(cb.lessThanOrEqualTo(transaction.get("date"), endDate));
-        }
+        return withPlan(em.createQuery(cq), plan).getResultList();
+    }
 
-        // Search term filtering
-        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
-            predicates.add(cb.like(cb.lower(transaction.get("description")), "%" + searchTerm.toLowerCase() + "%"));
+    /**
+     * Same filters as {@link #findWithFilters}, read as {@link TransactionRow}s: one
+     * constructor projection for the rows and one scalar query for their tag names, with
+     * no entity entering the persistence context.
+     */
+    @Override
+    public List<TransactionRow> findRowsWithFilters(Collection<Long> ownerIds, String searchTerm, LocalDate startDate, LocalDate endDate, List<Long> tagIds) {
+        if (ownerIds != null && ownerIds.isEmpty()) {
+            return new ArrayList<>();
         }
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<TransactionRow> cq = cb.createQuery(TransactionRow.class);
+        Root<Transaction> transaction = cq.from(Transaction.class);
+        cq.select(cb.construct(TransactionRow.class,
+                transaction.get("id"),
+                transaction.get("date"),
+                transaction.get("description"),
+                transaction.get("amount"),
+                transaction.get("isIncome"),
+                cb.<Boolean>selectCase()
+                        .when(cb.isNull(transaction.get("scheduledTransaction")), false)
+                        .otherwise(true)));
 
-        // Tag filtering
-        if (tagIds != null && !tagIds.isEmpty()) {
-            Join<Transaction, Tag> tagJoin = transaction.join("tags");
-            predicates.add(tagJoin.get("id").in(tagIds));
-        }
+        cq.where(filterPredicates(cb, transaction, ownerIds, searchTerm, startDate, endDate, tagIds))
+                .distinct(tagIds != null && !tagIds.isEmpty());
+        cq.orderBy(cb.desc(transaction.get("date")), cb.desc(transaction.get("id")));
 
-        cq.where(predicates.toArray(new Predicate[0])).distinct(true);
-        cq.orderBy(cb.desc(transaction.get("date")));
+        return withTagNames(em.createQuery(cq).getResultList());
+    }
 
-        return em.createQuery(cq).getResultList();
+    /**
+     * Returns the earliest and the latest transaction date of the given owners, both null
+     * when they have no transaction, from the owner and date index.
+     */
+    @Override
+    public Object[] findDateBoundsByOwners(Collection<Long> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return new Object[] {null, null};
+        }
+        return em.createQuery(
+                "SELECT MIN(t.date), MAX(t.date) FROM Transaction t WHERE t.user.id IN :owners", Object[].class)
+                .setParameter("owners", ownerIds)
+                .getSingleResult();
     }
 
     @Override
@@ -196,11 +215,169 @@ public class TransactionRepositoryJpa extends JpaRepository<Transaction, Long> i
         return query.getSingleResult() > 0;
     }
 
+    /**
+     * Returns the dates on which a scheduled transaction already has a transaction, so
+     * that generating its occurrences takes one query instead of one per date.
+     */
+    @Override
+    public Set<LocalDate> findDatesByScheduledTransaction(Long scheduledTransactionId) {
+        return new HashSet<>(em.createQuery(
+                "SELECT t.date FROM Transaction t WHERE t.scheduledTransaction.id = :stId", LocalDate.class)
+            .setParameter("stId", scheduledTransactionId)
+            .getResultList());
+    }
+
+    /**
+     * Keyset pagination by id: returns up to {@code limit} transactions of the given owners
+     * with an id greater than {@code afterId}, tags included. Ids are selected first and the
+     * page is then loaded with its tags, because fetch-joining a collection while limiting
+     * rows would make Hibernate paginate in memory.
+     */
+    @Override
+    public List<Transaction> findPageByOwners(Collection<Long> ownerIds, LocalDate from, LocalDate to, Long afterId, int limit) {
+        List<Long> ids = em.createQuery(
+                "SELECT t.id FROM Transaction t WHERE t.user.id IN :owners " +
+                        "AND t.date BETWEEN :from AND :to AND t.id > :afterId ORDER BY t.id", Long.class)
+                .setParameter("owners", ownerIds)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("afterId", afterId != null ? afterId : 0L)
+                .setMaxResults(limit)
+                .getResultList();
+        return findByIdsWithTags(ids);
+    }
+
+    /**
+     * Loads the given transactions with their tags in one query, ordered by id.
+     */
+    @Override
+    public List<Transaction> findByIdsWithTags(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery(
+                "SELECT DISTINCT t FROM Transaction t LEFT JOIN FETCH t.tags WHERE t.id IN :ids ORDER BY t.id",
+                Transaction.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * Keyset pagination over the tagged transactions whose primary tag was never
+     * computed (rows written before the column existed).
+     */
+    @Override
+    public List<Long> findIdsWithoutPrimaryTag(Long afterId, int limit) {
+        return em.createQuery(
+                "SELECT t.id FROM Transaction t WHERE t.primaryTag IS NULL AND t.tags IS NOT EMPTY " +
+                        "AND t.id > :afterId ORDER BY t.id", Long.class)
+                .setParameter("afterId", afterId != null ? afterId : 0L)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Stores the primary tag of transactions with one JDBC batch of updates, computing it
+     * in the database as {@link Transaction#refreshPrimaryTag()} does: the tag with the
+     * lowest ID among those whose parent is not on the transaction. The entities are
+     * neither loaded nor updated in the persistence context.
+     */
+    @Override
+    public int updatePrimaryTags(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "UPDATE transactions SET primary_tag_id = (" +
+                    "SELECT MIN(tt.tag_id) FROM transaction_tags tt JOIN tags g ON g.id = tt.tag_id " +
+                    "WHERE tt.transaction_id = ? AND NOT EXISTS (SELECT 1 FROM transaction_tags p " +
+                    "WHERE p.transaction_id = tt.transaction_id AND p.tag_id = g.parent_id)) WHERE id = ?")) {
+                for (Long id : ids) {
+                    ps.setLong(1, id);
+                    ps.setLong(2, id);
+                    ps.addBatch();
+                }
+                int updated = 0;
+                for (int count : ps.executeBatch()) {
+                    // Drivers may only report that a statement succeeded
+                    updated += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+                }
+                return updated;
+            }
+        });
+    }
+
+    /**
+     * Returns the {@code limit} most recent transactions of the given owners (all owners
+     * when null) in a period, newest first, tags included. The database sorts and cuts the
+     * period down to the requested rows; as in {@link #findPageByOwners}, the tags are
+     * fetched by a second query on the selected ids.
+     */
+    @Override
+    public List<Transaction> findRecentByOwners(Collection<Long> ownerIds, LocalDate from, LocalDate to, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        TypedQuery<Long> idQuery = em.createQuery(
+                "SELECT t.id FROM Transaction t WHERE t.date BETWEEN :from AND :to" +
+                        (ownerIds != null ? " AND t.user.id IN :owners" : "") +
+                        " ORDER BY t.date DESC, t.id DESC", Long.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit);
+        if (ownerIds != null) {
+            idQuery.setParameter("owners", ownerIds);
+        }
+        List<Long> ids = idQuery.getResultList();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery(
+                "SELECT DISTINCT t FROM Transaction t LEFT JOIN FETCH t.tags WHERE t.id IN :ids " +
+                        "ORDER BY t.date DESC, t.id DESC", Transaction.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * Returns the {@code limit} most recent transactions of the given owners (all owners
+     * when null) in a period as {@link TransactionRow}s, newest first.
+     */
+    @Override
+    public List<TransactionRow> findRecentRowsByOwners(Collection<Long> ownerIds, LocalDate from, LocalDate to, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        TypedQuery<TransactionRow> query = em.createQuery(
+                "SELECT new it.unicam.cs.mpgc.jbudget120002.model.TransactionRow(" +
+                        "t.id, t.date, t.description, t.amount, t.isIncome, " +
+                        "CASE WHEN t.scheduledTransaction IS NULL THEN false ELSE true END) " +
+                        "FROM Transaction t WHERE t.date BETWEEN :from AND :to" +
+                        (ownerIds != null ? " AND t.user.id IN :owners" : "") +
+                        " ORDER BY t.date DESC, t.id DESC", TransactionRow.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit);
+        if (ownerIds != null) {
+            query.setParameter("owners", ownerIds);
+        }
+        return withTagNames(query.getResultList());
+    }
+
     @Override
     public List<Transaction> findByUserAndGroups(User user, Set<Long> groupIds, LocalDate startDate, LocalDate endDate, String search, List<Tag> tags) {
         // This is a complex query, redirecting to the existing flexible filter method
         List<Long> tagIds = tags.stream().map(Tag::getId).collect(Collectors.toList());
-        return findWithFilters(user, new ArrayList<>(groupIds), search, startDate, endDate, tagIds);
+        Set<Long> ownerIds = new HashSet<>();
+        ownerIds.add(user.getId());
+        if (!groupIds.isEmpty()) {
+            ownerIds.addAll(em.createQuery(
+                    "SELECT DISTINCT m.id FROM Group g JOIN g.users m WHERE g.id IN :groupIds", Long.class)
+                    .setParameter("groupIds", groupIds)
+                    .getResultList());
+        }
+        return findWithFilters(ownerIds, search, startDate, endDate, tagIds, FetchPlan.TABLE_ROW);
     }
 
     @Override
@@ -213,4 +390,79 @@ public class TransactionRepositoryJpa extends JpaRepository<Transaction, Long> i
         query.setParameter("endDate", endDate);
         return query.getResultList();
     }
+
+    /**
+     * Returns the tag ID and the income minus the expenses of the transactions carrying
+     * it in a period, for each tag carried in the period.
+     */
+    @Override
+    public List<Object[]> sumSignedAmountsByTag(LocalDate startDate, LocalDate endDate) {
+        return em.createQuery(
+                "SELECT tag.id, SUM(CASE WHEN t.isIncome = true THEN t.amount ELSE -t.amount END) " +
+                        "FROM Transaction t JOIN t.tags tag WHERE t.date BETWEEN :startDate AND :endDate " +
+                        "GROUP BY tag.id", Object[].class)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList();
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static Predicate[] filterPredicates(CriteriaBuilder cb, Root<Transaction> transaction,
+                                                Collection<Long> ownerIds, String searchTerm,
+                                                LocalDate startDate, LocalDate endDate, List<Long> tagIds) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        // Owner filtering: the visible owners are resolved by the caller, so no join is needed
+        if (ownerIds != null) {
+            predicates.add(transaction.get("user").get("id").in(ownerIds));
+        }
+
+        // Date range filtering
+        if (startDate != null) {
+            predicates.add(cb.greaterThanOrEqualTo(transaction.get("date"), startDate));
+        }
+        if (endDate != null) {
+            predicates.add(cb.lessThanOrEqualTo(transaction.get("date"), endDate));
+        }
+
+        // Search term filtering
+        if (searchTerm != null && !searchTerm.trim().isEmpty()) {
+            predicates.add(cb.like(cb.lower(transaction.get("description")), "%" + searchTerm.toLowerCase() + "%"));
+        }
+
+        // Tag filtering
+        if (tagIds != null && !tagIds.isEmpty()) {
+            Join<Transaction, Tag> tagJoin = transaction.join("tags");
+            predicates.add(tagJoin.get("id").in(tagIds));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    /**
+     * Fills in the tag names of projected rows with scalar queries over their ids, in
+     * chunks of {@value #ID_CHUNK_SIZE} so that the statement and its parameter list stay
+     * small however many rows the filter matched.
+     */
+    private List<TransactionRow> withTagNames(List<TransactionRow> rows) {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        List<Long> ids = rows.stream().map(TransactionRow::id).collect(Collectors.toList());
+        Map<Long, List<String>> namesById = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            for (Object[] row : em.createQuery(
+                    "SELECT t.id, tag.name FROM Transaction t JOIN t.tags tag WHERE t.id IN :ids", Object[].class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())))
+                    .getResultList()) {
+                namesById.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+            }
+        }
+        List<TransactionRow> named = new ArrayList<>(rows.size());
+        for (TransactionRow row : rows) {
+            List<String> names = namesById.get(row.id());
+            named.add(names != null ? row.withTagNames(Tag.joinNames(names)) : row);
+        }
+        return named;
+    }
 }
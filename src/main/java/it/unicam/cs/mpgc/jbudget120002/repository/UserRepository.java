@@ -34,4 +34,13 @@ public interface UserRepository extends Repository<User, Long> {
      * @return A list of users in the specified group.
      */
     List<User> findByGroupId(Long groupId);
+
+    /**
+     * Finds all users belonging to a specific group, loading what the fetch plan names.
+     *
+     * @param groupId The ID of the group.
+     * @param plan The fetch plan.
+     * @return A list of users in the specified group.
+     */
+    List<User> findByGroupId(Long groupId, FetchPlan plan);
 } 
\ No newline at end of file
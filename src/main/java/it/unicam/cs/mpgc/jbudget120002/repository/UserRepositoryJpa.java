@@ -38,4 +38,17 @@ public class UserRepositoryJpa extends JpaRepository<User, Long> implements User
         query.setParameter("groupId", groupId);
         return query.getResultList();
     }
+
+    /**
+     * Filters through a subquery rather than joining {@code u.groups}, so a plan that
+     * fetches the groups loads all of them and not only the one filtered on.
+     */
+    @Override
+    public List<User> findByGroupId(Long groupId, FetchPlan plan) {
+        TypedQuery<User> query = withPlan(em.createQuery(
+                "SELECT u FROM User u WHERE u.id IN (SELECT m.id FROM Group g JOIN g.users m WHERE g.id = :groupId)",
+                User.class), plan);
+        query.setParameter("groupId", groupId);
+        return query.getResultList();
+    }
 } 
\ No newline at end of file
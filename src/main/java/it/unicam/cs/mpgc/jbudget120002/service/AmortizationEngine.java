@@ -0,0 +1,142 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import it.unicam.cs.mpgc.jbudget120002.model.AmortizationSchedule;
+import it.unicam.cs.mpgc.jbudget120002.model.Installment;
+import it.unicam.cs.mpgc.jbudget120002.model.LoanScenario;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Single amortization engine for fixed and variable rate loans.
+ *
+ * <p>Schedules are computed on primitive {@code long} cents: the annuity payment is
+ * derived once per rate segment (start, each rate change, refinancing) and every
+ * installment then only needs one multiplication and one rounding for its interest.
+ * Extra prepayments keep the regular payment unchanged and shorten the loan.</p>
+ *
+ * <p>The engine is stateless, so independent scenarios can be evaluated in
+ * parallel for side-by-side comparison.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * AmortizationEngine engine = new AmortizationEngine();
+ * LoanScenario base = new LoanScenario("Base", new BigDecimal("150000"), 3.5, 300, start);
+ * LoanScenario extra = base.copy("Extra 200/month").withMonthlyExtraPayment(new BigDecimal("200"));
+ * List<AmortizationSchedule> results = engine.compare(List.of(base, extra));
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public class AmortizationEngine {
+
+    /** Hard stop for schedules that would otherwise never amortize (100 years) */
+    private static final int MAX_INSTALLMENTS = 1200;
+
+    // ==================== SCHEDULE COMPUTATION ====================
+
+    /**
+     * Computes the full amortization schedule of a scenario.
+     *
+     * @param scenario the scenario to evaluate
+     * @return the resulting schedule
+     * @throws IllegalArgumentException if scenario is null
+     */
+    public AmortizationSchedule computeSchedule(LoanScenario scenario) {
+        if (scenario == null) {
+            throw new IllegalArgumentException("Scenario cannot be null");
+        }
+
+        List<Installment> installments = new ArrayList<>(scenario.getTermMonths());
+        LoanScenario.Refinance refinance = scenario.getRefinance();
+
+        long balance = scenario.getPrincipalCents();
+        double monthlyRate = monthlyRate(scenario.getAnnualRate());
+        int remaining = scenario.getTermMonths();
+        long payment = annuityPayment(balance, monthlyRate, remaining);
+        long firstPayment = -1L;
+        long totalInterest = 0L;
+        long totalPaid = 0L;
+
+        for (int month = 1; balance > 0 && month <= MAX_INSTALLMENTS; month++) {
+            if (refinance != null && refinance.month() == month) {
+                balance += refinance.feeCents();
+                monthlyRate = monthlyRate(refinance.annualRate());
+                remaining = refinance.termMonths();
+                payment = annuityPayment(balance, monthlyRate, remaining);
+            }
+            Double newRate = scenario.getRateChanges().get(month);
+            if (newRate != null) {
+                monthlyRate = monthlyRate(newRate);
+                payment = annuityPayment(balance, monthlyRate, remaining);
+            }
+
+            long interest = Math.round(balance * monthlyRate);
+            long principal = remaining <= 1 ? balance : Math.min(Math.max(payment - interest, 0L), balance);
+            long extra = scenario.getMonthlyExtraCents() + scenario.getPrepayments().getOrDefault(month, 0L);
+            principal += Math.min(extra, balance - principal);
+            long total = principal + interest;
+
+            // Due dates stay relative to the start date so month-end dates do not drift
+            installments.add(new Installment(
+                month,
+                scenario.getStartDate().plusMonths(month - 1L),
+                toAmount(principal),
+                toAmount(interest),
+                toAmount(total)
+            ));
+            if (firstPayment < 0) {
+                firstPayment = total;
+            }
+            totalInterest += interest;
+            totalPaid += total;
+            balance -= principal;
+            remaining--;
+        }
+
+        return new AmortizationSchedule(scenario, installments, Math.max(firstPayment, 0L), totalInterest, totalPaid);
+    }
+
+    /**
+     * Evaluates several scenarios in parallel. The result list has the same order
+     * as the input list.
+     *
+     * @param scenarios the scenarios to evaluate
+     * @return one schedule per scenario
+     */
+    public List<AmortizationSchedule> compare(List<LoanScenario> scenarios) {
+        if (scenarios == null || scenarios.isEmpty()) {
+            return List.of();
+        }
+        return scenarios.parallelStream()
+            .map(this::computeSchedule)
+            .collect(Collectors.toList());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Computes the fixed annuity payment in cents:
+     * PMT = P * r / (1 - (1 + r)^-n), or P / n when the rate is zero.
+     */
+    private static long annuityPayment(long balanceCents, double monthlyRate, int months) {
+        if (months <= 1) {
+            return balanceCents;
+        }
+        if (monthlyRate == 0.0) {
+            return (balanceCents + months - 1) / months;
+        }
+        return Math.round(balanceCents * monthlyRate / (1.0 - Math.pow(1.0 + monthlyRate, -months)));
+    }
+
+    private static double monthlyRate(double annualRatePercent) {
+        return annualRatePercent / 12.0 / 100.0;
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,408 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import it.unicam.cs.mpgc.jbudget120002.util.FenwickTree;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory running-balance index answering "balance as of" and "balance between"
+ * queries without touching transaction rows.
+ *
+ * <p>The index keeps one {@link FenwickTree} per transaction owner, keyed by
+ * {@code epochDay} and holding signed amounts in cents, plus one tree for the whole
+ * ledger. It is built lazily with a single aggregate query the first time it is needed
+ * and then maintained incrementally from the writes reported by
+ * {@link it.unicam.cs.mpgc.jbudget120002.model.TransactionBalanceListener}.</p>
+ *
+ * <p>The index is shared by all EntityManagers of the application, so it only ever
+ * holds committed state. Writes are queued on the writing thread when they are flushed
+ * and applied by {@link #publishPending()} once the database transaction commits (see
+ * {@link CommitHooks}); a rollback drops them. An insert is applied as its amount, in
+ * O(log n). An update or a delete marks the owners of the row as stale instead, and
+ * their trees are reloaded from the database with one grouped query on the next
+ * question: the previous state an EntityManager remembers for a row may be out of date
+ * if another EntityManager saved the row since, so it cannot be subtracted. A row moved
+ * to another owner is remembered with every owner it had, so that a copy still holding
+ * an earlier owner reloads all of them.</p>
+ *
+ * <p>A load overlapping a write is not kept: it may or may not have read the write, and
+ * the write is applied once it is published. Such a load, and a question asked by a
+ * thread with writes of its own not yet committed, is answered from the rows just read
+ * without being installed, as {@link VisibilityIndex#visibleOwners} does for a load
+ * racing an invalidation.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * BalanceIndex index = BalanceIndex.getInstance();
+ * BigDecimal netWorth = index.totalAsOf(em, LocalDate.now());
+ * BigDecimal balance = index.balanceBetween(em, ownerIds, startDate, endDate);
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class BalanceIndex {
+
+    /** Owner key used for transactions not associated with any user */
+    public static final long NO_OWNER = -1L;
+
+    private static final BalanceIndex INSTANCE = new BalanceIndex();
+
+    /** Guarded by this: the installed trees, null until loaded */
+    private Trees trees;
+
+    /** Guarded by this: owners whose tree is reloaded on the next question */
+    private final Set<Long> staleOwners = new HashSet<>();
+
+    /** Guarded by this: every owner of the transactions moved between owners, by transaction ID */
+    private final Map<Long, Set<Long>> ownersOfMoved = new HashMap<>();
+
+    /** Incremented whenever writes start or end, so a load that overlapped one is not kept */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** Threads with flushed writes not yet committed or rolled back */
+    private final AtomicInteger writesInFlight = new AtomicInteger();
+
+    private final ThreadLocal<PendingWrites> pending = new ThreadLocal<>();
+
+    /** The trees of a load: one per owner key, and the whole ledger */
+    private static final class Trees {
+        final Map<Long, FenwickTree> byOwner = new HashMap<>();
+        final FenwickTree total = new FenwickTree();
+
+        void add(long ownerKey, long day, long cents) {
+            byOwner.computeIfAbsent(ownerKey, k -> new FenwickTree()).add(day, cents);
+            total.add(day, cents);
+        }
+    }
+
+    /** The writes of one thread's database transaction */
+    private static final class PendingWrites {
+        final List<long[]> inserts = new ArrayList<>();
+        final List<Rewrite> rewrites = new ArrayList<>();
+    }
+
+    /** An update or delete of a row, with the owner keys it had and has */
+    private record Rewrite(Long transactionId, long previousOwner, long owner, boolean removed) {}
+
+    private BalanceIndex() {
+    }
+
+    /**
+     * Gets the application-wide balance index.
+     *
+     * @return the shared instance
+     */
+    public static BalanceIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== MAINTENANCE METHODS ====================
+
+    /**
+     * Records an inserted transaction, applied once the current thread's database
+     * transaction commits.
+     *
+     * @param ownerId the owning user ID, or null for unowned transactions
+     * @param date the transaction date
+     * @param signedCents the signed amount in cents (income positive, expense negative)
+     */
+    public void recordInsert(Long ownerId, LocalDate date, long signedCents) {
+        if (date == null || signedCents == 0) {
+            return;
+        }
+        pendingWrites().inserts.add(new long[] {ownerKey(ownerId), date.toEpochDay(), signedCents});
+    }
+
+    /**
+     * Records an updated or deleted transaction: once the current thread's database
+     * transaction commits, the trees of its owners are reloaded on the next question.
+     *
+     * @param transactionId the transaction
+     * @param previousOwnerId the owner the writing EntityManager last knew it had
+     * @param ownerId the owner it has now, the previous one for a delete
+     * @param removed whether the transaction was deleted
+     */
+    public void recordRewrite(Long transactionId, Long previousOwnerId, Long ownerId, boolean removed) {
+        pendingWrites().rewrites.add(new Rewrite(transactionId, ownerKey(previousOwnerId), ownerKey(ownerId), removed));
+    }
+
+    /**
+     * Applies the writes of the current thread, after its database transaction committed.
+     */
+    public void publishPending() {
+        PendingWrites writes = pending.get();
+        if (writes == null) {
+            return;
+        }
+        pending.remove();
+        synchronized (this) {
+            for (long[] insert : writes.inserts) {
+                if (trees != null) {
+                    trees.add(insert[0], insert[1], insert[2]);
+                }
+            }
+            for (Rewrite rewrite : writes.rewrites) {
+                staleOwners.add(rewrite.previousOwner());
+                staleOwners.add(rewrite.owner());
+                Set<Long> owners = ownersOfMoved.get(rewrite.transactionId());
+                if (owners == null && rewrite.previousOwner() != rewrite.owner() && !rewrite.removed()) {
+                    owners = new HashSet<>();
+                    ownersOfMoved.put(rewrite.transactionId(), owners);
+                }
+                if (owners != null) {
+                    owners.add(rewrite.previousOwner());
+                    owners.add(rewrite.owner());
+                    staleOwners.addAll(owners);
+                }
+                if (rewrite.removed()) {
+                    ownersOfMoved.remove(rewrite.transactionId());
+                }
+            }
+            generation.incrementAndGet();
+            writesInFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Drops the writes of the current thread, after its database transaction rolled back.
+     */
+    public void discardPending() {
+        if (pending.get() == null) {
+            return;
+        }
+        pending.remove();
+        generation.incrementAndGet();
+        writesInFlight.decrementAndGet();
+    }
+
+    /**
+     * Drops all indexed balances, after rows were written without reporting them. The
+     * index is rebuilt on the next query.
+     */
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        trees = null;
+        staleOwners.clear();
+    }
+
+    // ==================== QUERY METHODS ====================
+
+    /**
+     * Gets the balance of the whole ledger up to and including a date.
+     *
+     * @param em the EntityManager used to build the index if needed
+     * @param asOfDate the inclusive upper date
+     * @return the ledger balance
+     */
+    public BigDecimal totalAsOf(EntityManager em, LocalDate asOfDate) {
+        long day = asOfDate.toEpochDay();
+        return toAmount(read(em, loaded -> loaded.total.prefixSum(day)));
+    }
+
+    /**
+     * Gets the balance of the whole ledger between two dates (inclusive).
+     *
+     * @param em the EntityManager used to build the index if needed
+     * @param start the start date
+     * @param end the end date
+     * @return the ledger balance for the range
+     */
+    public BigDecimal totalBetween(EntityManager em, LocalDate start, LocalDate end) {
+        long from = start.toEpochDay();
+        long to = end.toEpochDay();
+        return toAmount(read(em, loaded -> loaded.total.rangeSum(from, to)));
+    }
+
+    /**
+     * Gets the combined balance of the given owners up to and including a date.
+     *
+     * @param em the EntityManager used to build the index if needed
+     * @param ownerIds the owning user IDs
+     * @param asOfDate the inclusive upper date
+     * @return the combined balance
+     */
+    public BigDecimal balanceAsOf(EntityManager em, Collection<Long> ownerIds, LocalDate asOfDate) {
+        long day = asOfDate.toEpochDay();
+        return toAmount(read(em, loaded -> {
+            long sum = 0L;
+            for (Long ownerId : ownerIds) {
+                FenwickTree tree = loaded.byOwner.get(ownerKey(ownerId));
+                if (tree != null) {
+                    sum += tree.prefixSum(day);
+                }
+            }
+            return sum;
+        }));
+    }
+
+    /**
+     * Gets the combined balance of the given owners between two dates (inclusive).
+     *
+     * @param em the EntityManager used to build the index if needed
+     * @param ownerIds the owning user IDs
+     * @param start the start date
+     * @param end the end date
+     * @return the combined balance for the range
+     */
+    public BigDecimal balanceBetween(EntityManager em, Collection<Long> ownerIds,
+                                     LocalDate start, LocalDate end) {
+        long from = start.toEpochDay();
+        long to = end.toEpochDay();
+        return toAmount(read(em, loaded -> {
+            long sum = 0L;
+            for (Long ownerId : ownerIds) {
+                FenwickTree tree = loaded.byOwner.get(ownerKey(ownerId));
+                if (tree != null) {
+                    sum += tree.rangeSum(from, to);
+                }
+            }
+            return sum;
+        }));
+    }
+
+    // ==================== CONVERSION METHODS ====================
+
+    /**
+     * Converts a transaction amount to signed cents.
+     *
+     * @param amount the unsigned amount
+     * @param isIncome true for income, false for expenses
+     * @return the signed amount in cents
+     */
+    public static long toSignedCents(BigDecimal amount, boolean isIncome) {
+        if (amount == null) {
+            return 0L;
+        }
+        long cents = amount.setScale(2, java.math.RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        return isIncome ? cents : -cents;
+    }
+
+    private static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static long ownerKey(Long ownerId) {
+        return ownerId != null ? ownerId : NO_OWNER;
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private PendingWrites pendingWrites() {
+        PendingWrites writes = pending.get();
+        if (writes == null) {
+            writes = new PendingWrites();
+            pending.set(writes);
+            // Counted before the first row is written, so a load from now on is not kept
+            writesInFlight.incrementAndGet();
+            generation.incrementAndGet();
+        }
+        return writes;
+    }
+
+    /**
+     * Answers a question from the installed trees, loading or reloading them first if
+     * needed.
+     *
+     * @param em the EntityManager to query with
+     * @param question computes the answer from the trees
+     * @return the answer
+     */
+    private long read(EntityManager em, ToLongFunction<Trees> question) {
+        long loadedAt;
+        boolean keep;
+        Set<Long> reloaded;
+        synchronized (this) {
+            boolean ownWrites = pending.get() != null;
+            if (!ownWrites && trees != null && staleOwners.isEmpty()) {
+                return question.applyAsLong(trees);
+            }
+            loadedAt = generation.get();
+            keep = !ownWrites && writesInFlight.get() == 0;
+            // A partial reload is only useful if it can be installed
+            reloaded = keep && trees != null ? new HashSet<>(staleOwners) : null;
+        }
+
+        Trees loaded = load(em, reloaded);
+        synchronized (this) {
+            if (keep && generation.get() == loadedAt && writesInFlight.get() == 0) {
+                if (reloaded == null) {
+                    trees = loaded;
+                    staleOwners.clear();
+                } else if (trees != null) {
+                    replaceOwners(reloaded, loaded);
+                    staleOwners.removeAll(reloaded);
+                }
+                if (trees != null) {
+                    return question.applyAsLong(trees);
+                }
+            }
+        }
+        // Overlapped a write: answer from the rows read, without keeping them
+        if (reloaded != null) {
+            loaded = load(em, null);
+        }
+        return question.applyAsLong(loaded);
+    }
+
+    /**
+     * Replaces the trees of some owners with reloaded ones, moving the whole-ledger tree
+     * by the difference.
+     */
+    private void replaceOwners(Set<Long> owners, Trees reloaded) {
+        for (Long owner : owners) {
+            FenwickTree previous = trees.byOwner.remove(owner);
+            if (previous != null) {
+                previous.forEach((day, cents) -> trees.total.add(day, -cents));
+            }
+            FenwickTree current = reloaded.byOwner.get(owner);
+            if (current != null) {
+                trees.byOwner.put(owner, current);
+                current.forEach(trees.total::add);
+            }
+        }
+    }
+
+    /**
+     * Reads the balances with one aggregate query grouped by owner and day.
+     *
+     * @param em the EntityManager to query with
+     * @param owners the owner keys to read, or null for all of them
+     * @return the trees of the rows read
+     */
+    private static Trees load(EntityManager em, Set<Long> owners) {
+        String query = "SELECT u.id, t.date, " +
+            "SUM(CASE WHEN t.isIncome = true THEN t.amount ELSE -t.amount END) " +
+            "FROM Transaction t LEFT JOIN t.user u ";
+        if (owners != null) {
+            query += owners.contains(NO_OWNER) ? "WHERE u.id IN :owners OR u.id IS NULL " : "WHERE u.id IN :owners ";
+        }
+        TypedQuery<Object[]> rows = em.createQuery(query + "GROUP BY u.id, t.date", Object[].class);
+        if (owners != null) {
+            // A list never empty, which IN does not accept
+            List<Long> ids = new ArrayList<>(owners);
+            ids.add(NO_OWNER);
+            rows.setParameter("owners", ids);
+        }
+
+        Trees loaded = new Trees();
+        for (Object[] row : rows.getResultList()) {
+            long day = ((LocalDate) row[1]).toEpochDay();
+            loaded.add(ownerKey((Long) row[0]), day, toSignedCents((BigDecimal) row[2], true));
+        }
+        return loaded;
+    }
+}
@@ -2,6 +2,9 @@ package it.unicam.cs.mpgc.jbudget120002.service;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityTransaction;
+import org.hibernate.Session;
+
+import java.util.Collection;
 import java.util.function.Supplier;
 
 /**
@@ -20,6 +23,7 @@ import java.util.function.Supplier;
  *   <li>Serve as a superclass for all concrete service classes</li>
  *   <li>Ensure consistent transaction lifecycle management</li>
  *   <li>Provide functional transaction execution methods</li>
+ *   <li>Keep the persistence context bounded at the end of each unit of work</li>
  * </ul>
  * 
  * <p>Usage examples:</p>
@@ -94,11 +98,12 @@ public abstract class BaseService {
         try {
             action.run();
             if (!wasActive && transaction.isActive()) {
-                transaction.commit();
+                completeUnitOfWork(transaction);
             }
         } catch (Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
+                CommitHooks.afterRollback();
             }
             throw new RuntimeException("Transaction failed", e);
         }
@@ -128,12 +133,13 @@ public abstract class BaseService {
         try {
             T result = supplier.get();
             if (!wasActive && transaction.isActive()) {
-                transaction.commit();
+                completeUnitOfWork(transaction);
             }
             return result;
         } catch (Exception e) {
             if (transaction.isActive()) {
                 transaction.rollback();
+                CommitHooks.afterRollback();
             }
             throw new RuntimeException("Transaction failed", e);
         }
@@ -164,7 +170,7 @@ public abstract class BaseService {
         EntityTransaction transaction = em.getTransaction();
         if (transaction.isActive()) {
             try {
-                transaction.commit();
+                completeUnitOfWork(transaction);
             } catch (Exception e) {
                 throw new IllegalStateException("Failed to commit transaction", e);
             }
@@ -173,6 +179,8 @@ public abstract class BaseService {
 
     /**
      * Rolls back the current database transaction if one is active.
+     * The shared in-memory indexes are told as well (see {@link CommitHooks}), since
+     * changes flushed before the rollback may already have been applied to them.
      * 
      * @throws IllegalStateException if transaction management fails
      */
@@ -181,12 +189,28 @@ public abstract class BaseService {
         if (transaction.isActive()) {
             try {
                 transaction.rollback();
+                CommitHooks.afterRollback();
             } catch (Exception e) {
                 throw new IllegalStateException("Failed to rollback transaction", e);
             }
         }
     }
 
+    /**
+     * Ends a unit of work: flushes its changes (timed by the
+     * {@link PersistenceContextPolicy}), commits, and clears the persistence context if
+     * it has grown past the policy's limit.
+     * 
+     * @param transaction the active transaction of the unit of work
+     */
+    private void completeUnitOfWork(EntityTransaction transaction) {
+        PersistenceContextPolicy policy = PersistenceContextPolicy.getInstance();
+        policy.flushUnitOfWork(em);
+        transaction.commit();
+        CommitHooks.afterCommit();
+        policy.checkpoint(em);
+    }
+
     // ==================== UTILITY METHODS ====================
 
     /**
@@ -280,6 +304,35 @@ public abstract class BaseService {
         }
     }
 
+    /**
+     * Makes managed entities that were loaded read-only (by a display or export fetch
+     * plan) modifiable, so that the changes a unit of work is about to make are flushed.
+     * Entities looked up by ID are made modifiable by the repositories already; this is
+     * for entities a write reaches through a query or an association.
+     * 
+     * @param entities the entities about to be changed
+     */
+    protected void makeModifiable(Collection<?> entities) {
+        Session session = em.unwrap(Session.class);
+        for (Object entity : entities) {
+            if (session.contains(entity) && session.isReadOnly(entity)) {
+                session.setReadOnly(entity, false);
+            }
+        }
+    }
+
+    /**
+     * Runs a read in read-only query mode (see {@link ReadOnlyWork}): entities are
+     * loaded without dirty-checking snapshots and queries do not flush first.
+     *
+     * @param <T> the type of the result
+     * @param query the read to run
+     * @return the result of the read
+     */
+    protected <T> T readOnly(Supplier<T> query) {
+        return ReadOnlyWork.run(em, query);
+    }
+
     /**
      * Checks if an entity is managed by the EntityManager.
      * 
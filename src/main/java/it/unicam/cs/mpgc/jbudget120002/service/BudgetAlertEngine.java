@@ -0,0 +1,520 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import it.unicam.cs.mpgc.jbudget120002.model.BudgetAlert;
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.Hibernate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Running spent totals per budget, updated on every committed transaction write, raising
+ * a {@link BudgetAlert} the first time a budget crosses 50%, 80% or 100% of its amount.
+ *
+ * <p>A budget covers the expenses tagged with one of its tags or a descendant of one,
+ * dated within its period. The engine inverts that mapping once (tag to covering
+ * budgets) and remembers, per expense counted in at least one budget, which budgets it
+ * was counted in and for how much. Building it reads only the expenses in covered tags
+ * dated within a budget period, so the rest of the history costs neither a row read nor
+ * an entry. A write then subtracts the transaction's previous contribution and adds the
+ * new one, touching only the budgets it affects: no query, and a few map lookups per
+ * write. Transaction writes are reported by
+ * {@link it.unicam.cs.mpgc.jbudget120002.model.BudgetAlertListener}; changes to tags or
+ * budgets change the mapping itself, so they invalidate the engine, which is rebuilt
+ * with three queries on its next use.</p>
+ *
+ * <p>Writes are queued on the writing thread when they are flushed and applied by
+ * {@link #publishPending()} once the database transaction commits (see
+ * {@link CommitHooks}); a rollback only drops them. The engine therefore only holds
+ * committed state, and a build that runs while another thread's write is not yet
+ * committed still counts it when it is published. Applying the committed state of a
+ * transaction is idempotent, so a build that already read it changes nothing. A write
+ * whose tags were not loaded, to a transaction not counted before, cannot be applied
+ * without them: it is read again on the next use.</p>
+ *
+ * <p>Alerts are published as {@link LedgerEvent.Type#BUDGET_THRESHOLD_CROSSED} events
+ * when the write that raised them is applied. Each threshold of a budget period is
+ * alerted at most once, even if spending later falls below it and crosses it again;
+ * rebuilding the engine treats thresholds already reached as alerted.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * BudgetAlertEngine engine = BudgetAlertEngine.getInstance();
+ * engine.prepare(em);                                  // before writing transactions
+ * BigDecimal spent = engine.spentAmount(em, budget.getId());
+ * List<BudgetAlert> alerts = engine.getRecentAlerts();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class BudgetAlertEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(BudgetAlertEngine.class.getName());
+
+    /** Percentages of a budget's amount that raise an alert when crossed */
+    public static final int[] THRESHOLDS = {50, 80, 100};
+
+    private static final int MAX_RECENT_ALERTS = 100;
+
+    private static final BudgetAlertEngine INSTANCE = new BudgetAlertEngine();
+
+    private boolean loaded = false;
+
+    /** Tracked budgets by ID */
+    private final Map<Long, TrackedBudget> budgets = new HashMap<>();
+
+    /** For each covered tag, the budgets covering it through itself or an ancestor */
+    private final Map<Long, List<TrackedBudget>> budgetsByTag = new HashMap<>();
+
+    /** For each expense counted in a budget, what it was counted as */
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    /** Transactions written without their tags, read again on the next use */
+    private final Set<Long> unresolved = new HashSet<>();
+
+    /** Highest threshold alerted per budget period; survives rebuilds */
+    private final Map<Period, Integer> alerted = new HashMap<>();
+
+    private final ArrayDeque<BudgetAlert> recentAlerts = new ArrayDeque<>();
+    private final ThreadLocal<PendingChanges> pending = new ThreadLocal<>();
+
+    private static final class TrackedBudget {
+        final Long id;
+        final String name;
+        final BigDecimal amount;
+        final LocalDate startDate;
+        final LocalDate endDate;
+        long spentCents;
+
+        TrackedBudget(Long id, String name, BigDecimal amount, LocalDate startDate, LocalDate endDate) {
+            this.id = id;
+            this.name = name;
+            this.amount = amount;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        boolean covers(LocalDate date) {
+            return !date.isBefore(startDate) && !date.isAfter(endDate);
+        }
+
+        Period period() {
+            return new Period(id, startDate, endDate);
+        }
+    }
+
+    /**
+     * What one expense adds: its covered tags (kept so an update that did not load the
+     * tags can still be recomputed), its amount in cents and the budgets it counts in.
+     */
+    private record Contribution(Set<Long> tagIds, long cents, List<TrackedBudget> budgets) {}
+
+    private record Period(Long budgetId, LocalDate startDate, LocalDate endDate) {}
+
+    /**
+     * A transaction as written: its expense in cents (0 for income) and its tags, null if
+     * they were not loaded; or its removal.
+     */
+    private record TransactionWrite(Long id, LocalDate date, long cents, Set<Long> tagIds, boolean removed) {}
+
+    /** The changes of one thread's database transaction */
+    private static final class PendingChanges {
+        final List<TransactionWrite> writes = new ArrayList<>();
+        boolean mappingChanged;
+    }
+
+    private BudgetAlertEngine() {
+    }
+
+    /**
+     * Gets the application-wide budget alert engine.
+     *
+     * @return the shared instance
+     */
+    public static BudgetAlertEngine getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== MAINTENANCE METHODS ====================
+
+    /**
+     * Builds the engine if needed, so that the writes which follow raise alerts. Writes
+     * committed while the engine is not built are not applied, since building reads
+     * them anyway, and the thresholds they cross are not alerted.
+     *
+     * @param em the EntityManager used to build the engine
+     */
+    public synchronized void prepare(EntityManager em) {
+        ensureLoaded(em);
+    }
+
+    /**
+     * Records an inserted or updated transaction, applied once the current thread's
+     * database transaction commits. Recording it again for an unchanged transaction
+     * has no effect.
+     *
+     * @param transaction the inserted or updated transaction
+     */
+    public void onTransactionWritten(Transaction transaction) {
+        if (transaction == null || transaction.getId() == null) {
+            return;
+        }
+        Set<Long> tagIds = null;
+        if (Hibernate.isInitialized(transaction.getTags())) {
+            tagIds = new HashSet<>();
+            for (Tag tag : transaction.getTags()) {
+                tagIds.add(tag.getId());
+            }
+        }
+        long cents = transaction.isIncome() || transaction.getDate() == null ? 0L
+            : Math.abs(BalanceIndex.toSignedCents(transaction.getAmount(), false));
+        pendingChanges().writes.add(new TransactionWrite(transaction.getId(), transaction.getDate(), cents, tagIds, false));
+    }
+
+    /**
+     * Records a deleted transaction, removed from the budgets it was counted in once the
+     * current thread's database transaction commits.
+     *
+     * @param transactionId the deleted transaction
+     */
+    public void onTransactionRemoved(Long transactionId) {
+        if (transactionId == null) {
+            return;
+        }
+        pendingChanges().writes.add(new TransactionWrite(transactionId, null, 0L, null, true));
+    }
+
+    /**
+     * Records a change to tags or budgets, which invalidates the engine once the current
+     * thread's database transaction commits.
+     */
+    public void onMappingChanged() {
+        pendingChanges().mappingChanged = true;
+    }
+
+    /**
+     * Drops all running totals, after tags or budgets changed. The engine is rebuilt on
+     * its next use; thresholds already alerted are kept.
+     */
+    public synchronized void invalidate() {
+        budgets.clear();
+        budgetsByTag.clear();
+        contributions.clear();
+        unresolved.clear();
+        loaded = false;
+    }
+
+    /**
+     * Applies the writes of the current thread, after its database transaction
+     * committed, and publishes the alerts they raise. An alert another thread already
+     * published for the same threshold is dropped.
+     */
+    public synchronized void publishPending() {
+        PendingChanges changes = pending.get();
+        pending.remove();
+        if (changes == null) {
+            return;
+        }
+        if (changes.mappingChanged) {
+            invalidate();
+            return;
+        }
+        if (!loaded) {
+            return;
+        }
+        for (TransactionWrite write : changes.writes) {
+            if (write.removed()) {
+                removeContribution(write.id());
+                unresolved.remove(write.id());
+            } else {
+                apply(write.id(), write.date(), write.cents(), write.tagIds(), true);
+            }
+        }
+    }
+
+    /**
+     * Drops the writes of the current thread, after its database transaction rolled back.
+     */
+    public void discardPending() {
+        pending.remove();
+    }
+
+    // ==================== QUERY METHODS ====================
+
+    /**
+     * Gets the amount spent in a budget over its whole period.
+     *
+     * @param em the EntityManager used to build the engine if needed
+     * @param budgetId the budget
+     * @return the spent amount, or zero for an unknown budget
+     */
+    public synchronized BigDecimal spentAmount(EntityManager em, Long budgetId) {
+        ensureLoaded(em);
+        TrackedBudget budget = budgets.get(budgetId);
+        return BigDecimal.valueOf(budget != null ? budget.spentCents : 0L, 2);
+    }
+
+    /**
+     * Gets the most recently published alerts, oldest first.
+     */
+    public synchronized List<BudgetAlert> getRecentAlerts() {
+        return new ArrayList<>(recentAlerts);
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private PendingChanges pendingChanges() {
+        PendingChanges changes = pending.get();
+        if (changes == null) {
+            changes = new PendingChanges();
+            pending.set(changes);
+        }
+        return changes;
+    }
+
+    /**
+     * Counts a transaction in the budgets covering it, in place of what it was counted
+     * as before.
+     *
+     * @param tagIds the tags of the transaction, or null if they were not loaded
+     * @param announce whether crossing a threshold raises an alert
+     */
+    private void apply(Long id, LocalDate date, long cents, Set<Long> tagIds, boolean announce) {
+        Contribution previous = removeContribution(id);
+        if (tagIds == null) {
+            if (previous == null) {
+                // Tags never loaded and not known here: read them on the next use
+                if (cents != 0 && date != null && budgets.values().stream().anyMatch(budget -> budget.covers(date))) {
+                    unresolved.add(id);
+                }
+                return;
+            }
+            // Tags never loaded, hence unchanged: reuse the covered ones
+            tagIds = previous.tagIds();
+        }
+        if (cents == 0 || date == null) {
+            return;
+        }
+
+        Set<Long> coveredTagIds = new HashSet<>();
+        Set<TrackedBudget> counted = new LinkedHashSet<>();
+        for (Long tagId : tagIds) {
+            List<TrackedBudget> covering = budgetsByTag.get(tagId);
+            if (covering != null) {
+                coveredTagIds.add(tagId);
+                for (TrackedBudget budget : covering) {
+                    if (budget.covers(date)) {
+                        counted.add(budget);
+                    }
+                }
+            }
+        }
+        if (counted.isEmpty()) {
+            return;
+        }
+        contributions.put(id, new Contribution(coveredTagIds, cents, List.copyOf(counted)));
+        for (TrackedBudget budget : counted) {
+            budget.spentCents += cents;
+            if (announce) {
+                checkThresholds(budget);
+            }
+        }
+    }
+
+    private Contribution removeContribution(Long id) {
+        Contribution previous = contributions.remove(id);
+        if (previous != null) {
+            previous.budgets().forEach(budget -> budget.spentCents -= previous.cents());
+        }
+        return previous;
+    }
+
+    private void checkThresholds(TrackedBudget budget) {
+        if (budget.amount == null || budget.amount.signum() <= 0) {
+            return;
+        }
+        int reached = reachedThreshold(budget);
+        Period period = budget.period();
+        if (reached <= alerted.getOrDefault(period, 0)) {
+            return;
+        }
+        alerted.put(period, reached);
+        BudgetAlert alert = new BudgetAlert(budget.id, budget.name, budget.amount,
+            BigDecimal.valueOf(budget.spentCents, 2), BigDecimal.valueOf(reached), LocalDate.now(),
+            reached >= 100 ? BudgetAlert.AlertType.OVER_BUDGET : BudgetAlert.AlertType.APPROACHING_LIMIT,
+            reached >= 100 ? BudgetAlert.AlertSeverity.CRITICAL
+                : reached >= 80 ? BudgetAlert.AlertSeverity.WARNING : BudgetAlert.AlertSeverity.INFO);
+        if (recentAlerts.size() == MAX_RECENT_ALERTS) {
+            recentAlerts.removeFirst();
+        }
+        recentAlerts.addLast(alert);
+        LOGGER.info(alert.getMessage());
+        LedgerEventBus.getInstance().publish(LedgerEvent.Type.BUDGET_THRESHOLD_CROSSED, null,
+            alert.getBudgetId(), alert.getAlertDate());
+    }
+
+    /**
+     * Returns the highest threshold the budget's spending has reached, or 0.
+     */
+    private static int reachedThreshold(TrackedBudget budget) {
+        long amountCents = BalanceIndex.toSignedCents(budget.amount, true);
+        int reached = 0;
+        for (int threshold : THRESHOLDS) {
+            if (budget.spentCents * 100 >= amountCents * threshold) {
+                reached = threshold;
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Builds the tag-to-budget mapping and the running totals with three queries: the
+     * tag tree, the budgets with their tags, and the expenses in covered tags dated
+     * within a budget period. Once built, reads the transactions written without their
+     * tags, if any, with one more query.
+     *
+     * @param em the EntityManager to query with
+     */
+    private void ensureLoaded(EntityManager em) {
+        if (loaded) {
+            if (!unresolved.isEmpty()) {
+                resolve(em);
+            }
+            return;
+        }
+        invalidate();
+
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (Object[] row : em.createQuery("SELECT t.id, t.parent.id FROM Tag t", Object[].class).getResultList()) {
+            if (row[1] != null) {
+                children.computeIfAbsent((Long) row[1], k -> new ArrayList<>()).add((Long) row[0]);
+            }
+        }
+
+        Map<TrackedBudget, Set<Long>> coveredTags = new HashMap<>();
+        List<Object[]> budgetRows = em.createQuery(
+                "SELECT b.id, b.name, b.amount, b.startDate, b.endDate, tg.id " +
+                "FROM Budget b LEFT JOIN b.tags tg",
+                Object[].class)
+            .getResultList();
+        for (Object[] row : budgetRows) {
+            TrackedBudget budget = budgets.computeIfAbsent((Long) row[0], id -> new TrackedBudget(
+                id, (String) row[1], (BigDecimal) row[2], (LocalDate) row[3], (LocalDate) row[4]));
+            Set<Long> covered = coveredTags.computeIfAbsent(budget, k -> new HashSet<>());
+            if (row[5] != null) {
+                addSubtree((Long) row[5], children, covered);
+            }
+        }
+        coveredTags.forEach((budget, tagIds) -> {
+            if (budget.startDate != null && budget.endDate != null) {
+                tagIds.forEach(tagId -> budgetsByTag.computeIfAbsent(tagId, k -> new ArrayList<>()).add(budget));
+            }
+        });
+
+        if (!budgetsByTag.isEmpty()) {
+            List<LocalDate[]> periods = coveredPeriods();
+            StringBuilder within = new StringBuilder();
+            for (int i = 0; i < periods.size(); i++) {
+                within.append(i == 0 ? "" : " OR ").append("tr.date BETWEEN :start").append(i).append(" AND :end").append(i);
+            }
+            TypedQuery<Object[]> query = em.createQuery(
+                    "SELECT tr.id, tr.date, tr.amount, tg.id " +
+                    "FROM Transaction tr JOIN tr.tags tg " +
+                    "WHERE tg.id IN :tagIds AND tr.isIncome = false AND (" + within + ")",
+                    Object[].class)
+                .setParameter("tagIds", budgetsByTag.keySet());
+            for (int i = 0; i < periods.size(); i++) {
+                query.setParameter("start" + i, periods.get(i)[0]).setParameter("end" + i, periods.get(i)[1]);
+            }
+            applyRows(query.getResultList(), false);
+        }
+
+        // Thresholds reached before the engine was built are not news
+        for (TrackedBudget budget : budgets.values()) {
+            if (budget.amount != null && budget.amount.signum() > 0) {
+                alerted.merge(budget.period(), reachedThreshold(budget), Math::max);
+            }
+        }
+        loaded = true;
+    }
+
+    /**
+     * Reads the transactions written without their tags and counts them.
+     */
+    private void resolve(EntityManager em) {
+        List<Long> ids = new ArrayList<>(unresolved);
+        unresolved.clear();
+        List<Object[]> rows = em.createQuery(
+                "SELECT tr.id, tr.date, tr.amount, tg.id " +
+                "FROM Transaction tr JOIN tr.tags tg " +
+                "WHERE tr.id IN :ids AND tr.isIncome = false",
+                Object[].class)
+            .setParameter("ids", ids)
+            .getResultList();
+        applyRows(rows, true);
+    }
+
+    /**
+     * Counts expenses read as one row per tag: ID, date, amount and tag ID.
+     */
+    private void applyRows(List<Object[]> rows, boolean announce) {
+        Map<Long, Object[]> expenses = new HashMap<>();
+        Map<Long, Set<Long>> expenseTags = new HashMap<>();
+        for (Object[] row : rows) {
+            expenses.putIfAbsent((Long) row[0], row);
+            expenseTags.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((Long) row[3]);
+        }
+        expenses.forEach((id, row) -> apply(id, (LocalDate) row[1],
+            Math.abs(BalanceIndex.toSignedCents((BigDecimal) row[2], false)), expenseTags.get(id), announce));
+    }
+
+    /**
+     * Returns the periods of the tracked budgets merged into disjoint date ranges, in
+     * order, so that the load reads no expense outside of them.
+     */
+    private List<LocalDate[]> coveredPeriods() {
+        Set<TrackedBudget> covering = new HashSet<>();
+        budgetsByTag.values().forEach(covering::addAll);
+        List<TrackedBudget> sorted = new ArrayList<>(covering);
+        sorted.sort(Comparator.comparing(budget -> budget.startDate));
+        List<LocalDate[]> merged = new ArrayList<>();
+        for (TrackedBudget budget : sorted) {
+            LocalDate[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && !budget.startDate.isAfter(last[1].plusDays(1))) {
+                if (budget.endDate.isAfter(last[1])) {
+                    last[1] = budget.endDate;
+                }
+            } else {
+                merged.add(new LocalDate[] {budget.startDate, budget.endDate});
+            }
+        }
+        return merged;
+    }
+
+    private static void addSubtree(Long tagId, Map<Long, List<Long>> children, Set<Long> covered) {
+        ArrayDeque<Long> toVisit = new ArrayDeque<>();
+        toVisit.add(tagId);
+        while (!toVisit.isEmpty()) {
+            Long id = toVisit.poll();
+            if (covered.add(id)) {
+                toVisit.addAll(children.getOrDefault(id, List.of()));
+            }
+        }
+    }
+}
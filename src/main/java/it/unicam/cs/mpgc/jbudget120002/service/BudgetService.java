@@ -1,8 +1,10 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.QueryBudget;
 import it.unicam.cs.mpgc.jbudget120002.model.Budget;
 import it.unicam.cs.mpgc.jbudget120002.model.BudgetComparison;
 import it.unicam.cs.mpgc.jbudget120002.model.BudgetStatus;
+import it.unicam.cs.mpgc.jbudget120002.model.BudgetTableItem;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 
 import java.math.BigDecimal;
@@ -80,6 +82,17 @@ public interface BudgetService {
      */
     List<Budget> findAllByUser(User user);
 
+    /**
+     * Retrieves the budgets of a user as table rows, with their spent and remaining
+     * amounts. Reads the same budgets as {@link #findAllByUser(User)} through projection
+     * queries, so no budget entity is loaded.
+     * 
+     * @param user the user whose budgets to retrieve
+     * @return the table rows, ordered by start date
+     * @throws IllegalArgumentException if user is null
+     */
+    List<BudgetTableItem> findTableItems(User user);
+
     /**
      * Saves a budget to the system.
      * 
@@ -122,13 +135,16 @@ public interface BudgetService {
     // ==================== BUDGET STATUS AND MONITORING ====================
     
     /**
-     * Calculates the status of all budgets within a date range.
+     * Calculates the status of all budgets within a date range. An expense is counted
+     * once against a budget even if several of its tags fall within it.
      * 
      * @param start the start date
      * @param end the end date
      * @return a map of budget ID to budget status
      * @throws IllegalArgumentException if start or end date is null, or if start is after end
      */
+    // The budgets with their tags, the tag hierarchy and the expenses under them
+    @QueryBudget(3)
     Map<Long, BudgetStatus> calculateBudgetStatus(LocalDate start, LocalDate end);
 
     /**
@@ -139,16 +155,22 @@ public interface BudgetService {
      * @return a budget comparison object containing category-wise analysis
      * @throws IllegalArgumentException if start or end date is null, or if start is after end
      */
+    // The tags, the budgets with their tags and the amounts by tag
+    @QueryBudget(3)
     BudgetComparison getBudgetComparison(LocalDate start, LocalDate end);
 
     /**
-     * Calculates the total amount spent against a specific budget.
+     * Calculates the total amount spent against a specific budget over its whole period.
+     * The total is maintained incrementally by the {@link BudgetAlertEngine}; an expense
+     * is counted once even if several of its tags fall within the budget.
      * 
      * @param budgetId the budget ID
      * @return the total amount spent
      * @throws IllegalArgumentException if budgetId is null
      * @throws RuntimeException if budget is not found
      */
+    // Only the first call loads the budget alert engine
+    @QueryBudget(3)
     BigDecimal calculateSpentAmount(Long budgetId);
 
     // ==================== FORECASTING AND PLANNING ====================
@@ -3,6 +3,7 @@ package it.unicam.cs.mpgc.jbudget120002.service;
 import it.unicam.cs.mpgc.jbudget120002.model.*;
 import it.unicam.cs.mpgc.jbudget120002.repository.BudgetRepository;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
@@ -107,6 +108,8 @@ public class BudgetServiceImpl extends BaseService implements BudgetService {
             throw new IllegalArgumentException("Budget cannot be null");
         }
         executeInTransaction(() -> repository.save(budget));
+        // Changing only the tags of a budget fires no entity callback
+        BudgetAlertEngine.getInstance().invalidate();
     }
 
     @Override
@@ -115,6 +118,7 @@ public class BudgetServiceImpl extends BaseService implements BudgetService {
             throw new IllegalArgumentException("Budget ID cannot be null");
         }
         executeInTransaction(() -> repository.deleteById(id));
+        BudgetAlertEngine.getInstance().invalidate();
     }
 
     @Override
@@ -129,6 +133,49 @@ public class BudgetServiceImpl extends BaseService implements BudgetService {
         return repository.findByGroups(user.getGroups());
     }
 
+    @Override
+    public List<BudgetTableItem> findTableItems(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        // Same scope as findAllByUser: the user's groups, or every budget without groups
+        Set<Long> groupIds = new HashSet<>();
+        user.getGroups().forEach(group -> groupIds.add(group.getId()));
+        TypedQuery<Object[]> query = em.createQuery(
+            "SELECT b.id, b.name, b.amount, b.startDate, b.endDate FROM Budget b" +
+            (groupIds.isEmpty() ? "" : " WHERE b.group.id IN :groupIds") +
+            " ORDER BY b.startDate, b.id", Object[].class);
+        if (!groupIds.isEmpty()) {
+            query.setParameter("groupIds", groupIds);
+        }
+        List<Object[]> budgets = query.getResultList();
+        if (budgets.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = new ArrayList<>(budgets.size());
+        budgets.forEach(row -> ids.add((Long) row[0]));
+        Map<Long, List<String>> tagNames = new HashMap<>();
+        for (Object[] row : em.createQuery(
+                "SELECT b.id, t.name FROM Budget b JOIN b.tags t WHERE b.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList()) {
+            tagNames.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        BudgetAlertEngine engine = BudgetAlertEngine.getInstance();
+        List<BudgetTableItem> items = new ArrayList<>(budgets.size());
+        for (Object[] row : budgets) {
+            Long id = (Long) row[0];
+            BigDecimal amount = (BigDecimal) row[2];
+            BigDecimal spent = engine.spentAmount(em, id);
+            items.add(new BudgetTableItem(id, (String) row[1], amount, spent, amount.subtract(spent),
+                (LocalDate) row[3], (LocalDate) row[4],
+                Tag.joinNames(tagNames.getOrDefault(id, Collections.emptyList()))));
+        }
+        return items;
+    }
+
     // ==================== SEARCH AND QUERY OPERATIONS ====================
 
     @Override
@@ -152,10 +199,27 @@ public class BudgetServiceImpl extends BaseService implements BudgetService {
         validateDateRange(start, end);
         
         Map<Long, BudgetStatus> statusMap = new HashMap<>();
-        List<Budget> budgets = findByDateRange(start, end);
+        List<Budget> budgets = repository.findByDateRangeWithTags(start, end);
         
+        // The tags each budget covers, its own and their descendants
+        Map<Long, Set<Long>> subtrees = tagService.findSubtreeIds();
+        Map<Long, Set<Long>> coveredByBudget = new HashMap<>();
+        Set<Long> covered = new HashSet<>();
         for (Budget budget : budgets) {
-            BigDecimal actualAmount = calculateActualAmount(budget, start, end);
+            Set<Long> tagIds = new HashSet<>();
+            for (Tag tag : budget.getTags()) {
+                tagIds.addAll(subtrees.getOrDefault(tag.getId(), Set.of(tag.getId())));
+            }
+            coveredByBudget.put(budget.getId(), tagIds);
+            covered.addAll(tagIds);
+        }
+        Map<Long, Set<Long>> tagsByExpense = new HashMap<>();
+        Map<Long, BigDecimal> amountByExpense = new HashMap<>();
+        loadExpenseTags(start, end, covered, tagsByExpense, amountByExpense);
+        
+        for (Budget budget : budgets) {
+            BigDecimal actualAmount = calculateActualAmount(coveredByBudget.get(budget.getId()),
+                tagsByExpense, amountByExpense);
             statusMap.put(budget.getId(), new BudgetStatus(
                 budget.getId(),
                 budget.getName(),
@@ -176,24 +240,21 @@ public class BudgetServiceImpl extends BaseService implements BudgetService {
         Map<Long, BudgetComparison.CategoryComparison> comparisons = new HashMap<>();
         List<Tag> categories = tagService.findAll();
         
+        // Budgets overlapping the range, summed under each of their tags
+        Map<Long, BigDecimal> budgetedByTag = new HashMap<>();
+        for (Budget budget : repository.findByDateRangeWithTags(start, end)) {
+            for (Tag tag : budget.getTags()) {
+                budgetedByTag.merge(tag.getId(), budget.getAmount(), BigDecimal::add);
+            }
+        }
+        Map<Long, BigDecimal> actualByTag = transactionService.calculateAmountsByTagInPeriod(start, end);
+        
         for (Tag category : categories) {
-            List<Budget> categoryBudgets = findByCategory(category.getId());
-            BigDecimal budgetedAmount = categoryBudgets.stream()
-                .filter(b -> !b.getStartDate().isAfter(end) && !b.getEndDate().isBefore(start))
-                .map(Budget::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            List<Transaction> transactions = transactionService.findByTag(category.getId());
-            BigDecimal actualAmount = transactions.stream()
-                .filter(t -> !t.getDate().isBefore(start) && !t.getDate().isAfter(end))
-                .map(t -> t.isIncome() ? t.getAmount() : t.getAmount().negate())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
             comparisons.put(category.getId(), new BudgetComparison.CategoryComparison(
                 category.getId(),
                 category.getName(),
-                budgetedAmount,
-                actualAmount
+                budgetedByTag.getOrDefault(category.getId(), BigDecimal.ZERO),
+                actualByTag.getOrDefault(category.getId(), BigDecimal.ZERO)
             ));
         }
         
@@ -206,11 +267,7 @@ public class BudgetServiceImpl extends BaseService implements BudgetService {
             throw new IllegalArgumentException("Budget ID cannot be null");
         }
         
-        Budget budget = findById(budgetId).orElse(null);
-        if (budget == null) {
-            return BigDecimal.ZERO;
-        }
-        return calculateActualAmount(budget, budget.getStartDate(), budget.getEndDate());
+        return BudgetAlertEngine.getInstance().spentAmount(em, budgetId);
     }
 
     // ==================== FORECASTING AND PLANNING ====================
@@ -262,25 +319,52 @@ public class BudgetServiceImpl extends BaseService implements BudgetService {
     }
 
     /**
-     * Calculates the actual amount spent for a budget within a date range.
+     * Loads, in one query, the expenses of a date range carrying any of the given tags,
+     * with the tags they carry among them.
      * 
-     * @param budget the budget to calculate for
      * @param start the start date
      * @param end the end date
+     * @param tagIds the tags of interest
+     * @param tagsByExpense filled with the tags of interest of each expense
+     * @param amountByExpense filled with the amount of each expense
+     */
+    private void loadExpenseTags(LocalDate start, LocalDate end, Set<Long> tagIds,
+                                 Map<Long, Set<Long>> tagsByExpense, Map<Long, BigDecimal> amountByExpense) {
+        if (tagIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = em.createQuery(
+                "SELECT t.id, t.amount, tag.id FROM Transaction t JOIN t.tags tag " +
+                "WHERE t.isIncome = false AND t.date BETWEEN :start AND :end AND tag.id IN :tagIds",
+                Object[].class)
+            .setParameter("start", start)
+            .setParameter("end", end)
+            .setParameter("tagIds", tagIds)
+            .getResultList();
+        for (Object[] row : rows) {
+            amountByExpense.put((Long) row[0], ((BigDecimal) row[1]).abs());
+            tagsByExpense.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((Long) row[2]);
+        }
+    }
+
+    /**
+     * Calculates the actual amount spent for a budget: the expenses carrying any of the
+     * tags it covers, each counted once, as {@link BudgetAlertEngine} counts it.
+     * 
+     * @param covered the tags the budget covers
+     * @param tagsByExpense the tags of interest of each expense in the range
+     * @param amountByExpense the amount of each expense in the range
      * @return the actual amount spent
      */
-    private BigDecimal calculateActualAmount(Budget budget, LocalDate start, LocalDate end) {
-        Set<Long> tagIds = new HashSet<>();
-        for (Tag tag : budget.getTags()) {
-            tagIds.add(tag.getId());
-            tagService.findTagAndDescendants(tag).forEach(child -> tagIds.add(child.getId()));
+    private BigDecimal calculateActualAmount(Set<Long> covered, Map<Long, Set<Long>> tagsByExpense,
+                                             Map<Long, BigDecimal> amountByExpense) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Long, Set<Long>> expense : tagsByExpense.entrySet()) {
+            if (!Collections.disjoint(covered, expense.getValue())) {
+                total = total.add(amountByExpense.get(expense.getKey()));
+            }
         }
-        return tagIds.stream()
-            .flatMap(tagId -> transactionService.findByTag(tagId).stream())
-            .filter(t -> !t.getDate().isBefore(start) && !t.getDate().isAfter(end))
-            .filter(t -> !t.isIncome())
-            .map(t -> t.getAmount().abs())
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return total;
     }
 
     /**
@@ -0,0 +1,453 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import it.unicam.cs.mpgc.jbudget120002.model.EntityCallbacks;
+import it.unicam.cs.mpgc.jbudget120002.model.ScheduledTransaction;
+import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Writes many transactions and scheduled transactions in one database transaction
+ * through a Hibernate {@link StatelessSession}.
+ *
+ * <p>A stateless session keeps no persistence context: written entities get no
+ * dirty-checking snapshot, are never flushed twice and are not held in memory once
+ * written, so the cost of a batch grows with its size only. It does not cascade, manage
+ * collections or run entity listeners, so the writer does what those would have done:</p>
+ * <ul>
+ *   <li>The rows of the tag join tables are written by the writer itself, in JDBC
+ *   batches of {@value #BATCH_SIZE}</li>
+ *   <li>Each row written is reported through {@link EntityCallbacks}, which does for it
+ *   what the entity listeners would have; on commit {@link CommitHooks#afterCommit()}
+ *   publishes the writes, so the shared indexes are updated for those rows only and a
+ *   ledger event is published per row</li>
+ *   <li>Instances of updated rows held by the EntityManager that opened the writer are
+ *   refreshed, so that its persistence context does not show stale values</li>
+ *   <li>References the database may not have, from entities read elsewhere (the sync
+ *   file), are resolved first: tags by ID, then by name, and inserted as root tags if
+ *   neither finds them; scheduled transactions by ID, or through the ones inserted by
+ *   this writer. A scheduled transaction not found is dropped from the reference</li>
+ * </ul>
+ *
+ * <p>{@link #upsertTransactions(Collection)} and {@link #upsertScheduled(Collection)}
+ * update the rows whose ID the database has and insert the others, which get a new ID;
+ * which IDs exist is read with one query per {@value #ID_CHUNK_SIZE} rows.</p>
+ *
+ * <p>Used by the scheduled transaction generation and by sync apply, which imports the
+ * changes read from the sync file.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * try (BulkWriter writer = BulkWriter.open(em)) {
+ *     for (Transaction transaction : occurrences) {
+ *         writer.insert(transaction);
+ *     }
+ *     writer.commit();
+ * }
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class BulkWriter implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkWriter.class.getName());
+
+    /** Statements sent to the database in one JDBC batch */
+    public static final int BATCH_SIZE = 100;
+
+    /** IDs bound to one IN list when looking up existing rows */
+    public static final int ID_CHUNK_SIZE = 500;
+
+    private static final String TRANSACTION_TAGS = "transaction_tags";
+    private static final String SCHEDULED_TRANSACTION_TAGS = "scheduled_transaction_tags";
+
+    private final EntityManager entityManager;
+    private final StatelessSession session;
+    private final org.hibernate.Transaction transaction;
+    private final Map<String, List<Long[]>> pendingLinks = new LinkedHashMap<>();
+    private final Map<String, List<Long>> pendingUnlinks = new LinkedHashMap<>();
+    private final List<Object> updated = new ArrayList<>();
+    /** Local tag of each tag ID referenced so far */
+    private final Map<Long, Tag> resolvedTags = new HashMap<>();
+    /** Local scheduled transaction of each scheduled transaction ID referenced so far, null if missing */
+    private final Map<Long, ScheduledTransaction> resolvedScheduled = new HashMap<>();
+    private long insertCount;
+    private boolean committed;
+
+    private BulkWriter(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.session = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).openStatelessSession();
+        this.session.setJdbcBatchSize(BATCH_SIZE);
+        this.transaction = session.beginTransaction();
+    }
+
+    /**
+     * Opens a writer and begins its database transaction.
+     *
+     * @param entityManager the EntityManager whose persistence context is kept current
+     * @return the writer
+     * @throws IllegalArgumentException if entityManager is null
+     */
+    public static BulkWriter open(EntityManager entityManager) {
+        if (entityManager == null) {
+            throw new IllegalArgumentException("EntityManager cannot be null");
+        }
+        return new BulkWriter(entityManager);
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Inserts a transaction and links it to its tags.
+     *
+     * @param transaction the new transaction; the insert sets its ID
+     * @return the generated ID
+     */
+    public Long insert(Transaction transaction) {
+        if (transaction == null) {
+            throw new IllegalArgumentException("Transaction cannot be null");
+        }
+        resolveReferences(transaction);
+        // An ID the database does not have is replaced by a generated one
+        Long id = (Long) session.insert(transaction);
+        insertCount++;
+        link(TRANSACTION_TAGS, id, transaction.getTags());
+        EntityCallbacks.afterInsert(transaction);
+        return id;
+    }
+
+    /**
+     * Inserts a scheduled transaction and links it to its tags.
+     *
+     * @param scheduled the new scheduled transaction; the insert sets its ID
+     * @return the generated ID
+     */
+    public Long insert(ScheduledTransaction scheduled) {
+        if (scheduled == null) {
+            throw new IllegalArgumentException("Scheduled transaction cannot be null");
+        }
+        Long previousId = scheduled.getId();
+        resolveTags(scheduled);
+        Long id = (Long) session.insert(scheduled);
+        insertCount++;
+        if (previousId != null) {
+            resolvedScheduled.put(previousId, scheduled);
+        }
+        link(SCHEDULED_TRANSACTION_TAGS, id, scheduled.getTags());
+        EntityCallbacks.afterInsert(scheduled);
+        return id;
+    }
+
+    /**
+     * Updates a transaction, replacing its tag links if its tags are loaded.
+     *
+     * @param transaction the transaction, with its ID
+     * @param previous the row it replaces
+     */
+    private void update(Transaction transaction, StoredTransaction previous) {
+        resolveReferences(transaction);
+        session.update(transaction);
+        updated.add(transaction);
+        relink(TRANSACTION_TAGS, transaction, transaction.getId(), transaction.getTags());
+        EntityCallbacks.afterUpdate(transaction, previous.ownerId());
+    }
+
+    /**
+     * Updates a scheduled transaction, replacing its tag links if its tags are loaded.
+     *
+     * @param scheduled the scheduled transaction, with its ID
+     */
+    public void update(ScheduledTransaction scheduled) {
+        if (scheduled == null) {
+            throw new IllegalArgumentException("Scheduled transaction cannot be null");
+        }
+        resolveTags(scheduled);
+        session.update(scheduled);
+        resolvedScheduled.put(scheduled.getId(), scheduled);
+        updated.add(scheduled);
+        relink(SCHEDULED_TRANSACTION_TAGS, scheduled, scheduled.getId(), scheduled.getTags());
+        EntityCallbacks.afterUpdate(scheduled);
+    }
+
+    /**
+     * Updates the transactions whose ID the database has and inserts the others.
+     *
+     * @param transactions the transactions, read from outside this database
+     */
+    public void upsertTransactions(Collection<Transaction> transactions) {
+        Map<Long, StoredTransaction> existing = storedTransactions(
+            transactions.stream().map(Transaction::getId).toList());
+        for (Transaction transaction : transactions) {
+            StoredTransaction previous = existing.get(transaction.getId());
+            if (previous != null) {
+                update(transaction, previous);
+            } else {
+                insert(transaction);
+            }
+        }
+    }
+
+    /**
+     * Updates the scheduled transactions whose ID the database has and inserts the
+     * others. Transactions written afterwards that reference an inserted one are linked
+     * to it.
+     *
+     * @param schedules the scheduled transactions, read from outside this database
+     */
+    public void upsertScheduled(Collection<ScheduledTransaction> schedules) {
+        Set<Long> existing = existingIds(ScheduledTransaction.class,
+            schedules.stream().map(ScheduledTransaction::getId).toList());
+        for (ScheduledTransaction scheduled : schedules) {
+            if (existing.contains(scheduled.getId())) {
+                update(scheduled);
+            } else {
+                insert(scheduled);
+            }
+        }
+    }
+
+    // ==================== COMPLETION ====================
+
+    /**
+     * Writes the pending tag links, commits, publishes the writes to the shared indexes
+     * and refreshes the stale instances of the EntityManager.
+     */
+    public void commit() {
+        writeLinks();
+        transaction.commit();
+        committed = true;
+        CommitHooks.afterCommit();
+        refreshManagedInstances();
+        LOGGER.fine("Bulk write committed " + insertCount + " inserts and " + updated.size() + " updates");
+    }
+
+    /**
+     * Rolls back unless committed, and closes the stateless session.
+     */
+    @Override
+    public void close() {
+        try {
+            if (!committed && transaction.isActive()) {
+                transaction.rollback();
+                CommitHooks.afterRollback();
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    // ==================== REFERENCES ====================
+
+    /** What the balance index needs of a stored transaction */
+    private record StoredTransaction(Long ownerId) {}
+
+    private Set<Long> existingIds(Class<?> entity, List<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        for (List<Long> chunk : chunks(ids)) {
+            existing.addAll(session.createQuery(
+                    "SELECT e.id FROM " + entity.getSimpleName() + " e WHERE e.id IN :ids", Long.class)
+                .setParameter("ids", chunk)
+                .getResultList());
+        }
+        return existing;
+    }
+
+    private Map<Long, StoredTransaction> storedTransactions(List<Long> ids) {
+        Map<Long, StoredTransaction> stored = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            List<Object[]> rows = session.createQuery("SELECT t.id, u.id "
+                    + "FROM Transaction t LEFT JOIN t.user u WHERE t.id IN :ids", Object[].class)
+                .setParameter("ids", chunk)
+                .getResultList();
+            for (Object[] row : rows) {
+                stored.put((Long) row[0], new StoredTransaction((Long) row[1]));
+            }
+        }
+        return stored;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<Long> wanted = ids.stream().filter(id -> id != null).distinct().toList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < wanted.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(wanted.subList(from, Math.min(from + ID_CHUNK_SIZE, wanted.size())));
+        }
+        return chunks;
+    }
+
+    private void resolveReferences(Transaction transaction) {
+        if (isLoaded(transaction, "tags")) {
+            List<Tag> tags = resolveTags(transaction.getTags());
+            if (tags != null) {
+                transaction.setTags(tags);
+            }
+        }
+        ScheduledTransaction scheduled = transaction.getScheduledTransaction();
+        if (scheduled != null && scheduled.getId() != null && !entityManager.contains(scheduled)) {
+            if (!resolvedScheduled.containsKey(scheduled.getId())) {
+                resolvedScheduled.put(scheduled.getId(),
+                    session.get(ScheduledTransaction.class, scheduled.getId()) != null ? scheduled : null);
+            }
+            ScheduledTransaction local = resolvedScheduled.get(scheduled.getId());
+            if (local == null) {
+                LOGGER.warning("Scheduled transaction " + scheduled.getId()
+                    + " not found; transaction written without it");
+            }
+            transaction.setScheduledTransaction(local);
+        }
+    }
+
+    private void resolveTags(ScheduledTransaction scheduled) {
+        if (isLoaded(scheduled, "tags")) {
+            List<Tag> tags = resolveTags(scheduled.getTags());
+            if (tags != null) {
+                scheduled.setTags(new HashSet<>(tags));
+            }
+        }
+    }
+
+    /**
+     * Returns the local tags of some tags, or null if all of them are the local ones.
+     */
+    private List<Tag> resolveTags(Collection<Tag> tags) {
+        List<Tag> resolved = new ArrayList<>(tags.size());
+        boolean changed = false;
+        for (Tag tag : tags) {
+            Tag local = resolveTag(tag);
+            changed |= local != tag;
+            if (local != null) {
+                resolved.add(local);
+            }
+        }
+        return changed ? resolved : null;
+    }
+
+    private Tag resolveTag(Tag tag) {
+        if (tag == null || entityManager.contains(tag)) {
+            return tag;
+        }
+        if (tag.getId() != null && resolvedTags.containsKey(tag.getId())) {
+            return resolvedTags.get(tag.getId());
+        }
+        Tag local = tag.getId() != null && session.get(Tag.class, tag.getId()) != null ? tag : null;
+        boolean named = tag.getName() != null && !tag.getName().isBlank();
+        if (local == null && named) {
+            local = session.createQuery("SELECT t FROM Tag t WHERE t.name = :name ORDER BY t.id", Tag.class)
+                .setParameter("name", tag.getName().trim())
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+        }
+        if (local == null && named) {
+            // Its parent may be missing too; the user can move it afterwards
+            local = new Tag(tag.getName());
+            session.insert(local);
+            insertCount++;
+            EntityCallbacks.afterInsert(local);
+            LOGGER.info("Created tag '" + local.getName() + "' referenced by written rows");
+        }
+        if (tag.getId() != null) {
+            resolvedTags.put(tag.getId(), local);
+        }
+        return local;
+    }
+
+    private boolean isLoaded(Object entity, String attribute) {
+        return entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(entity, attribute);
+    }
+
+    // ==================== TAG LINKS ====================
+
+    private void link(String table, Long ownerId, Collection<Tag> tags) {
+        List<Long[]> links = pendingLinks.computeIfAbsent(table, t -> new ArrayList<>());
+        for (Tag tag : tags) {
+            if (tag != null && tag.getId() != null) {
+                links.add(new Long[]{ownerId, tag.getId()});
+            }
+        }
+        if (links.size() >= BATCH_SIZE) {
+            writeLinks();
+        }
+    }
+
+    private void relink(String table, Object owner, Long ownerId, Collection<Tag> tags) {
+        // Tags never loaded for a detached entity are left as they are in the database
+        if (!isLoaded(owner, "tags")) {
+            return;
+        }
+        pendingUnlinks.computeIfAbsent(table, t -> new ArrayList<>()).add(ownerId);
+        link(table, ownerId, tags);
+    }
+
+    private void writeLinks() {
+        if (pendingLinks.values().stream().allMatch(List::isEmpty)
+                && pendingUnlinks.values().stream().allMatch(List::isEmpty)) {
+            return;
+        }
+        session.doWork(connection -> {
+            // Unlinks first, so that relinked owners end up with exactly their new tags
+            for (Map.Entry<String, List<Long>> entry : pendingUnlinks.entrySet()) {
+                try (PreparedStatement delete = connection.prepareStatement(
+                        "DELETE FROM " + entry.getKey() + " WHERE " + ownerColumn(entry.getKey()) + " = ?")) {
+                    for (Long ownerId : entry.getValue()) {
+                        delete.setLong(1, ownerId);
+                        delete.addBatch();
+                    }
+                    delete.executeBatch();
+                }
+                entry.getValue().clear();
+            }
+            for (Map.Entry<String, List<Long[]>> entry : pendingLinks.entrySet()) {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO " + entry.getKey() + " (" + ownerColumn(entry.getKey()) + ", tag_id) VALUES (?, ?)")) {
+                    for (Long[] link : entry.getValue()) {
+                        insert.setLong(1, link[0]);
+                        insert.setLong(2, link[1]);
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+                entry.getValue().clear();
+            }
+        });
+    }
+
+    private static String ownerColumn(String table) {
+        return TRANSACTION_TAGS.equals(table) ? "transaction_id" : "scheduled_transaction_id";
+    }
+
+    // ==================== PERSISTENCE CONTEXT ====================
+
+    private void refreshManagedInstances() {
+        if (updated.isEmpty() || !entityManager.isOpen()) {
+            return;
+        }
+        SessionImplementor owner = entityManager.unwrap(SessionImplementor.class);
+        for (Object entity : updated) {
+            EntityPersister persister = owner.getEntityPersister(null, entity);
+            Object id = persister.getIdentifier(entity, owner);
+            Object managed = owner.getPersistenceContextInternal().getEntity(owner.generateEntityKey(id, persister));
+            if (managed != null) {
+                entityManager.refresh(managed);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+/**
+ * What every place that ends a database transaction must tell the shared in-memory
+ * indexes, in one place.
+ *
+ * <p>{@link BalanceIndex}, {@link VisibilityIndex}, {@link LedgerVersion},
+ * {@link BudgetAlertEngine} and {@link LedgerEventBus} hear of changes while they are flushed and are shared by every
+ * EntityManager, so they need to know whether those changes were committed or rolled
+ * back. Code that commits or rolls back an {@link jakarta.persistence.EntityTransaction}
+ * itself calls one of these methods right after. Writes that bypass the persistence
+ * context report each row through {@link it.unicam.cs.mpgc.jbudget120002.model.EntityCallbacks}
+ * first, so they are published the same way.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * em.getTransaction().commit();
+ * CommitHooks.afterCommit();
+ *
+ * em.getTransaction().rollback();
+ * CommitHooks.afterRollback();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class CommitHooks {
+
+    private CommitHooks() {
+    }
+
+    /**
+     * Publishes what the current thread's committed transaction changed.
+     */
+    public static void afterCommit() {
+        BalanceIndex.getInstance().publishPending();
+        VisibilityIndex.getInstance().publishPending();
+        LedgerVersion.getInstance().publishPending();
+        LedgerEventBus.getInstance().publishPending();
+        // After the writes' own events, so subscribers see the cause before the alert
+        BudgetAlertEngine.getInstance().publishPending();
+    }
+
+    /**
+     * Forgets what the current thread's rolled back transaction changed. Indexes that
+     * flushed changes were already applied to are rebuilt on their next query.
+     */
+    public static void afterRollback() {
+        BalanceIndex.getInstance().discardPending();
+        VisibilityIndex.getInstance().invalidate();
+        VisibilityIndex.getInstance().discardPending();
+        LedgerVersion.getInstance().discardPending();
+        BudgetAlertEngine.getInstance().discardPending();
+        LedgerEventBus.getInstance().discardPending();
+    }
+}
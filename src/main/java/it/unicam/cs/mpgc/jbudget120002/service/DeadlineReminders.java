@@ -0,0 +1,284 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import it.unicam.cs.mpgc.jbudget120002.model.Deadline;
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+import it.unicam.cs.mpgc.jbudget120002.util.HierarchicalTimingWheel;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reminders for unpaid deadlines, delivered when they come due rather than found by
+ * rescanning the deadlines on every refresh.
+ *
+ * <p>Each unpaid {@link Deadline} gets two timers in a {@link HierarchicalTimingWheel}
+ * with one-minute ticks: a {@link Kind#DUE_SOON} reminder {@value #DUE_SOON_DAYS} days
+ * before its due date and a {@link Kind#OVERDUE} reminder the day after. A single daemon
+ * thread sleeps until the next timer is due, so nothing runs between reminders. Due
+ * reminders are handed to the registered listeners (on that thread) and published on the
+ * {@link LedgerEventBus}. The deadline service keeps the timers up to date as deadlines
+ * are created, changed, paid or deleted.</p>
+ *
+ * <p>A reminder whose time has already passed when it would be scheduled is not
+ * scheduled, except the overdue one of a deadline moved into the past: the banner lists
+ * what is already due when it is shown. Timers are only replaced when the due date or
+ * the paid state of a deadline changes, so editing a deadline, or launching the
+ * application again, does not repeat reminders that already came due.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * DeadlineReminders reminders = DeadlineReminders.getInstance();
+ * reminders.addListener(reminder -> Platform.runLater(this::updateNotifications));
+ * reminders.track(deadline);      // after it was saved
+ * reminders.untrack(deadlineId);  // after it was deleted
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class DeadlineReminders {
+
+    private static final Logger LOGGER = Logger.getLogger(DeadlineReminders.class.getName());
+
+    /** How many days before its due date a deadline is reminded */
+    public static final int DUE_SOON_DAYS = 3;
+
+    private static final long TICK_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int WHEEL_SIZE = 60;
+
+    private static final DeadlineReminders INSTANCE = new DeadlineReminders();
+
+    /**
+     * The kinds of reminders.
+     */
+    public enum Kind {
+        DUE_SOON,
+        OVERDUE
+    }
+
+    /**
+     * A reminder that came due.
+     *
+     * @param deadlineId the deadline
+     * @param userId the owner of the deadline, or null for shared deadlines
+     * @param description the description of the deadline
+     * @param dueDate the due date
+     * @param amount the amount due
+     * @param kind whether the deadline is due soon or overdue
+     */
+    public record Reminder(Long deadlineId, Long userId, String description, LocalDate dueDate, double amount,
+                           Kind kind) {}
+
+    private final HierarchicalTimingWheel<Reminder> wheel =
+        new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+    private final Map<Long, List<HierarchicalTimingWheel.Timer<Reminder>>> timersByDeadline = new HashMap<>();
+    /** Due date each unpaid deadline was scheduled for, kept after its reminders fire */
+    private final Map<Long, LocalDate> scheduledDueDates = new HashMap<>();
+    private final List<Consumer<Reminder>> listeners = new CopyOnWriteArrayList<>();
+
+    /** Guarded by this */
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> wakeUp;
+    private long wakeUpAt = Long.MAX_VALUE;
+    private boolean loaded = false;
+
+    private DeadlineReminders() {
+    }
+
+    /**
+     * Gets the application-wide deadline reminders.
+     *
+     * @return the shared instance
+     */
+    public static DeadlineReminders getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Schedules the reminders of the given unpaid deadlines, the first time it is called.
+     *
+     * @param unpaidDeadlines the unpaid deadlines not yet past their overdue reminder
+     * @return true if the deadlines were loaded, false if reminders were already loaded
+     */
+    public synchronized boolean load(List<Deadline> unpaidDeadlines) {
+        if (loaded) {
+            return false;
+        }
+        unpaidDeadlines.forEach(this::schedule);
+        loaded = true;
+        rescheduleWakeUp();
+        LOGGER.info("Scheduled reminders for " + timersByDeadline.size() + " unpaid deadlines");
+        return true;
+    }
+
+    /**
+     * Tells whether the unpaid deadlines have been loaded.
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Stops the reminder thread and forgets every timer.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        wakeUp = null;
+        wakeUpAt = Long.MAX_VALUE;
+        timersByDeadline.values().forEach(timers -> timers.forEach(wheel::cancel));
+        timersByDeadline.clear();
+        scheduledDueDates.clear();
+        loaded = false;
+    }
+
+    // ==================== TRACKING ====================
+
+    /**
+     * Schedules the reminders of a saved deadline, replacing its previous ones if its due
+     * date or paid state changed. Paid deadlines have none. Ignored until the reminders
+     * are loaded.
+     *
+     * @param deadline the created or updated deadline
+     */
+    public synchronized void track(Deadline deadline) {
+        if (!loaded || deadline == null || deadline.getId() == null) {
+            return;
+        }
+        LocalDate dueDate = deadline.isPaid() ? null : deadline.getDueDate();
+        if (Objects.equals(scheduledDueDates.get(deadline.getId()), dueDate)) {
+            return;
+        }
+        cancelTimers(deadline.getId());
+        schedule(deadline);
+        rescheduleWakeUp();
+    }
+
+    /**
+     * Cancels the reminders of a deleted deadline.
+     *
+     * @param deadlineId the deleted deadline
+     */
+    public synchronized void untrack(Long deadlineId) {
+        if (deadlineId != null) {
+            cancelTimers(deadlineId);
+            scheduledDueDates.remove(deadlineId);
+        }
+    }
+
+    public void addListener(Consumer<Reminder> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Reminder> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the number of pending reminders.
+     */
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void schedule(Deadline deadline) {
+        if (deadline.isPaid() || deadline.getDueDate() == null) {
+            scheduledDueDates.remove(deadline.getId());
+            return;
+        }
+        scheduledDueDates.put(deadline.getId(), deadline.getDueDate());
+        Long userId = deadline.getUser() != null ? deadline.getUser().getId() : null;
+        List<HierarchicalTimingWheel.Timer<Reminder>> timers = new ArrayList<>(2);
+        LocalDate dueSoon = deadline.getDueDate().minusDays(DUE_SOON_DAYS);
+        LocalDate overdue = deadline.getDueDate().plusDays(1);
+        if (startOf(dueSoon) > System.currentTimeMillis()) {
+            timers.add(wheel.schedule(new Reminder(deadline.getId(), userId, deadline.getDescription(),
+                deadline.getDueDate(), deadline.getAmount(), Kind.DUE_SOON), startOf(dueSoon)));
+        }
+        timers.add(wheel.schedule(new Reminder(deadline.getId(), userId, deadline.getDescription(),
+            deadline.getDueDate(), deadline.getAmount(), Kind.OVERDUE), startOf(overdue)));
+        timersByDeadline.put(deadline.getId(), timers);
+    }
+
+    private void cancelTimers(Long deadlineId) {
+        List<HierarchicalTimingWheel.Timer<Reminder>> timers = timersByDeadline.remove(deadlineId);
+        if (timers != null) {
+            timers.forEach(wheel::cancel);
+        }
+    }
+
+    /**
+     * Makes the reminder thread wake up when the earliest timer is due.
+     */
+    private void rescheduleWakeUp() {
+        long next = wheel.nextExpiration();
+        if (next == Long.MAX_VALUE || (wakeUp != null && !wakeUp.isDone() && wakeUpAt <= next)) {
+            return;
+        }
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "deadline-reminders");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpAt = next;
+        wakeUp = executor.schedule(this::fireDueReminders,
+            Math.max(0L, next - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void fireDueReminders() {
+        List<Reminder> due = new ArrayList<>();
+        synchronized (this) {
+            wakeUp = null;
+            wakeUpAt = Long.MAX_VALUE;
+            wheel.advanceTo(System.currentTimeMillis(), due::add);
+            for (Reminder reminder : due) {
+                List<HierarchicalTimingWheel.Timer<Reminder>> timers = timersByDeadline.get(reminder.deadlineId());
+                if (timers != null && timers.stream().noneMatch(HierarchicalTimingWheel.Timer::isPending)) {
+                    timersByDeadline.remove(reminder.deadlineId());
+                }
+            }
+            rescheduleWakeUp();
+        }
+        for (Reminder reminder : due) {
+            LedgerEventBus.getInstance().publish(
+                reminder.kind() == Kind.OVERDUE ? LedgerEvent.Type.DEADLINE_OVERDUE : LedgerEvent.Type.DEADLINE_DUE_SOON,
+                reminder.userId(), reminder.deadlineId(), reminder.dueDate());
+            for (Consumer<Reminder> listener : listeners) {
+                try {
+                    listener.accept(reminder);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Deadline reminder listener failed", e);
+                }
+            }
+        }
+    }
+
+    private static long startOf(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
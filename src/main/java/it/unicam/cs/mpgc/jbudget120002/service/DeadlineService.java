@@ -1,7 +1,9 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Deadline;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +27,24 @@ public interface DeadlineService {
     Optional<Deadline> findById(Long id);
     List<Deadline> findAll();
     List<Deadline> findDueBefore(LocalDate date);
+
+    /**
+     * Finds the deadlines of a user due in a month, in due-date order. Shared deadlines
+     * (without a user) are included; a null user means every deadline.
+     */
+    List<Deadline> findForMonth(User user, YearMonth month);
+
+    /**
+     * Finds the unpaid deadlines of a user due before a date, in due-date order: the
+     * overdue ones for today, or those due soon or overdue for a later date.
+     */
+    List<Deadline> findUnpaidDueBefore(User user, LocalDate date);
+
+    /**
+     * Schedules the reminders of the unpaid deadlines still to come, once per application
+     * run; later creations, updates and deletions keep them up to date.
+     */
+    void startReminders();
     Deadline update(Deadline d);
     void delete(Long id);
 }
@@ -1,9 +1,11 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Deadline;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
 import it.unicam.cs.mpgc.jbudget120002.repository.DeadlineRepository;
 import jakarta.persistence.EntityManager;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,11 +20,13 @@ public class DeadlineServiceImpl extends BaseService implements DeadlineService
 
     @Override
     public Deadline create(Deadline d) {
-        return executeInTransaction(() -> {
+        Deadline created = executeInTransaction(() -> {
             repo.save(d);
             em.flush(); // Ensure the entity is persisted immediately
             return d;
         });
+        DeadlineReminders.getInstance().track(created);
+        return created;
     }
 
     @Override
@@ -40,13 +44,39 @@ public class DeadlineServiceImpl extends BaseService implements DeadlineService
         return repo.findByDueDateBefore(date);
     }
 
+    @Override
+    public List<Deadline> findForMonth(User user, YearMonth month) {
+        if (month == null) {
+            throw new IllegalArgumentException("Month cannot be null");
+        }
+        return repo.findByUserAndDueDateBetween(user, month.atDay(1), month.atEndOfMonth());
+    }
+
+    @Override
+    public List<Deadline> findUnpaidDueBefore(User user, LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("Date cannot be null");
+        }
+        return repo.findUnpaidByUserDueBefore(user, date);
+    }
+
+    @Override
+    public void startReminders() {
+        DeadlineReminders reminders = DeadlineReminders.getInstance();
+        if (!reminders.isLoaded()) {
+            reminders.load(repo.findUnpaidDueFrom(LocalDate.now()));
+        }
+    }
+
     @Override
     public Deadline update(Deadline d) {
-        return executeInTransaction(() -> {
+        Deadline updated = executeInTransaction(() -> {
             repo.save(d);
             em.flush(); // Ensure the entity is persisted immediately
             return d;
         });
+        DeadlineReminders.getInstance().track(updated);
+        return updated;
     }
 
     @Override
@@ -55,5 +85,6 @@ public class DeadlineServiceImpl extends BaseService implements DeadlineService
             repo.findById(id).ifPresent(repo::delete);
             em.flush(); // Ensure the entity is deleted immediately
         });
+        DeadlineReminders.getInstance().untrack(id);
     }
 }
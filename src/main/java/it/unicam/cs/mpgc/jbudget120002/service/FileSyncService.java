@@ -3,6 +3,7 @@ package it.unicam.cs.mpgc.jbudget120002.service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.SyncPhaseEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.*;
 import jakarta.persistence.EntityManager;
 import java.io.*;
@@ -78,19 +79,29 @@ public class FileSyncService implements SyncService {
         isSyncing = true;
         try {
             // Get local changes
+            SyncPhaseEvent phase = SyncPhaseEvent.start("collect");
             Map<String, List<?>> localChanges = getChangesSince(lastSyncTime);
+            phase.finish(localChanges);
             
             // Read remote changes from file
+            phase = SyncPhaseEvent.start("read");
             Map<String, List<?>> remoteChanges = readRemoteChanges();
+            phase.finish(remoteChanges);
             
             // Resolve conflicts
+            phase = SyncPhaseEvent.start("resolve");
             Map<String, List<?>> resolvedChanges = resolveConflicts(localChanges, remoteChanges);
+            phase.finish(resolvedChanges);
             
             // Apply changes
+            phase = SyncPhaseEvent.start("apply");
             applyChanges(resolvedChanges);
+            phase.finish(resolvedChanges);
             
             // Write changes to file
+            phase = SyncPhaseEvent.start("write");
             writeChangesToFile(resolvedChanges);
+            phase.finish(resolvedChanges);
             
             // Update sync time
             this.lastSyncTime = LocalDateTime.now();
@@ -132,10 +143,15 @@ public class FileSyncService implements SyncService {
 
     @Override
     public Map<String, List<?>> getChangesSince(LocalDateTime lastSyncTime) {
+        // Exported entities are only serialized, so they are loaded read-only
+        return ReadOnlyWork.run(entityManager, () -> collectChanges(lastSyncTime));
+    }
+
+    private Map<String, List<?>> collectChanges(LocalDateTime lastSyncTime) {
         Map<String, List<?>> changes = new HashMap<>();
         
         // Get changed transactions
-        List<Transaction> transactions = transactionService.findByDateRange(
+        List<Transaction> transactions = transactionService.findForExport(
             lastSyncTime.toLocalDate(), LocalDateTime.now().toLocalDate());
         if (!transactions.isEmpty()) {
             changes.put("transactions", transactions);
@@ -153,46 +169,22 @@ public class FileSyncService implements SyncService {
 
     @Override
     public void applyChanges(Map<String, List<?>> changes) {
-        entityManager.getTransaction().begin();
-        try {
-            for (Map.Entry<String, List<?>> entry : changes.entrySet()) {
-                String entityType = entry.getKey();
-                List<?> entities = entry.getValue();
-                
-                switch (entityType) {
-                    case "transactions":
-                        for (Object entity : entities) {
-                            if (entity instanceof Transaction) {
-                                Transaction transaction = (Transaction) entity;
-                                if (transaction.getId() == null) {
-                                    entityManager.persist(transaction);
-                                } else {
-                                    entityManager.merge(transaction);
-                                }
-                            }
-                        }
-                        break;
-                    case "scheduledTransactions":
-                        for (Object entity : entities) {
-                            if (entity instanceof ScheduledTransaction) {
-                                ScheduledTransaction scheduled = (ScheduledTransaction) entity;
-                                if (scheduled.getId() == null) {
-                                    entityManager.persist(scheduled);
-                                } else {
-                                    entityManager.merge(scheduled);
-                                }
-                            }
-                        }
-                        break;
-                }
-            }
-            entityManager.getTransaction().commit();
-        } catch (Exception e) {
-            entityManager.getTransaction().rollback();
-            throw e;
+        // Written through a stateless session: the applied entities are neither
+        // dirty-checked nor kept in the persistence context once written
+        try (BulkWriter writer = BulkWriter.open(entityManager)) {
+            // Schedules first, so that the transactions generated from new ones link to them
+            writer.upsertScheduled(entitiesOf(changes, "scheduledTransactions", ScheduledTransaction.class));
+            writer.upsertTransactions(entitiesOf(changes, "transactions", Transaction.class));
+            // Commits and, since a sync can replace data wholesale, rebuilds every index
+            writer.commit();
         }
     }
 
+    private static <T> List<T> entitiesOf(Map<String, List<?>> changes, String entityType, Class<T> type) {
+        List<?> entities = changes.getOrDefault(entityType, List.of());
+        return entities.stream().filter(type::isInstance).map(type::cast).toList();
+    }
+
     @Override
     public SyncStatus getSyncStatus() {
         return new SyncStatus(
@@ -0,0 +1,142 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Closure of the group hierarchy: for every group, the groups of its subtree and the
+ * users belonging to any of them.
+ *
+ * <p>{@link it.unicam.cs.mpgc.jbudget120002.model.Group#getAllDescendants()} and
+ * {@link it.unicam.cs.mpgc.jbudget120002.model.Group#getAllUsers()} walk lazy
+ * collections recursively, loading each level with its own queries. The closure is
+ * instead built from two scalar queries (every parent link and every membership) and
+ * answers both questions with a map lookup. It is rebuilt on first use after the
+ * {@link VisibilityIndex} was invalidated, which happens whenever users, groups or
+ * memberships change.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * GroupClosure closure = GroupClosure.getInstance();
+ * Set<Long> household = closure.subtreeGroups(em, familyId);   // the family and its sub-households
+ * Set<Long> members = closure.subtreeMembers(em, familyId);    // everybody in any of them
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class GroupClosure {
+
+    private static final GroupClosure INSTANCE = new GroupClosure();
+
+    /** Group ID to the IDs of the group and all its descendants */
+    private Map<Long, Set<Long>> subtrees = Collections.emptyMap();
+
+    /** Group ID to the IDs of the users of the group and all its descendants */
+    private Map<Long, Set<Long>> members = Collections.emptyMap();
+
+    /** The visibility generation the closure was built at, or -1 if never built */
+    private long builtAt = -1;
+
+    private GroupClosure() {
+    }
+
+    /**
+     * Gets the application-wide group closure.
+     *
+     * @return the shared instance
+     */
+    public static GroupClosure getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Returns a group and all its descendants.
+     *
+     * @param em the EntityManager used if the closure must be rebuilt
+     * @param groupId the root of the subtree
+     * @return the group IDs of the subtree, empty if the group does not exist
+     * @throws IllegalArgumentException if groupId is null
+     */
+    public synchronized Set<Long> subtreeGroups(EntityManager em, Long groupId) {
+        if (groupId == null) {
+            throw new IllegalArgumentException("Group ID cannot be null");
+        }
+        ensureBuilt(em);
+        return subtrees.getOrDefault(groupId, Collections.emptySet());
+    }
+
+    /**
+     * Returns the users of a group and of all its descendants.
+     *
+     * @param em the EntityManager used if the closure must be rebuilt
+     * @param groupId the root of the subtree
+     * @return the user IDs, empty if the group does not exist or has no members
+     * @throws IllegalArgumentException if groupId is null
+     */
+    public synchronized Set<Long> subtreeMembers(EntityManager em, Long groupId) {
+        if (groupId == null) {
+            throw new IllegalArgumentException("Group ID cannot be null");
+        }
+        ensureBuilt(em);
+        return members.getOrDefault(groupId, Collections.emptySet());
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void ensureBuilt(EntityManager em) {
+        long generation = VisibilityIndex.getInstance().getGeneration();
+        if (builtAt == generation) {
+            return;
+        }
+        Map<Long, List<Long>> children = new HashMap<>();
+        Set<Long> groupIds = new HashSet<>();
+        for (Object[] row : em.createQuery(
+                "SELECT g.id, p.id FROM Group g LEFT JOIN g.parent p", Object[].class).getResultList()) {
+            Long id = (Long) row[0];
+            groupIds.add(id);
+            if (row[1] != null) {
+                children.computeIfAbsent((Long) row[1], k -> new ArrayList<>()).add(id);
+            }
+        }
+        Map<Long, Set<Long>> directMembers = new HashMap<>();
+        for (Object[] row : em.createQuery(
+                "SELECT g.id, u.id FROM Group g JOIN g.users u", Object[].class).getResultList()) {
+            directMembers.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((Long) row[1]);
+        }
+
+        Map<Long, Set<Long>> newSubtrees = new HashMap<>();
+        Map<Long, Set<Long>> newMembers = new HashMap<>();
+        for (Long root : groupIds) {
+            Set<Long> subtree = new HashSet<>();
+            Set<Long> users = new HashSet<>();
+            Deque<Long> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                Long id = pending.pop();
+                // The visited check also stops at a parent cycle
+                if (subtree.add(id)) {
+                    users.addAll(directMembers.getOrDefault(id, Collections.emptySet()));
+                    children.getOrDefault(id, Collections.emptyList()).forEach(pending::push);
+                }
+            }
+            newSubtrees.put(root, Collections.unmodifiableSet(subtree));
+            newMembers.put(root, Collections.unmodifiableSet(users));
+        }
+        subtrees = newSubtrees;
+        members = newMembers;
+        builtAt = generation;
+    }
+}
@@ -1,8 +1,10 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Group;
+import it.unicam.cs.mpgc.jbudget120002.model.GroupRollup;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -71,4 +73,15 @@ public interface GroupService {
      * @return A list of users in the group.
      */
     List<User> getUsersInGroup(Long groupId);
-} 
\ No newline at end of file
+
+    /**
+     * Computes the consolidated monthly income, expenses and spend per tag of a group
+     * and all its sub-groups.
+     *
+     * @param groupId The ID of the root group.
+     * @param startDate The first day included.
+     * @param endDate The last day included.
+     * @return The rollup, with no months if the subtree has no members.
+     */
+    GroupRollup getSubtreeRollup(Long groupId, LocalDate startDate, LocalDate endDate);
+}
@@ -1,13 +1,23 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Group;
+import it.unicam.cs.mpgc.jbudget120002.model.GroupRollup;
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
 import it.unicam.cs.mpgc.jbudget120002.repository.GroupRepository;
 import it.unicam.cs.mpgc.jbudget120002.repository.UserRepository;
 import jakarta.persistence.EntityManager;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class GroupServiceImpl extends BaseService implements GroupService {
 
@@ -60,6 +70,10 @@ public class GroupServiceImpl extends BaseService implements GroupService {
                 group.addUser(user);
                 groupRepository.save(group);
                 em.flush();
+                // Only the join table changes, which fires no entity callback
+                VisibilityIndex.getInstance().onMembershipChanged();
+                LedgerVersion.getInstance().onUsersChanged();
+                LedgerEventBus.getInstance().publishAfterCommit(LedgerEvent.Type.USERS_CHANGED, null, groupId, null);
             }
         });
     }
@@ -73,6 +87,10 @@ public class GroupServiceImpl extends BaseService implements GroupService {
                 group.removeUser(user);
                 groupRepository.save(group);
                 em.flush();
+                // Only the join table changes, which fires no entity callback
+                VisibilityIndex.getInstance().onMembershipChanged();
+                LedgerVersion.getInstance().onUsersChanged();
+                LedgerEventBus.getInstance().publishAfterCommit(LedgerEvent.Type.USERS_CHANGED, null, groupId, null);
             }
         });
     }
@@ -85,4 +103,66 @@ public class GroupServiceImpl extends BaseService implements GroupService {
         }
         return Collections.emptyList();
     }
-} 
\ No newline at end of file
+
+    /**
+     * The members of the subtree are found in the {@link GroupClosure}. The database then
+     * sums their transactions per month in two grouped queries, totals and expenses per
+     * primary tag, so nothing is left to merge here.
+     */
+    @Override
+    public GroupRollup getSubtreeRollup(Long groupId, LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            throw new IllegalArgumentException("Dates cannot be null");
+        }
+        GroupClosure closure = GroupClosure.getInstance();
+        Set<Long> groupIds = closure.subtreeGroups(em, groupId);
+        Set<Long> memberIds = closure.subtreeMembers(em, groupId);
+        if (memberIds.isEmpty()) {
+            return new GroupRollup(groupId, groupIds, memberIds, List.of());
+        }
+
+        Map<YearMonth, MonthTotals> totalsByMonth = new TreeMap<>();
+        for (Object[] row : em.createQuery(
+                "SELECT FUNCTION('YEAR', t.date), FUNCTION('MONTH', t.date), " +
+                "SUM(CASE WHEN t.isIncome = true THEN t.amount ELSE 0 END), " +
+                "SUM(CASE WHEN t.isIncome = false THEN t.amount ELSE 0 END) " +
+                "FROM Transaction t WHERE t.user.id IN :members AND t.date BETWEEN :startDate AND :endDate " +
+                "GROUP BY FUNCTION('YEAR', t.date), FUNCTION('MONTH', t.date)", Object[].class)
+                .setParameter("members", memberIds)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList()) {
+            MonthTotals totals = totalsByMonth.computeIfAbsent(YearMonth.of((Integer) row[0], (Integer) row[1]),
+                k -> new MonthTotals());
+            totals.income = (BigDecimal) row[2];
+            totals.expenses = (BigDecimal) row[3];
+        }
+        for (Object[] row : em.createQuery(
+                "SELECT FUNCTION('YEAR', t.date), FUNCTION('MONTH', t.date), t.primaryTag.id, " +
+                "SUM(t.amount) FROM Transaction t " +
+                "WHERE t.isIncome = false AND t.primaryTag IS NOT NULL AND t.user.id IN :members " +
+                "AND t.date BETWEEN :startDate AND :endDate " +
+                "GROUP BY FUNCTION('YEAR', t.date), FUNCTION('MONTH', t.date), t.primaryTag.id",
+                Object[].class)
+                .setParameter("members", memberIds)
+                .setParameter("startDate", startDate)
+                .setParameter("endDate", endDate)
+                .getResultList()) {
+            totalsByMonth.computeIfAbsent(YearMonth.of((Integer) row[0], (Integer) row[1]), k -> new MonthTotals())
+                .expensesByTag.put((Long) row[2], (BigDecimal) row[3]);
+        }
+
+        List<GroupRollup.Month> months = new ArrayList<>();
+        totalsByMonth.forEach((month, totals) -> months.add(new GroupRollup.Month(month, totals.income,
+            totals.expenses, Collections.unmodifiableMap(totals.expensesByTag))));
+        return new GroupRollup(groupId, groupIds, memberIds, Collections.unmodifiableList(months));
+    }
+
+    // ==================== PRIVATE HELPER CLASSES ====================
+
+    private static final class MonthTotals {
+        BigDecimal income = BigDecimal.ZERO;
+        BigDecimal expenses = BigDecimal.ZERO;
+        final Map<Long, BigDecimal> expensesByTag = new HashMap<>();
+    }
+}
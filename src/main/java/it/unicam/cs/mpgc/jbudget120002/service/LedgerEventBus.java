@@ -0,0 +1,327 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe channel for {@link LedgerEvent}s.
+ *
+ * <p>Writes are reported while the database transaction is still open (by
+ * {@link it.unicam.cs.mpgc.jbudget120002.model.LedgerEventListener} or by a service) and
+ * queued on the writing thread; {@link #publishPending()} publishes them once the
+ * transaction commits, and {@link #discardPending()} drops them on rollback, so
+ * subscribers never hear about changes they cannot read yet.</p>
+ *
+ * <p>Publishing never blocks on a subscriber. Each {@link Subscription} has a bounded
+ * buffer; when a slow subscriber's buffer is full its pending events are dropped and it
+ * receives a single {@link LedgerEvent.Type#RESYNC} instead. Subscribers wait for events
+ * with {@link Subscription#poll(Duration)}, which parks a virtual thread cheaply, so
+ * thousands of idle subscribers cost memory for their buffers only. The most recent
+ * events are retained so that a subscriber reconnecting with the id of the last event it
+ * received gets the ones it missed.</p>
+ *
+ * <p>In-process consumers that cannot afford a thread per subscription (the desktop
+ * views) register a listener instead, which receives every event on the publishing
+ * thread.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * try (LedgerEventBus.Subscription subscription = LedgerEventBus.getInstance().subscribe(visibleOwners, null)) {
+ *     LedgerEvent event = subscription.poll(Duration.ofSeconds(20));  // null on timeout
+ * }
+ * LedgerEventBus.getInstance().publishAfterCommit(LedgerEvent.Type.TAG_CHANGED, null, tag.getId(), null);
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class LedgerEventBus {
+
+    /** Events buffered per subscriber before it is told to resync */
+    public static final int SUBSCRIBER_BUFFER_SIZE = 256;
+
+    /** Events retained for subscribers that reconnect */
+    private static final int HISTORY_SIZE = 1024;
+
+    /** Events queued by one database transaction before they are collapsed into a resync */
+    private static final int MAX_PENDING = 10_000;
+
+    private static final LedgerEventBus INSTANCE = new LedgerEventBus();
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<LedgerEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final ArrayDeque<LedgerEvent> history = new ArrayDeque<>(HISTORY_SIZE);
+    private final ThreadLocal<List<PendingEvent>> pending = new ThreadLocal<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /** Guarded by this: the id of the last published event */
+    private long sequence;
+
+    private record PendingEvent(LedgerEvent.Type type, Long ownerId, Long entityId, LocalDate date, Set<Long> tagIds) {}
+
+    private LedgerEventBus() {
+    }
+
+    /**
+     * Gets the application-wide event bus.
+     *
+     * @return the shared instance
+     */
+    public static LedgerEventBus getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== PUBLISHING ====================
+
+    /**
+     * Queues an event on the current thread, to be published when its database
+     * transaction commits.
+     *
+     * @param type what changed
+     * @param ownerId the user whose data changed, or null if visible to everyone
+     * @param entityId the changed entity, or null
+     * @param date the date whose aggregates changed, or null
+     * @throws IllegalArgumentException if type is null
+     */
+    public void publishAfterCommit(LedgerEvent.Type type, Long ownerId, Long entityId, LocalDate date) {
+        publishAfterCommit(type, ownerId, entityId, date, Set.of());
+    }
+
+    /**
+     * Queues an event on the current thread, naming the tags of the changed entity.
+     *
+     * @param tagIds the tags of the changed entity, empty if unknown or none
+     * @see #publishAfterCommit(LedgerEvent.Type, Long, Long, LocalDate)
+     */
+    public void publishAfterCommit(LedgerEvent.Type type, Long ownerId, Long entityId, LocalDate date,
+                                   Set<Long> tagIds) {
+        if (type == null) {
+            throw new IllegalArgumentException("Event type cannot be null");
+        }
+        List<PendingEvent> events = pending.get();
+        if (events == null) {
+            events = new ArrayList<>();
+            pending.set(events);
+        }
+        if (!events.isEmpty() && events.get(0).type() == LedgerEvent.Type.RESYNC) {
+            return;
+        }
+        if (events.size() == MAX_PENDING) {
+            // Bulk writes: one resync tells subscribers as much as thousands of events
+            events.clear();
+            type = LedgerEvent.Type.RESYNC;
+            ownerId = null;
+            entityId = null;
+            date = null;
+            tagIds = Set.of();
+        }
+        events.add(new PendingEvent(type, ownerId, entityId, date, tagIds));
+    }
+
+    /**
+     * Publishes the events queued by the current thread, after its database transaction
+     * committed.
+     */
+    public void publishPending() {
+        List<PendingEvent> events = pending.get();
+        pending.remove();
+        if (events == null) {
+            return;
+        }
+        for (PendingEvent event : events) {
+            publish(event.type(), event.ownerId(), event.entityId(), event.date(), event.tagIds());
+        }
+    }
+
+    /**
+     * Drops the events queued by the current thread, after its database transaction
+     * rolled back.
+     */
+    public void discardPending() {
+        pending.remove();
+    }
+
+    /**
+     * Publishes an event immediately, for changes already committed.
+     *
+     * @return the published event
+     * @throws IllegalArgumentException if type is null
+     */
+    public LedgerEvent publish(LedgerEvent.Type type, Long ownerId, Long entityId, LocalDate date) {
+        return publish(type, ownerId, entityId, date, Set.of());
+    }
+
+    /**
+     * Publishes an event immediately, naming the tags of the changed entity.
+     *
+     * @param tagIds the tags of the changed entity, empty if unknown or none
+     * @return the published event
+     * @throws IllegalArgumentException if type is null
+     */
+    public synchronized LedgerEvent publish(LedgerEvent.Type type, Long ownerId, Long entityId, LocalDate date,
+                                            Set<Long> tagIds) {
+        if (type == null) {
+            throw new IllegalArgumentException("Event type cannot be null");
+        }
+        LedgerEvent event = new LedgerEvent(++sequence, type, ownerId, entityId, date, tagIds, Instant.now());
+        if (history.size() == HISTORY_SIZE) {
+            history.removeFirst();
+        }
+        history.addLast(event);
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+        for (Consumer<LedgerEvent> listener : listeners) {
+            listener.accept(event);
+        }
+        published.increment();
+        return event;
+    }
+
+    // ==================== SUBSCRIBING ====================
+
+    /**
+     * Subscribes to the events concerning a set of owners, plus those visible to everyone.
+     *
+     * @param visibleOwners the owners whose events are delivered
+     * @param lastEventId the id of the last event the subscriber received before
+     *                    reconnecting, or null for a new subscriber
+     * @return the subscription, to be closed when the subscriber goes away
+     * @throws IllegalArgumentException if visibleOwners is null
+     */
+    public synchronized Subscription subscribe(Set<Long> visibleOwners, Long lastEventId) {
+        if (visibleOwners == null) {
+            throw new IllegalArgumentException("Visible owners cannot be null");
+        }
+        Subscription subscription = new Subscription(Set.copyOf(visibleOwners));
+        if (lastEventId != null && lastEventId != sequence) {
+            LedgerEvent oldest = history.peekFirst();
+            // A newer id than ours comes from before a restart
+            if (lastEventId > sequence || oldest == null || oldest.id() > lastEventId + 1) {
+                subscription.overflowed = true;
+            } else {
+                for (LedgerEvent event : history) {
+                    if (event.id() > lastEventId) {
+                        subscription.offer(event);
+                    }
+                }
+            }
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Registers a listener receiving every event, whatever its owner, on the publishing
+     * thread and under the bus lock: it must only hand the event on, never block.
+     *
+     * @param listener the listener
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addListener(Consumer<LedgerEvent> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<LedgerEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    // ==================== METRICS ====================
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    /**
+     * Returns how many events were dropped because a subscriber's buffer was full.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * One subscriber's bounded buffer of events.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final Set<Long> visibleOwners;
+        private final BlockingQueue<LedgerEvent> buffer = new ArrayBlockingQueue<>(SUBSCRIBER_BUFFER_SIZE);
+
+        /** Set when events were dropped; the next poll returns a resync */
+        private volatile boolean overflowed;
+
+        private Subscription(Set<Long> visibleOwners) {
+            this.visibleOwners = visibleOwners;
+        }
+
+        /**
+         * Waits for the next event.
+         *
+         * @param timeout how long to wait
+         * @return the next event, a {@link LedgerEvent.Type#RESYNC} if events were missed,
+         *         or null if none arrived in time
+         * @throws InterruptedException if the waiting thread is interrupted
+         */
+        public LedgerEvent poll(Duration timeout) throws InterruptedException {
+            if (overflowed) {
+                return resync();
+            }
+            LedgerEvent event = buffer.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            if (event == null && overflowed) {
+                return resync();
+            }
+            return event;
+        }
+
+        /**
+         * Stops the delivery of events to this subscriber.
+         */
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+
+        private void offer(LedgerEvent event) {
+            if (overflowed || !event.isVisibleTo(visibleOwners)) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                overflowed = true;
+                dropped.add(buffer.size() + 1);
+                buffer.clear();
+            }
+        }
+
+        private LedgerEvent resync() {
+            // Under the bus lock, so that every event published afterwards is delivered
+            synchronized (LedgerEventBus.this) {
+                overflowed = false;
+                buffer.clear();
+                return new LedgerEvent(sequence, LedgerEvent.Type.RESYNC, null, null, null, Set.of(), Instant.now());
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters telling whether the ledger, as seen by a user, changed since a
+ * result was computed.
+ *
+ * <p>All versions are values of one application-wide sequence, incremented on every
+ * write to a transaction, tag, budget, user or group. The ledger version is the current value
+ * of the sequence and changes on any write. A user's version is the sequence value of
+ * the last write that user can see: transactions of the user and of the members of its
+ * groups, plus every tag and budget write. Because versions are drawn from a single
+ * increasing sequence, a version never denotes two different ledger states, which makes
+ * them safe as cache keys and HTTP entity tags.</p>
+ *
+ * <p>Writes are reported by
+ * {@link it.unicam.cs.mpgc.jbudget120002.model.LedgerVersionListener} when they are
+ * flushed, and reported again by {@link #publishPending()} once the database transaction
+ * commits, so a result computed by another thread from the not yet committed state is
+ * never kept under the final version. Writes that bypass the persistence context (bulk
+ * JDBC, stateless sessions) report each row through
+ * {@link it.unicam.cs.mpgc.jbudget120002.model.EntityCallbacks}; {@link #invalidateAll()}
+ * is left for changes that cannot tell which rows they wrote.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * long version = LedgerVersion.getInstance().userVersion(em, user.getId());
+ * long ledgerVersion = LedgerVersion.getInstance().ledgerVersion();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class LedgerVersion {
+
+    private static final LedgerVersion INSTANCE = new LedgerVersion();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong userEpoch = new AtomicLong();
+
+    /** Users whose version has been asked for, with the owners whose transactions they see */
+    private final Map<Long, UserVersion> users = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Set<Long>> pendingOwners = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> pendingAll = new ThreadLocal<>();
+
+    private LedgerVersion() {
+    }
+
+    /**
+     * Gets the application-wide ledger version.
+     *
+     * @return the shared instance
+     */
+    public static LedgerVersion getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== WRITE NOTIFICATIONS ====================
+
+    /**
+     * Records a write to a transaction owned by the given user.
+     *
+     * @param ownerId the owner, or null for unowned transactions (seen by everybody)
+     */
+    public void onTransactionWritten(Long ownerId) {
+        if (ownerId == null) {
+            onSharedWritten();
+            return;
+        }
+        bumpOwner(ownerId);
+        Set<Long> owners = pendingOwners.get();
+        if (owners == null) {
+            owners = new HashSet<>();
+            pendingOwners.set(owners);
+        }
+        owners.add(ownerId);
+    }
+
+    /**
+     * Records a write visible to every user: a tag or a budget.
+     */
+    public void onSharedWritten() {
+        bumpAll();
+        pendingAll.set(Boolean.TRUE);
+    }
+
+    /**
+     * Records a change to users or group membership: which owners each user can see is
+     * recomputed, and every user version changes.
+     */
+    public void onUsersChanged() {
+        userEpoch.incrementAndGet();
+        users.clear();
+        onSharedWritten();
+    }
+
+    /**
+     * Reports again the writes of the current thread, after its database transaction
+     * committed.
+     */
+    public void publishPending() {
+        Set<Long> owners = pendingOwners.get();
+        boolean all = Boolean.TRUE.equals(pendingAll.get());
+        discardPending();
+        if (all) {
+            bumpAll();
+        } else if (owners != null) {
+            owners.forEach(this::bumpOwner);
+        }
+    }
+
+    /**
+     * Forgets the writes of the current thread, after its database transaction rolled back.
+     */
+    public void discardPending() {
+        pendingOwners.remove();
+        pendingAll.remove();
+    }
+
+    /**
+     * Changes every version, for writes made outside the persistence context.
+     */
+    public void invalidateAll() {
+        userEpoch.incrementAndGet();
+        users.clear();
+        bumpAll();
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Returns the version of the whole ledger, for results computed over all users.
+     */
+    public long ledgerVersion() {
+        return sequence.get();
+    }
+
+    /**
+     * Returns the version of the ledger as seen by a user. The first call for a user
+     * loads the owners it can see with one query; later calls do not touch the database
+     * until users or groups change.
+     *
+     * @param em an EntityManager used only on the first call for the user
+     * @param userId the user
+     * @return the version
+     * @throws IllegalArgumentException if userId is null
+     */
+    public long userVersion(EntityManager em, Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        UserVersion entry = users.get(userId);
+        if (entry == null) {
+            // The current value covers every write so far, and reading it changes no
+            // other version. Every clear of the entries is followed by a write, so a
+            // version given before the clear is never given again.
+            long seed = sequence.get();
+            entry = new UserVersion(VisibilityIndex.getInstance().visibleOwners(em, userId), seed);
+            UserVersion existing = users.putIfAbsent(userId, entry);
+            if (existing != null) {
+                entry = existing;
+            } else if (sequence.get() != seed) {
+                // A write while the owners were loaded found no entry to bump
+                entry.version.accumulateAndGet(sequence.get(), Math::max);
+            }
+        }
+        return entry.version.get();
+    }
+
+    /**
+     * Returns a counter changed whenever users or group membership change, so that
+     * caches of credentials or visibility can tell they are out of date.
+     */
+    public long userEpoch() {
+        return userEpoch.get();
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private void bumpOwner(Long ownerId) {
+        long version = sequence.incrementAndGet();
+        for (UserVersion entry : users.values()) {
+            if (entry.visibleOwners.contains(ownerId)) {
+                entry.version.accumulateAndGet(version, Math::max);
+            }
+        }
+    }
+
+    private void bumpAll() {
+        long version = sequence.incrementAndGet();
+        for (UserVersion entry : users.values()) {
+            entry.version.accumulateAndGet(version, Math::max);
+        }
+    }
+
+    private static final class UserVersion {
+        final Set<Long> visibleOwners;
+        final AtomicLong version;
+
+        UserVersion(Set<Long> visibleOwners, long version) {
+            this.visibleOwners = visibleOwners;
+            this.version = new AtomicLong(version);
+        }
+    }
+}
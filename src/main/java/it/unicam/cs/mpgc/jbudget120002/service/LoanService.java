@@ -1,37 +1,52 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
+import it.unicam.cs.mpgc.jbudget120002.model.AmortizationSchedule;
 import it.unicam.cs.mpgc.jbudget120002.model.Installment;
+import it.unicam.cs.mpgc.jbudget120002.model.LoanAmortizationPlan;
+import it.unicam.cs.mpgc.jbudget120002.model.LoanScenario;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
-public class LoanService {
+/**
+ * Service interface for loan amortization in the Family Budget App.
+ *
+ * Responsibilities:
+ * - Simulate the amortization schedule of a loan scenario
+ * - Compare what-if scenarios side by side
+ * - Persist an accepted plan together with its installments
+ *
+ * Usage:
+ * Implemented by LoanServiceImpl and used by LoanAmortizationController. Nothing is
+ * written to the database until the user accepts a plan.
+ */
+public interface LoanService {
+
     /**
      * Generates an amortization schedule for a fixed-rate loan.
      */
-    public List<Installment> generateAmortizationSchedule(BigDecimal amount, double annualRate, int termMonths, LocalDate startDate) {
-        List<Installment> schedule = new ArrayList<>();
-        if (amount == null || annualRate <= 0 || termMonths <= 0 || startDate == null) return schedule;
+    List<Installment> generateAmortizationSchedule(BigDecimal amount, double annualRate, int termMonths, LocalDate startDate);
 
-        double monthlyRate = annualRate / 12.0 / 100.0;
-        BigDecimal monthlyPayment = amount.multiply(BigDecimal.valueOf(monthlyRate))
-            .divide(BigDecimal.ONE.subtract(BigDecimal.valueOf(Math.pow(1 + monthlyRate, -termMonths))), 2, BigDecimal.ROUND_HALF_UP);
+    /**
+     * Computes the schedule of a single scenario without touching the database.
+     */
+    AmortizationSchedule simulate(LoanScenario scenario);
 
-        BigDecimal remaining = amount;
-        LocalDate dueDate = startDate;
+    /**
+     * Evaluates several scenarios for side-by-side comparison.
+     */
+    List<AmortizationSchedule> compareScenarios(List<LoanScenario> scenarios);
 
-        for (int i = 1; i <= termMonths; i++) {
-            BigDecimal interest = remaining.multiply(BigDecimal.valueOf(monthlyRate)).setScale(2, BigDecimal.ROUND_HALF_UP);
-            BigDecimal principal = monthlyPayment.subtract(interest).setScale(2, BigDecimal.ROUND_HALF_UP);
-            if (i == termMonths) {
-                principal = remaining;
-                monthlyPayment = principal.add(interest);
-            }
-            schedule.add(new Installment(i, dueDate, principal, interest, monthlyPayment));
-            remaining = remaining.subtract(principal).setScale(2, BigDecimal.ROUND_HALF_UP);
-            dueDate = dueDate.plusMonths(1);
-        }
-        return schedule;
-    }
-} 
\ No newline at end of file
+    /**
+     * Persists an accepted plan and writes its installments as expense transactions.
+     *
+     * @param description the loan description
+     * @param schedule the accepted schedule
+     * @param user the owner of the installment transactions, may be null
+     * @return the persisted plan
+     * @throws IllegalArgumentException if the description is empty or the schedule has no installments
+     */
+    LoanAmortizationPlan acceptPlan(String description, AmortizationSchedule schedule, User user);
+}
@@ -0,0 +1,156 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import it.unicam.cs.mpgc.jbudget120002.model.AmortizationSchedule;
+import it.unicam.cs.mpgc.jbudget120002.model.EntityCallbacks;
+import it.unicam.cs.mpgc.jbudget120002.model.Installment;
+import it.unicam.cs.mpgc.jbudget120002.model.LoanAmortizationPlan;
+import it.unicam.cs.mpgc.jbudget120002.model.LoanScenario;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
+import it.unicam.cs.mpgc.jbudget120002.model.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the LoanService interface: schedule simulation, scenario comparison
+ * and persistence of accepted plans.
+ *
+ * Responsibilities:
+ * - Delegate all schedule math to the shared AmortizationEngine
+ * - Evaluate what-if scenarios side by side
+ * - Persist an accepted plan and its installments in one JDBC batch
+ *
+ * Usage:
+ * Used by LoanAmortizationController. Nothing is written to the database until
+ * the user accepts a plan.
+ */
+public class LoanServiceImpl extends BaseService implements LoanService {
+
+    private static final String INSERT_INSTALLMENT_SQL =
+        "INSERT INTO transactions (date, description, amount, isIncome, currency, " +
+        "loan_plan_id, user_id, principal_amount, interest_amount) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final AmortizationEngine engine;
+
+    public LoanServiceImpl(EntityManager entityManager) {
+        super(entityManager);
+        this.engine = new AmortizationEngine();
+    }
+
+    /**
+     * Generates an amortization schedule for a fixed-rate loan.
+     */
+    @Override
+    public List<Installment> generateAmortizationSchedule(BigDecimal amount, double annualRate, int termMonths, LocalDate startDate) {
+        if (amount == null || annualRate <= 0 || termMonths <= 0 || startDate == null) return new ArrayList<>();
+        return simulate(new LoanScenario("Loan", amount, annualRate, termMonths, startDate)).getInstallments();
+    }
+
+    /**
+     * Computes the schedule of a single scenario without touching the database.
+     */
+    @Override
+    public AmortizationSchedule simulate(LoanScenario scenario) {
+        return engine.computeSchedule(scenario);
+    }
+
+    /**
+     * Evaluates several scenarios in parallel for side-by-side comparison.
+     */
+    @Override
+    public List<AmortizationSchedule> compareScenarios(List<LoanScenario> scenarios) {
+        return engine.compare(scenarios);
+    }
+
+    /**
+     * Persists an accepted plan. The plan row is written through JPA; its installments
+     * are written as expense transactions with a single batched insert, since the
+     * IDENTITY key of {@code transactions} prevents Hibernate from batching them.
+     *
+     * @param description the loan description
+     * @param schedule the accepted schedule
+     * @param user the owner of the installment transactions, may be null
+     * @return the persisted plan
+     */
+    @Override
+    public LoanAmortizationPlan acceptPlan(String description, AmortizationSchedule schedule, User user) {
+        if (description == null || description.trim().isEmpty()) {
+            throw new IllegalArgumentException("Loan description cannot be null or empty");
+        }
+        if (schedule == null || schedule.getInstallments().isEmpty()) {
+            throw new IllegalArgumentException("Schedule cannot be empty");
+        }
+
+        LoanScenario scenario = schedule.getScenario();
+        return executeInTransaction(() -> {
+            LoanAmortizationPlan plan = new LoanAmortizationPlan(
+                description,
+                scenario.getPrincipal(),
+                BigDecimal.valueOf(scenario.getAnnualRate()),
+                schedule.getNumberOfPayments(),
+                scenario.getStartDate()
+            );
+            em.persist(plan);
+            em.flush();
+            insertInstallments(plan, schedule.getInstallments(), user);
+            return plan;
+        });
+    }
+
+    private void insertInstallments(LoanAmortizationPlan plan, List<Installment> installments, User user) {
+        int count = installments.size();
+        List<Transaction> rows = new ArrayList<>(count);
+        for (Installment installment : installments) {
+            Transaction row = new Transaction(installment.getDueDate(),
+                String.format("%s - Payment %d/%d", plan.getDescription(), installment.getNumber(), count),
+                installment.getTotalPayment(), false);
+            row.setLoanDetails(plan, installment.getPrincipal(), installment.getInterest());
+            row.setUser(user);
+            rows.add(row);
+        }
+
+        em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_INSTALLMENT_SQL,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (Transaction row : rows) {
+                    ps.setDate(1, Date.valueOf(row.getDate()));
+                    ps.setString(2, row.getDescription());
+                    ps.setBigDecimal(3, row.getAmount());
+                    ps.setBoolean(4, false);
+                    ps.setString(5, row.getCurrency());
+                    ps.setLong(6, plan.getId());
+                    if (user != null) {
+                        ps.setLong(7, user.getId());
+                    } else {
+                        ps.setNull(7, Types.BIGINT);
+                    }
+                    ps.setBigDecimal(8, row.getPrincipalAmount());
+                    ps.setBigDecimal(9, row.getInterestAmount());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    for (int i = 0; keys.next() && i < rows.size(); i++) {
+                        rows.get(i).setId(keys.getLong(1));
+                    }
+                }
+            }
+        });
+
+        // Rows written over plain JDBC bypass the entity listeners: each is reported as
+        // they would have, and published with the plan on commit
+        for (Transaction row : rows) {
+            EntityCallbacks.afterInsert(row);
+        }
+    }
+}
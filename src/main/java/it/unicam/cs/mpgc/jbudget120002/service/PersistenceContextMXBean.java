@@ -0,0 +1,33 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+/**
+ * JMX management interface of {@link PersistenceContextPolicy}, registered as
+ * {@code it.unicam.cs.mpgc.jbudget120002:type=PersistenceContext}.
+ */
+public interface PersistenceContextMXBean {
+
+    /** Managed entities above which a persistence context is cleared at its next safe point */
+    int getMaxManagedEntities();
+
+    void setMaxManagedEntities(int maxManagedEntities);
+
+    /** Managed entities of the context last measured */
+    int getLastContextSize();
+
+    /** Largest context size measured since the last reset */
+    int getPeakContextSize();
+
+    /** Contexts cleared because they passed the limit */
+    long getClearCount();
+
+    /** Flushes ending a unit of work */
+    long getFlushCount();
+
+    double getMeanFlushMillis();
+
+    double getP99FlushMillis();
+
+    double getMaxFlushMillis();
+
+    void reset();
+}
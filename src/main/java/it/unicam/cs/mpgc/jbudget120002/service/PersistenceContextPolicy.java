@@ -0,0 +1,193 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.LatencyHistogram;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the long-lived persistence contexts of the controllers bounded.
+ *
+ * <p>Every controller holds one EntityManager for the whole session, so everything it
+ * ever loaded stays in its first-level cache, and each flush dirty-checks all of it. Three
+ * measures keep that in check:</p>
+ * <ul>
+ *   <li>Loads that only display data are read-only: table views read projections
+ *   rather than entities, and the statistics and export fetch plans are marked
+ *   read-only, so their entities are kept without a dirty-checking snapshot</li>
+ *   <li>Writes run as units of work ({@code BaseService.executeInTransaction} and
+ *   {@code commitTransaction}) whose flush is timed here</li>
+ *   <li>When a unit of work ends, or a controller is about to reload its data, a context
+ *   holding more than {@link #getMaxManagedEntities()} entities is cleared. Both points
+ *   are outside any transaction, with nothing left to flush</li>
+ * </ul>
+ *
+ * <p>The limit defaults to {@value #DEFAULT_MAX_MANAGED_ENTITIES} and can be set with the
+ * {@value #MAX_ENTITIES_PROPERTY} system property or through JMX, where the context sizes
+ * and flush times are published as well.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * PersistenceContextPolicy policy = PersistenceContextPolicy.getInstance();
+ * policy.checkpoint(entityManager);                  // before reloading a view
+ * double flushMillis = policy.getMeanFlushMillis();
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class PersistenceContextPolicy implements PersistenceContextMXBean {
+
+    private static final Logger LOGGER = Logger.getLogger(PersistenceContextPolicy.class.getName());
+
+    public static final String MAX_ENTITIES_PROPERTY = "jbudget.context.maxEntities";
+    public static final String OBJECT_NAME = "it.unicam.cs.mpgc.jbudget120002:type=PersistenceContext";
+    public static final int DEFAULT_MAX_MANAGED_ENTITIES = 5000;
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static final PersistenceContextPolicy INSTANCE = new PersistenceContextPolicy();
+
+    private volatile int maxManagedEntities =
+        Math.max(1, Integer.getInteger(MAX_ENTITIES_PROPERTY, DEFAULT_MAX_MANAGED_ENTITIES));
+    private final AtomicInteger lastContextSize = new AtomicInteger();
+    private final AtomicInteger peakContextSize = new AtomicInteger();
+    private final AtomicLong clearCount = new AtomicLong();
+    private final LatencyHistogram flushTimes = new LatencyHistogram();
+
+    private PersistenceContextPolicy() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not register persistence context MBean", e);
+        }
+    }
+
+    /**
+     * Gets the application-wide persistence context policy.
+     *
+     * @return the shared instance
+     */
+    public static PersistenceContextPolicy getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== SAFE POINTS ====================
+
+    /**
+     * Flushes the changes of a unit of work, recording the size of the context it
+     * dirty-checks and the time taken. Called right before its transaction commits.
+     *
+     * @param em the EntityManager of the unit of work
+     */
+    public void flushUnitOfWork(EntityManager em) {
+        measure(em);
+        long start = System.nanoTime();
+        em.flush();
+        flushTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Clears a persistence context if it holds more entities than the limit. Does
+     * nothing while a transaction is active, since its changes may not be flushed yet.
+     *
+     * @param em the EntityManager to check, ignored if null or closed
+     * @return true if the context was cleared
+     */
+    public boolean checkpoint(EntityManager em) {
+        if (em == null || !em.isOpen() || em.getTransaction().isActive()) {
+            return false;
+        }
+        int size = measure(em);
+        if (size <= maxManagedEntities) {
+            return false;
+        }
+        em.clear();
+        clearCount.incrementAndGet();
+        LOGGER.fine("Cleared a persistence context holding " + size + " entities");
+        return true;
+    }
+
+    /**
+     * Returns and records the number of entities managed by a persistence context.
+     *
+     * @param em the EntityManager
+     * @return the number of managed entities, 0 if it cannot be told
+     */
+    public int measure(EntityManager em) {
+        int size;
+        try {
+            size = em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+        } catch (RuntimeException e) {
+            return 0;
+        }
+        lastContextSize.set(size);
+        peakContextSize.accumulateAndGet(size, Math::max);
+        return size;
+    }
+
+    // ==================== METRICS ====================
+
+    @Override
+    public int getMaxManagedEntities() {
+        return maxManagedEntities;
+    }
+
+    @Override
+    public void setMaxManagedEntities(int maxManagedEntities) {
+        if (maxManagedEntities <= 0) {
+            throw new IllegalArgumentException("Max managed entities must be positive");
+        }
+        this.maxManagedEntities = maxManagedEntities;
+    }
+
+    @Override
+    public int getLastContextSize() {
+        return lastContextSize.get();
+    }
+
+    @Override
+    public int getPeakContextSize() {
+        return peakContextSize.get();
+    }
+
+    @Override
+    public long getClearCount() {
+        return clearCount.get();
+    }
+
+    @Override
+    public long getFlushCount() {
+        return flushTimes.getCount();
+    }
+
+    @Override
+    public double getMeanFlushMillis() {
+        return flushTimes.getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getP99FlushMillis() {
+        return flushTimes.valueAtPercentile(99.0) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxFlushMillis() {
+        return flushTimes.getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public void reset() {
+        lastContextSize.set(0);
+        peakContextSize.set(0);
+        clearCount.set(0L);
+        flushTimes.reset();
+    }
+}
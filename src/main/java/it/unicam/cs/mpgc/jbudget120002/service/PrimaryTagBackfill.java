@@ -0,0 +1,73 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs {@link TransactionService#backfillPrimaryTags()} once per process, on a
+ * background thread.
+ *
+ * <p>Tagged transactions saved before the primary tag was stored have none until the
+ * backfill computes it. On a large ledger that takes a while, so neither the FX thread
+ * nor the startup of the HTTP server waits for it: the views and endpoints work
+ * meanwhile, and the category aggregations only miss the transactions not yet
+ * backfilled. The backfill runs with its own EntityManager and changes every ledger
+ * version when it wrote anything, so cached results are recomputed.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * DatabaseBootstrap.getInstance().start().thenAccept(PrimaryTagBackfill::start);
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class PrimaryTagBackfill {
+
+    private static final Logger LOGGER = Logger.getLogger(PrimaryTagBackfill.class.getName());
+
+    public static final String THREAD_NAME = "primary-tag-backfill";
+
+    private static CompletableFuture<Integer> backfill;
+
+    private PrimaryTagBackfill() {
+    }
+
+    /**
+     * Starts the backfill on a daemon thread, unless already started.
+     *
+     * @param emf the factory of the database to backfill
+     * @return the future number of transactions updated, failed if the backfill failed
+     * @throws IllegalArgumentException if emf is null
+     */
+    public static synchronized CompletableFuture<Integer> start(EntityManagerFactory emf) {
+        if (emf == null) {
+            throw new IllegalArgumentException("EntityManagerFactory cannot be null");
+        }
+        if (backfill == null) {
+            CompletableFuture<Integer> target = new CompletableFuture<>();
+            Thread thread = new Thread(() -> run(emf, target), THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+            backfill = target;
+        }
+        return backfill;
+    }
+
+    private static void run(EntityManagerFactory emf, CompletableFuture<Integer> target) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            target.complete(new ServiceFactory(em).getTransactionService(false).backfillPrimaryTags());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed to backfill the primary tags", e);
+            target.completeExceptionally(e);
+        } finally {
+            em.close();
+        }
+    }
+}
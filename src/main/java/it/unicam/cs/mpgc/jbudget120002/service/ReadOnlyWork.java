@@ -0,0 +1,67 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs reads that never write in Hibernate's read-only query mode.
+ *
+ * <p>Inside the scope the session loads entities read-only by default (the
+ * {@code org.hibernate.readOnly} hint applied to every query and lookup), so no
+ * dirty-checking snapshot is kept for them, and its flush mode is
+ * {@link FlushMode#MANUAL}, so queries do not first flush and dirty-check the whole
+ * persistence context. Both settings are restored afterwards, which makes scopes safe to
+ * nest.</p>
+ *
+ * <p>Work started inside an active transaction runs unchanged: that transaction may hold
+ * changes not flushed yet, which the reads must see.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * List<Transaction> exported = ReadOnlyWork.run(em, () -> transactionService.findForExport(start, end));
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ReadOnlyWork {
+
+    private ReadOnlyWork() {
+    }
+
+    /**
+     * Runs a read in read-only query mode.
+     *
+     * @param <T> the type of the result
+     * @param em the EntityManager the read uses
+     * @param work the read
+     * @return the result of the read
+     * @throws IllegalArgumentException if em or work is null
+     */
+    public static <T> T run(EntityManager em, Supplier<T> work) {
+        if (em == null) {
+            throw new IllegalArgumentException("EntityManager cannot be null");
+        }
+        if (work == null) {
+            throw new IllegalArgumentException("Work cannot be null");
+        }
+        if (em.getTransaction().isActive()) {
+            return work.get();
+        }
+        Session session = em.unwrap(Session.class);
+        boolean wasReadOnly = session.isDefaultReadOnly();
+        FlushMode previousFlushMode = session.getHibernateFlushMode();
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        try {
+            return work.get();
+        } finally {
+            session.setHibernateFlushMode(previousFlushMode);
+            session.setDefaultReadOnly(wasReadOnly);
+        }
+    }
+}
@@ -27,6 +27,20 @@ public interface ScheduledTransactionService {
     void generateTransactionsForUser(User user, LocalDate untilDate);
     List<ScheduledTransaction> findDeadlinesForMonth(YearMonth month);
     List<ScheduledTransaction> findByTag(Tag tag, boolean includeSubcategories);
+
+    /**
+     * Finds scheduled transactions as read-only table rows, without loading the entities.
+     * Every filter is optional.
+     *
+     * @param category the category to match, or null for all
+     * @param includeSubcategories true to match the descendants of the category as well
+     * @param startDate the earliest start date, or null
+     * @param endDate the latest end date, or null
+     * @param searchTerm text the description must contain, or null
+     * @return the rows, ordered by start date
+     */
+    List<ScheduledRow> findRows(Tag category, boolean includeSubcategories, LocalDate startDate, LocalDate endDate,
+                                String searchTerm);
     BigDecimal calculateIncomeForPeriod(LocalDate startDate, LocalDate endDate);
     BigDecimal calculateExpensesForPeriod(LocalDate startDate, LocalDate endDate);
 
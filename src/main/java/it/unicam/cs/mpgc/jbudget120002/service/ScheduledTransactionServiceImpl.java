@@ -1,5 +1,6 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.ScheduledGenerationEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.*;
 import it.unicam.cs.mpgc.jbudget120002.repository.ScheduledTransactionRepository;
 import it.unicam.cs.mpgc.jbudget120002.repository.TransactionRepository;
@@ -8,9 +9,13 @@ import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class ScheduledTransactionServiceImpl extends BaseService implements ScheduledTransactionService {
     private final ScheduledTransactionRepository repository;
@@ -101,38 +106,75 @@ public class ScheduledTransactionServiceImpl extends BaseService implements Sche
 
     @Override
     public void generateTransactionsUntil(Long scheduledId, LocalDate until) {
-        executeInTransaction(() -> {
-            repository.findById(scheduledId).ifPresent(scheduled -> {
-                LocalDate currentDate = scheduled.getStartDate();
-                LocalDate effectiveEndDate = scheduled.getEndDate() != null ? scheduled.getEndDate() : until;
-                
-                while (!currentDate.isAfter(effectiveEndDate) && !currentDate.isAfter(until)) {
-                    boolean exists = transactionRepository.existsByScheduledTransactionAndDate(scheduled, currentDate);
-                    if (!exists) {
-                        Transaction transaction = new Transaction(
-                            currentDate,
-                            scheduled.getDescription(),
-                            scheduled.getAmount(),
-                            scheduled.isIncome()
-                        );
-                        transaction.setCurrency("EUR");
-                        transaction.setScheduledTransaction(scheduled);
-                        transaction.setUser(scheduled.getUser()); // Set the user on the transaction
-                        for (Tag tag : scheduled.getTags()) {
-                            transaction.addTag(tag);
-                        }
-                        transactionRepository.save(transaction);
-                    }
-                    
-                    switch (scheduled.getPattern()) {
-                        case DAILY -> currentDate = currentDate.plusDays(scheduled.getRecurrenceValue());
-                        case WEEKLY -> currentDate = currentDate.plusWeeks(scheduled.getRecurrenceValue());
-                        case MONTHLY -> currentDate = currentDate.plusMonths(scheduled.getRecurrenceValue());
-                        case YEARLY -> currentDate = currentDate.plusYears(scheduled.getRecurrenceValue());
+        ScheduledGenerationEvent event = ScheduledGenerationEvent.start(scheduledId, null, until);
+        List<ScheduledTransaction> scheduled = repository.findById(scheduledId).map(List::of).orElse(List.of());
+        long[] counts = generateOccurrences(scheduled, until);
+        event.finish(1, counts[0], counts[1]);
+    }
+
+    /**
+     * Generates the missing transactions of some scheduled transactions.
+     *
+     * <p>The dates already generated are read with one query per schedule, and the new
+     * transactions are written together by a {@link BulkWriter}, so they are never held
+     * or dirty-checked by the persistence context.</p>
+     *
+     * @return the number of occurrences examined and of transactions created
+     */
+    private long[] generateOccurrences(List<ScheduledTransaction> schedules, LocalDate until) {
+        long[] counts = new long[2];
+        List<Transaction> generated = new ArrayList<>();
+        Map<ScheduledTransaction, LocalDate> firstGenerated = new LinkedHashMap<>();
+        for (ScheduledTransaction scheduled : schedules) {
+            Set<LocalDate> existing = transactionRepository.findDatesByScheduledTransaction(scheduled.getId());
+            LocalDate currentDate = scheduled.getStartDate();
+            LocalDate effectiveEndDate = scheduled.getEndDate() != null ? scheduled.getEndDate() : until;
+
+            while (!currentDate.isAfter(effectiveEndDate) && !currentDate.isAfter(until)) {
+                counts[0]++;
+                if (!existing.contains(currentDate)) {
+                    counts[1]++;
+                    firstGenerated.putIfAbsent(scheduled, currentDate);
+                    Transaction transaction = new Transaction(
+                        currentDate,
+                        scheduled.getDescription(),
+                        scheduled.getAmount(),
+                        scheduled.isIncome()
+                    );
+                    transaction.setCurrency("EUR");
+                    transaction.setScheduledTransaction(scheduled);
+                    transaction.setUser(scheduled.getUser()); // Set the user on the transaction
+                    for (Tag tag : scheduled.getTags()) {
+                        transaction.addTag(tag);
                     }
+                    generated.add(transaction);
                 }
-            });
-        });
+
+                switch (scheduled.getPattern()) {
+                    case DAILY -> currentDate = currentDate.plusDays(scheduled.getRecurrenceValue());
+                    case WEEKLY -> currentDate = currentDate.plusWeeks(scheduled.getRecurrenceValue());
+                    case MONTHLY -> currentDate = currentDate.plusMonths(scheduled.getRecurrenceValue());
+                    case YEARLY -> currentDate = currentDate.plusYears(scheduled.getRecurrenceValue());
+                }
+            }
+        }
+        if (generated.isEmpty()) {
+            return counts;
+        }
+
+        try (BulkWriter writer = BulkWriter.open(em)) {
+            for (Transaction transaction : generated) {
+                writer.insert(transaction);
+            }
+            writer.commit();
+        }
+        // Besides the event of each generated row, the range generated per schedule
+        for (Map.Entry<ScheduledTransaction, LocalDate> entry : firstGenerated.entrySet()) {
+            ScheduledTransaction scheduled = entry.getKey();
+            LedgerEventBus.getInstance().publish(LedgerEvent.Type.SCHEDULED_OCCURRENCES_GENERATED,
+                scheduled.getUser() != null ? scheduled.getUser().getId() : null, scheduled.getId(), entry.getValue());
+        }
+        return counts;
     }
 
     @Override
@@ -186,6 +228,17 @@ public class ScheduledTransactionServiceImpl extends BaseService implements Sche
         }
     }
 
+    @Override
+    public List<ScheduledRow> findRows(Tag category, boolean includeSubcategories, LocalDate startDate,
+                                       LocalDate endDate, String searchTerm) {
+        List<Long> tagIds = null;
+        if (category != null) {
+            List<Tag> tags = includeSubcategories ? tagService.findTagAndDescendants(category) : List.of(category);
+            tagIds = tags.stream().map(Tag::getId).collect(Collectors.toList());
+        }
+        return repository.findRows(tagIds, startDate, endDate, searchTerm);
+    }
+
     @Override
     public BigDecimal calculateIncomeForPeriod(LocalDate startDate, LocalDate endDate) {
         return repository.calculateSumForPeriod(startDate, endDate, true);
@@ -198,10 +251,11 @@ public class ScheduledTransactionServiceImpl extends BaseService implements Sche
 
     @Override
     public void generateTransactionsForUser(User user, LocalDate untilDate) {
+        ScheduledGenerationEvent event = ScheduledGenerationEvent.start(null, user != null ? user.getId() : null, untilDate);
         List<ScheduledTransaction> scheduledTransactions = repository.findByUser(user);
-        for (ScheduledTransaction scheduled : scheduledTransactions) {
-            generateTransactionsUntil(scheduled.getId(), untilDate);
-        }
+        // One bulk write for all the schedules of the user
+        long[] counts = generateOccurrences(scheduledTransactions, untilDate);
+        event.finish(scheduledTransactions.size(), counts[0], counts[1]);
     }
 
     @Override
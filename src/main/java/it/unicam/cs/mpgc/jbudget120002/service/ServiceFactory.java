@@ -1,5 +1,6 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.Instrumentation;
 import it.unicam.cs.mpgc.jbudget120002.repository.*;
 import jakarta.persistence.EntityManager;
 
@@ -10,6 +11,7 @@ public class ServiceFactory {
     private BudgetService budgetService;
     private DeadlineService deadlineService;
     private GroupService groupService;
+    private LoanService loanService;
     private ScheduledTransactionService scheduledTransactionService;
     private StatisticsService statisticsService;
     private TagService tagService;
@@ -24,103 +26,120 @@ public class ServiceFactory {
 
     public BudgetService getBudgetService(boolean newInstance) {
         if (budgetService == null || newInstance) {
-            budgetService = new BudgetServiceImpl(
+            budgetService = instrument(BudgetService.class, new BudgetServiceImpl(
                     entityManager,
-                    new BudgetRepositoryJpa(entityManager),
+                    instrument(BudgetRepository.class, new BudgetRepositoryJpa(entityManager)),
                     getTransactionService(true),
                     getTagService(true)
-            );
+            ));
         }
         return budgetService;
     }
 
     public DeadlineService getDeadlineService(boolean newInstance) {
         if (deadlineService == null || newInstance) {
-            deadlineService = new DeadlineServiceImpl(new DeadlineRepositoryJpa(entityManager), entityManager);
+            deadlineService = instrument(DeadlineService.class, new DeadlineServiceImpl(
+                    instrument(DeadlineRepository.class, new DeadlineRepositoryJpa(entityManager)),
+                    entityManager));
         }
         return deadlineService;
     }
 
     public GroupService getGroupService(boolean newInstance) {
         if (groupService == null || newInstance) {
-            groupService = new GroupServiceImpl(
+            groupService = instrument(GroupService.class, new GroupServiceImpl(
                     entityManager,
-                    new GroupRepositoryJpa(entityManager),
-                    new UserRepositoryJpa(entityManager));
+                    instrument(GroupRepository.class, new GroupRepositoryJpa(entityManager)),
+                    instrument(UserRepository.class, new UserRepositoryJpa(entityManager))));
         }
         return groupService;
     }
 
+    public LoanService getLoanService(boolean newInstance) {
+        if (loanService == null || newInstance) {
+            loanService = instrument(LoanService.class, new LoanServiceImpl(entityManager));
+        }
+        return loanService;
+    }
+
     public ScheduledTransactionService getScheduledTransactionService(boolean newInstance) {
         if (scheduledTransactionService == null || newInstance) {
-            scheduledTransactionService = new ScheduledTransactionServiceImpl(
+            scheduledTransactionService = instrument(ScheduledTransactionService.class, new ScheduledTransactionServiceImpl(
                     entityManager,
-                    new ScheduledTransactionRepositoryJpa(entityManager),
-                    new TransactionRepositoryJpa(entityManager),
+                    instrument(ScheduledTransactionRepository.class, new ScheduledTransactionRepositoryJpa(entityManager)),
+                    instrument(TransactionRepository.class, new TransactionRepositoryJpa(entityManager)),
                     getTagService(true)
-            );
+            ));
         }
         return scheduledTransactionService;
     }
 
     public StatisticsService getStatisticsService(boolean newInstance) {
         if (statisticsService == null || newInstance) {
-            statisticsService = new StatisticsServiceImpl(
+            statisticsService = instrument(StatisticsService.class, new StatisticsServiceImpl(
                     entityManager,
                     getTransactionService(true),
                     getTagService(true)
-            );
+            ));
         }
         return statisticsService;
     }
 
     public TagService getTagService(boolean newInstance) {
         if (tagService == null || newInstance) {
-            tagService = new TagServiceImpl(entityManager);
+            tagService = instrument(TagService.class, new TagServiceImpl(entityManager));
         }
         return tagService;
     }
 
     public TransactionService getTransactionService(boolean newInstance) {
         if (transactionService == null || newInstance) {
-            transactionService = new TransactionServiceImpl(
+            transactionService = instrument(TransactionService.class, new TransactionServiceImpl(
                     entityManager,
-                    new TransactionRepositoryJpa(entityManager),
+                    instrument(TransactionRepository.class, new TransactionRepositoryJpa(entityManager)),
                     getTagService(true)
-            );
+            ));
         }
         return transactionService;
     }
 
     public UserService getUserService(boolean newInstance) {
         if (userService == null || newInstance) {
-            userService = new UserServiceImpl(
+            userService = instrument(UserService.class, new UserServiceImpl(
                     entityManager,
-                    new UserRepositoryJpa(entityManager)
-            );
+                    instrument(UserRepository.class, new UserRepositoryJpa(entityManager))
+            ));
         }
         return userService;
     }
 
     public UserSettingsService getUserSettingsService(boolean newInstance) {
         if (userSettingsService == null || newInstance) {
-            userSettingsService = new UserSettingsServiceImpl(
+            userSettingsService = instrument(UserSettingsService.class, new UserSettingsServiceImpl(
                     entityManager,
-                    new UserSettingsRepositoryJpa(entityManager)
-            );
+                    instrument(UserSettingsRepository.class, new UserSettingsRepositoryJpa(entityManager))
+            ));
         }
         return userSettingsService;
     }
 
     public SyncService getSyncService(boolean newInstance) {
         if (syncService == null || newInstance) {
-            syncService = new FileSyncService(
+            syncService = instrument(SyncService.class, new FileSyncService(
                     entityManager,
                     getTransactionService(true),
                     getScheduledTransactionService(true),
                     "sync/data.json"
-            );
+            ));
         }
         return syncService;
     }
+
+    /**
+     * Wraps a service or repository for per-call timing and statement counting.
+     * The proxy forwards directly while instrumentation is disabled.
+     */
+    private static <T> T instrument(Class<T> type, T target) {
+        return Instrumentation.getInstance().wrap(type, target);
+    }
 } 
\ No newline at end of file
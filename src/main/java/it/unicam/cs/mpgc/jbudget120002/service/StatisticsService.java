@@ -1,5 +1,6 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.QueryBudget;
 import it.unicam.cs.mpgc.jbudget120002.model.*;
 import it.unicam.cs.mpgc.jbudget120002.model.StatisticsModels.*;
 import java.math.BigDecimal;
@@ -16,6 +17,8 @@ public interface StatisticsService {
     /**
      * Get category-based statistics for a given period
      */
+    // The subtree and its tags (2), then the amounts of both periods (2)
+    @QueryBudget(4)
     List<CategoryStatistic> getCategoryStatistics(
         LocalDate startDate, 
         LocalDate endDate, 
@@ -50,10 +53,22 @@ public interface StatisticsService {
     /**
      * Get top expense categories for a period
      */
+    // The ranking and its tags
+    @QueryBudget(2)
     List<CategoryExpense> getTopExpenseCategories(LocalDate startDate, LocalDate endDate, int limit);
-    // User-aware version
+    // User-aware version: grouped, sorted and limited by the database. Also loads the
+    // visible owners, unless the visibility index has them
+    @QueryBudget(3)
     List<CategoryExpense> getTopExpenseCategories(User user, LocalDate startDate, LocalDate endDate, int limit);
 
+    /**
+     * Get the dashboard figures of a period in one call: income, expenses and balance
+     * from a single aggregate query, the top expense categories and the most recent
+     * transactions visible to the user
+     */
+    DashboardSnapshot getDashboardSnapshot(User user, LocalDate startDate, LocalDate endDate,
+                                           int topCategories, int recentTransactions);
+
     /**
      * Get monthly balances for a period
      */
@@ -70,6 +85,8 @@ public interface StatisticsService {
     /**
      * Get category percentages for a period
      */
+    // The total, the expenses by category and their tags
+    @QueryBudget(3)
     Map<Tag, Double> getCategoryPercentages(LocalDate startDate, LocalDate endDate);
 
     /**
@@ -103,10 +103,15 @@ public class SyncServiceImpl implements SyncService {
 
     @Override
     public Map<String, List<?>> getChangesSince(LocalDateTime lastSyncTime) {
+        // Exported entities are only serialized, so they are loaded read-only
+        return ReadOnlyWork.run(entityManager, () -> collectChanges(lastSyncTime));
+    }
+
+    private Map<String, List<?>> collectChanges(LocalDateTime lastSyncTime) {
         Map<String, List<?>> changes = new HashMap<>();
         
         // Get changed transactions
-        List<Transaction> transactions = transactionService.findByDateRange(
+        List<Transaction> transactions = transactionService.findForExport(
             lastSyncTime.toLocalDate(), LocalDateTime.now().toLocalDate());
         if (!transactions.isEmpty()) {
             changes.put("transactions", transactions);
@@ -124,46 +129,22 @@ public class SyncServiceImpl implements SyncService {
 
     @Override
     public void applyChanges(Map<String, List<?>> changes) {
-        entityManager.getTransaction().begin();
-        try {
-            for (Map.Entry<String, List<?>> entry : changes.entrySet()) {
-                String entityType = entry.getKey();
-                List<?> entities = entry.getValue();
-                
-                switch (entityType) {
-                    case "transactions":
-                        for (Object entity : entities) {
-                            if (entity instanceof Transaction) {
-                                Transaction transaction = (Transaction) entity;
-                                if (transaction.getId() == null) {
-                                    entityManager.persist(transaction);
-                                } else {
-                                    entityManager.merge(transaction);
-                                }
-                            }
-                        }
-                        break;
-                    case "scheduledTransactions":
-                        for (Object entity : entities) {
-                            if (entity instanceof ScheduledTransaction) {
-                                ScheduledTransaction scheduled = (ScheduledTransaction) entity;
-                                if (scheduled.getId() == null) {
-                                    entityManager.persist(scheduled);
-                                } else {
-                                    entityManager.merge(scheduled);
-                                }
-                            }
-                        }
-                        break;
-                }
-            }
-            entityManager.getTransaction().commit();
-        } catch (Exception e) {
-            entityManager.getTransaction().rollback();
-            throw e;
+        // Written through a stateless session: the applied entities are neither
+        // dirty-checked nor kept in the persistence context once written
+        try (BulkWriter writer = BulkWriter.open(entityManager)) {
+            // Schedules first, so that the transactions generated from new ones link to them
+            writer.upsertScheduled(entitiesOf(changes, "scheduledTransactions", ScheduledTransaction.class));
+            writer.upsertTransactions(entitiesOf(changes, "transactions", Transaction.class));
+            // Commits and, since a sync can replace data wholesale, rebuilds every index
+            writer.commit();
         }
     }
 
+    private static <T> List<T> entitiesOf(Map<String, List<?>> changes, String entityType, Class<T> type) {
+        List<?> entities = changes.getOrDefault(entityType, List.of());
+        return entities.stream().filter(type::isInstance).map(type::cast).toList();
+    }
+
     @Override
     public SyncStatus getSyncStatus() {
         return new SyncStatus(
@@ -1,7 +1,9 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -125,6 +127,14 @@ public interface TagService {
      * @throws IllegalArgumentException if parent is null
      */
     List<Tag> findTagAndDescendants(Tag parent);
+
+    /**
+     * Maps the ID of every tag to the IDs of the tag and all its descendants, from one
+     * query over the hierarchy, for callers that expand many tags at once.
+     *
+     * @return the subtree of each tag, the tag included
+     */
+    Map<Long, Set<Long>> findSubtreeIds();
     
     // ==================== SEARCH AND QUERY OPERATIONS ====================
     
@@ -143,4 +153,13 @@ public interface TagService {
      * @return a list of all tags, ordered by full path
      */
     List<Tag> findAll();
+
+    /**
+     * Retrieves the tags with the given IDs in one query; unknown IDs are skipped.
+     *
+     * @param ids the tag IDs
+     * @return the tags found
+     * @throws IllegalArgumentException if ids is null
+     */
+    List<Tag> findAllById(Collection<Long> ids);
 }
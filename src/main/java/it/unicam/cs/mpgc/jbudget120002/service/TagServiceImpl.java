@@ -1,9 +1,11 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
 import it.unicam.cs.mpgc.jbudget120002.model.Tag;
+import it.unicam.cs.mpgc.jbudget120002.model.Transaction;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import java.util.*;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 /**
@@ -48,6 +50,8 @@ import java.util.stream.Collectors;
  * @since 1.0
  */
 public class TagServiceImpl extends BaseService implements TagService {
+
+    private static final Logger LOGGER = Logger.getLogger(TagServiceImpl.class.getName());
     
     // ==================== CONSTRUCTORS ====================
 
@@ -119,6 +123,7 @@ public class TagServiceImpl extends BaseService implements TagService {
         executeInTransaction(() -> {
             Tag tag = findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Tag not found"));
+            Long oldParentId = tag.getParent() != null ? tag.getParent().getId() : null;
             
             // Check if new parent would create a cycle
             if (newParentId != null) {
@@ -133,6 +138,9 @@ public class TagServiceImpl extends BaseService implements TagService {
             
             tag.setName(newName.trim());
             em.merge(tag);
+            if (!Objects.equals(oldParentId, newParentId)) {
+                refreshPrimaryTags(tag);
+            }
             em.flush(); // Ensure the data is written to the database
         });
     }
@@ -148,7 +156,9 @@ public class TagServiceImpl extends BaseService implements TagService {
                 .orElseThrow(() -> new IllegalArgumentException("Tag not found"));
             
             // Remove this tag from all transactions
-            tag.getTransactions().forEach(t -> t.getTags().remove(tag));
+            List<Transaction> tagged = new ArrayList<>(tag.getTransactions());
+            makeModifiable(tagged);
+            tagged.forEach(t -> t.removeTag(tag));
             
             // Update children's parent to null (this will update their fullPaths)
             tag.getChildren().forEach(child -> child.setParent(null));
@@ -190,6 +200,19 @@ public class TagServiceImpl extends BaseService implements TagService {
             .getResultList();
     }
 
+    @Override
+    public List<Tag> findAllById(Collection<Long> ids) {
+        if (ids == null) {
+            throw new IllegalArgumentException("Tag IDs cannot be null");
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery("SELECT t FROM Tag t WHERE t.id IN :ids", Tag.class)
+            .setParameter("ids", ids)
+            .getResultList();
+    }
+
     @Override
     public List<Tag> findTagAndDescendants(Tag parent) {
         if (parent == null) {
@@ -206,8 +229,46 @@ public class TagServiceImpl extends BaseService implements TagService {
         return result;
     }
 
+    @Override
+    public Map<Long, Set<Long>> findSubtreeIds() {
+        Map<Long, Long> parentById = new HashMap<>();
+        for (Object[] row : em.createQuery("SELECT t.id, t.parent.id FROM Tag t", Object[].class).getResultList()) {
+            parentById.put((Long) row[0], (Long) row[1]);
+        }
+        Map<Long, Set<Long>> subtrees = new HashMap<>();
+        for (Long tagId : parentById.keySet()) {
+            // Adds the tag to its own subtree and to that of each ancestor
+            Long ancestor = tagId;
+            for (int depth = 0; ancestor != null && depth <= parentById.size(); depth++) {
+                subtrees.computeIfAbsent(ancestor, k -> new HashSet<>()).add(tagId);
+                ancestor = parentById.get(ancestor);
+            }
+        }
+        return subtrees;
+    }
+
     // ==================== PRIVATE HELPER METHODS ====================
 
+    /**
+     * Recomputes the primary tag of the transactions carrying a tag that was moved in the
+     * hierarchy, since whether its parent is also on a transaction may have changed. Only
+     * transactions whose primary tag actually changes are written.
+     * 
+     * @param tag the moved tag
+     */
+    private void refreshPrimaryTags(Tag tag) {
+        List<Transaction> transactions = em.createQuery(
+                "SELECT DISTINCT t FROM Transaction t JOIN FETCH t.tags WHERE t.id IN " +
+                "(SELECT t2.id FROM Transaction t2 JOIN t2.tags x WHERE x = :tag)", Transaction.class)
+            .setParameter("tag", tag)
+            .getResultList();
+        makeModifiable(transactions);
+        long changed = transactions.stream().filter(Transaction::refreshPrimaryTag).count();
+        if (changed > 0) {
+            LOGGER.info("Recomputed the primary tag of " + changed + " transactions after moving tag " + tag.getId());
+        }
+    }
+
     /**
      * Validates parameters for creating a tag.
      * 
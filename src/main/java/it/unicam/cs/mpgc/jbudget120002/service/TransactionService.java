@@ -1,5 +1,6 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.QueryBudget;
 import it.unicam.cs.mpgc.jbudget120002.model.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -42,6 +43,14 @@ import java.util.*;
  * @since 1.0
  */
 public interface TransactionService {
+
+    /**
+     * The dates of the first and the last transaction of a ledger.
+     *
+     * @param first the earliest transaction date
+     * @param last the latest transaction date
+     */
+    record DateRange(LocalDate first, LocalDate last) {}
     
     // ==================== CRUD OPERATIONS ====================
 
@@ -56,6 +65,8 @@ public interface TransactionService {
      * @return the created transaction
      * @throws IllegalArgumentException if any required parameter is null or invalid
      */
+    // Budget alert warm-up (3), the tags (1), the row and its tag rows (2)
+    @QueryBudget(6)
     Transaction createTransaction(LocalDate date, String description, BigDecimal amount, 
         boolean isIncome, Set<Long> tagIds);
     
@@ -71,6 +82,7 @@ public interface TransactionService {
      * @return the created transaction
      * @throws IllegalArgumentException if any required parameter is null or invalid
      */
+    @QueryBudget(6)
     Transaction createTransaction(User user, LocalDate date, String description, BigDecimal amount, 
         boolean isIncome, Set<Long> tagIds);
     
@@ -86,6 +98,9 @@ public interface TransactionService {
      * @throws IllegalArgumentException if any required parameter is null or invalid
      * @throws RuntimeException if the transaction is not found
      */
+    // Budget alert warm-up (3), the row and its old tags (2), the new tags (1), the
+    // update and the removed and added tag rows (3)
+    @QueryBudget(9)
     void updateTransaction(Long id, LocalDate date, String description, 
         BigDecimal amount, boolean isIncome, Set<Long> tagIds);
     
@@ -136,6 +151,33 @@ public interface TransactionService {
      * @throws IllegalArgumentException if user is null
      */
     List<Transaction> findTransactions(User user, String searchTerm, LocalDate startDate, LocalDate endDate, Tag category, boolean includeSubcategories);
+
+    /**
+     * Finds the same transactions as {@link #findTransactions} as read-only table rows.
+     * Rows are projections, not entities: they do not enter the persistence context, so
+     * displaying them costs no dirty checking on later flushes. Load the transaction with
+     * {@link #findById(Long)} to edit it.
+     * 
+     * @param user the user whose transactions to search
+     * @param searchTerm the search term for description matching
+     * @param startDate the start date for the search period
+     * @param endDate the end date for the search period
+     * @param category the category tag to filter by
+     * @param includeSubcategories true to include subcategories, false otherwise
+     * @return the matching rows, newest first
+     * @throws IllegalArgumentException if user is null
+     */
+    List<TransactionRow> findTransactionRows(User user, String searchTerm, LocalDate startDate, LocalDate endDate, Tag category, boolean includeSubcategories);
+
+    /**
+     * Finds the dates of the first and the last transaction visible to a user, with one
+     * aggregate query instead of loading the transactions.
+     *
+     * @param user the user whose transactions to consider
+     * @return the date range, or empty if the user sees no transaction
+     * @throws IllegalArgumentException if user is null
+     */
+    Optional<DateRange> findDateRange(User user);
     
     /**
      * Finds transactions within a date range.
@@ -146,6 +188,18 @@ public interface TransactionService {
      * @throws IllegalArgumentException if start or end date is null
      */
     List<Transaction> findByDateRange(LocalDate start, LocalDate end);
+
+    /**
+     * Finds transactions within a date range for export by a sync, with their tags,
+     * owner, scheduled transaction and loan plan loaded up front so that serializing
+     * them runs no further queries.
+     * 
+     * @param start the start date (inclusive)
+     * @param end the end date (inclusive)
+     * @return a list of transactions in the date range
+     * @throws IllegalArgumentException if start or end date is null
+     */
+    List<Transaction> findForExport(LocalDate start, LocalDate end);
     
     /**
      * Finds transactions within a date range for a specific user.
@@ -180,17 +234,46 @@ public interface TransactionService {
     List<Transaction> findTransactionsInPeriod(LocalDate startDate, LocalDate endDate, int limit);
     
     /**
-     * Finds transactions in a period for a specific user with a limit on the number of results.
+     * Finds the most recent transactions visible to a user in a period, newest first.
+     * Only the requested rows are read from the database.
      * 
      * @param user the user whose transactions to find
      * @param startDate the start date
      * @param endDate the end date
      * @param limit the maximum number of transactions to return
-     * @return a list of transactions in the period for the user, limited to the specified count
+     * @return the latest transactions in the period, with tags loaded, newest first
      * @throws IllegalArgumentException if any parameter is null or limit is negative
      */
     List<Transaction> findTransactionsInPeriodForUser(User user, LocalDate startDate, LocalDate endDate, int limit);
 
+    /**
+     * Finds the most recent transactions visible to a user in a period as read-only
+     * table rows, newest first.
+     * 
+     * @param user the user whose transactions to find
+     * @param startDate the start date
+     * @param endDate the end date
+     * @param limit the maximum number of rows to return
+     * @return the latest rows of the period, newest first
+     * @throws IllegalArgumentException if any parameter is null or limit is negative
+     */
+    List<TransactionRow> findRecentRowsForUser(User user, LocalDate startDate, LocalDate endDate, int limit);
+
+    /**
+     * Finds one page of the transactions visible to a user in a period, ordered by id.
+     * Pass the id of the last transaction of the previous page to get the next one, so
+     * large ledgers can be read page by page without loading them whole.
+     * 
+     * @param user the user whose transactions to find
+     * @param startDate the start date
+     * @param endDate the end date
+     * @param afterId the id of the last transaction already read, or null for the first page
+     * @param limit the maximum number of transactions to return
+     * @return the page, with tags loaded; empty when there are no more transactions
+     * @throws IllegalArgumentException if any parameter is null or limit is not positive
+     */
+    List<Transaction> findPageForUser(User user, LocalDate startDate, LocalDate endDate, Long afterId, int limit);
+
     // ==================== TAG-BASED OPERATIONS ====================
 
     /**
@@ -244,6 +327,30 @@ public interface TransactionService {
      */
     BigDecimal calculateAmountForTagInPeriod(Tag tag, LocalDate startDate, LocalDate endDate);
 
+    /**
+     * Calculates the total amount of every tag in a period with one grouped query: each
+     * transaction counts for every tag it carries, as in
+     * {@link #calculateAmountForTagInPeriod(Tag, LocalDate, LocalDate)}.
+     *
+     * @param startDate the start date
+     * @param endDate the end date
+     * @return the total amount (income minus expenses) by tag ID; tags without
+     *         transactions in the period are absent
+     * @throws IllegalArgumentException if any parameter is null or the range is invalid
+     */
+    @QueryBudget(1)
+    Map<Long, BigDecimal> calculateAmountsByTagInPeriod(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Computes the primary tag of the tagged transactions saved before it was stored,
+     * with one batch of JDBC updates per database transaction. Transactions saved since
+     * keep it up to date themselves, so once the backfill has run it finds nothing to do.
+     * Applications run it on a background thread through {@link PrimaryTagBackfill}.
+     * 
+     * @return the number of transactions updated
+     */
+    int backfillPrimaryTags();
+
     // ==================== RELATED ENTITY OPERATIONS ====================
 
     /**
@@ -1,11 +1,13 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
 import it.unicam.cs.mpgc.jbudget120002.model.*;
+import it.unicam.cs.mpgc.jbudget120002.repository.FetchPlan;
 import it.unicam.cs.mpgc.jbudget120002.repository.TransactionRepository;
 import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 /**
@@ -47,6 +49,11 @@ import java.util.stream.Collectors;
  */
 public class TransactionServiceImpl extends BaseService implements TransactionService {
     
+    private static final Logger LOGGER = Logger.getLogger(TransactionServiceImpl.class.getName());
+
+    /** Transactions updated per database transaction by {@link #backfillPrimaryTags()} */
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
     /** The transaction repository for data access */
     private final TransactionRepository repository;
     
@@ -82,6 +89,7 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
                                          boolean isIncome, Set<Long> tagIds) {
         validateCreateTransactionParams(date, description, amount, tagIds);
         
+        BudgetAlertEngine.getInstance().prepare(em);
         beginTransaction();
         try {
             Transaction transaction = new Transaction(date, description, amount, isIncome);
@@ -100,6 +108,7 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
                                          boolean isIncome, Set<Long> tagIds) {
         validateCreateTransactionParams(user, date, description, amount, tagIds);
         
+        BudgetAlertEngine.getInstance().prepare(em);
         beginTransaction();
         try {
             Transaction transaction = new Transaction(date, description, amount, isIncome);
@@ -119,6 +128,7 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
                                   BigDecimal amount, boolean isIncome, Set<Long> tagIds) {
         validateUpdateTransactionParams(id, date, description, amount, tagIds);
         
+        BudgetAlertEngine.getInstance().prepare(em);
         beginTransaction();
         try {
             Transaction transaction = findById(id);
@@ -131,15 +141,12 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
             transaction.setAmount(amount);
             transaction.setIncome(isIncome);
             
-            Set<Tag> newTags = new HashSet<>();
-            if (tagIds != null) {
-                for (Long tagId : tagIds) {
-                    tagService.findById(tagId).ifPresent(newTags::add);
-                }
-            }
-            transaction.setTags(newTags);
+            transaction.setTags(tagIds != null ? tagService.findAllById(tagIds) : null);
             
             repository.save(transaction);
+            // Changing only the tags fires no entity callback
+            flush();
+            BudgetAlertEngine.getInstance().onTransactionWritten(transaction);
             commitTransaction();
         } catch (Exception e) {
             rollbackTransaction();
@@ -187,7 +194,7 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
         if (user == null) {
             throw new IllegalArgumentException("User cannot be null");
         }
-        return repository.findAllForUser(user);
+        return repository.findAllByOwners(findVisibleOwnerIds(user), FetchPlan.TABLE_ROW);
     }
 
     @Override
@@ -195,23 +202,29 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
         if (user == null) {
             throw new IllegalArgumentException("User cannot be null");
         }
-        
-        List<Long> groupIds = user.getGroups().stream()
-                .map(Group::getId)
-                .collect(Collectors.toList());
-        
-        List<Long> tagIds = null;
-        if (category != null) {
-            tagIds = new ArrayList<>();
-            if (includeSubcategories) {
-                tagIds.addAll(tagService.getAllDescendants(category.getId()).stream()
-                                     .map(Tag::getId)
-                                     .collect(Collectors.toList()));
-            }
-            tagIds.add(category.getId());
+        return repository.findWithFilters(findVisibleOwnerIds(user), searchTerm, startDate, endDate,
+                categoryTagIds(category, includeSubcategories), FetchPlan.TABLE_ROW);
+    }
+
+    @Override
+    public List<TransactionRow> findTransactionRows(User user, String searchTerm, LocalDate startDate, LocalDate endDate, Tag category, boolean includeSubcategories) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
         }
-        
-        return repository.findWithFilters(user, groupIds, searchTerm, startDate, endDate, tagIds);
+        return repository.findRowsWithFilters(findVisibleOwnerIds(user), searchTerm, startDate, endDate,
+                categoryTagIds(category, includeSubcategories));
+    }
+
+    @Override
+    public Optional<DateRange> findDateRange(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        Object[] bounds = repository.findDateBoundsByOwners(findVisibleOwnerIds(user));
+        if (bounds[0] == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new DateRange((LocalDate) bounds[0], (LocalDate) bounds[1]));
     }
 
     @Override
@@ -220,10 +233,16 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
         return repository.findByDateBetween(start, end);
     }
 
+    @Override
+    public List<Transaction> findForExport(LocalDate start, LocalDate end) {
+        validateDateRange(start, end);
+        return repository.findByDateBetween(start, end, FetchPlan.SYNC_EXPORT);
+    }
+
     @Override
     public List<Transaction> findByDateRangeForUser(User user, LocalDate start, LocalDate end) {
         validateDateRangeForUser(user, start, end);
-        return repository.findByDateBetweenForUser(user, start, end);
+        return repository.findByOwnersAndDateBetween(findVisibleOwnerIds(user), start, end, FetchPlan.STATISTICS);
     }
 
     @Override
@@ -243,9 +262,22 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
     @Override
     public List<Transaction> findTransactionsInPeriodForUser(User user, LocalDate startDate, LocalDate endDate, int limit) {
         validateDateRangeAndLimitForUser(user, startDate, endDate, limit);
-        return findByDateRangeForUser(user, startDate, endDate).stream()
-                .limit(limit)
-                .collect(Collectors.toList());
+        return repository.findRecentByOwners(findVisibleOwnerIds(user), startDate, endDate, limit);
+    }
+
+    @Override
+    public List<TransactionRow> findRecentRowsForUser(User user, LocalDate startDate, LocalDate endDate, int limit) {
+        validateDateRangeAndLimitForUser(user, startDate, endDate, limit);
+        return repository.findRecentRowsByOwners(findVisibleOwnerIds(user), startDate, endDate, limit);
+    }
+
+    @Override
+    public List<Transaction> findPageForUser(User user, LocalDate startDate, LocalDate endDate, Long afterId, int limit) {
+        validateDateRangeForUser(user, startDate, endDate);
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return repository.findPageByOwners(findVisibleOwnerIds(user), startDate, endDate, afterId, limit);
     }
 
     // ==================== TAG-BASED OPERATIONS ====================
@@ -311,6 +343,34 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
+    @Override
+    public Map<Long, BigDecimal> calculateAmountsByTagInPeriod(LocalDate startDate, LocalDate endDate) {
+        validateDateRange(startDate, endDate);
+        Map<Long, BigDecimal> amounts = new HashMap<>();
+        for (Object[] row : repository.sumSignedAmountsByTag(startDate, endDate)) {
+            amounts.put((Long) row[0], (BigDecimal) row[1]);
+        }
+        return amounts;
+    }
+
+    @Override
+    public int backfillPrimaryTags() {
+        int updated = 0;
+        Long afterId = 0L;
+        List<Long> ids;
+        while (!(ids = repository.findIdsWithoutPrimaryTag(afterId, BACKFILL_BATCH_SIZE)).isEmpty()) {
+            List<Long> batchIds = ids;
+            updated += executeInTransaction(() -> repository.updatePrimaryTags(batchIds));
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (updated > 0) {
+            // Written outside the persistence context: results keyed on the versions are stale
+            LedgerVersion.getInstance().invalidateAll();
+            LOGGER.info("Backfilled the primary tag of " + updated + " transactions");
+        }
+        return updated;
+    }
+
     // ==================== RELATED ENTITY OPERATIONS ====================
 
     @Override
@@ -334,15 +394,16 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
     @Override
     public BigDecimal calculateBalance(LocalDate start, LocalDate end) {
         validateDateRange(start, end);
-        List<Transaction> transactions = findByDateRange(start, end);
-        return calculateBalanceFromTransactions(transactions);
+        return BalanceIndex.getInstance().totalBetween(em, start, end);
     }
 
     @Override
     public BigDecimal calculateBalanceForUser(User user, LocalDate start, LocalDate end) {
         validateDateRangeForUser(user, start, end);
-        List<Transaction> transactions = findByDateRangeForUser(user, start, end);
-        return calculateBalanceFromTransactions(transactions);
+        if (user.getId() == null) {
+            return calculateBalanceFromTransactions(findByDateRangeForUser(user, start, end));
+        }
+        return BalanceIndex.getInstance().balanceBetween(em, findVisibleOwnerIds(user), start, end);
     }
 
     @Override
@@ -387,10 +448,7 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
             throw new IllegalArgumentException("As of date cannot be null");
         }
         
-        return repository.findAll().stream()
-                .filter(t -> !t.getDate().isAfter(asOfDate))
-                .map(t -> t.isIncome() ? t.getAmount() : t.getAmount().negate())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return BalanceIndex.getInstance().totalAsOf(em, asOfDate);
     }
 
     // ==================== STATISTICS AND ANALYTICS ====================
@@ -535,17 +593,51 @@ public class TransactionServiceImpl extends BaseService implements TransactionSe
     }
 
     /**
-     * Associates tags with a transaction.
+     * Associates tags with a transaction, loading them in one query.
      * 
      * @param transaction the transaction
      * @param tagIds the tag IDs
      */
     private void associateTagsWithTransaction(Transaction transaction, Set<Long> tagIds) {
         if (tagIds != null && !tagIds.isEmpty()) {
-            for (Long tagId : tagIds) {
-                tagService.findById(tagId).ifPresent(transaction::addTag);
-            }
+            tagService.findAllById(tagIds).forEach(transaction::addTag);
+        }
+    }
+
+    /**
+     * Finds the IDs of all users whose transactions are visible to the given user:
+     * the user itself plus every member of the user's groups, from the
+     * {@link VisibilityIndex}. A user that was never saved owns no transactions.
+     * 
+     * @param user the user
+     * @return the visible owner IDs
+     */
+    private Set<Long> findVisibleOwnerIds(User user) {
+        if (user.getId() == null) {
+            return Collections.emptySet();
+        }
+        return VisibilityIndex.getInstance().visibleOwners(em, user.getId());
+    }
+
+    /**
+     * Resolves a category filter to the tag IDs to match.
+     *
+     * @param category the category, or null for no filter
+     * @param includeSubcategories true to match the descendants of the category as well
+     * @return the tag IDs, or null for no filter
+     */
+    private List<Long> categoryTagIds(Tag category, boolean includeSubcategories) {
+        if (category == null) {
+            return null;
+        }
+        List<Long> tagIds = new ArrayList<>();
+        if (includeSubcategories) {
+            tagIds.addAll(tagService.getAllDescendants(category.getId()).stream()
+                                 .map(Tag::getId)
+                                 .collect(Collectors.toList()));
         }
+        tagIds.add(category.getId());
+        return tagIds;
     }
 
     /**
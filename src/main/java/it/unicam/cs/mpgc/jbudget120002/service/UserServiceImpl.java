@@ -1,7 +1,9 @@
 package it.unicam.cs.mpgc.jbudget120002.service;
 
+import it.unicam.cs.mpgc.jbudget120002.model.LedgerEvent;
 import it.unicam.cs.mpgc.jbudget120002.model.Role;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.repository.FetchPlan;
 import it.unicam.cs.mpgc.jbudget120002.repository.UserRepository;
 import jakarta.persistence.EntityManager;
 
@@ -25,7 +27,7 @@ public class UserServiceImpl extends BaseService implements UserService {
 
     @Override
     public List<User> findAll() {
-        return repository.findAll();
+        return repository.findAll(FetchPlan.USER_LIST);
     }
 
     @Override
@@ -33,6 +35,7 @@ public class UserServiceImpl extends BaseService implements UserService {
         executeInTransaction(() -> {
             repository.save(user);
             em.flush(); // Ensure the data is written to the database
+            membershipChanged(user);
         });
     }
 
@@ -46,6 +49,7 @@ public class UserServiceImpl extends BaseService implements UserService {
         executeInTransaction(() -> {
             repository.delete(user);
             em.flush();
+            membershipChanged(user);
         });
     }
 
@@ -56,7 +60,7 @@ public class UserServiceImpl extends BaseService implements UserService {
 
     @Override
     public List<User> findUsersByGroup(Long groupId) {
-        return repository.findByGroupId(groupId);
+        return repository.findByGroupId(groupId, FetchPlan.USER_LIST);
     }
 
     @Override
@@ -91,4 +95,17 @@ public class UserServiceImpl extends BaseService implements UserService {
         }
         return Collections.emptySet();
     }
+
+    /**
+     * Reports a change to the groups of a user. Changing only the groups of a user
+     * touches the join table, which fires no entity callback, so it is reported here as
+     * the group service does.
+     *
+     * @param user the user saved or deleted
+     */
+    private void membershipChanged(User user) {
+        VisibilityIndex.getInstance().onMembershipChanged();
+        LedgerVersion.getInstance().onUsersChanged();
+        LedgerEventBus.getInstance().publishAfterCommit(LedgerEvent.Type.USERS_CHANGED, null, user.getId(), null);
+    }
 } 
\ No newline at end of file
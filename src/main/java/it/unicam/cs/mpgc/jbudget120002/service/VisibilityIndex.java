@@ -0,0 +1,150 @@
+package it.unicam.cs.mpgc.jbudget120002.service;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized "whose transactions can this user see" sets, so that queries for a user
+ * filter transactions with a plain indexed {@code user_id IN (...)} instead of a
+ * correlated subquery through the user-group join table on every row.
+ *
+ * <p>A user sees its own transactions and those of every member of its groups. The set
+ * of a user is loaded with one query the first time it is asked for and kept until users
+ * or group membership change. Changes are reported by the group service (membership only
+ * touches the join table, which fires no entity callback) and by
+ * {@link it.unicam.cs.mpgc.jbudget120002.model.LedgerVersionListener} for user and group
+ * writes. The sets are dropped right away, so the writing EntityManager sees the new
+ * membership, and again once the database transaction commits, since another thread may
+ * have loaded the old membership from the database in between.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * Set<Long> owners = VisibilityIndex.getInstance().visibleOwners(em, user.getId());
+ * repository.findByOwnersAndDateBetween(owners, start, end);
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class VisibilityIndex {
+
+    private static final VisibilityIndex INSTANCE = new VisibilityIndex();
+
+    private final Map<Long, Set<Long>> ownersByUser = new ConcurrentHashMap<>();
+
+    /** Incremented on every invalidation, so a load that raced one is not kept */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ThreadLocal<Boolean> pendingInvalidation = new ThreadLocal<>();
+
+    private VisibilityIndex() {
+    }
+
+    /**
+     * Gets the application-wide visibility index.
+     *
+     * @return the shared instance
+     */
+    public static VisibilityIndex getInstance() {
+        return INSTANCE;
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Returns the owners whose transactions a user can see: the user itself and the
+     * members of its groups.
+     *
+     * @param em the EntityManager used if the set is not cached
+     * @param userId the user
+     * @return an unmodifiable set of user IDs, never empty
+     * @throws IllegalArgumentException if userId is null
+     */
+    public Set<Long> visibleOwners(EntityManager em, Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        Set<Long> owners = ownersByUser.get(userId);
+        if (owners != null) {
+            return owners;
+        }
+        long loadedAt = generation.get();
+        owners = Collections.unmodifiableSet(load(em, userId));
+        synchronized (this) {
+            if (generation.get() == loadedAt) {
+                ownersByUser.putIfAbsent(userId, owners);
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * Returns a counter changed whenever the sets are dropped, for structures derived
+     * from users and groups (such as the {@link GroupClosure}) to tell they are stale.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the number of users whose set is cached.
+     */
+    public int getCachedUserCount() {
+        return ownersByUser.size();
+    }
+
+    // ==================== INVALIDATION ====================
+
+    /**
+     * Records a change to users or group membership made by the current thread.
+     */
+    public void onMembershipChanged() {
+        invalidate();
+        pendingInvalidation.set(Boolean.TRUE);
+    }
+
+    /**
+     * Drops the sets again if the current thread's committed transaction changed
+     * membership.
+     */
+    public void publishPending() {
+        if (Boolean.TRUE.equals(pendingInvalidation.get())) {
+            pendingInvalidation.remove();
+            invalidate();
+        }
+    }
+
+    /**
+     * Forgets the membership changes of the current thread.
+     */
+    public void discardPending() {
+        pendingInvalidation.remove();
+    }
+
+    /**
+     * Drops every cached set.
+     */
+    public synchronized void invalidate() {
+        generation.incrementAndGet();
+        ownersByUser.clear();
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private static Set<Long> load(EntityManager em, Long userId) {
+        Set<Long> owners = new HashSet<>();
+        owners.add(userId);
+        owners.addAll(em.createQuery(
+                "SELECT DISTINCT m.id FROM User u JOIN u.groups g JOIN g.users m WHERE u.id = :userId", Long.class)
+            .setParameter("userId", userId)
+            .getResultList());
+        return owners;
+    }
+}
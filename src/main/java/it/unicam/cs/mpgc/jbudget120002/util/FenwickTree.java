@@ -0,0 +1,181 @@
+package it.unicam.cs.mpgc.jbudget120002.util;
+
+/**
+ * Growable Fenwick tree (binary indexed tree) over a contiguous range of long keys.
+ *
+ * <p>The tree stores one {@code long} value per key and answers prefix and range
+ * sums in O(log n). Point updates are O(log n) as well. The covered key range grows
+ * automatically (by doubling) when a key outside of it is updated, so callers can use
+ * sparse keys such as {@code LocalDate.toEpochDay()} without knowing the bounds in
+ * advance.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * FenwickTree tree = new FenwickTree();
+ * tree.add(date.toEpochDay(), 1250);               // +12.50 in cents
+ * long asOf = tree.prefixSum(today.toEpochDay());  // sum of all keys <= today
+ * long range = tree.rangeSum(start.toEpochDay(), end.toEpochDay());
+ * }</pre>
+ *
+ * <p>This class is not thread-safe; callers must synchronize externally.</p>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public class FenwickTree {
+
+    /** Number of keys covered by a freshly allocated tree */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Key stored at position 1 of the tree */
+    private long origin;
+
+    /** 1-based Fenwick array, {@code null} until the first update */
+    private long[] tree;
+
+    // ==================== UPDATE METHODS ====================
+
+    /**
+     * Adds a delta to the value stored at the given key.
+     *
+     * @param key the key to update
+     * @param delta the amount to add (may be negative)
+     */
+    public void add(long key, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        ensureCapacity(key);
+        for (int i = (int) (key - origin) + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Removes all values from the tree.
+     */
+    public void clear() {
+        tree = null;
+    }
+
+    // ==================== QUERY METHODS ====================
+
+    /**
+     * Returns the sum of the values of all keys less than or equal to the given key.
+     *
+     * @param key the inclusive upper bound
+     * @return the prefix sum
+     */
+    public long prefixSum(long key) {
+        if (tree == null || key < origin) {
+            return 0L;
+        }
+        long sum = 0L;
+        for (int i = (int) Math.min(key - origin + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the sum of the values of all keys in the inclusive range {@code [from, to]}.
+     *
+     * @param from the inclusive lower bound
+     * @param to the inclusive upper bound
+     * @return the range sum, or 0 if {@code from > to}
+     */
+    public long rangeSum(long from, long to) {
+        if (from > to) {
+            return 0L;
+        }
+        return prefixSum(to) - prefixSum(from - 1);
+    }
+
+    /**
+     * Passes every key holding a non-zero value, with that value, to a consumer in
+     * increasing key order. Runs in O(n log n) over the covered key range.
+     *
+     * @param consumer receives each key and its value
+     */
+    public void forEach(KeyValueConsumer consumer) {
+        if (tree == null) {
+            return;
+        }
+        long previous = 0L;
+        for (int i = 1; i < tree.length; i++) {
+            long current = prefixSum(origin + i - 1);
+            if (current != previous) {
+                consumer.accept(origin + i - 1, current - previous);
+            }
+            previous = current;
+        }
+    }
+
+    /**
+     * Checks whether any value has been recorded.
+     *
+     * @return true if the tree has never been updated or was cleared
+     */
+    public boolean isEmpty() {
+        return tree == null;
+    }
+
+    /**
+     * Receives the keys and values of a tree.
+     */
+    @FunctionalInterface
+    public interface KeyValueConsumer {
+        void accept(long key, long value);
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    /**
+     * Makes sure the key range covers the given key, rebuilding the tree with
+     * a doubled capacity when it does not.
+     *
+     * @param key the key that must be addressable
+     */
+    private void ensureCapacity(long key) {
+        if (tree == null) {
+            origin = key - INITIAL_CAPACITY / 2;
+            tree = new long[INITIAL_CAPACITY + 1];
+            return;
+        }
+        int capacity = tree.length - 1;
+        if (key >= origin && key < origin + capacity) {
+            return;
+        }
+
+        long[] values = new long[capacity];
+        long previous = 0L;
+        for (int i = 0; i < capacity; i++) {
+            long current = prefixSum(origin + i);
+            values[i] = current - previous;
+            previous = current;
+        }
+
+        long low = Math.min(origin, key);
+        long high = Math.max(origin + capacity, key + 1);
+        int newCapacity = capacity;
+        while (newCapacity < high - low) {
+            newCapacity <<= 1;
+        }
+        long newOrigin = key < origin ? high - newCapacity : origin;
+
+        long[] rebuilt = new long[newCapacity + 1];
+        int offset = (int) (origin - newOrigin);
+        for (int i = 0; i < capacity; i++) {
+            rebuilt[offset + i + 1] = values[i];
+        }
+        for (int i = 1; i <= newCapacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= newCapacity) {
+                rebuilt[parent] += rebuilt[i];
+            }
+        }
+        origin = newOrigin;
+        tree = rebuilt;
+    }
+}
@@ -0,0 +1,246 @@
+package it.unicam.cs.mpgc.jbudget120002.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding items until a point in time.
+ *
+ * <p>The lowest wheel has {@code wheelSize} buckets of {@code tickMillis} each; every
+ * higher wheel has buckets as wide as the whole wheel below it, and is only created once
+ * an item is scheduled beyond the range of the wheels below. Scheduling and cancelling
+ * are O(1). Items in a higher wheel are moved down when their bucket comes due, so each
+ * item is moved at most once per level. Only non-empty buckets are queued by due time,
+ * so {@link #nextExpiration()} tells a driver thread exactly how long it can sleep:
+ * there is no polling between expirations.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(60_000, 60, System.currentTimeMillis());
+ * HierarchicalTimingWheel.Timer<Long> timer = wheel.schedule(deadlineId, dueMillis);
+ * wheel.cancel(timer);
+ * wheel.advanceTo(System.currentTimeMillis(), expired -> remind(expired));
+ * long sleepUntil = wheel.nextExpiration();   // Long.MAX_VALUE when empty
+ * }</pre>
+ *
+ * <p>All methods are synchronized. Expired items are handed to the consumer while the
+ * lock is held, so consumers should only hand them on.</p>
+ *
+ * @param <T> the type of the scheduled items
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final Wheel lowest;
+
+    /** Non-empty buckets of every level, earliest due first */
+    private final PriorityQueue<Bucket> dueBuckets =
+        new PriorityQueue<>((a, b) -> Long.compare(a.expiration, b.expiration));
+
+    private int size;
+
+    /**
+     * A scheduled item, returned so that it can be cancelled.
+     *
+     * @param <T> the type of the item
+     */
+    public static final class Timer<T> {
+        private final T item;
+        private final long expiration;
+        private Object bucket;
+
+        private Timer(T item, long expiration) {
+            this.item = item;
+            this.expiration = expiration;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getExpiration() {
+            return expiration;
+        }
+
+        /**
+         * Tells whether the timer is still waiting: neither expired nor cancelled.
+         */
+        public boolean isPending() {
+            return bucket != null;
+        }
+    }
+
+    private final class Bucket {
+        final Set<Timer<T>> timers = new LinkedHashSet<>();
+        /** Start of the interval this bucket currently covers, or -1 while unused */
+        long expiration = -1;
+    }
+
+    private final class Wheel {
+        final long tickMillis;
+        final long intervalMillis;
+        final List<Bucket> buckets;
+        long currentTime;
+        Wheel overflow;
+
+        Wheel(long tickMillis, int wheelSize, long startMillis) {
+            this.tickMillis = tickMillis;
+            this.intervalMillis = Math.multiplyExact(tickMillis, (long) wheelSize);
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new Bucket());
+            }
+            this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        }
+
+        /**
+         * Files a timer in this wheel or a higher one.
+         *
+         * @return false if the timer is already due
+         */
+        boolean add(Timer<T> timer) {
+            if (timer.expiration < currentTime + tickMillis) {
+                return false;
+            }
+            if (timer.expiration < currentTime + intervalMillis) {
+                long virtualId = Math.floorDiv(timer.expiration, tickMillis);
+                Bucket bucket = buckets.get((int) Math.floorMod(virtualId, (long) buckets.size()));
+                bucket.timers.add(timer);
+                timer.bucket = bucket;
+                long bucketExpiration = virtualId * tickMillis;
+                if (bucket.expiration != bucketExpiration) {
+                    // A bucket is reused once the wheel has turned past it
+                    dueBuckets.remove(bucket);
+                    bucket.expiration = bucketExpiration;
+                    dueBuckets.add(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Wheel(intervalMillis, buckets.size(), currentTime);
+            }
+            return overflow.add(timer);
+        }
+
+        void advanceClock(long timeMillis) {
+            if (timeMillis >= currentTime + tickMillis) {
+                currentTime = timeMillis - Math.floorMod(timeMillis, tickMillis);
+                if (overflow != null) {
+                    overflow.advanceClock(currentTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an empty timing wheel.
+     *
+     * @param tickMillis the width of a bucket of the lowest wheel, the precision of the wheel
+     * @param wheelSize the number of buckets per wheel
+     * @param startMillis the current time
+     * @throws IllegalArgumentException if tickMillis or wheelSize is not positive
+     */
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        if (wheelSize <= 1) {
+            throw new IllegalArgumentException("Wheel size must be greater than one");
+        }
+        this.lowest = new Wheel(tickMillis, wheelSize, startMillis);
+    }
+
+    // ==================== SCHEDULING ====================
+
+    /**
+     * Schedules an item. An item whose time has already come expires one tick after the
+     * current time of the wheel.
+     *
+     * @param item the item
+     * @param expirationMillis when the item expires
+     * @return the timer, for cancellation
+     * @throws IllegalArgumentException if item is null
+     */
+    public synchronized Timer<T> schedule(T item, long expirationMillis) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        Timer<T> timer = new Timer<>(item, expirationMillis);
+        if (!lowest.add(timer)) {
+            // Already due: file it in the next tick of the lowest wheel
+            Timer<T> due = new Timer<>(item, lowest.currentTime + lowest.tickMillis);
+            lowest.add(due);
+            timer = due;
+        }
+        size++;
+        return timer;
+    }
+
+    /**
+     * Cancels a timer. Cancelling an expired or cancelled timer has no effect.
+     *
+     * @return true if the timer was pending
+     */
+    public synchronized boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.bucket == null) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        Bucket bucket = (Bucket) timer.bucket;
+        bucket.timers.remove(timer);
+        timer.bucket = null;
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the clock forward, handing every item due at or before the given time to
+     * the consumer, earliest first (items in the same tick in scheduling order).
+     *
+     * @param nowMillis the current time
+     * @param onExpired receives the expired items
+     */
+    public synchronized void advanceTo(long nowMillis, Consumer<T> onExpired) {
+        Bucket bucket;
+        while ((bucket = dueBuckets.peek()) != null && bucket.expiration <= nowMillis) {
+            dueBuckets.poll();
+            lowest.advanceClock(bucket.expiration);
+            List<Timer<T>> timers = new ArrayList<>(bucket.timers);
+            bucket.timers.clear();
+            bucket.expiration = -1;
+            for (Timer<T> timer : timers) {
+                timer.bucket = null;
+                // Lower wheels take the timer back unless it is due now
+                if (!lowest.add(timer)) {
+                    size--;
+                    onExpired.accept(timer.item);
+                }
+            }
+        }
+        lowest.advanceClock(nowMillis);
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * Returns when the next bucket comes due, or {@link Long#MAX_VALUE} if nothing is
+     * scheduled. Items may expire up to one tick of their wheel after that time.
+     */
+    public synchronized long nextExpiration() {
+        Bucket bucket = dueBuckets.peek();
+        return bucket != null ? bucket.expiration : Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of pending items.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
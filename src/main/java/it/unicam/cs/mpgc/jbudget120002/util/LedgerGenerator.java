@@ -0,0 +1,703 @@
+package it.unicam.cs.mpgc.jbudget120002.util;
+
+import it.unicam.cs.mpgc.jbudget120002.model.AmortizationSchedule;
+import it.unicam.cs.mpgc.jbudget120002.model.Installment;
+import it.unicam.cs.mpgc.jbudget120002.model.LoanScenario;
+import it.unicam.cs.mpgc.jbudget120002.service.AmortizationEngine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Deterministic generator of synthetic family ledgers for load and scale testing.
+ *
+ * <p>The generator writes a complete ledger directly through batched JDBC: households
+ * (groups under one extended-family group) with their members, a deep tag hierarchy,
+ * transactions, recurring scheduled transactions, loans with their installments,
+ * deadlines and monthly budgets. Amounts, categories and relative frequencies come from
+ * templates, by default the rows of {@code sample-data.csv}, and transaction dates
+ * follow a monthly seasonality curve.</p>
+ *
+ * <p>All random choices are drawn in a fixed order from a single seeded {@link Random},
+ * so the same options produce the same ledger on an empty database. Primary keys are
+ * assigned explicitly after the current maximum of each table, and the identity columns
+ * are moved past them at the end, so the application can keep inserting afterwards.</p>
+ *
+ * <p>The schema must already exist. Rows written here bypass the JPA entity listeners,
+ * so callers sharing the process with an EntityManager must invalidate the
+ * {@code BalanceIndex} afterwards.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * LedgerGenerator.Options options = new LedgerGenerator.Options()
+ *     .withSeed(42)
+ *     .withHouseholds(2)
+ *     .withUsersPerHousehold(5)
+ *     .withTransactions(1_000_000);
+ * LedgerGenerator generator = new LedgerGenerator(options,
+ *     LedgerGenerator.loadTemplates(Path.of("sample-data.csv")));
+ * LedgerGenerator.Result result = generator.generate(connection);
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public class LedgerGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(LedgerGenerator.class.getName());
+
+    /** Relative transaction frequency per month (January first) */
+    private static final double[] SEASONALITY = {
+        1.05, 0.90, 0.95, 0.95, 1.00, 1.05, 1.15, 1.20, 0.95, 0.95, 1.05, 1.40
+    };
+    private static final double MAX_SEASONALITY = 1.40;
+
+    /** Spread of generated amounts around the template amount (log-normal sigma) */
+    private static final double AMOUNT_SIGMA = 0.35;
+
+    // ==================== OPTIONS AND RESULT ====================
+
+    /**
+     * Size and shape of the generated ledger.
+     */
+    public static class Options {
+        private long seed = 42L;
+        private int households = 1;
+        private int usersPerHousehold = 4;
+        private long transactions = 10_000;
+        private int tagDepth = 4;
+        private int tagFanout = 3;
+        private int scheduledPerUser = 3;
+        private int loansPerHousehold = 1;
+        private int deadlinesPerUser = 6;
+        private int budgetMonths = 12;
+        private LocalDate endDate = LocalDate.of(2024, 12, 31);
+        private int years = 3;
+        private int batchSize = 5_000;
+        private boolean commitBatches = false;
+
+        public Options withSeed(long seed) { this.seed = seed; return this; }
+        public Options withHouseholds(int households) { this.households = positive(households, "Households"); return this; }
+        public Options withUsersPerHousehold(int users) { this.usersPerHousehold = positive(users, "Users per household"); return this; }
+        public Options withTransactions(long transactions) {
+            if (transactions < 0) {
+                throw new IllegalArgumentException("Transactions cannot be negative");
+            }
+            this.transactions = transactions;
+            return this;
+        }
+        public Options withTagDepth(int depth) { this.tagDepth = positive(depth, "Tag depth"); return this; }
+        public Options withTagFanout(int fanout) { this.tagFanout = positive(fanout, "Tag fanout"); return this; }
+        public Options withScheduledPerUser(int count) { this.scheduledPerUser = Math.max(count, 0); return this; }
+        public Options withLoansPerHousehold(int count) { this.loansPerHousehold = Math.max(count, 0); return this; }
+        public Options withDeadlinesPerUser(int count) { this.deadlinesPerUser = Math.max(count, 0); return this; }
+        public Options withBudgetMonths(int months) { this.budgetMonths = Math.max(months, 0); return this; }
+        public Options withYears(int years) { this.years = positive(years, "Years"); return this; }
+        public Options withBatchSize(int batchSize) { this.batchSize = positive(batchSize, "Batch size"); return this; }
+        public Options withEndDate(LocalDate endDate) {
+            if (endDate == null) {
+                throw new IllegalArgumentException("End date cannot be null");
+            }
+            this.endDate = endDate;
+            return this;
+        }
+
+        /** Commits after every executed batch, for standalone connections generating large ledgers */
+        public Options withCommitBatches(boolean commitBatches) { this.commitBatches = commitBatches; return this; }
+
+        public long getSeed() { return seed; }
+        public int getUserCount() { return households * usersPerHousehold; }
+        public long getTransactions() { return transactions; }
+        public LocalDate getEndDate() { return endDate; }
+        public LocalDate getStartDate() { return endDate.minusYears(years).plusDays(1); }
+
+        private static int positive(int value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be greater than zero");
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Shape of one generated transaction kind, parsed from a sample CSV row.
+     *
+     * @param description the transaction description
+     * @param category the category, used as root tag name
+     * @param amount the typical absolute amount
+     * @param income whether the transaction is an income
+     */
+    public record Template(String description, String category, BigDecimal amount, boolean income) {}
+
+    /**
+     * Identifiers and row counts of a generated ledger.
+     */
+    public record Result(List<Long> userIds, List<Long> householdGroupIds, List<Long> rootTagIds,
+                         Map<String, List<Long>> leafTagIdsByCategory, long transactions,
+                         long scheduledTransactions, long loanPlans, long deadlines, long budgets) {
+
+        @Override
+        public String toString() {
+            return String.format("%d users, %d households, %d root tags, %d transactions, %d scheduled, " +
+                    "%d loans, %d deadlines, %d budgets", userIds.size(), householdGroupIds.size(),
+                rootTagIds.size(), transactions, scheduledTransactions, loanPlans, deadlines, budgets);
+        }
+    }
+
+    // ==================== TEMPLATES ====================
+
+    /**
+     * Loads templates from a CSV file in the format of {@code sample-data.csv}
+     * ({@code Date,Description,Amount,Type,Tags}).
+     *
+     * @param csv the CSV file
+     * @return the parsed templates, or the default templates if the file has no rows
+     * @throws IOException if the file cannot be read
+     */
+    public static List<Template> loadTemplates(Path csv) throws IOException {
+        List<Template> templates = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length < 5 || fields[1].isBlank()) {
+                    continue;
+                }
+                BigDecimal amount = new BigDecimal(fields[2].trim()).abs();
+                if (amount.signum() == 0) {
+                    continue;
+                }
+                templates.add(new Template(fields[1].trim(), fields[4].trim(), amount,
+                    "Income".equalsIgnoreCase(fields[3].trim())));
+            }
+        }
+        return templates.isEmpty() ? defaultTemplates() : templates;
+    }
+
+    /**
+     * Templates used when no sample file is available; same shape as {@code sample-data.csv}.
+     */
+    public static List<Template> defaultTemplates() {
+        return List.of(
+            new Template("Salary", "Salary", new BigDecimal("2000"), true),
+            new Template("Groceries", "Food", new BigDecimal("150"), false),
+            new Template("Electricity Bill", "Utilities", new BigDecimal("60"), false),
+            new Template("Restaurant", "Food", new BigDecimal("40"), false),
+            new Template("Rent", "Housing", new BigDecimal("700"), false),
+            new Template("Bus Pass", "Transport", new BigDecimal("25"), false),
+            new Template("Movie Night", "Entertainment", new BigDecimal("20"), false)
+        );
+    }
+
+    // ==================== GENERATION ====================
+
+    private final Options options;
+    private final List<Template> templates;
+    private final double[] cumulativeWeights;
+    private final Random random;
+
+    public LedgerGenerator(Options options, List<Template> templates) {
+        if (options == null) {
+            throw new IllegalArgumentException("Options cannot be null");
+        }
+        if (templates == null || templates.isEmpty()) {
+            throw new IllegalArgumentException("Templates cannot be null or empty");
+        }
+        this.options = options;
+        this.templates = List.copyOf(templates);
+        this.random = new Random(options.seed);
+
+        // Small, frequent expenses dominate real ledgers: weight by 1/sqrt(amount)
+        this.cumulativeWeights = new double[this.templates.size()];
+        double total = 0;
+        for (int i = 0; i < this.templates.size(); i++) {
+            total += 1.0 / Math.sqrt(this.templates.get(i).amount().doubleValue());
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Generates the ledger on the given connection. The connection is not committed
+     * unless {@link Options#withCommitBatches(boolean)} is enabled.
+     *
+     * @param connection a connection to a database with the application schema
+     * @return the identifiers and row counts of the generated ledger
+     * @throws SQLException if a statement fails
+     */
+    public Result generate(Connection connection) throws SQLException {
+        IdAllocator ids = new IdAllocator(connection);
+
+        List<Long> householdIds = insertGroups(connection, ids);
+        List<Long> userIds = insertUsers(connection, ids, householdIds);
+        Map<String, Long> rootTags = new LinkedHashMap<>();
+        Map<String, List<Long>> leafTags = new LinkedHashMap<>();
+        insertTags(connection, ids, rootTags, leafTags);
+
+        long transactions = insertTransactions(connection, ids, userIds, leafTags);
+        long scheduled = insertScheduledTransactions(connection, ids, userIds, rootTags);
+        long loans = insertLoans(connection, ids, userIds);
+        long deadlines = insertDeadlines(connection, ids, userIds);
+        long budgets = insertBudgets(connection, ids, householdIds, rootTags);
+
+        ids.restartIdentities();
+        commitIfRequested(connection);
+
+        Result result = new Result(userIds, householdIds, new ArrayList<>(rootTags.values()), leafTags,
+            transactions, scheduled, loans, deadlines, budgets);
+        LOGGER.info("Generated ledger: " + result);
+        return result;
+    }
+
+    private List<Long> insertGroups(Connection connection, IdAllocator ids) throws SQLException {
+        List<Long> householdIds = new ArrayList<>();
+        Timestamp created = Timestamp.valueOf(options.getStartDate().atStartOfDay());
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO groups (id, name, description, creation_date, parent_id) VALUES (?, ?, ?, ?, ?)")) {
+            long familyId = ids.next("groups");
+            ps.setLong(1, familyId);
+            ps.setString(2, "Family " + familyId);
+            ps.setString(3, "Extended family");
+            ps.setTimestamp(4, created);
+            ps.setNull(5, java.sql.Types.BIGINT);
+            ps.addBatch();
+            for (int i = 0; i < options.households; i++) {
+                long id = ids.next("groups");
+                ps.setLong(1, id);
+                ps.setString(2, "Household " + id);
+                ps.setString(3, "Household " + (i + 1) + " of family " + familyId);
+                ps.setTimestamp(4, created);
+                ps.setLong(5, familyId);
+                ps.addBatch();
+                householdIds.add(id);
+            }
+            ps.executeBatch();
+        }
+        return householdIds;
+    }
+
+    private List<Long> insertUsers(Connection connection, IdAllocator ids, List<Long> householdIds) throws SQLException {
+        List<Long> userIds = new ArrayList<>();
+        try (PreparedStatement userPs = connection.prepareStatement(
+                "INSERT INTO users (id, username, password, email, full_name, name, surname) VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement groupPs = connection.prepareStatement(
+                "INSERT INTO user_groups (user_id, group_id) VALUES (?, ?)");
+             PreparedStatement rolePs = connection.prepareStatement(
+                "INSERT INTO user_roles (user_id, role) VALUES (?, ?)")) {
+            for (int h = 0; h < householdIds.size(); h++) {
+                for (int m = 0; m < options.usersPerHousehold; m++) {
+                    long id = ids.next("users");
+                    userPs.setLong(1, id);
+                    userPs.setString(2, "user" + id);
+                    userPs.setString(3, "password");
+                    userPs.setString(4, "user" + id + "@example.com");
+                    userPs.setString(5, "Member" + (m + 1) + " Household" + (h + 1));
+                    userPs.setString(6, "Member" + (m + 1));
+                    userPs.setString(7, "Household" + (h + 1));
+                    userPs.addBatch();
+
+                    groupPs.setLong(1, id);
+                    groupPs.setLong(2, householdIds.get(h));
+                    groupPs.addBatch();
+
+                    rolePs.setLong(1, id);
+                    rolePs.setString(2, m == 0 ? "ADMIN" : "MEMBER");
+                    rolePs.addBatch();
+                    userIds.add(id);
+                }
+            }
+            userPs.executeBatch();
+            groupPs.executeBatch();
+            rolePs.executeBatch();
+        }
+        return userIds;
+    }
+
+    /**
+     * One root tag per template category, each with a full subtree of
+     * {@code tagDepth} levels and {@code tagFanout} children per node.
+     */
+    private void insertTags(Connection connection, IdAllocator ids,
+                            Map<String, Long> rootTags, Map<String, List<Long>> leafTags) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO tags (id, name, parent_id, full_path) VALUES (?, ?, ?, ?)")) {
+            for (Template template : templates) {
+                if (rootTags.containsKey(template.category())) {
+                    continue;
+                }
+                long rootId = ids.next("tags");
+                addTag(ps, rootId, template.category(), null, template.category());
+                rootTags.put(template.category(), rootId);
+
+                List<Long> leaves = new ArrayList<>();
+                addSubtree(ps, ids, rootId, template.category(), template.category(), 1, leaves);
+                leafTags.put(template.category(), leaves.isEmpty() ? List.of(rootId) : leaves);
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private void addSubtree(PreparedStatement ps, IdAllocator ids, long parentId, String parentName,
+                            String parentPath, int level, List<Long> leaves) throws SQLException {
+        if (level >= options.tagDepth) {
+            return;
+        }
+        for (int i = 1; i <= options.tagFanout; i++) {
+            long id = ids.next("tags");
+            String name = parentName + "." + i;
+            String path = parentPath + "/" + name;
+            addTag(ps, id, name, parentId, path);
+            if (level + 1 >= options.tagDepth) {
+                leaves.add(id);
+            } else {
+                addSubtree(ps, ids, id, name, path, level + 1, leaves);
+            }
+        }
+    }
+
+    private static void addTag(PreparedStatement ps, long id, String name, Long parentId, String path) throws SQLException {
+        ps.setLong(1, id);
+        ps.setString(2, name);
+        if (parentId != null) {
+            ps.setLong(3, parentId);
+        } else {
+            ps.setNull(3, java.sql.Types.BIGINT);
+        }
+        ps.setString(4, path);
+        ps.addBatch();
+    }
+
+    private long insertTransactions(Connection connection, IdAllocator ids, List<Long> userIds,
+                                    Map<String, List<Long>> leafTags) throws SQLException {
+        LocalDate start = options.getStartDate();
+        int days = (int) (options.endDate.toEpochDay() - start.toEpochDay()) + 1;
+
+        try (PreparedStatement transactionPs = connection.prepareStatement(
+                "INSERT INTO transactions (id, date, description, amount, isIncome, currency, user_id, primary_tag_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement tagPs = connection.prepareStatement(
+                "INSERT INTO transaction_tags (transaction_id, tag_id) VALUES (?, ?)")) {
+            for (long n = 1; n <= options.transactions; n++) {
+                Template template = pickTemplate();
+                LocalDate date = pickDate(start, days);
+                List<Long> leaves = leafTags.get(template.category());
+                long id = ids.next("transactions");
+
+                transactionPs.setLong(1, id);
+                transactionPs.setDate(2, Date.valueOf(date));
+                transactionPs.setString(3, template.description());
+                transactionPs.setBigDecimal(4, vary(template.amount()));
+                transactionPs.setBoolean(5, template.income());
+                transactionPs.setString(6, "EUR");
+                transactionPs.setLong(7, userIds.get(random.nextInt(userIds.size())));
+                // Its only tag is its primary tag
+                long tagId = leaves.get(random.nextInt(leaves.size()));
+                transactionPs.setLong(8, tagId);
+                transactionPs.addBatch();
+
+                tagPs.setLong(1, id);
+                tagPs.setLong(2, tagId);
+                tagPs.addBatch();
+
+                if (n % options.batchSize == 0) {
+                    transactionPs.executeBatch();
+                    tagPs.executeBatch();
+                    commitIfRequested(connection);
+                    if (n % (options.batchSize * 100L) == 0) {
+                        LOGGER.info("Generated " + n + " of " + options.transactions + " transactions");
+                    }
+                }
+            }
+            transactionPs.executeBatch();
+            tagPs.executeBatch();
+        }
+        return options.transactions;
+    }
+
+    /**
+     * Each user gets the largest templates as monthly recurring transactions
+     * (salary, rent, bills), starting with the generated history.
+     */
+    private long insertScheduledTransactions(Connection connection, IdAllocator ids, List<Long> userIds,
+                                             Map<String, Long> rootTags) throws SQLException {
+        List<Template> recurring = new ArrayList<>(templates);
+        recurring.sort(Comparator.comparing(Template::amount).reversed());
+        int perUser = Math.min(options.scheduledPerUser, recurring.size());
+        long count = 0;
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO scheduled_transactions (id, user_id, description, amount, isIncome, startDate, endDate, " +
+                "RECURRENCEVALUE, RECURRENCEPATTERN, processingState, category) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement tagPs = connection.prepareStatement(
+                "INSERT INTO scheduled_transaction_tags (scheduled_transaction_id, tag_id) VALUES (?, ?)")) {
+            for (Long userId : userIds) {
+                for (int i = 0; i < perUser; i++) {
+                    Template template = recurring.get(i);
+                    long id = ids.next("scheduled_transactions");
+                    ps.setLong(1, id);
+                    ps.setLong(2, userId);
+                    ps.setString(3, template.description());
+                    ps.setBigDecimal(4, vary(template.amount()));
+                    ps.setBoolean(5, template.income());
+                    ps.setDate(6, Date.valueOf(options.getStartDate().plusDays(random.nextInt(28))));
+                    ps.setNull(7, java.sql.Types.DATE);
+                    ps.setInt(8, 1);
+                    ps.setString(9, "MONTHLY");
+                    ps.setString(10, "PENDING");
+                    ps.setString(11, template.category());
+                    ps.addBatch();
+
+                    tagPs.setLong(1, id);
+                    tagPs.setLong(2, rootTags.get(template.category()));
+                    tagPs.addBatch();
+                    count++;
+                }
+            }
+            ps.executeBatch();
+            tagPs.executeBatch();
+        }
+        return count;
+    }
+
+    /**
+     * Loans are computed with the application's AmortizationEngine and written like an
+     * accepted plan: one plan row plus one expense transaction per installment.
+     */
+    private long insertLoans(Connection connection, IdAllocator ids, List<Long> userIds) throws SQLException {
+        AmortizationEngine engine = new AmortizationEngine();
+        int households = userIds.size() / options.usersPerHousehold;
+        long count = 0;
+
+        try (PreparedStatement planPs = connection.prepareStatement(
+                "INSERT INTO loan_amortization_plans (id, description, principalAmount, annualInterestRate, " +
+                "termInMonths, startDate) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement installmentPs = connection.prepareStatement(
+                "INSERT INTO transactions (id, date, description, amount, isIncome, currency, loan_plan_id, " +
+                "user_id, principal_amount, interest_amount) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int h = 0; h < households; h++) {
+                Long ownerId = userIds.get(h * options.usersPerHousehold);
+                for (int l = 0; l < options.loansPerHousehold; l++) {
+                    long planId = ids.next("loan_amortization_plans");
+                    BigDecimal principal = BigDecimal.valueOf(5_000 + random.nextInt(200) * 1_000L);
+                    double rate = 1.5 + random.nextInt(50) / 10.0;
+                    int term = 12 * (5 + random.nextInt(26));
+                    LocalDate start = options.getStartDate().plusMonths(random.nextInt(12)).withDayOfMonth(1);
+                    String description = "Loan " + planId;
+
+                    planPs.setLong(1, planId);
+                    planPs.setString(2, description);
+                    planPs.setBigDecimal(3, principal);
+                    planPs.setBigDecimal(4, BigDecimal.valueOf(rate).setScale(2, RoundingMode.HALF_UP));
+                    planPs.setInt(5, term);
+                    planPs.setDate(6, Date.valueOf(start));
+                    planPs.addBatch();
+
+                    AmortizationSchedule schedule = engine.computeSchedule(
+                        new LoanScenario(description, principal, rate, term, start));
+                    for (Installment installment : schedule.getInstallments()) {
+                        installmentPs.setLong(1, ids.next("transactions"));
+                        installmentPs.setDate(2, Date.valueOf(installment.getDueDate()));
+                        installmentPs.setString(3, String.format("%s - Payment %d/%d",
+                            description, installment.getNumber(), schedule.getNumberOfPayments()));
+                        installmentPs.setBigDecimal(4, installment.getTotalPayment());
+                        installmentPs.setBoolean(5, false);
+                        installmentPs.setString(6, "EUR");
+                        installmentPs.setLong(7, planId);
+                        installmentPs.setLong(8, ownerId);
+                        installmentPs.setBigDecimal(9, installment.getPrincipal());
+                        installmentPs.setBigDecimal(10, installment.getInterest());
+                        installmentPs.addBatch();
+                    }
+                    count++;
+                }
+            }
+            // Plans first, installments reference them
+            planPs.executeBatch();
+            installmentPs.executeBatch();
+        }
+        return count;
+    }
+
+    /**
+     * Deadlines spread from two months before to four months after the end date;
+     * most of the past ones are paid.
+     */
+    private long insertDeadlines(Connection connection, IdAllocator ids, List<Long> userIds) throws SQLException {
+        long count = 0;
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO deadline (id, description, dueDate, amount, isPaid, category, user_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (Long userId : userIds) {
+                for (int i = 0; i < options.deadlinesPerUser; i++) {
+                    Template template = pickTemplate();
+                    LocalDate dueDate = options.endDate.minusDays(60).plusDays(random.nextInt(180));
+                    ps.setLong(1, ids.next("deadline"));
+                    ps.setString(2, template.description() + " due");
+                    ps.setDate(3, Date.valueOf(dueDate));
+                    ps.setDouble(4, vary(template.amount()).doubleValue());
+                    ps.setBoolean(5, dueDate.isBefore(options.endDate) && random.nextInt(10) < 8);
+                    ps.setString(6, template.category());
+                    ps.setLong(7, userId);
+                    ps.addBatch();
+                    count++;
+                }
+            }
+            ps.executeBatch();
+        }
+        return count;
+    }
+
+    /**
+     * One budget per household, expense category and month, sized around the expected
+     * monthly spending of the category.
+     */
+    private long insertBudgets(Connection connection, IdAllocator ids, List<Long> householdIds,
+                               Map<String, Long> rootTags) throws SQLException {
+        Map<String, BigDecimal> monthlyEstimate = estimateMonthlySpending(householdIds.size());
+        long count = 0;
+
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO budgets (id, name, amount, startDate, endDate, group_id) VALUES (?, ?, ?, ?, ?, ?)");
+             PreparedStatement tagPs = connection.prepareStatement(
+                "INSERT INTO budget_tags (budget_id, tag_id) VALUES (?, ?)")) {
+            for (Long householdId : householdIds) {
+                for (int month = 0; month < options.budgetMonths; month++) {
+                    LocalDate start = options.endDate.withDayOfMonth(1).minusMonths(month);
+                    for (Map.Entry<String, BigDecimal> entry : monthlyEstimate.entrySet()) {
+                        long id = ids.next("budgets");
+                        BigDecimal amount = entry.getValue()
+                            .multiply(BigDecimal.valueOf(0.8 + random.nextDouble() * 0.4))
+                            .setScale(2, RoundingMode.HALF_UP)
+                            .max(BigDecimal.ONE);
+                        ps.setLong(1, id);
+                        ps.setString(2, entry.getKey() + " " + start.getYear() + "-" + start.getMonthValue());
+                        ps.setBigDecimal(3, amount);
+                        ps.setDate(4, Date.valueOf(start));
+                        ps.setDate(5, Date.valueOf(start.withDayOfMonth(start.lengthOfMonth())));
+                        ps.setLong(6, householdId);
+                        ps.addBatch();
+
+                        tagPs.setLong(1, id);
+                        tagPs.setLong(2, rootTags.get(entry.getKey()));
+                        tagPs.addBatch();
+                        count++;
+                    }
+                }
+            }
+            ps.executeBatch();
+            tagPs.executeBatch();
+        }
+        return count;
+    }
+
+    // ==================== PRIVATE HELPER METHODS ====================
+
+    private Template pickTemplate() {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, target);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return templates.get(Math.min(index, templates.size() - 1));
+    }
+
+    /** Uniform day, thinned by the month's seasonality weight */
+    private LocalDate pickDate(LocalDate start, int days) {
+        while (true) {
+            LocalDate date = start.plusDays(random.nextInt(days));
+            if (random.nextDouble() * MAX_SEASONALITY <= SEASONALITY[date.getMonthValue() - 1]) {
+                return date;
+            }
+        }
+    }
+
+    private BigDecimal vary(BigDecimal amount) {
+        double factor = Math.exp(random.nextGaussian() * AMOUNT_SIGMA);
+        return amount.multiply(BigDecimal.valueOf(factor))
+            .setScale(2, RoundingMode.HALF_UP)
+            .max(new BigDecimal("0.01"));
+    }
+
+    /**
+     * Expected monthly spending per expense category and household, from the template
+     * weights and the configured number of transactions.
+     */
+    private Map<String, BigDecimal> estimateMonthlySpending(int households) {
+        double totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+        double transactionsPerMonth = options.transactions / (options.years * 12.0) / Math.max(households, 1);
+        Map<String, BigDecimal> estimate = new LinkedHashMap<>();
+        double previous = 0;
+        for (int i = 0; i < templates.size(); i++) {
+            Template template = templates.get(i);
+            double share = (cumulativeWeights[i] - previous) / totalWeight;
+            previous = cumulativeWeights[i];
+            if (template.income()) {
+                continue;
+            }
+            BigDecimal expected = template.amount().multiply(BigDecimal.valueOf(share * transactionsPerMonth));
+            estimate.merge(template.category(), expected, BigDecimal::add);
+        }
+        return estimate;
+    }
+
+    private void commitIfRequested(Connection connection) throws SQLException {
+        if (options.commitBatches && !connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * Hands out explicit primary keys after the current maximum of each table and
+     * moves the identity columns past them once generation is done.
+     */
+    private static final class IdAllocator {
+        private final Connection connection;
+        private final Map<String, Long> next = new LinkedHashMap<>();
+
+        IdAllocator(Connection connection) {
+            this.connection = connection;
+        }
+
+        long next(String table) throws SQLException {
+            Long id = next.get(table);
+            if (id == null) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                    rs.next();
+                    id = rs.getLong(1) + 1;
+                }
+            }
+            next.put(table, id + 1);
+            return id;
+        }
+
+        void restartIdentities() throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                for (Map.Entry<String, Long> entry : next.entrySet()) {
+                    statement.execute("ALTER TABLE " + entry.getKey() + " ALTER COLUMN id RESTART WITH " + entry.getValue());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package it.unicam.cs.mpgc.jbudget120002.util;
+
+import it.unicam.cs.mpgc.jbudget120002.repository.MigrationEngine;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line entry point of {@link LedgerGenerator}.
+ *
+ * Responsibilities:
+ * - Parse the generator options from the command line
+ * - Create or migrate the schema through the application persistence unit
+ * - Run the generator on a plain JDBC connection, committing every batch
+ *
+ * Usage:
+ * ./gradlew generateLedger --args="--url jdbc:h2:./data/scale;MODE=MySQL --households 2
+ *     --users-per-household 5 --transactions 1000000 --seed 7"
+ */
+public class LedgerGeneratorCli {
+
+    private static final String DEFAULT_URL = "jdbc:h2:./data/jbudget_new;MODE=MySQL";
+    private static final String DEFAULT_SAMPLE = "sample-data.csv";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> arguments = parseArguments(args);
+        if (arguments.containsKey("help")) {
+            printUsage();
+            return;
+        }
+
+        String url = arguments.getOrDefault("url", DEFAULT_URL);
+        LedgerGenerator.Options options = new LedgerGenerator.Options()
+            .withSeed(Long.parseLong(arguments.getOrDefault("seed", "42")))
+            .withHouseholds(Integer.parseInt(arguments.getOrDefault("households", "1")))
+            .withUsersPerHousehold(Integer.parseInt(arguments.getOrDefault("users-per-household", "4")))
+            .withTransactions(Long.parseLong(arguments.getOrDefault("transactions", "10000")))
+            .withTagDepth(Integer.parseInt(arguments.getOrDefault("tag-depth", "4")))
+            .withTagFanout(Integer.parseInt(arguments.getOrDefault("tag-fanout", "3")))
+            .withScheduledPerUser(Integer.parseInt(arguments.getOrDefault("scheduled-per-user", "3")))
+            .withLoansPerHousehold(Integer.parseInt(arguments.getOrDefault("loans-per-household", "1")))
+            .withDeadlinesPerUser(Integer.parseInt(arguments.getOrDefault("deadlines-per-user", "6")))
+            .withYears(Integer.parseInt(arguments.getOrDefault("years", "3")))
+            .withEndDate(LocalDate.parse(arguments.getOrDefault("end-date", "2024-12-31")))
+            .withBatchSize(Integer.parseInt(arguments.getOrDefault("batch-size", "5000")))
+            .withCommitBatches(true);
+
+        Path sample = Path.of(arguments.getOrDefault("sample", DEFAULT_SAMPLE));
+        List<LedgerGenerator.Template> templates = Files.exists(sample)
+            ? LedgerGenerator.loadTemplates(sample)
+            : LedgerGenerator.defaultTemplates();
+
+        createSchema(url);
+
+        long started = System.nanoTime();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            connection.setAutoCommit(false);
+            LedgerGenerator.Result result = new LedgerGenerator(options, templates).generate(connection);
+            connection.commit();
+            System.out.printf("Generated %s in %d ms%n", result, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Creates or migrates the tables, exactly as the application would on startup.
+     */
+    private static void createSchema(String url) {
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url", url);
+        EntityManagerFactory emf = MigrationEngine.createEntityManagerFactory(overrides);
+        emf.close();
+    }
+
+    private static Map<String, String> parseArguments(String[] args) {
+        Map<String, String> arguments = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String name = args[i].substring(2);
+            if ("help".equals(name)) {
+                arguments.put(name, "true");
+            } else if (i + 1 < args.length) {
+                arguments.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for --" + name);
+            }
+        }
+        return arguments;
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: generateLedger [--url <jdbc url>] [--seed <n>] [--households <n>]\n" +
+            "       [--users-per-household <n>] [--transactions <n>] [--tag-depth <n>] [--tag-fanout <n>]\n" +
+            "       [--scheduled-per-user <n>] [--loans-per-household <n>] [--deadlines-per-user <n>]\n" +
+            "       [--years <n>] [--end-date <yyyy-mm-dd>] [--batch-size <n>] [--sample <csv file>]");
+    }
+}
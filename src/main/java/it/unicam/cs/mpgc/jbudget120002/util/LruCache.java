@@ -0,0 +1,123 @@
+package it.unicam.cs.mpgc.jbudget120002.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded map evicting the least recently used entry once it is full.
+ *
+ * <p>Entries are kept in access order, so both reads and writes make an entry the most
+ * recently used. Hits and misses are counted, to tell whether the cache is sized
+ * sensibly. All methods are synchronized; {@link #computeIfAbsent} runs the loader
+ * outside of the lock, so a slow load does not block readers of other keys, at the cost
+ * of occasionally loading the same key twice.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * LruCache<Key, Result> cache = new LruCache<>(512);
+ * Result result = cache.computeIfAbsent(key, k -> compute(k));
+ * double hitRate = (double) cache.getHits() / (cache.getHits() + cache.getMisses());
+ * }</pre>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final LinkedHashMap<K, V> entries;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxEntries the number of entries kept at most
+     * @throws IllegalArgumentException if maxEntries is not positive
+     */
+    public LruCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Maximum number of entries must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxEntries;
+            }
+        };
+    }
+
+    // ==================== ACCESS METHODS ====================
+
+    /**
+     * Returns the value cached for a key, or null if there is none.
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    /**
+     * Caches a value, evicting the least recently used entry if the cache is full.
+     *
+     * @throws IllegalArgumentException if key or value is null
+     */
+    public synchronized void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key and value cannot be null");
+        }
+        entries.put(key, value);
+    }
+
+    /**
+     * Returns the value cached for a key, loading and caching it if there is none.
+     *
+     * @param key the key
+     * @param loader computes the value; it must not return null
+     * @return the cached or loaded value
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes every entry; the hit and miss counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // ==================== STATISTICS ====================
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,128 @@
+package it.unicam.cs.mpgc.jbudget120002.util;
+
+/**
+ * Downsampling of chart series with the Largest-Triangle-Three-Buckets algorithm.
+ *
+ * <p>A line chart cannot show more points than it has pixels, but it still creates a
+ * node for each point it is given. LTTB keeps the first and the last point and splits
+ * the others into buckets, one per point to keep. From each bucket it keeps the point
+ * forming the largest triangle with the point kept from the previous bucket and the
+ * average of the next bucket. Peaks and troughs therefore survive, where averaging or
+ * taking every n-th point would flatten them. The work is linear in the series length
+ * and the result never exceeds the requested size.</p>
+ *
+ * <p>The methods return the indices of the points kept, in increasing order, so that
+ * several series sharing the same x values can be sampled at the same points.</p>
+ *
+ * <p>Usage examples:</p>
+ * <pre>{@code
+ * int[] kept = SeriesDownsampler.largestTriangleThreeBuckets(amounts, 300);
+ * for (int i : kept) {
+ *     series.getData().add(new XYChart.Data<>(labels[i], amounts[i]));
+ * }
+ * }</pre>
+ *
+ * @author FamilyBudgetApp Team
+ * @version 1.0
+ * @since 1.0
+ */
+public final class SeriesDownsampler {
+
+    /** Fewest points a downsampled series can have: the first, the last and one between */
+    public static final int MIN_THRESHOLD = 3;
+
+    private SeriesDownsampler() {
+    }
+
+    /**
+     * Downsamples a series whose points are evenly spaced, such as the categories of a
+     * category axis.
+     *
+     * @param y the values of the series
+     * @param threshold the largest number of points to keep
+     * @return the indices of the points kept; all of them if there are no more than
+     *         {@code threshold}
+     * @throws IllegalArgumentException if y is null or threshold is below {@link #MIN_THRESHOLD}
+     */
+    public static int[] largestTriangleThreeBuckets(double[] y, int threshold) {
+        return largestTriangleThreeBuckets(null, y, threshold);
+    }
+
+    /**
+     * Downsamples a series.
+     *
+     * @param x the x values of the series, increasing, or null for evenly spaced points
+     * @param y the values of the series
+     * @param threshold the largest number of points to keep
+     * @return the indices of the points kept; all of them if there are no more than
+     *         {@code threshold}
+     * @throws IllegalArgumentException if y is null, x and y differ in length, or
+     *                                  threshold is below {@link #MIN_THRESHOLD}
+     */
+    public static int[] largestTriangleThreeBuckets(double[] x, double[] y, int threshold) {
+        if (y == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+        if (x != null && x.length != y.length) {
+            throw new IllegalArgumentException("X values and values must have the same length");
+        }
+        if (threshold < MIN_THRESHOLD) {
+            throw new IllegalArgumentException("Threshold must be at least " + MIN_THRESHOLD);
+        }
+        int n = y.length;
+        if (n <= threshold) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] kept = new int[threshold];
+        int count = 0;
+        // Every point but the first and the last falls in one of threshold - 2 buckets
+        double bucketSize = (double) (n - 2) / (threshold - 2);
+        int previous = 0;
+        kept[count++] = previous;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket, or the last point after the last bucket
+            int nextStart = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, n);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += xAt(x, i);
+                averageY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            // Point of this bucket forming the largest triangle
+            int start = (int) (bucket * bucketSize) + 1;
+            int end = (int) ((bucket + 1) * bucketSize) + 1;
+            double previousX = xAt(x, previous);
+            double previousY = y[previous];
+            double largestArea = -1;
+            int largest = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((previousX - averageX) * (y[i] - previousY)
+                    - (previousX - xAt(x, i)) * (averageY - previousY));
+                if (area > largestArea) {
+                    largestArea = area;
+                    largest = i;
+                }
+            }
+            kept[count++] = largest;
+            previous = largest;
+        }
+
+        kept[count] = n - 1;
+        return kept;
+    }
+
+    private static double xAt(double[] x, int index) {
+        return x != null ? x[index] : index;
+    }
+}
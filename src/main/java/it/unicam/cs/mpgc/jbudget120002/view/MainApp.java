@@ -3,7 +3,13 @@ package it.unicam.cs.mpgc.jbudget120002.view;
 import it.unicam.cs.mpgc.jbudget120002.controller.BaseController;
 import it.unicam.cs.mpgc.jbudget120002.controller.LoginController;
 import it.unicam.cs.mpgc.jbudget120002.controller.MainController;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.FlightRecording;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.FxStallWatchdog;
+import it.unicam.cs.mpgc.jbudget120002.diagnostics.StartupTimeline;
 import it.unicam.cs.mpgc.jbudget120002.model.User;
+import it.unicam.cs.mpgc.jbudget120002.repository.DatabaseBootstrap;
+import it.unicam.cs.mpgc.jbudget120002.service.DeadlineReminders;
+import it.unicam.cs.mpgc.jbudget120002.service.PrimaryTagBackfill;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
@@ -22,11 +28,24 @@ public class MainApp extends Application {
 
     @Override
     public void start(Stage stage) {
+        StartupTimeline timeline = StartupTimeline.getInstance();
+        timeline.mark("fx.started");
+        // Open the database in the background while the login view is shown
+        DatabaseBootstrap.getInstance().start().thenAccept(emf -> {
+            timeline.mark("database.ready");
+            // Tagged transactions saved before the primary tag was stored; a no-op afterwards
+            PrimaryTagBackfill.start(emf);
+        });
+
         this.primaryStage = stage;
         this.primaryStage.setTitle("Family Budget Manager");
         // Set the window icon
         this.primaryStage.getIcons().add(new Image(getClass().getResourceAsStream("/logo.png")));
 
+        // Measure how long database work blocks the UI
+        FxStallWatchdog.getInstance().start();
+        FlightRecording.getInstance().start();
+
         showLoginView();
 
         // Add a close request handler to cleanup resources
@@ -38,6 +57,7 @@ public class MainApp extends Application {
     }
 
     public void showLoginView() {
+        FxStallWatchdog.getInstance().setCurrentView("Login");
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/LoginView.fxml"));
             Scene scene = new Scene(loader.load(), 900, 850); // Width x Height
@@ -52,6 +72,7 @@ public class MainApp extends Application {
             this.currentController = controller;
 
             primaryStage.show();
+            StartupTimeline.getInstance().mark("login.shown");
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Failed to show login view", e);
         }
@@ -65,6 +86,7 @@ public class MainApp extends Application {
             }
 
             UserSession.getInstance().setLoggedInUser(user);
+            FxStallWatchdog.getInstance().setCurrentView("Main");
 
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/MainView.fxml"));
             Scene scene = new Scene(loader.load(), 1024, 768);
@@ -80,17 +102,37 @@ public class MainApp extends Application {
             primaryStage.setMinWidth(800);
             primaryStage.setMinHeight(600);
             primaryStage.centerOnScreen();
+            markInteractiveAfterFirstLayout(scene);
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Failed to show main view", e);
         }
     }
 
+    /**
+     * Ends the startup timeline once the main view has been laid out for its first
+     * frame, and logs it.
+     */
+    private void markInteractiveAfterFirstLayout(Scene scene) {
+        StartupTimeline.getInstance().mark("main.loaded");
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            // Removed after the pulse: the scene is iterating its listeners
+            Platform.runLater(() -> scene.removePostLayoutPulseListener(listener[0]));
+            StartupTimeline.getInstance().mark("interactive");
+            StartupTimeline.getInstance().report();
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
     private void cleanup() {
         try {
             LOGGER.info("Cleaning up application resources");
             if (currentController != null) {
                 currentController.cleanup();
             }
+            FxStallWatchdog.getInstance().stop();
+            DeadlineReminders.getInstance().stop();
+            FlightRecording.getInstance().stop();
             BaseController.closeEntityManagerFactory();
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error during cleanup", e);
@@ -0,0 +1,6 @@
+-- The primary tag column of transactions. Databases created by the former update
+-- strategy before the column was mapped lack it; those created from the mappings (V1)
+-- already have it, with the same foreign key.
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS primary_tag_id BIGINT;
+ALTER TABLE transactions ADD CONSTRAINT IF NOT EXISTS fk_transaction_primary_tag
+    FOREIGN KEY (primary_tag_id) REFERENCES tags (id);
@@ -0,0 +1,23 @@
+-- Composite indexes for the hot queries. The same indexes are declared with @Index on
+-- the entities, so a database created from the mappings (V1) already has them.
+
+-- Date-range, per-user, per-category and per-schedule reads of transactions
+CREATE INDEX IF NOT EXISTS idx_transaction_user_date ON transactions (user_id, date);
+CREATE INDEX IF NOT EXISTS idx_transaction_primary_tag ON transactions (primary_tag_id, date);
+CREATE INDEX IF NOT EXISTS idx_transaction_date ON transactions (date);
+CREATE INDEX IF NOT EXISTS idx_transaction_scheduled_date ON transactions (scheduled_transaction_id, date);
+
+-- Tag filters, from the tag to the tagged rows
+CREATE INDEX IF NOT EXISTS idx_transaction_tags_tag ON transaction_tags (tag_id, transaction_id);
+CREATE INDEX IF NOT EXISTS idx_scheduled_tags_tag ON scheduled_transaction_tags (tag_id, scheduled_transaction_id);
+CREATE INDEX IF NOT EXISTS idx_budget_tags_tag ON budget_tags (tag_id, budget_id);
+
+-- Schedules of a user, budgets active on a date, tags looked up by name
+CREATE INDEX IF NOT EXISTS idx_scheduled_user_start ON scheduled_transactions (user_id, startDate);
+CREATE INDEX IF NOT EXISTS idx_budget_dates ON budgets (startDate, endDate);
+CREATE INDEX IF NOT EXISTS idx_tag_name ON tags (name);
+
+-- Deadlines of a user by due date, and unpaid deadlines across users
+CREATE INDEX IF NOT EXISTS idx_deadline_user_paid_due ON Deadline (user_id, isPaid, dueDate);
+CREATE INDEX IF NOT EXISTS idx_deadline_user_due ON Deadline (user_id, dueDate);
+CREATE INDEX IF NOT EXISTS idx_deadline_paid_due ON Deadline (isPaid, dueDate);